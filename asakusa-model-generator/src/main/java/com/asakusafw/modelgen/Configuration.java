@@ -42,6 +42,8 @@ public class Configuration {
 
     private ModelMatcher matcher;
 
+    private boolean compactCodec;
+
     /**
      * 使用するJDBC Driverを返す。
      * @return JDBC Driverクラスの完全限定名
@@ -185,4 +187,20 @@ public class Configuration {
     public void setHeaderComments(List<String> headerComments) {
         this.headerComments = headerComments;
     }
+
+    /**
+     * モデルの直列化にコンパクトな形式を利用する場合のみ{@code true}を返す。
+     * @return コンパクトな形式を利用する場合のみ{@code true}
+     */
+    public boolean isCompactCodec() {
+        return compactCodec;
+    }
+
+    /**
+     * モデルの直列化にコンパクトな形式を利用するかどうかを設定する。
+     * @param compactCodec コンパクトな形式を利用する場合は{@code true}
+     */
+    public void setCompactCodec(boolean compactCodec) {
+        this.compactCodec = compactCodec;
+    }
 }
@@ -113,6 +113,16 @@ public final class Constants {
      */
     public static final List<String> ENV_HEADER_COMENT = buildEnvProperties("HEADER_COMMENT");
 
+    /**
+     * モデルの直列化にコンパクトな形式を利用するかどうか。
+     * <p>
+     * {@code true}を指定した場合、モデルは{@code com.asakusafw.runtime.value.CompactCodec}の形式で
+     * 直列化される。
+     * これを指定しない場合、それぞれのプロパティを順に直列化する従来の形式を利用する。
+     * </p>
+     */
+    public static final List<String> ENV_COMPACT_CODEC = buildEnvProperties("COMPACT_CODEC");
+
     /**
      * JDBCの設定ファイル内に記述する、JDBC Driverのキー。
      */
@@ -183,6 +193,11 @@ public final class Constants {
      */
     public static final String FORMAT_NAME_MODEL_OUTPUT = "{0}ModelOutput";
 
+    /**
+     * ModelAccessorの単純名フォーマット。
+     */
+    public static final String FORMAT_NAME_MODEL_ACCESSOR = "{0}ModelAccessor";
+
     private static List<String> buildEnvProperties(String suffix) {
         assert suffix != null;
         List<String> properties = new ArrayList<String>(ENV_PREFIX.length);
@@ -33,6 +33,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.asakusafw.modelgen.emitter.AnyModelEntityEmitter;
+import com.asakusafw.modelgen.emitter.ModelAccessorEmitter;
 import com.asakusafw.modelgen.emitter.ModelInputEmitter;
 import com.asakusafw.modelgen.emitter.ModelOutputEmitter;
 import com.asakusafw.modelgen.model.ModelDescription;
@@ -153,6 +154,7 @@ public class Main implements Callable<ModelRepository> {
                 configuration.getOutput(),
                 configuration.getBasePackage(),
                 configuration.getHeaderComments());
+        modelEmitter.setCompactCodec(configuration.isCompactCodec());
 
         ModelInputEmitter tsvInEmitter = new ModelInputEmitter(
                 factory,
@@ -166,6 +168,12 @@ public class Main implements Callable<ModelRepository> {
                 configuration.getBasePackage(),
                 configuration.getHeaderComments());
 
+        ModelAccessorEmitter accessorEmitter = new ModelAccessorEmitter(
+                factory,
+                configuration.getOutput(),
+                configuration.getBasePackage(),
+                configuration.getHeaderComments());
+
         int successCount = 0;
         int failedCount = 0;
         for (ModelDescription model : models) {
@@ -176,6 +184,7 @@ public class Main implements Callable<ModelRepository> {
                 modelEmitter.emit(model);
                 tsvInEmitter.emit(model);
                 tsvOutEmitter.emit(model);
+                accessorEmitter.emit(model);
                 successCount++;
             } catch (Exception e) {
                 LOG.error(
@@ -291,6 +300,12 @@ public class Main implements Callable<ModelRepository> {
             }
         }
 
+        String compact = findVariable(Constants.ENV_COMPACT_CODEC, false);
+        if (compact != null) {
+            result.setCompactCodec(Boolean.parseBoolean(compact));
+            LOG.info("コンパクトな直列化形式: {}", result.isCompactCodec());
+        }
+
         return result;
     }
 
@@ -59,6 +59,16 @@ public class AnyModelEntityEmitter {
         add(new SummarizedModelEntityEmitter(factory, output, packageName, headerComment));
     }
 
+    /**
+     * モデルの直列化に{@link com.asakusafw.runtime.value.CompactCodec}の形式を利用するかどうかを設定する。
+     * @param enabled 利用する場合は{@code true}
+     */
+    public void setCompactCodec(boolean enabled) {
+        for (ModelEntityEmitter<?> emitter : emitters.values()) {
+            emitter.setCompactCodec(enabled);
+        }
+    }
+
     private void add(ModelEntityEmitter<?> emitter) {
         assert emitter != null;
         assert emitters.containsKey(emitter.getEmitTargetType()) == false;
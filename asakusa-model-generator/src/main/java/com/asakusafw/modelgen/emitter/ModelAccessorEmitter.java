@@ -0,0 +1,240 @@
+/**
+ * Copyright 2011 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.modelgen.emitter;
+
+import java.io.File;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Generated;
+
+import com.asakusafw.modelgen.Constants;
+import com.asakusafw.modelgen.model.ModelDescription;
+import com.asakusafw.modelgen.model.ModelProperty;
+import com.asakusafw.runtime.io.ModelAccessor;
+import com.asakusafw.runtime.value.ValueOption;
+import com.ashigeru.lang.java.model.syntax.FormalParameterDeclaration;
+import com.ashigeru.lang.java.model.syntax.InfixOperator;
+import com.ashigeru.lang.java.model.syntax.ModelFactory;
+import com.ashigeru.lang.java.model.syntax.PackageDeclaration;
+import com.ashigeru.lang.java.model.syntax.SimpleName;
+import com.ashigeru.lang.java.model.syntax.Statement;
+import com.ashigeru.lang.java.model.syntax.Type;
+import com.ashigeru.lang.java.model.syntax.TypeBodyDeclaration;
+import com.ashigeru.lang.java.model.syntax.TypeDeclaration;
+import com.ashigeru.lang.java.model.syntax.TypeParameterDeclaration;
+import com.ashigeru.lang.java.model.util.AttributeBuilder;
+import com.ashigeru.lang.java.model.util.ExpressionBuilder;
+import com.ashigeru.lang.java.model.util.JavadocBuilder;
+import com.ashigeru.lang.java.model.util.Models;
+import com.ashigeru.lang.java.model.util.TypeBuilder;
+
+/**
+ * モデルの各プロパティに位置を指定してアクセスするプログラムを生成する。
+ */
+public class ModelAccessorEmitter extends BaseEmitter<ModelDescription> {
+
+    /**
+     * インスタンスを生成する。
+     * @param factory ソースコードを生成するファクトリ
+     * @param output 出力先のベースディレクトリ
+     * @param packageName 出力先のパッケージ名
+     * @param headerComment ファイルのヘッダコメント、不要の場合は{@code null}
+     */
+    public ModelAccessorEmitter(
+            ModelFactory factory,
+            File output,
+            String packageName,
+            List<String> headerComment) {
+        super(factory, output, packageName, headerComment);
+    }
+
+    @Override
+    protected PackageDeclaration createPackageDeclaration(ModelDescription model) {
+        return f.newPackageDeclaration(
+                common.getPackageNameOf(
+                        model.getReference(),
+                        Constants.CATEGORY_IO));
+    }
+
+    @Override
+    protected TypeDeclaration createTypeDeclaration(ModelDescription model) {
+        SimpleName name = createTypeName(model);
+        return f.newClassDeclaration(
+                new JavadocBuilder(f)
+                    .linkType(createModelType(model))
+                    .text("の各プロパティに位置を指定してアクセスする。")
+                    .toJavadoc(),
+                new AttributeBuilder(f)
+                    .annotation(
+                            bless(Generated.class),
+                            Models.toLiteral(f, MessageFormat.format("{0}:{1}",
+                                    getClass().getSimpleName(),
+                                    Constants.VERSION)))
+                    .annotation(bless(SuppressWarnings.class),
+                            Models.toLiteral(f, "deprecation"))
+                    .Public()
+                    .Final()
+                    .toAttributes(),
+                name,
+                Collections.<TypeParameterDeclaration>emptyList(),
+                null,
+                Collections.singletonList(f.newParameterizedType(
+                        bless(ModelAccessor.class),
+                        createModelType(model))),
+                createBodyDeclarations(model));
+    }
+
+    private List<TypeBodyDeclaration> createBodyDeclarations(ModelDescription model) {
+        List<TypeBodyDeclaration> results = new ArrayList<TypeBodyDeclaration>();
+        results.add(createModelClassGetter(model));
+        results.add(createPropertyCountGetter(model));
+        results.add(createPropertyNameGetter(model));
+        results.add(createPropertyGetter(model));
+        return results;
+    }
+
+    private TypeBodyDeclaration createModelClassGetter(ModelDescription model) {
+        return f.newMethodDeclaration(
+                null,
+                new AttributeBuilder(f)
+                    .annotation(bless(Override.class))
+                    .Public()
+                    .toAttributes(),
+                Collections.<TypeParameterDeclaration>emptyList(),
+                f.newParameterizedType(
+                        bless(Class.class),
+                        createModelType(model)),
+                f.newSimpleName("getModelClass"),
+                Collections.<FormalParameterDeclaration>emptyList(),
+                0,
+                Collections.<Type>emptyList(),
+                f.newBlock(new ExpressionBuilder(f, f.newClassLiteral(createModelType(model)))
+                    .toReturnStatement()));
+    }
+
+    private TypeBodyDeclaration createPropertyCountGetter(ModelDescription model) {
+        return f.newMethodDeclaration(
+                null,
+                new AttributeBuilder(f)
+                    .annotation(bless(Override.class))
+                    .Public()
+                    .toAttributes(),
+                Collections.<TypeParameterDeclaration>emptyList(),
+                bless(int.class),
+                f.newSimpleName("getPropertyCount"),
+                Collections.<FormalParameterDeclaration>emptyList(),
+                0,
+                Collections.<Type>emptyList(),
+                f.newBlock(new ExpressionBuilder(f, Models.toLiteral(f, model.getProperties().size()))
+                    .toReturnStatement()));
+    }
+
+    private TypeBodyDeclaration createPropertyNameGetter(ModelDescription model) {
+        List<Statement> cases = new ArrayList<Statement>();
+        int index = 0;
+        for (ModelProperty property : model.getProperties()) {
+            cases.add(f.newSwitchCaseLabel(Models.toLiteral(f, index++)));
+            cases.add(new ExpressionBuilder(f, Models.toLiteral(f, property.getName()))
+                .toReturnStatement());
+        }
+        cases.add(f.newSwitchDefaultLabel());
+        cases.add(createOutOfBoundsStatement());
+        return f.newMethodDeclaration(
+                null,
+                new AttributeBuilder(f)
+                    .annotation(bless(Override.class))
+                    .Public()
+                    .toAttributes(),
+                Collections.<TypeParameterDeclaration>emptyList(),
+                bless(String.class),
+                f.newSimpleName("getPropertyName"),
+                Collections.singletonList(f.newFormalParameterDeclaration(
+                        bless(int.class),
+                        createIndexParameterName())),
+                0,
+                Collections.<Type>emptyList(),
+                f.newBlock(f.newSwitchStatement(createIndexParameterName(), cases)));
+    }
+
+    private TypeBodyDeclaration createPropertyGetter(ModelDescription model) {
+        List<Statement> cases = new ArrayList<Statement>();
+        int index = 0;
+        for (ModelProperty property : model.getProperties()) {
+            SimpleName optionGetterName = common.getOptionGetterNameOf(
+                    property.getName(),
+                    property.getType());
+            cases.add(f.newSwitchCaseLabel(Models.toLiteral(f, index++)));
+            cases.add(new ExpressionBuilder(f, createModelParameterName())
+                .method(optionGetterName)
+                .toReturnStatement());
+        }
+        cases.add(f.newSwitchDefaultLabel());
+        cases.add(createOutOfBoundsStatement());
+        return f.newMethodDeclaration(
+                null,
+                new AttributeBuilder(f)
+                    .annotation(bless(Override.class))
+                    .Public()
+                    .toAttributes(),
+                Collections.<TypeParameterDeclaration>emptyList(),
+                f.newParameterizedType(
+                        bless(ValueOption.class),
+                        f.newWildcard()),
+                f.newSimpleName("get"),
+                Arrays.asList(
+                        f.newFormalParameterDeclaration(
+                                createModelType(model),
+                                createModelParameterName()),
+                        f.newFormalParameterDeclaration(
+                                bless(int.class),
+                                createIndexParameterName())),
+                0,
+                Collections.<Type>emptyList(),
+                f.newBlock(f.newSwitchStatement(createIndexParameterName(), cases)));
+    }
+
+    private Statement createOutOfBoundsStatement() {
+        return new TypeBuilder(f, bless(IndexOutOfBoundsException.class))
+            .newObject(new ExpressionBuilder(f, Models.toLiteral(f, "index="))
+                .apply(InfixOperator.PLUS, createIndexParameterName())
+                .toExpression())
+            .toThrowStatement();
+    }
+
+    private SimpleName createTypeName(ModelDescription model) {
+        SimpleName original = common.getTypeNameOf(model.getReference());
+        SimpleName name = f.newSimpleName(MessageFormat.format(
+                Constants.FORMAT_NAME_MODEL_ACCESSOR,
+                original.getToken()));
+        return name;
+    }
+
+    private Type createModelType(ModelDescription model) {
+        return bless(common.getModelType(model.getReference()));
+    }
+
+    private SimpleName createModelParameterName() {
+        return f.newSimpleName("model");
+    }
+
+    private SimpleName createIndexParameterName() {
+        return f.newSimpleName("index");
+    }
+}
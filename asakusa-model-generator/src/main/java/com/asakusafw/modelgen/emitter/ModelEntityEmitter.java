@@ -33,6 +33,7 @@ import com.asakusafw.modelgen.Constants;
 import com.asakusafw.modelgen.model.ModelDescription;
 import com.asakusafw.modelgen.model.ModelProperty;
 import com.asakusafw.modelgen.model.PropertyType;
+import com.asakusafw.runtime.value.CompactCodec;
 import com.ashigeru.lang.java.model.syntax.Annotation;
 import com.ashigeru.lang.java.model.syntax.Attribute;
 import com.ashigeru.lang.java.model.syntax.Block;
@@ -66,6 +67,8 @@ public abstract class ModelEntityEmitter<T extends ModelDescription>
 
     private static final int HASHCODE_PRIME = 31;
 
+    private boolean compactCodec;
+
     /**
      * インスタンスを生成する。
      * @param factory ソースコードを生成するファクトリ
@@ -81,6 +84,17 @@ public abstract class ModelEntityEmitter<T extends ModelDescription>
         super(factory, output, packageName, headerComment);
     }
 
+    /**
+     * モデルの直列化に{@link CompactCodec}の形式を利用するかどうかを設定する。
+     * <p>
+     * 既定では、それぞれのプロパティを{@code ValueOption#write(DataOutput)}で順に書き出す。
+     * </p>
+     * @param enabled {@link CompactCodec}の形式を利用する場合は{@code true}
+     */
+    public void setCompactCodec(boolean enabled) {
+        this.compactCodec = enabled;
+    }
+
     /**
      * このエミッタが対象に取れるモデルの種類を返す。
      * @return このエミッタが対象に取れるモデルの種類を表すクラス
@@ -378,14 +392,19 @@ public abstract class ModelEntityEmitter<T extends ModelDescription>
 
     private TypeBodyDeclaration createWritableWrite(T model) {
         SimpleName parameter = common.getVariableNameOf(model, "out");
-        List<Statement> statements = new ArrayList<Statement>();
-        for (ModelProperty property : model.getProperties()) {
-            SimpleName fieldName = common.getFieldNameOf(
-                    property.getName(),
-                    property.getType());
-            statements.add(new ExpressionBuilder(f, fieldName)
-                .method("write", parameter)
-                .toStatement());
+        List<Statement> statements;
+        if (compactCodec) {
+            statements = createCompactWrite(model, parameter);
+        } else {
+            statements = new ArrayList<Statement>();
+            for (ModelProperty property : model.getProperties()) {
+                SimpleName fieldName = common.getFieldNameOf(
+                        property.getName(),
+                        property.getType());
+                statements.add(new ExpressionBuilder(f, fieldName)
+                    .method("write", parameter)
+                    .toStatement());
+            }
         }
         return f.newMethodDeclaration(
                 null,
@@ -406,14 +425,19 @@ public abstract class ModelEntityEmitter<T extends ModelDescription>
 
     private TypeBodyDeclaration createWritableReadFields(T model) {
         SimpleName parameter = common.getVariableNameOf(model, "in");
-        List<Statement> statements = new ArrayList<Statement>();
-        for (ModelProperty property : model.getProperties()) {
-            SimpleName fieldName = common.getFieldNameOf(
-                    property.getName(),
-                    property.getType());
-            statements.add(new ExpressionBuilder(f, fieldName)
-                .method("readFields", parameter)
-                .toStatement());
+        List<Statement> statements;
+        if (compactCodec) {
+            statements = createCompactReadFields(model, parameter);
+        } else {
+            statements = new ArrayList<Statement>();
+            for (ModelProperty property : model.getProperties()) {
+                SimpleName fieldName = common.getFieldNameOf(
+                        property.getName(),
+                        property.getType());
+                statements.add(new ExpressionBuilder(f, fieldName)
+                    .method("readFields", parameter)
+                    .toStatement());
+            }
         }
         return f.newMethodDeclaration(
                 null,
@@ -432,6 +456,76 @@ public abstract class ModelEntityEmitter<T extends ModelDescription>
                 f.newBlock(statements));
     }
 
+    private List<Statement> createCompactWrite(T model, SimpleName out) {
+        List<ModelProperty> properties = model.getProperties();
+        List<Statement> statements = new ArrayList<Statement>();
+        for (int start = 0; start < properties.size(); start += CompactCodec.BITMAP_WIDTH) {
+            int end = Math.min(start + CompactCodec.BITMAP_WIDTH, properties.size());
+            Expression bitmap = null;
+            for (int i = start; i < end; i++) {
+                ModelProperty property = properties.get(i);
+                Expression bit = new TypeBuilder(f, bless(CompactCodec.class))
+                    .method("nullBit",
+                            common.getFieldNameOf(property.getName(), property.getType()),
+                            Models.toLiteral(f, i - start))
+                    .toExpression();
+                bitmap = bitmap == null ? bit : new ExpressionBuilder(f, bitmap)
+                    .apply(InfixOperator.OR, bit)
+                    .toExpression();
+            }
+            statements.add(new ExpressionBuilder(f, out)
+                .method("writeByte", bitmap)
+                .toStatement());
+        }
+        for (ModelProperty property : properties) {
+            SimpleName fieldName = common.getFieldNameOf(
+                    property.getName(),
+                    property.getType());
+            statements.add(f.newIfStatement(
+                    new ExpressionBuilder(f, fieldName)
+                        .method("isNull")
+                        .apply(InfixOperator.EQUALS, Models.toLiteral(f, false))
+                        .toExpression(),
+                    f.newBlock(new TypeBuilder(f, bless(CompactCodec.class))
+                        .method("write", out, fieldName)
+                        .toStatement()),
+                    null));
+        }
+        return statements;
+    }
+
+    private List<Statement> createCompactReadFields(T model, SimpleName in) {
+        List<ModelProperty> properties = model.getProperties();
+        List<Statement> statements = new ArrayList<Statement>();
+        List<SimpleName> bitmaps = new ArrayList<SimpleName>();
+        for (int start = 0; start < properties.size(); start += CompactCodec.BITMAP_WIDTH) {
+            SimpleName bitmap = common.getVariableNameOf(model, "nulls" + bitmaps.size());
+            statements.add(new ExpressionBuilder(f, in)
+                .method("readUnsignedByte")
+                .toLocalVariableDeclaration(Models.toType(f, int.class), bitmap));
+            bitmaps.add(bitmap);
+        }
+        for (int i = 0, n = properties.size(); i < n; i++) {
+            ModelProperty property = properties.get(i);
+            SimpleName fieldName = common.getFieldNameOf(
+                    property.getName(),
+                    property.getType());
+            statements.add(f.newIfStatement(
+                    new TypeBuilder(f, bless(CompactCodec.class))
+                        .method("isNull",
+                                bitmaps.get(i / CompactCodec.BITMAP_WIDTH),
+                                Models.toLiteral(f, i % CompactCodec.BITMAP_WIDTH))
+                        .toExpression(),
+                    f.newBlock(new ExpressionBuilder(f, fieldName)
+                        .method("setNull")
+                        .toStatement()),
+                    f.newBlock(new TypeBuilder(f, bless(CompactCodec.class))
+                        .method("read", in, fieldName)
+                        .toStatement())));
+        }
+        return statements;
+    }
+
     private TypeBodyDeclaration createHashCode(T model) {
         List<Statement> statements = new ArrayList<Statement>();
         SimpleName prime = common.getVariableNameOf(model, "prime");
@@ -459,4 +459,23 @@ public abstract class EmitterTestRoot {
             return createOutputFor(source);
         }
     }
+
+    /**
+     * {@link ModelAccessorEmitter}のモック。
+     */
+    protected class Accessor extends ModelAccessorEmitter {
+
+        Accessor() {
+            super(
+                    Models.getModelFactory(),
+                    new File("."),
+                    "com.example",
+                    Collections.singletonList("Model Accessor Emitter"));
+        }
+
+        @Override
+        protected PrintWriter openOutputFor(CompilationUnit source) throws IOException {
+            return createOutputFor(source);
+        }
+    }
 }
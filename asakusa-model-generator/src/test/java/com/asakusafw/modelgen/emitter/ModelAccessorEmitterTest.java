@@ -0,0 +1,76 @@
+/**
+ * Copyright 2011 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.modelgen.emitter;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import com.asakusafw.modelgen.model.Attribute;
+import com.asakusafw.modelgen.model.PropertyTypeKind;
+import com.asakusafw.modelgen.model.StringType;
+import com.asakusafw.modelgen.model.TableModelDescription;
+import com.asakusafw.modelgen.util.TableModelBuilder;
+import com.asakusafw.runtime.io.ModelAccessor;
+import com.asakusafw.runtime.value.LongOption;
+import com.asakusafw.runtime.value.StringOption;
+
+/**
+ * Test for {@link ModelAccessorEmitter}.
+ */
+public class ModelAccessorEmitterTest extends EmitterTestRoot {
+
+    /**
+     * 単純なモデルのテスト。
+     * @throws Throwable 例外が発生した場合
+     */
+    @SuppressWarnings("deprecation")
+    @Test
+    public void simple() throws Throwable {
+        TableModelDescription model = new TableModelBuilder("Model")
+            .add(null, "id", PropertyTypeKind.LONG, Attribute.PRIMARY_KEY)
+            .add(null, "value", new StringType(255))
+            .toDescription();
+
+        new Table().emit(model);
+        new Accessor().emit(model);
+
+        ClassLoader loader = compile();
+
+        Object obj = create(loader, "model.Model");
+        @SuppressWarnings("unchecked")
+        ModelAccessor<Object> accessor = (ModelAccessor<Object>) create(loader, "io.ModelModelAccessor");
+
+        assertThat(accessor.getModelClass().getName(), is("com.example.model.Model"));
+        assertThat(accessor.getPropertyCount(), is(2));
+        assertThat(accessor.getPropertyName(0), is("id"));
+        assertThat(accessor.getPropertyName(1), is("value"));
+
+        set(obj, "setId", 100L);
+        set(obj, "setValueAsString", "Hello");
+        assertThat(accessor.get(obj, 0), is((Object) new LongOption().modify(100L)));
+        assertThat(accessor.get(obj, 1), is((Object) new StringOption("Hello")));
+        assertThat(accessor.get(obj, 0), sameInstance(get(obj, "getIdOption")));
+
+        try {
+            accessor.get(obj, 2);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            // ok.
+        }
+    }
+}
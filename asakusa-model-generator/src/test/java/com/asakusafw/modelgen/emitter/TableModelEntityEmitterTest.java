@@ -111,6 +111,47 @@ public class TableModelEntityEmitterTest extends EmitterTestRoot {
         assertThat(restored, equalTo(hello));
     }
 
+    /**
+     * コンパクトな形式でのWritableのテスト。
+     * @throws Throwable 例外が発生した場合
+     */
+    @Test
+    public void writableCompact() throws Throwable {
+        TableModelDescription model = new TableModelBuilder("Hello")
+            .add(null, "id", PropertyTypeKind.LONG, Attribute.PRIMARY_KEY)
+            .add(null, "a", PropertyTypeKind.INT)
+            .add(null, "b", PropertyTypeKind.SHORT)
+            .add(null, "c", PropertyTypeKind.BYTE)
+            .add(null, "d", PropertyTypeKind.BOOLEAN)
+            .add(null, "e", PropertyTypeKind.DATE)
+            .add(null, "f", PropertyTypeKind.DATETIME)
+            .add(null, "g", new StringType(255))
+            .add(null, "h", PropertyTypeKind.LONG)
+            .add(null, "i", PropertyTypeKind.INT)
+            .toDescription();
+
+        Table emitter = new Table();
+        emitter.setCompactCodec(true);
+        emitter.emit(model);
+
+        ClassLoader loader = compile();
+        Object hello = loader.loadClass("com.example.model.Hello").newInstance();
+        set(hello, "setId", Long.MIN_VALUE);
+        set(hello, "setA", -5);
+        set(hello, "setB", (short) 1000);
+        set(hello, "setD", true);
+        set(hello, "setGAsString", "Hello, world!");
+        set(hello, "setI", Integer.MAX_VALUE);
+
+        Object restored = restore(hello);
+        assertThat(restored, not(sameInstance(hello)));
+        assertThat(restored, equalTo(hello));
+        assertThat(get(restored, "getId"), is((Object) Long.MIN_VALUE));
+        assertThat(get(restored, "getA"), is((Object) (-5)));
+        assertThat(get(restored, "getGAsString"), is((Object) "Hello, world!"));
+        assertThat(get(restored, "getI"), is((Object) Integer.MAX_VALUE));
+    }
+
     /**
      * 名前空間付きのモデル。
      * @throws Throwable 例外が発生した場合
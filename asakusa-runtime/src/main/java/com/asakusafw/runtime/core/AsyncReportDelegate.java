@@ -0,0 +1,377 @@
+/**
+ * Copyright 2011 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.runtime.core;
+
+import java.io.IOException;
+import java.text.MessageFormat;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.asakusafw.runtime.core.Report.Level;
+
+/**
+ * レポートを別スレッドで通知する{@link Report.Delegate}の実装。
+ * <p>
+ * 演算子のスレッドではレポートを有界のキューに積むだけで、
+ * 実際の通知は{@link #K_DESTINATION_CLASS}で指定した委譲オブジェクトに対して別スレッドで行う。
+ * キューが一杯の場合、「エラー」レポートは空きができるまで待ち、
+ * それ以外のレポートは破棄して破棄した件数を後で通知する。
+ * </p>
+ * <p>
+ * また、数字の部分を除いて同じ内容のメッセージを同じ雛形とみなし、
+ * 雛形ごとに一定時間内に通知する件数を{@link #K_RATE_LIMIT}件までに制限する。
+ * 制限を超えたメッセージは通知せず、次の期間の始めかこのオブジェクトの解放時に
+ * 抑止した件数をまとめて通知する。
+ * </p>
+ * <p>
+ * 通知は非同期に行われるため、委譲先での通知の失敗は{@link Report.FailedException}とならず、
+ * ログに記録されるのみとなる。
+ * </p>
+<pre><code>
+例:
+hadoop jar ... -D com.asakusafw.runtime.core.Report.Delegate=com.asakusafw.runtime.core.AsyncReportDelegate
+</code></pre>
+ */
+public class AsyncReportDelegate extends Report.Delegate {
+
+    static final Log LOG = LogFactory.getLog(AsyncReportDelegate.class);
+
+    /**
+     * 実際に通知を行う{@link Report.Delegate}の実装クラスを指定するプロパティ名。
+     * <p>
+     * 省略した場合は{@link Report.Default}を利用する。
+     * </p>
+     */
+    public static final String K_DESTINATION_CLASS = "com.asakusafw.runtime.core.AsyncReportDelegate.destination";
+
+    /**
+     * 通知を待つレポートの最大件数を指定するプロパティ名。
+     */
+    public static final String K_QUEUE_SIZE = "com.asakusafw.runtime.core.AsyncReportDelegate.queue.size";
+
+    /**
+     * 雛形ごとに一定時間内に通知するレポートの最大件数を指定するプロパティ名。
+     */
+    public static final String K_RATE_LIMIT = "com.asakusafw.runtime.core.AsyncReportDelegate.rate.limit";
+
+    /**
+     * 通知を待つレポートの最大件数の既定値。
+     */
+    public static final int DEFAULT_QUEUE_SIZE = 1024;
+
+    /**
+     * 雛形ごとに一定時間内に通知するレポートの最大件数の既定値。
+     */
+    public static final int DEFAULT_RATE_LIMIT = 10;
+
+    /**
+     * 通知件数を制限する期間のミリ秒数。
+     */
+    static final long RATE_WINDOW = 1000L;
+
+    /**
+     * 同時に管理する雛形の最大数。
+     */
+    static final int MAX_TEMPLATES = 1000;
+
+    private final Object lock = new Object();
+
+    private final Map<String, Template> templates = new HashMap<String, Template>();
+
+    private Report.Delegate destination;
+
+    private BlockingQueue<Entry> queue;
+
+    private int rateLimit;
+
+    private long dropped;
+
+    private Thread worker;
+
+    /**
+     * 実行時の設定を利用するインスタンスを生成する。
+     */
+    public AsyncReportDelegate() {
+        return;
+    }
+
+    /**
+     * 設定を指定してインスタンスを生成する。
+     * <p>
+     * このコンストラクタで生成した場合、{@link #setup(ResourceConfiguration)}で
+     * 委譲先やキューの大きさを設定から読み出さない。
+     * </p>
+     * @param destination 実際に通知を行う委譲オブジェクト
+     * @param queueSize 通知を待つレポートの最大件数
+     * @param rateLimit 雛形ごとに一定時間内に通知するレポートの最大件数
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     */
+    public AsyncReportDelegate(Report.Delegate destination, int queueSize, int rateLimit) {
+        if (destination == null) {
+            throw new IllegalArgumentException("destination must not be null"); //$NON-NLS-1$
+        }
+        this.destination = destination;
+        this.queue = new ArrayBlockingQueue<Entry>(Math.max(1, queueSize));
+        this.rateLimit = Math.max(1, rateLimit);
+    }
+
+    @Override
+    public void setup(ResourceConfiguration configuration) throws IOException, InterruptedException {
+        if (destination == null) {
+            destination = loadDestination(configuration);
+            queue = new ArrayBlockingQueue<Entry>(
+                    Math.max(1, getInt(configuration, K_QUEUE_SIZE, DEFAULT_QUEUE_SIZE)));
+            rateLimit = Math.max(1, getInt(configuration, K_RATE_LIMIT, DEFAULT_RATE_LIMIT));
+        }
+        destination.setup(configuration);
+        worker = new Thread(new Worker(), "asakusa-report");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private Report.Delegate loadDestination(ResourceConfiguration configuration) throws IOException {
+        assert configuration != null;
+        String className = configuration.get(K_DESTINATION_CLASS, null);
+        if (className == null) {
+            return new Report.Default();
+        }
+        try {
+            Class<?> aClass = configuration.getClassLoader().loadClass(className);
+            return aClass.asSubclass(Report.Delegate.class).newInstance();
+        } catch (Exception e) {
+            throw new IOException(MessageFormat.format(
+                    "{0}の初期化に失敗しました",
+                    className), e);
+        }
+    }
+
+    private int getInt(ResourceConfiguration configuration, String key, int defaultValue) {
+        assert configuration != null;
+        assert key != null;
+        String value = configuration.get(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            LOG.warn(MessageFormat.format(
+                    "\"{0}\"の値を解釈できません: {1}",
+                    key,
+                    value));
+            return defaultValue;
+        }
+    }
+
+    @Override
+    public void cleanup(ResourceConfiguration configuration) throws IOException, InterruptedException {
+        synchronized (lock) {
+            flushTemplates();
+            flushDropped();
+        }
+        if (worker != null) {
+            queue.put(Entry.END);
+            worker.join();
+            worker = null;
+        }
+        destination.cleanup(configuration);
+    }
+
+    @Override
+    protected void report(Level level, String message) throws IOException {
+        synchronized (lock) {
+            long now = currentTimeMillis();
+            Template template = getTemplate(level, message, now);
+            if (template.windowStart + RATE_WINDOW <= now) {
+                flushTemplate(template);
+                template.windowStart = now;
+                template.count = 0;
+            }
+            if (template.count >= rateLimit) {
+                template.suppressed++;
+                return;
+            }
+            template.count++;
+            flushDropped();
+            offer(new Entry(level, message));
+        }
+    }
+
+    private Template getTemplate(Level level, String message, long now) {
+        assert level != null;
+        assert message != null;
+        String key = toTemplateKey(level, message);
+        Template template = templates.get(key);
+        if (template == null) {
+            if (templates.size() >= MAX_TEMPLATES) {
+                flushTemplates();
+                templates.clear();
+            }
+            template = new Template(level, message, now);
+            templates.put(key, template);
+        }
+        return template;
+    }
+
+    static String toTemplateKey(Level level, String message) {
+        assert level != null;
+        assert message != null;
+        StringBuilder buf = new StringBuilder(message.length() + 8);
+        buf.append(level.ordinal());
+        buf.append(':');
+        boolean digits = false;
+        for (int i = 0, n = message.length(); i < n; i++) {
+            char c = message.charAt(i);
+            if ('0' <= c && c <= '9') {
+                if (digits == false) {
+                    buf.append('#');
+                    digits = true;
+                }
+            } else {
+                buf.append(c);
+                digits = false;
+            }
+        }
+        return buf.toString();
+    }
+
+    private void flushTemplates() {
+        for (Iterator<Template> iter = templates.values().iterator(); iter.hasNext();) {
+            flushTemplate(iter.next());
+        }
+    }
+
+    private void flushTemplate(Template template) {
+        assert template != null;
+        if (template.suppressed > 0) {
+            offer(new Entry(template.level, MessageFormat.format(
+                    "{0} (同様のメッセージをほかに{1}件抑止しました)",
+                    template.example,
+                    String.valueOf(template.suppressed))));
+            template.suppressed = 0;
+        }
+    }
+
+    private void flushDropped() {
+        if (dropped > 0 && queue.remainingCapacity() > 0) {
+            Entry entry = new Entry(Level.WARN, MessageFormat.format(
+                    "通知待ちのレポートが多すぎるため、{0}件のレポートを破棄しました",
+                    String.valueOf(dropped)));
+            if (queue.offer(entry)) {
+                dropped = 0;
+            }
+        }
+    }
+
+    private void offer(Entry entry) {
+        assert entry != null;
+        if (entry.level == Level.ERROR) {
+            try {
+                queue.put(entry);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                dropped++;
+            }
+        } else if (queue.offer(entry) == false) {
+            dropped++;
+        }
+    }
+
+    /**
+     * 現在時刻のミリ秒数を返す。
+     * @return 現在時刻のミリ秒数
+     */
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    private static final class Template {
+
+        final Level level;
+
+        final String example;
+
+        long windowStart;
+
+        int count;
+
+        long suppressed;
+
+        Template(Level level, String example, long windowStart) {
+            assert level != null;
+            assert example != null;
+            this.level = level;
+            this.example = example;
+            this.windowStart = windowStart;
+        }
+    }
+
+    private static final class Entry {
+
+        static final Entry END = new Entry(null, null);
+
+        final Level level;
+
+        final String message;
+
+        Entry(Level level, String message) {
+            this.level = level;
+            this.message = message;
+        }
+    }
+
+    private class Worker implements Runnable {
+
+        Worker() {
+            return;
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Entry entry;
+                try {
+                    entry = queue.take();
+                } catch (InterruptedException e) {
+                    LOG.warn("レポートの通知が中断されました", e);
+                    return;
+                }
+                if (entry == Entry.END) {
+                    return;
+                }
+                try {
+                    destination.report(entry.level, entry.message);
+                } catch (IOException e) {
+                    LOG.warn(MessageFormat.format(
+                            "レポートの通知に失敗しました: [{0}] {1}",
+                            entry.level,
+                            entry.message), e);
+                } catch (RuntimeException e) {
+                    LOG.warn(MessageFormat.format(
+                            "レポートの通知に失敗しました: [{0}] {1}",
+                            entry.level,
+                            entry.message), e);
+                }
+            }
+        }
+    }
+}
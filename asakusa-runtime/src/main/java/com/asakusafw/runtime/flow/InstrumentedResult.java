@@ -0,0 +1,99 @@
+/**
+ * Copyright 2011 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.runtime.flow;
+
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.TaskInputOutputContext;
+
+import com.asakusafw.runtime.core.Result;
+
+/**
+ * 演算子の出力ごとにレコード数と処理時間を計測する{@link Result}。
+ * <p>
+ * レコード数は{@value #COUNTER_RECORDS}、処理時間は{@value #COUNTER_NANOS}という名前の
+ * Hadoopのカウンタとしてそれぞれ報告する。
+ * カウンタの数を抑えるため、同じ演算子の出力はすべて同じカウンタに合算する。
+ * 処理時間は{@link #SAMPLING_INTERVAL}件ごとに1件だけ計測し、その値を間隔倍した見積もりである。
+ * 初回の処理はクラスのロードなどを含み突出して遅くなりやすいため、
+ * 計測は最初のレコードではなく{@link #SAMPLING_INTERVAL}件目から開始する。
+ * また、計測される時間は後続の演算子すべての処理時間を含む。
+ * </p>
+ * @param <T> 結果の型
+ */
+public class InstrumentedResult<T> implements Result<T> {
+
+    /**
+     * 処理時間を計測する間隔 (レコード数)。
+     */
+    public static final int SAMPLING_INTERVAL = 128;
+
+    /**
+     * レコード数を報告するカウンタの名前。
+     */
+    public static final String COUNTER_RECORDS = "records";
+
+    /**
+     * 処理時間を報告するカウンタの名前。
+     */
+    public static final String COUNTER_NANOS = "nanos";
+
+    private static final int SAMPLING_MASK = SAMPLING_INTERVAL - 1;
+
+    private final Result<T> delegate;
+
+    private final Counter records;
+
+    private final Counter nanos;
+
+    private int count;
+
+    /**
+     * インスタンスを生成する。
+     * @param delegate 結果の実際の出力先
+     * @param context カウンタを取得するコンテキスト
+     * @param group カウンタのグループ名 (演算子ごとに一意な名前)
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     */
+    public InstrumentedResult(
+            Result<T> delegate,
+            TaskInputOutputContext<?, ?, ?, ?> context,
+            String group) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("delegate must not be null"); //$NON-NLS-1$
+        }
+        if (context == null) {
+            throw new IllegalArgumentException("context must not be null"); //$NON-NLS-1$
+        }
+        if (group == null) {
+            throw new IllegalArgumentException("group must not be null"); //$NON-NLS-1$
+        }
+        this.delegate = delegate;
+        this.records = context.getCounter(group, COUNTER_RECORDS);
+        this.nanos = context.getCounter(group, COUNTER_NANOS);
+    }
+
+    @Override
+    public void add(T result) {
+        records.increment(1);
+        if ((++count & SAMPLING_MASK) != 0) {
+            delegate.add(result);
+            return;
+        }
+        long start = System.nanoTime();
+        delegate.add(result);
+        nanos.increment((System.nanoTime() - start) * SAMPLING_INTERVAL);
+    }
+}
@@ -22,6 +22,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.RecordWriter;
 import org.apache.hadoop.mapreduce.TaskInputOutputContext;
 import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
 
@@ -37,16 +38,25 @@ public class ResultOutput<T extends Writable> implements Result<T> {
 
     private MultipleOutputs<?, ?> collector;
 
+    private RecordWriter<Object, Object> writer;
+
     private String outputName;
 
+    private long recordCount;
+
     /**
      * インスタンスを生成する。
+     * <p>
+     * このコンストラクタで生成した出力は、結果ごとに出力先を名前で検索する。
+     * </p>
      * @param outputs 結果の出力先
      * @param outputName 出力先の名前
      * @throws IOException 初期化に失敗した場合
      * @throws InterruptedException 初期化に失敗した場合
      * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     * @deprecated {@link #ResultOutput(String, RecordWriter)}を利用すること
      */
+    @Deprecated
     public ResultOutput(
             MultipleOutputs<?, ?> outputs,
             String outputName) throws IOException, InterruptedException {
@@ -61,6 +71,28 @@ public class ResultOutput<T extends Writable> implements Result<T> {
         initialize();
     }
 
+    /**
+     * インスタンスを生成する。
+     * <p>
+     * このコンストラクタで生成した出力は、結果を指定の{@link RecordWriter}に直接書き出す。
+     * {@link RecordWriter}はこのオブジェクトの外側で閉じること。
+     * </p>
+     * @param outputName 出力先の名前
+     * @param writer 結果の出力先
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     */
+    @SuppressWarnings("unchecked")
+    public ResultOutput(String outputName, RecordWriter<?, ?> writer) {
+        if (outputName == null) {
+            throw new IllegalArgumentException("outputName must not be null"); //$NON-NLS-1$
+        }
+        if (writer == null) {
+            throw new IllegalArgumentException("writer must not be null"); //$NON-NLS-1$
+        }
+        this.outputName = outputName;
+        this.writer = (RecordWriter<Object, Object>) writer;
+    }
+
     private void initialize() throws IOException, InterruptedException {
         LOG.info(MessageFormat.format("出力{0}を初期化しています", outputName));
         try {
@@ -78,12 +110,33 @@ public class ResultOutput<T extends Writable> implements Result<T> {
     @Override
     public void add(T result) {
         try {
-            collector.write(outputName, NullWritable.get(), result);
+            if (writer != null) {
+                writer.write(NullWritable.get(), result);
+            } else {
+                collector.write(outputName, NullWritable.get(), result);
+            }
+            recordCount++;
         } catch (Exception e) {
             throw new Result.OutputException(e);
         }
     }
 
+    /**
+     * この出力の名前を返す。
+     * @return この出力の名前
+     */
+    public String getOutputName() {
+        return outputName;
+    }
+
+    /**
+     * これまでに出力した結果の個数を返す。
+     * @return 出力した結果の個数
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+
     /**
      * {@link MultipleOutputs}を安全に生成する。
      * @param <K> キーの型
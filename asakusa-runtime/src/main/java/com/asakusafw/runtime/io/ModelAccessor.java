@@ -0,0 +1,62 @@
+/**
+ * Copyright 2011 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.runtime.io;
+
+import com.asakusafw.runtime.value.ValueOption;
+
+/**
+ * モデルオブジェクトの各プロパティに、位置を指定してアクセスするためのインターフェース。
+ * <p>
+ * このインターフェースの実装はモデルジェネレータによって生成され、
+ * モデルクラス{@code ...model.Hoge}に対して{@code ...io.HogeModelAccessor}に配置される。
+ * </p>
+ * @param <T> 対象とするモデルの種類
+ * @see ModelIoFactory#createModelAccessor()
+ */
+public interface ModelAccessor<T> {
+
+    /**
+     * 対象とするモデルクラスを返す。
+     * @return 対象とするモデルクラス
+     */
+    Class<T> getModelClass();
+
+    /**
+     * 対象のモデルが持つプロパティの個数を返す。
+     * @return プロパティの個数
+     */
+    int getPropertyCount();
+
+    /**
+     * 指定の位置にあるプロパティの名前を返す。
+     * @param index プロパティの位置 ({@code 0}から始まる宣言順)
+     * @return 対応するプロパティの名前
+     * @throws IndexOutOfBoundsException 位置が範囲外である場合
+     */
+    String getPropertyName(int index);
+
+    /**
+     * 指定のモデルオブジェクトから、指定の位置にあるプロパティの値を返す。
+     * <p>
+     * 返される値はモデルオブジェクトが保持するオブジェクトそのものである。
+     * </p>
+     * @param model 対象のモデルオブジェクト
+     * @param index プロパティの位置 ({@code 0}から始まる宣言順)
+     * @return 対応するプロパティの値
+     * @throws IndexOutOfBoundsException 位置が範囲外である場合
+     */
+    ValueOption<?> get(T model, int index);
+}
@@ -45,6 +45,11 @@ public abstract class ModelIoFactory<T> {
      */
     public static final String MODEL_OUTPUT_CLASS_FORMAT = "{0}.io.{1}ModelOutput";
 
+    /**
+     * {@link ModelAccessor}の実装が配置してある場所の名前 ({0} - ベースパッケージ, {1} - モデルの単純名)。
+     */
+    public static final String MODEL_ACCESSOR_CLASS_FORMAT = "{0}.io.{1}ModelAccessor";
+
     private Class<T> modelClass;
 
     /**
@@ -180,6 +185,33 @@ public abstract class ModelIoFactory<T> {
         }
     }
 
+    /**
+     * このファクトリが対象とするモデルに対する{@link ModelAccessor}を新しく生成して返す。
+     * @return 生成した{@code ModelAccessor}のインスタンス
+     * @throws IOException {@code ModelAccessor}が存在しない、または生成に失敗した場合
+     */
+    public ModelAccessor<T> createModelAccessor() throws IOException {
+        Class<?> accessorClass;
+        try {
+            accessorClass = findModelAccessorClass();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(MessageFormat.format(
+                    "Cannot find a model accessor for {0}",
+                    modelClass.getName()),
+                    e);
+        }
+        try {
+            @SuppressWarnings("unchecked")
+            ModelAccessor<T> instance = (ModelAccessor<T>) accessorClass.newInstance();
+            return instance;
+        } catch (Exception e) {
+            throw new IOException(MessageFormat.format(
+                    "Cannot initialize a model accessor for {0}",
+                    modelClass.getName()),
+                    e);
+        }
+    }
+
     /**
      * このファクトリが{@link #createModelInput(InputStream)}で利用するレコードパーサーを返す。
      * @param in 対象の入力
@@ -222,6 +254,18 @@ public abstract class ModelIoFactory<T> {
         return findClassFromModel(MODEL_OUTPUT_CLASS_FORMAT);
     }
 
+    /**
+     * このファクトリが利用する{@link ModelAccessor}クラスを返す。
+     * <p>
+     * この実装では、{@code ...model.Hoge}に対して{@code ...io.HogeModelAccessor}を返す。
+     * </p>
+     * @return このファクトリが利用する{@link ModelAccessor}クラス
+     * @throws ClassNotFoundException クラスが見つからない場合
+     */
+    protected Class<?> findModelAccessorClass() throws ClassNotFoundException {
+        return findClassFromModel(MODEL_ACCESSOR_CLASS_FORMAT);
+    }
+
     private Class<?> findClassFromModel(String format) throws ClassNotFoundException {
         Matcher m = MODEL_CLASS_NAME_PATTERN.matcher(modelClass.getName());
         if (m.matches() == false) {
@@ -81,6 +81,8 @@ public class TsvEmitter implements RecordEmitter {
 
     private StringBuilder lineBuffer;
 
+    private final byte[] dateBuffer = new byte[DateUtil.DATE_TIME_LENGTH];
+
     private char[] writeBuffer;
 
     private boolean headOfLine;
@@ -269,7 +271,12 @@ public class TsvEmitter implements RecordEmitter {
             return;
         }
         int days = option.get().getElapsedDays();
-        emitDate(days);
+        if (DateUtil.isFormattable(days)) {
+            int length = DateUtil.formatDate(days, dateBuffer, 0);
+            appendAscii(dateBuffer, length);
+        } else {
+            emitDate(days);
+        }
     }
 
     @Override
@@ -280,6 +287,11 @@ public class TsvEmitter implements RecordEmitter {
         }
         long seconds = option.get().getElapsedSeconds();
         int days = DateUtil.getDayFromSeconds(seconds);
+        if (seconds >= 0 && DateUtil.isFormattable(days)) {
+            int length = DateUtil.formatDateTime(seconds, dateBuffer, 0);
+            appendAscii(dateBuffer, length);
+            return;
+        }
         emitDate(days);
 
         lineBuffer.append(DATE_TIME_SEPARATOR);
@@ -288,6 +300,12 @@ public class TsvEmitter implements RecordEmitter {
         emitTime(sec);
     }
 
+    private void appendAscii(byte[] bytes, int length) {
+        for (int i = 0; i < length; i++) {
+            lineBuffer.append((char) bytes[i]);
+        }
+    }
+
     private void emitDate(int days) {
         int year = DateUtil.getYearFromDay(days);
         int daysInYear = days - DateUtil.getDayFromYear(year);
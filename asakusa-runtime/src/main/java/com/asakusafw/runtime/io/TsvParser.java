@@ -91,6 +91,8 @@ public final class TsvParser implements RecordParser {
 
     private ByteBuffer encodeBuffer;
 
+    private final byte[] dateBuffer = new byte[DateUtil.DATE_TIME_LENGTH];
+
     /**
      * インスタンスを生成する。
      * @param reader TSVの内容を読み出すリーダー
@@ -319,11 +321,7 @@ public final class TsvParser implements RecordParser {
         if (applyNull(option)) {
             return;
         }
-        int year = toNumber(lookAhead) * 1000 + readNumbers(YEAR_FIELD_LENGTH - 1, option);
-        consume(DATE_FIELD_SEPARATOR);
-        int month = readNumbers(MONTH_FIELD_LENGTH, option);
-        consume(DATE_FIELD_SEPARATOR);
-        int day = readNumbers(DATE_FIELD_LENGTH, option);
+        readDateBytes(DateUtil.DATE_LENGTH, option);
 
         int last = reader.read();
         if (isSeparator(last) == false) {
@@ -332,10 +330,16 @@ public final class TsvParser implements RecordParser {
                     option.getClass().getSimpleName()));
         }
         setLastSeparator(last);
-        if (year == 0 || month == 0 || day == 0) {
-            option.setNull();
+        int days = DateUtil.parseDate(dateBuffer, 0, DateUtil.DATE_LENGTH);
+        if (days != DateUtil.INVALID) {
+            option.modify(days);
         } else {
-            option.modify(DateUtil.getDayFromDate(year, month, day));
+            days = parseDateLeniently();
+            if (days == DateUtil.INVALID) {
+                option.setNull();
+            } else {
+                option.modify(days);
+            }
         }
         fillLookAhead();
     }
@@ -346,17 +350,7 @@ public final class TsvParser implements RecordParser {
         if (applyNull(option)) {
             return;
         }
-        int year = toNumber(lookAhead) * 1000 + readNumbers(YEAR_FIELD_LENGTH - 1, option);
-        consume(DATE_FIELD_SEPARATOR);
-        int month = readNumbers(MONTH_FIELD_LENGTH, option);
-        consume(DATE_FIELD_SEPARATOR);
-        int day = readNumbers(DATE_FIELD_LENGTH, option);
-        consume(DATE_TIME_SEPARATOR);
-        int hour = readNumbers(HOUR_FIELD_LENGTH, option);
-        consume(TIME_FIELD_SEPARATOR);
-        int minute = readNumbers(MINUTE_FIELD_LENGTH, option);
-        consume(TIME_FIELD_SEPARATOR);
-        int second = readNumbers(SECOND_FIELD_LENGTH, option);
+        readDateBytes(DateUtil.DATE_TIME_LENGTH, option);
 
         int last = reader.read();
         if (isSeparator(last) == false) {
@@ -365,33 +359,90 @@ public final class TsvParser implements RecordParser {
                     option.getClass().getSimpleName()));
         }
         setLastSeparator(last);
-        if (year == 0 || month == 0 || day == 0) {
-            option.setNull();
+        long seconds = DateUtil.parseDateTime(dateBuffer, 0, DateUtil.DATE_TIME_LENGTH);
+        if (seconds != DateUtil.INVALID) {
+            option.modify(seconds);
         } else {
-            long result = DateUtil.getDayFromDate(year, month, day);
-            result *= 24L * 60L * 60L;
-            result += DateUtil.getSecondFromTime(hour, minute, second);
-            option.modify(result);
+            int days = parseDateLeniently();
+            if (days == DateUtil.INVALID) {
+                option.setNull();
+            } else {
+                int offset = DateUtil.DATE_LENGTH;
+                checkDateSeparator(offset++, DATE_TIME_SEPARATOR);
+                int hour = parseDateField(offset, HOUR_FIELD_LENGTH);
+                offset += HOUR_FIELD_LENGTH;
+                checkDateSeparator(offset++, TIME_FIELD_SEPARATOR);
+                int minute = parseDateField(offset, MINUTE_FIELD_LENGTH);
+                offset += MINUTE_FIELD_LENGTH;
+                checkDateSeparator(offset++, TIME_FIELD_SEPARATOR);
+                int second = parseDateField(offset, SECOND_FIELD_LENGTH);
+                long result = days;
+                result *= 24L * 60L * 60L;
+                result += DateUtil.getSecondFromTime(hour, minute, second);
+                option.modify(result);
+            }
         }
         fillLookAhead();
     }
 
-    private int readNumbers(int columns, ValueOption<?> option) throws IOException {
+    /**
+     * 先読みした文字を含む指定の文字数を{@link #dateBuffer}に読み出す。
+     */
+    private void readDateBytes(int length, ValueOption<?> option) throws IOException {
+        assert length <= dateBuffer.length;
+        int c = lookAhead;
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                c = reader.read();
+            }
+            if (c < 0 || c >= 0x80) {
+                throw new RecordFormatException(MessageFormat.format(
+                        "Invalid character in {0} context {1}",
+                        option.getClass().getSimpleName(),
+                        String.format("\\u%04x", c)));
+            }
+            dateBuffer[i] = (byte) c;
+        }
+    }
+
+    /**
+     * {@link DateUtil}で解析できなかった{@link #dateBuffer}の日付部分を、従来通りの方法で解析する。
+     * <p>
+     * 年、月、日のいずれかが{@code 0}である日付は{@code null}として扱い、{@link DateUtil#INVALID}を返す。
+     * 2月30日のような存在しない日付は、暦に沿って繰り越した日付として扱う。
+     * </p>
+     * @return 西暦0001/01/01からの経過日数、{@code null}として扱う場合は{@link DateUtil#INVALID}
+     * @throws RecordFormatException 日付の形式が不正である場合
+     */
+    private int parseDateLeniently() throws RecordFormatException {
+        int offset = 0;
+        int year = parseDateField(offset, YEAR_FIELD_LENGTH);
+        offset += YEAR_FIELD_LENGTH;
+        checkDateSeparator(offset++, DATE_FIELD_SEPARATOR);
+        int month = parseDateField(offset, MONTH_FIELD_LENGTH);
+        offset += MONTH_FIELD_LENGTH;
+        checkDateSeparator(offset++, DATE_FIELD_SEPARATOR);
+        int day = parseDateField(offset, DATE_FIELD_LENGTH);
+        if (year == 0 || month == 0 || day == 0) {
+            return DateUtil.INVALID;
+        }
+        return DateUtil.getDayFromDate(year, month, day);
+    }
+
+    private int parseDateField(int offset, int length) throws RecordFormatException {
         int total = 0;
-        for (int i = 0; i < columns; i++) {
-            int c = reader.read();
-            total = total * 10 + toNumber(c);
+        for (int i = offset, n = offset + length; i < n; i++) {
+            total = total * 10 + toNumber(dateBuffer[i]);
         }
         return total;
     }
 
-    private void consume(char expect) throws IOException {
-        int c = reader.read();
-        if (c != expect) {
+    private void checkDateSeparator(int offset, char expect) throws RecordFormatException {
+        if (dateBuffer[offset] != expect) {
             throw new RecordFormatException(MessageFormat.format(
                     "Invalid character in expected ''{0}'' but was \"{1}\"",
                     expect,
-                    String.format("\\u%04x", c)));
+                    String.format("\\u%04x", (int) dateBuffer[offset])));
         }
     }
 
@@ -24,19 +24,31 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.RawComparator;
+import org.apache.hadoop.io.SequenceFile.CompressionType;
 import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.DefaultCodec;
+import org.apache.hadoop.mapred.JobPriority;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Counters;
 import org.apache.hadoop.mapreduce.InputFormat;
 import org.apache.hadoop.mapreduce.Job;
 import org.apache.hadoop.mapreduce.Mapper;
 import org.apache.hadoop.mapreduce.OutputFormat;
 import org.apache.hadoop.mapreduce.Partitioner;
 import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
 import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
 import org.apache.hadoop.util.Tool;
 
+import com.asakusafw.runtime.stage.embedded.EmbeddedJobRunner;
 import com.asakusafw.runtime.stage.input.StageInputDriver;
 import com.asakusafw.runtime.stage.output.StageOutputDriver;
 import com.asakusafw.runtime.stage.resource.StageResourceDriver;
@@ -62,6 +74,167 @@ public abstract class AbstractStageClient extends Configured implements Tool {
      */
     public static final String PROP_ASAKUSA_BATCH_ARGS = "com.asakusafw.batchArgs";
 
+    /**
+     * クリティカルパスに基づいてジョブの優先度を設定するかどうかのプロパティキー。
+     * <p>
+     * 値が{@code false}の場合、ステージごとの優先度は設定しない。
+     * 未設定の場合は{@code true}として扱う。
+     * </p>
+     */
+    public static final String PROP_CRITICAL_PATH_PRIORITY = "com.asakusafw.stage.criticalPathPriority";
+
+    /**
+     * クリティカルパス上のステージを投入するフェアスケジューラのプール名のプロパティキー。
+     * <p>
+     * 未設定の場合、プールは変更しない。
+     * </p>
+     */
+    public static final String PROP_CRITICAL_PATH_POOL = "com.asakusafw.stage.criticalPathPool";
+
+    /**
+     * レデュースタスク数を自動的に設定するかどうかのプロパティキー。
+     * <p>
+     * 値が{@code false}の場合、レデュースタスク数はクラスタの設定に従う。
+     * 未設定の場合は{@code true}として扱う。
+     * いずれの場合も、{@code mapred.reduce.tasks}がジョブごとに明示的に設定されていればその値に従う。
+     * クラスタ全体の設定 ({@code mapred-site.xml}) はジョブごとの設定とはみなさない。
+     * </p>
+     */
+    public static final String PROP_REDUCER_AUTO = "com.asakusafw.reducer.auto";
+
+    /**
+     * レデュースタスクひとつあたりが処理するシャッフルデータのバイト数の目標値のプロパティキー。
+     */
+    public static final String PROP_REDUCER_BYTES_PER_REDUCER = "com.asakusafw.reducer.bytesPerReducer";
+
+    /**
+     * 自動設定するレデュースタスク数の上限のプロパティキー。
+     */
+    public static final String PROP_REDUCER_MAX = "com.asakusafw.reducer.max";
+
+    /**
+     * 過去の実行におけるシャッフルデータの量を記録するディレクトリのプロパティキー。
+     * <p>
+     * 未設定の場合、過去の実行の情報は利用しない。
+     * </p>
+     */
+    public static final String PROP_REDUCER_HISTORY = "com.asakusafw.reducer.history";
+
+    /**
+     * ステージの出力やマップ出力の圧縮に利用するコーデッククラスのプロパティキー。
+     * <p>
+     * 未設定の場合は{@link DefaultCodec}を利用する。
+     * この設定は{@link #isCompressionEnabled()}が{@code true}を返すステージでのみ利用される。
+     * </p>
+     */
+    public static final String PROP_COMPRESSION_CODEC = "com.asakusafw.stage.compression.codec";
+
+    /**
+     * 後続のステージでのみ利用される出力の圧縮形式 ({@code BLOCK}または{@code RECORD}) のプロパティキー。
+     * <p>
+     * 未設定の場合は{@code BLOCK}として扱う。
+     * </p>
+     */
+    public static final String PROP_COMPRESSION_TYPE = "com.asakusafw.stage.compression.type";
+
+    /**
+     * 圧縮を行うデータ量の下限 (バイト数) のプロパティキー。
+     * <p>
+     * 見積もったデータ量がこれより小さい場合、圧縮にかかるコストを避けるため圧縮しない。
+     * </p>
+     */
+    public static final String PROP_COMPRESSION_MIN_BYTES = "com.asakusafw.stage.compression.minBytes";
+
+    /**
+     * ステージをHadoopに投入せず、現在のプロセス内で実行する場合に{@code true}を指定するプロパティ名。
+     * <p>
+     * シャッフルデータはすべてメモリ上に保持されるため、小さなステージのみを対象とすること。
+     * </p>
+     * @see EmbeddedJobRunner
+     */
+    public static final String PROP_EMBEDDED = "com.asakusafw.stage.embedded";
+
+    /**
+     * 入力データの合計バイト数がこの値以下のステージを、
+     * Hadoopに投入せず現在のプロセス内で実行するためのプロパティキー。
+     * <p>
+     * 未設定または負の値の場合、入力データの量によってプロセス内で実行することはない。
+     * 入力データの量が見積もれない場合も、通常通りHadoopに投入する。
+     * </p>
+     * @see #PROP_EMBEDDED
+     */
+    public static final String PROP_EMBEDDED_THRESHOLD = "com.asakusafw.stage.embedded.threshold";
+
+    /**
+     * {@link #PROP_REDUCER_BYTES_PER_REDUCER}の既定値 (1GB)。
+     */
+    static final long DEFAULT_BYTES_PER_REDUCER = 1000L * 1000 * 1000;
+
+    /**
+     * {@link #PROP_REDUCER_MAX}の既定値。
+     */
+    static final int DEFAULT_REDUCER_MAX = 999;
+
+    /**
+     * {@link #getShuffleSelectivity()}の既定値 (百分率)。
+     */
+    static final int DEFAULT_SHUFFLE_SELECTIVITY = 100;
+
+    /**
+     * {@link #PROP_COMPRESSION_MIN_BYTES}の既定値 (64MB)。
+     */
+    static final long DEFAULT_COMPRESSION_MIN_BYTES = 64L * 1024 * 1024;
+
+    /**
+     * マップ出力のバイト数を表すカウンタのグループ名。
+     */
+    static final String COUNTER_GROUP_TASK = "org.apache.hadoop.mapred.Task$Counter";
+
+    /**
+     * マップ出力のバイト数を表すカウンタ名。
+     */
+    static final String COUNTER_MAP_OUTPUT_BYTES = "MAP_OUTPUT_BYTES";
+
+    /**
+     * ジョブの優先度を表すHadoopのプロパティキー。
+     */
+    static final String KEY_JOB_PRIORITY = "mapred.job.priority";
+
+    /**
+     * レデュースタスク数を表すHadoopのプロパティキー。
+     */
+    static final String KEY_REDUCE_TASKS = "mapred.reduce.tasks";
+
+    /**
+     * Hadoopの既定値を定義するリソースの名前。
+     */
+    static final String MAPRED_DEFAULT_RESOURCE = "mapred-default.xml";
+
+    /**
+     * クラスタ全体の設定を定義するリソースの名前。
+     */
+    static final String MAPRED_SITE_RESOURCE = "mapred-site.xml";
+
+    /**
+     * フェアスケジューラのプール名を表すHadoopのプロパティキー。
+     */
+    static final String KEY_FAIR_SCHEDULER_POOL = "mapred.fairscheduler.pool";
+
+    /**
+     * マップ出力を圧縮するかどうかを表すHadoopのプロパティキー。
+     */
+    static final String KEY_MAP_OUTPUT_COMPRESS = "mapred.compress.map.output";
+
+    /**
+     * マップ出力の圧縮に利用するコーデックを表すHadoopのプロパティキー。
+     */
+    static final String KEY_MAP_OUTPUT_CODEC = "mapred.map.output.compression.codec";
+
+    /**
+     * ジョブの出力を圧縮するかどうかを表すHadoopのプロパティキー。
+     */
+    static final String KEY_OUTPUT_COMPRESS = "mapred.output.compress";
+
     /**
      * 実行ユーザー名の変数名。
      */
@@ -147,11 +320,36 @@ public abstract class AbstractStageClient extends Configured implements Tool {
      */
     public static final String METHOD_STAGE_RESOURCES = "getStageResources";
 
+    /**
+     * {@link #getEstimatedCost()}のメソッド名。
+     */
+    public static final String METHOD_ESTIMATED_COST = "getEstimatedCost";
+
+    /**
+     * {@link #getCriticalPathWeight()}のメソッド名。
+     */
+    public static final String METHOD_CRITICAL_PATH_WEIGHT = "getCriticalPathWeight";
+
+    /**
+     * {@link #getMaxCriticalPathWeight()}のメソッド名。
+     */
+    public static final String METHOD_MAX_CRITICAL_PATH_WEIGHT = "getMaxCriticalPathWeight";
+
+    /**
+     * {@link #getShuffleSelectivity()}のメソッド名。
+     */
+    public static final String METHOD_SHUFFLE_SELECTIVITY = "getShuffleSelectivity";
+
     /**
      * {@link #getShuffleKeyClassOrNull()}のメソッド名。
      */
     public static final String METHOD_SHUFFLE_KEY_CLASS = "getShuffleKeyClassOrNull";
 
+    /**
+     * {@link #isCompressionEnabled()}のメソッド名。
+     */
+    public static final String METHOD_COMPRESSION_ENABLED = "isCompressionEnabled";
+
     /**
      * {@link #getShuffleValueClassOrNull()}のメソッド名。
      */
@@ -199,6 +397,8 @@ public abstract class AbstractStageClient extends Configured implements Tool {
 
     static final Log LOG = LogFactory.getLog(AbstractStageClient.class);
 
+    private Long estimatedInputSize;
+
     /**
      * このステージに関する設定を行う。
      * @param job 現在設定中のジョブ
@@ -314,6 +514,55 @@ public abstract class AbstractStageClient extends Configured implements Tool {
         return Collections.emptyList();
     }
 
+    /**
+     * このステージの見積もりコストを返す。
+     * <p>
+     * 見積もりコストは同一ジョブフロー内のステージ間で比較するための相対値である。
+     * </p>
+     * @return 見積もりコスト、不明な場合は{@code 0}
+     */
+    protected int getEstimatedCost() {
+        return 0;
+    }
+
+    /**
+     * このステージを通る最長のパスの重みを返す。
+     * @return このステージを通る最長のパスの重み、不明な場合は{@code 0}
+     */
+    protected int getCriticalPathWeight() {
+        return 0;
+    }
+
+    /**
+     * このステージを含むジョブフローのクリティカルパスの重みを返す。
+     * @return クリティカルパスの重み、不明な場合は{@code 0}
+     */
+    protected int getMaxCriticalPathWeight() {
+        return 0;
+    }
+
+    /**
+     * このステージの出力やマップ出力を、見積もったデータ量に応じて圧縮する場合に{@code true}を返す。
+     * <p>
+     * {@code false}を返す場合、圧縮に関する設定はクラスタの設定に従う。
+     * </p>
+     * @return 圧縮する場合に{@code true}
+     */
+    protected boolean isCompressionEnabled() {
+        return false;
+    }
+
+    /**
+     * このステージの入力データ量に対するシャッフルデータ量の見積もりを百分率で返す。
+     * <p>
+     * この値はレデュースタスク数の自動設定に利用される。
+     * </p>
+     * @return 入力データ量に対するシャッフルデータ量の百分率
+     */
+    protected int getShuffleSelectivity() {
+        return DEFAULT_SHUFFLE_SELECTIVITY;
+    }
+
     /**
      * このステージのシャッフルフェーズで利用するキークラスを返す。
      * @return シャッフルフェーズで利用するキークラス、利用しない場合は{@code null}
@@ -410,12 +659,42 @@ public abstract class AbstractStageClient extends Configured implements Tool {
         configureStageInput(job, variables);
         configureStageOutput(job, variables);
         configureShuffle(job, variables);
+        configureCompression(job, variables);
         configureStageResource(job, variables);
+        configureSchedule(job, variables);
         configureStage(job, variables);
 
+        if (isEmbedded(job, variables)) {
+            return runEmbedded(job);
+        }
         return submit(job);
     }
 
+    private boolean isEmbedded(Job job, VariableTable variables) {
+        Configuration conf = job.getConfiguration();
+        if (conf.getBoolean(PROP_EMBEDDED, false)) {
+            LOG.info("Execution: IN PROCESS (user defined)");
+            return true;
+        }
+        long threshold = conf.getLong(PROP_EMBEDDED_THRESHOLD, -1);
+        if (threshold < 0) {
+            return false;
+        }
+        long inputBytes = getEstimatedInputSize(conf, variables);
+        if (inputBytes < 0 || inputBytes > threshold) {
+            LOG.info(MessageFormat.format(
+                    "Execution: CLUSTER (input={0}bytes, threshold={1}bytes)",
+                    String.valueOf(inputBytes),
+                    String.valueOf(threshold)));
+            return false;
+        }
+        LOG.info(MessageFormat.format(
+                "Execution: IN PROCESS (input={0}bytes, threshold={1}bytes)",
+                String.valueOf(inputBytes),
+                String.valueOf(threshold)));
+        return true;
+    }
+
     private int submit(Job job) throws IOException, InterruptedException, ClassNotFoundException {
         LOG.info(MessageFormat.format(
                 "Submitting Job: {0}",
@@ -436,6 +715,21 @@ public abstract class AbstractStageClient extends Configured implements Tool {
                 succeed,
                 String.valueOf(end - start)));
 
+        if (succeed) {
+            writeShuffleHistory(job);
+        }
+        return succeed ? ToolLauncher.JOB_SUCCEEDED : ToolLauncher.JOB_FAILED;
+    }
+
+    private int runEmbedded(Job job) throws IOException, InterruptedException {
+        LOG.info(MessageFormat.format(
+                "Running Job in process: {0}",
+                job.getJobName()));
+        EmbeddedJobRunner runner = new EmbeddedJobRunner();
+        boolean succeed = runner.run(job);
+        if (succeed) {
+            writeShuffleHistory(job.getConfiguration(), runner.getCounters());
+        }
         return succeed ? ToolLauncher.JOB_SUCCEEDED : ToolLauncher.JOB_FAILED;
     }
 
@@ -473,7 +767,7 @@ public abstract class AbstractStageClient extends Configured implements Tool {
     }
 
     @SuppressWarnings("rawtypes")
-    private void configureShuffle(Job job, VariableTable variables) {
+    private void configureShuffle(Job job, VariableTable variables) throws IOException {
         Class<? extends Reducer> reducer = getReducerClassOrNull();
         if (reducer != null) {
             LOG.info(MessageFormat.format("Reducer: {0}", reducer.getName()));
@@ -483,6 +777,8 @@ public abstract class AbstractStageClient extends Configured implements Tool {
             return;
         }
 
+        configureReduceTasks(job, variables);
+
         Class<? extends Writable> outputKeyClass = or(getShuffleKeyClassOrNull(), NullWritable.class);
         Class<? extends Writable> outputValueClass = or(getShuffleValueClassOrNull(), NullWritable.class);
         LOG.info(MessageFormat.format(
@@ -525,6 +821,314 @@ public abstract class AbstractStageClient extends Configured implements Tool {
         }
     }
 
+    private void configureSchedule(Job job, VariableTable variables) {
+        Configuration conf = job.getConfiguration();
+        if (conf.getBoolean(PROP_CRITICAL_PATH_PRIORITY, true) == false) {
+            LOG.info("Critical Path Priority: DISABLED");
+            return;
+        }
+        int weight = getCriticalPathWeight();
+        int maxWeight = getMaxCriticalPathWeight();
+        if (weight <= 0 || maxWeight <= 0) {
+            LOG.info("Critical Path Priority: N/A");
+            return;
+        }
+        boolean critical = weight >= maxWeight;
+        LOG.info(MessageFormat.format(
+                "Critical Path: weight={0}/{1}, cost={2}, critical={3}",
+                weight,
+                maxWeight,
+                getEstimatedCost(),
+                critical));
+        if (conf.get(KEY_JOB_PRIORITY) != null) {
+            LOG.info(MessageFormat.format(
+                    "Job Priority: {0} (user defined)",
+                    conf.get(KEY_JOB_PRIORITY)));
+        } else {
+            JobPriority priority = critical ? JobPriority.HIGH : JobPriority.NORMAL;
+            LOG.info(MessageFormat.format("Job Priority: {0}", priority));
+            conf.set(KEY_JOB_PRIORITY, priority.name());
+        }
+        String pool = conf.get(PROP_CRITICAL_PATH_POOL);
+        if (critical && pool != null && pool.isEmpty() == false) {
+            LOG.info(MessageFormat.format("Scheduler Pool: {0}", pool));
+            conf.set(KEY_FAIR_SCHEDULER_POOL, pool);
+        }
+    }
+
+    void configureReduceTasks(Job job, VariableTable variables) throws IOException {
+        Configuration conf = job.getConfiguration();
+        if (conf.getBoolean(PROP_REDUCER_AUTO, true) == false) {
+            LOG.info(MessageFormat.format("Reduce Tasks: {0} (DEFAULT)", job.getNumReduceTasks()));
+            return;
+        }
+        if (isUserDefined(conf, KEY_REDUCE_TASKS)) {
+            LOG.info(MessageFormat.format("Reduce Tasks: {0} (USER)", job.getNumReduceTasks()));
+            return;
+        }
+        long bytesPerReducer = conf.getLong(PROP_REDUCER_BYTES_PER_REDUCER, DEFAULT_BYTES_PER_REDUCER);
+        int maxReducers = conf.getInt(PROP_REDUCER_MAX, DEFAULT_REDUCER_MAX);
+        if (bytesPerReducer <= 0 || maxReducers <= 0) {
+            LOG.warn(MessageFormat.format(
+                    "Invalid reducer sizing: {0}={1}, {2}={3}",
+                    PROP_REDUCER_BYTES_PER_REDUCER,
+                    String.valueOf(bytesPerReducer),
+                    PROP_REDUCER_MAX,
+                    String.valueOf(maxReducers)));
+            return;
+        }
+
+        long shuffleBytes = readShuffleHistory(conf);
+        String source;
+        if (shuffleBytes >= 0) {
+            source = "history";
+        } else {
+            long inputBytes = getEstimatedInputSize(conf, variables);
+            if (inputBytes < 0) {
+                LOG.info(MessageFormat.format("Reduce Tasks: {0} (DEFAULT)", job.getNumReduceTasks()));
+                return;
+            }
+            shuffleBytes = estimateShuffleBytes(inputBytes, getShuffleSelectivity());
+            source = MessageFormat.format(
+                    "input={0}bytes, selectivity={1}%",
+                    String.valueOf(inputBytes),
+                    getShuffleSelectivity());
+        }
+        long required = (shuffleBytes + bytesPerReducer - 1) / bytesPerReducer;
+        int reducers = (int) Math.max(1, Math.min(maxReducers, required));
+        LOG.info(MessageFormat.format(
+                "Reduce Tasks: {0} (shuffle={1}bytes, {2})",
+                reducers,
+                String.valueOf(shuffleBytes),
+                source));
+        job.setNumReduceTasks(reducers);
+    }
+
+    /**
+     * 入力データのバイト数と選択率から、シャッフルデータのバイト数を見積もって返す。
+     * @param inputBytes 入力データのバイト数
+     * @param selectivity 入力データ量に対するシャッフルデータ量の百分率
+     * @return シャッフルデータのバイト数
+     */
+    static long estimateShuffleBytes(long inputBytes, int selectivity) {
+        // 小さな入力が0に切り捨てられないよう、先に乗じてから除する
+        return inputBytes * selectivity / 100;
+    }
+
+    /**
+     * 指定のプロパティが、Hadoopやクラスタの既定値と異なる値に明示的に設定されている場合のみ{@code true}を返す。
+     * <p>
+     * {@code mapred-default.xml}や{@code mapred-site.xml}は全ての設定に読み込まれるため、
+     * 値が設定されているかどうかだけでは利用者による指定を判別できない。
+     * クラスタ全体の設定はジョブごとの指定とはみなさないため、
+     * 自動設定を行わずにクラスタの設定に従う場合は{@link #PROP_REDUCER_AUTO}などを利用すること。
+     * </p>
+     * @param conf 対象の設定
+     * @param key 対象のプロパティキー
+     * @return 明示的に設定されている場合のみ{@code true}
+     */
+    static boolean isUserDefined(Configuration conf, String key) {
+        String value = conf.get(key);
+        if (value == null) {
+            return false;
+        }
+        Configuration defaults = new Configuration(false);
+        defaults.addResource(MAPRED_DEFAULT_RESOURCE);
+        defaults.addResource(MAPRED_SITE_RESOURCE);
+        return value.equals(defaults.get(key)) == false;
+    }
+
+    private long getEstimatedInputSize(Configuration conf, VariableTable variables) {
+        if (estimatedInputSize == null) {
+            estimatedInputSize = estimateInputSize(conf, variables);
+        }
+        return estimatedInputSize;
+    }
+
+    /**
+     * このステージへの入力データの合計バイト数を見積もって返す。
+     * @param conf 設定情報
+     * @param variables 変数表
+     * @return 入力データの合計バイト数、見積もれない場合は負の値
+     */
+    long estimateInputSize(Configuration conf, VariableTable variables) {
+        long total = 0;
+        for (StageInput input : getStageInputs()) {
+            Path path = new Path(variables.parse(input.getPathString()));
+            try {
+                FileSystem fs = path.getFileSystem(conf);
+                FileStatus[] stats = fs.globStatus(path);
+                if (stats == null) {
+                    continue;
+                }
+                for (FileStatus stat : stats) {
+                    total += fs.getContentSummary(stat.getPath()).getLength();
+                }
+            } catch (IOException e) {
+                LOG.warn(MessageFormat.format(
+                        "Failed to estimate input size: {0}",
+                        path), e);
+                return -1;
+            }
+        }
+        return total;
+    }
+
+    private Path getShuffleHistoryPath(Configuration conf) {
+        String history = conf.get(PROP_REDUCER_HISTORY);
+        if (history == null || history.isEmpty()) {
+            return null;
+        }
+        return new Path(history, getDefinitionId());
+    }
+
+    private long readShuffleHistory(Configuration conf) {
+        Path path = getShuffleHistoryPath(conf);
+        if (path == null) {
+            return -1;
+        }
+        try {
+            FileSystem fs = path.getFileSystem(conf);
+            if (fs.exists(path) == false) {
+                return -1;
+            }
+            FSDataInputStream in = fs.open(path);
+            try {
+                return Long.parseLong(in.readUTF());
+            } finally {
+                in.close();
+            }
+        } catch (Exception e) {
+            LOG.warn(MessageFormat.format(
+                    "Failed to read shuffle history: {0}",
+                    path), e);
+            return -1;
+        }
+    }
+
+    private void writeShuffleHistory(Job job) {
+        Counters counters;
+        try {
+            counters = job.getCounters();
+        } catch (IOException e) {
+            LOG.warn(MessageFormat.format(
+                    "Failed to obtain counters: {0}",
+                    job.getJobName()), e);
+            return;
+        }
+        writeShuffleHistory(job.getConfiguration(), counters);
+    }
+
+    private void writeShuffleHistory(Configuration conf, Counters counters) {
+        if (getReducerClassOrNull() == null) {
+            return;
+        }
+        Path path = getShuffleHistoryPath(conf);
+        if (path == null) {
+            return;
+        }
+        try {
+            Counter counter = counters.findCounter(COUNTER_GROUP_TASK, COUNTER_MAP_OUTPUT_BYTES);
+            FileSystem fs = path.getFileSystem(conf);
+            FSDataOutputStream out = fs.create(path, true);
+            try {
+                out.writeUTF(String.valueOf(counter.getValue()));
+            } finally {
+                out.close();
+            }
+        } catch (Exception e) {
+            LOG.warn(MessageFormat.format(
+                    "Failed to write shuffle history: {0}",
+                    path), e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    void configureCompression(Job job, VariableTable variables) {
+        if (isCompressionEnabled() == false) {
+            LOG.info("Compression: DEFAULT");
+            return;
+        }
+        Configuration conf = job.getConfiguration();
+        Class<? extends CompressionCodec> codec;
+        try {
+            Class<?> aClass = conf.getClassByName(conf.get(PROP_COMPRESSION_CODEC, DefaultCodec.class.getName()));
+            if (CompressionCodec.class.isAssignableFrom(aClass) == false) {
+                throw new ClassNotFoundException(aClass.getName());
+            }
+            codec = (Class<? extends CompressionCodec>) aClass;
+        } catch (ClassNotFoundException e) {
+            LOG.warn(MessageFormat.format(
+                    "Invalid compression codec: {0}={1}",
+                    PROP_COMPRESSION_CODEC,
+                    conf.get(PROP_COMPRESSION_CODEC)), e);
+            return;
+        }
+        long minBytes = conf.getLong(PROP_COMPRESSION_MIN_BYTES, DEFAULT_COMPRESSION_MIN_BYTES);
+        long inputBytes = getEstimatedInputSize(conf, variables);
+        // 見積もれない場合は大きなデータとして扱う
+        boolean large = inputBytes < 0 || inputBytes >= minBytes;
+
+        if (getReducerClassOrNull() == null) {
+            LOG.info("Map Output Compression: N/A");
+        } else if (isUserDefined(conf, KEY_MAP_OUTPUT_COMPRESS)) {
+            LOG.info(MessageFormat.format(
+                    "Map Output Compression: {0} (user defined)",
+                    conf.get(KEY_MAP_OUTPUT_COMPRESS)));
+        } else {
+            long shuffleBytes = inputBytes < 0 ? -1 : estimateShuffleBytes(inputBytes, getShuffleSelectivity());
+            boolean compress = shuffleBytes < 0 || shuffleBytes >= minBytes;
+            LOG.info(MessageFormat.format(
+                    "Map Output Compression: {0} (codec={1}, shuffle={2}bytes)",
+                    compress,
+                    codec.getName(),
+                    String.valueOf(shuffleBytes)));
+            conf.setBoolean(KEY_MAP_OUTPUT_COMPRESS, compress);
+            if (compress) {
+                conf.setClass(KEY_MAP_OUTPUT_CODEC, codec, CompressionCodec.class);
+            }
+        }
+
+        if (isUserDefined(conf, KEY_OUTPUT_COMPRESS)) {
+            LOG.info(MessageFormat.format(
+                    "Output Compression: {0} (user defined)",
+                    conf.get(KEY_OUTPUT_COMPRESS)));
+            return;
+        }
+        boolean intermediate = true;
+        for (StageOutput output : getStageOutputs()) {
+            intermediate &= output.isIntermediate();
+        }
+        // エクスポーターが読み出す出力は、エクスポーターの負荷を避けるため圧縮しない
+        boolean compress = intermediate && large;
+        if (compress == false) {
+            LOG.info(MessageFormat.format(
+                    "Output Compression: false (input={0}bytes, intermediate={1})",
+                    String.valueOf(inputBytes),
+                    intermediate));
+            FileOutputFormat.setCompressOutput(job, false);
+            return;
+        }
+        CompressionType type;
+        try {
+            type = CompressionType.valueOf(conf.get(PROP_COMPRESSION_TYPE, CompressionType.BLOCK.name()));
+        } catch (IllegalArgumentException e) {
+            LOG.warn(MessageFormat.format(
+                    "Invalid compression type: {0}={1}",
+                    PROP_COMPRESSION_TYPE,
+                    conf.get(PROP_COMPRESSION_TYPE)), e);
+            type = CompressionType.BLOCK;
+        }
+        LOG.info(MessageFormat.format(
+                "Output Compression: true (codec={0}, type={1}, input={2}bytes)",
+                codec.getName(),
+                type,
+                String.valueOf(inputBytes)));
+        FileOutputFormat.setCompressOutput(job, true);
+        FileOutputFormat.setOutputCompressorClass(job, codec);
+        SequenceFileOutputFormat.setOutputCompressionType(job, type);
+    }
+
     private void configureStageResource(Job job, VariableTable variables) {
         List<StageResource> resources = getStageResources();
         for (StageResource cache : resources) {
@@ -30,6 +30,8 @@ public class StageOutput {
 
     private Class<? extends OutputFormat<?, ?>> formatClass;
 
+    private boolean intermediate;
+
     /**
      * インスタンスを生成する。
      * @param name 出力を識別する名前
@@ -38,12 +40,31 @@ public class StageOutput {
      * @param formatClass 利用するフォーマットクラス
      * @throws IllegalArgumentException 引数に{@code null}が指定された場合
      */
-    @SuppressWarnings({ "rawtypes", "unchecked" })
+    @SuppressWarnings("rawtypes")
     public StageOutput(
             String name,
             Class<?> keyClass,
             Class<?> valueClass,
             Class<? extends OutputFormat> formatClass) {
+        this(name, keyClass, valueClass, formatClass, false);
+    }
+
+    /**
+     * インスタンスを生成する。
+     * @param name 出力を識別する名前
+     * @param keyClass 出力するキーの型
+     * @param valueClass 出力するデータの型
+     * @param formatClass 利用するフォーマットクラス
+     * @param intermediate 後続のステージでのみ利用される出力の場合に{@code true}
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public StageOutput(
+            String name,
+            Class<?> keyClass,
+            Class<?> valueClass,
+            Class<? extends OutputFormat> formatClass,
+            boolean intermediate) {
         if (name == null) {
             throw new IllegalArgumentException("name must not be null"); //$NON-NLS-1$
         }
@@ -60,6 +81,7 @@ public class StageOutput {
         this.keyClass = keyClass;
         this.valueClass = valueClass;
         this.formatClass = (Class<? extends OutputFormat<?, ?>>) formatClass;
+        this.intermediate = intermediate;
     }
 
     /**
@@ -93,4 +115,15 @@ public class StageOutput {
     public Class<? extends OutputFormat<?, ?>> getFormatClass() {
         return formatClass;
     }
+
+    /**
+     * この出力が後続のステージでのみ利用される場合に{@code true}を返す。
+     * <p>
+     * エクスポーターが読み出す出力の場合は{@code false}となる。
+     * </p>
+     * @return 後続のステージでのみ利用される場合に{@code true}
+     */
+    public boolean isIntermediate() {
+        return intermediate;
+    }
 }
@@ -0,0 +1,462 @@
+/**
+ * Copyright 2011 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.runtime.stage.embedded;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.filecache.DistributedCache;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.FileUtil;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.serializer.SerializationFactory;
+import org.apache.hadoop.io.serializer.Serializer;
+import org.apache.hadoop.mapred.RawKeyValueIterator;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.InputFormat;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.JobID;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.OutputCommitter;
+import org.apache.hadoop.mapreduce.OutputFormat;
+import org.apache.hadoop.mapreduce.Partitioner;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.TaskID;
+import org.apache.hadoop.util.ReflectionUtils;
+
+/**
+ * 設定済みのジョブを、Hadoopに投入せずに現在のプロセス内で実行する。
+ * <p>
+ * ジョブに設定された入力フォーマット、Mapper、Partitioner、比較器、Reducer、出力フォーマットを
+ * そのまま利用し、Mapタスク、シャッフル (ソートとグループ化)、Reduceタスクの順に実行する。
+ * それぞれのタスクは{@link #KEY_THREADS}で指定した数のスレッドで並列に実行する。
+ * </p>
+ * <p>
+ * シャッフルデータはすべてメモリ上に保持するため、小さなジョブのみを対象とすること。
+ * また、Combinerはシャッフルデータ量を削減するためだけに利用されるため、
+ * この実行方式では利用しない。
+ * </p>
+ */
+public class EmbeddedJobRunner {
+
+    static final Log LOG = LogFactory.getLog(EmbeddedJobRunner.class);
+
+    /**
+     * 同時に実行するタスク数の上限を指定するプロパティキー。
+     * <p>
+     * 省略した場合は利用可能なプロセッサ数となる。
+     * </p>
+     */
+    public static final String KEY_THREADS = "com.asakusafw.stage.embedded.threads";
+
+    private static final String JOB_TRACKER_ID = "embedded";
+
+    private static final String TASK_COUNTER_GROUP = "org.apache.hadoop.mapred.Task$Counter";
+
+    private static final AtomicInteger JOB_SEQUENCE = new AtomicInteger();
+
+    private final Counters counters = new Counters();
+
+    /**
+     * これまでに実行したタスクのカウンタを集約したものを返す。
+     * @return 集約したカウンタ
+     */
+    public Counters getCounters() {
+        return counters;
+    }
+
+    /**
+     * 指定のジョブを実行する。
+     * @param job 実行するジョブ
+     * @return ジョブが成功した場合は{@code true}、いずれかのタスクが失敗した場合は{@code false}
+     * @throws IOException ジョブの準備や後始末に失敗した場合
+     * @throws InterruptedException 実行中に割り込みが発生した場合
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     */
+    public boolean run(Job job) throws IOException, InterruptedException {
+        if (job == null) {
+            throw new IllegalArgumentException("job must not be null"); //$NON-NLS-1$
+        }
+        Configuration conf = job.getConfiguration();
+        final JobID jobId = new JobID(JOB_TRACKER_ID, JOB_SEQUENCE.incrementAndGet());
+        File cacheDirectory = localizeCache(conf, jobId);
+        int threads = Math.max(1, conf.getInt(KEY_THREADS, Runtime.getRuntime().availableProcessors()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger();
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, MessageFormat.format(
+                        "{0}-{1}",
+                        jobId,
+                        String.valueOf(counter.incrementAndGet())));
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+            return run(new JobContext(conf, jobId), executor);
+        } catch (ClassNotFoundException e) {
+            throw new IOException(MessageFormat.format(
+                    "Failed to load a class for the job: {0}",
+                    job.getJobName()), e);
+        } finally {
+            executor.shutdownNow();
+            if (cacheDirectory != null) {
+                FileUtil.fullyDelete(cacheDirectory);
+            }
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private boolean run(
+            JobContext job,
+            ExecutorService executor) throws IOException, InterruptedException, ClassNotFoundException {
+        assert job != null;
+        assert executor != null;
+        LOG.info(MessageFormat.format(
+                "Running Job in process: id={0}, name={1}",
+                job.getJobID(),
+                job.getJobName()));
+        long start = System.currentTimeMillis();
+        OutputFormat<?, ?> output = ReflectionUtils.newInstance(
+                job.getOutputFormatClass(),
+                job.getConfiguration());
+        output.checkOutputSpecs(job);
+        OutputCommitter committer = output.getOutputCommitter(newTaskContext(job, true, 0));
+        committer.setupJob(job);
+        boolean succeed = false;
+        try {
+            InputFormat<?, ?> input = ReflectionUtils.newInstance(
+                    job.getInputFormatClass(),
+                    job.getConfiguration());
+            List<InputSplit> splits = input.getSplits(job);
+            ShuffleBuffer[] partitions = new ShuffleBuffer[Math.max(0, job.getNumReduceTasks())];
+            for (int i = 0; i < partitions.length; i++) {
+                partitions[i] = new ShuffleBuffer();
+            }
+            List<Callable<Counters>> maps = new ArrayList<Callable<Counters>>();
+            for (int i = 0, n = splits.size(); i < n; i++) {
+                maps.add(new MapTask(job, i, splits.get(i), partitions));
+            }
+            LOG.info(MessageFormat.format(
+                    "Map Tasks: {0}, Reduce Tasks: {1}",
+                    maps.size(),
+                    partitions.length));
+            succeed = runTasks(executor, maps);
+            if (succeed && partitions.length > 0) {
+                List<Callable<Counters>> reduces = new ArrayList<Callable<Counters>>();
+                for (int i = 0; i < partitions.length; i++) {
+                    reduces.add(new ReduceTask(job, i, partitions[i]));
+                }
+                succeed = runTasks(executor, reduces);
+            }
+        } finally {
+            committer.cleanupJob(job);
+        }
+        long end = System.currentTimeMillis();
+        LOG.info(MessageFormat.format(
+                "Job Finished in process: elapsed=[{2}]ms, succeed={1}, id={0}",
+                job.getJobID(),
+                succeed,
+                String.valueOf(end - start)));
+        return succeed;
+    }
+
+    private boolean runTasks(
+            ExecutorService executor,
+            List<Callable<Counters>> tasks) throws InterruptedException {
+        assert executor != null;
+        assert tasks != null;
+        List<Future<Counters>> futures = new ArrayList<Future<Counters>>();
+        for (Callable<Counters> task : tasks) {
+            futures.add(executor.submit(task));
+        }
+        boolean succeed = true;
+        for (Future<Counters> future : futures) {
+            try {
+                counters.incrAllCounters(future.get());
+            } catch (ExecutionException e) {
+                if (succeed) {
+                    LOG.error("Task failed in process", e.getCause());
+                    succeed = false;
+                    for (Future<Counters> rest : futures) {
+                        rest.cancel(true);
+                    }
+                }
+            } catch (CancellationException e) {
+                assert succeed == false;
+            }
+        }
+        return succeed;
+    }
+
+    private File localizeCache(Configuration conf, JobID jobId) throws IOException {
+        assert conf != null;
+        assert jobId != null;
+        URI[] files = DistributedCache.getCacheFiles(conf);
+        if (files == null || files.length == 0) {
+            return null;
+        }
+        File base = new File(System.getProperty("java.io.tmpdir"), "asakusa-" + jobId);
+        StringBuilder locals = new StringBuilder();
+        for (int i = 0; i < files.length; i++) {
+            URI uri = files[i];
+            Path remote = new Path(uri.getScheme(), uri.getAuthority(), uri.getPath());
+            File local = new File(new File(base, String.valueOf(i)), remote.getName());
+            LOG.info(MessageFormat.format(
+                    "Localizing Distributed Cache: {0} -> {1}",
+                    remote,
+                    local));
+            FileSystem fs = remote.getFileSystem(conf);
+            fs.copyToLocalFile(remote, new Path(local.getAbsoluteFile().toURI()));
+            if (locals.length() > 0) {
+                locals.append(',');
+            }
+            locals.append(local.getAbsolutePath());
+        }
+        DistributedCache.setLocalFiles(conf, locals.toString());
+        return base;
+    }
+
+    static TaskAttemptContext newTaskContext(JobContext job, boolean map, int index) {
+        assert job != null;
+        TaskAttemptID id = new TaskAttemptID(new TaskID(job.getJobID(), map, index), 0);
+        Configuration conf = new Configuration(job.getConfiguration());
+        conf.set("mapred.task.id", id.toString());
+        conf.set("mapred.tip.id", id.getTaskID().toString());
+        conf.setBoolean("mapred.task.is.map", map);
+        conf.setInt("mapred.task.partition", index);
+        conf.set("mapred.job.id", job.getJobID().toString());
+        return new TaskAttemptContext(conf, id);
+    }
+
+    static void commit(OutputCommitter committer, TaskAttemptContext task) throws IOException {
+        assert committer != null;
+        assert task != null;
+        if (committer.needsTaskCommit(task)) {
+            committer.commitTask(task);
+        }
+    }
+
+    private static final class MapTask implements Callable<Counters> {
+
+        private final JobContext job;
+
+        private final int index;
+
+        private final InputSplit split;
+
+        private final ShuffleBuffer[] partitions;
+
+        MapTask(JobContext job, int index, InputSplit split, ShuffleBuffer[] partitions) {
+            assert job != null;
+            assert split != null;
+            assert partitions != null;
+            this.job = job;
+            this.index = index;
+            this.split = split;
+            this.partitions = partitions;
+        }
+
+        @SuppressWarnings({ "rawtypes", "unchecked" })
+        @Override
+        public Counters call() throws Exception {
+            TaskAttemptContext task = newTaskContext(job, true, index);
+            Configuration conf = task.getConfiguration();
+            EmbeddedStatusReporter reporter = new EmbeddedStatusReporter();
+            InputFormat input = ReflectionUtils.newInstance(job.getInputFormatClass(), conf);
+            Mapper mapper = ReflectionUtils.newInstance(job.getMapperClass(), conf);
+            OutputFormat output = ReflectionUtils.newInstance(job.getOutputFormatClass(), conf);
+            OutputCommitter committer = output.getOutputCommitter(task);
+            committer.setupTask(task);
+            try {
+                RecordReader reader = input.createRecordReader(split, task);
+                try {
+                    RecordWriter writer;
+                    if (partitions.length == 0) {
+                        writer = output.getRecordWriter(task);
+                    } else {
+                        writer = new ShuffleWriter(job, conf, partitions, reporter);
+                    }
+                    try {
+                        Mapper.Context context = mapper.new Context(
+                                conf,
+                                task.getTaskAttemptID(),
+                                reader,
+                                writer,
+                                committer,
+                                reporter,
+                                split);
+                        reader.initialize(split, context);
+                        mapper.run(context);
+                    } finally {
+                        writer.close(task);
+                    }
+                } finally {
+                    reader.close();
+                }
+                commit(committer, task);
+            } catch (Exception e) {
+                committer.abortTask(task);
+                throw e;
+            }
+            return reporter.getCounters();
+        }
+    }
+
+    private static final class ReduceTask implements Callable<Counters> {
+
+        private final JobContext job;
+
+        private final int index;
+
+        private final ShuffleBuffer partition;
+
+        ReduceTask(JobContext job, int index, ShuffleBuffer partition) {
+            assert job != null;
+            assert partition != null;
+            this.job = job;
+            this.index = index;
+            this.partition = partition;
+        }
+
+        @SuppressWarnings({ "rawtypes", "unchecked" })
+        @Override
+        public Counters call() throws Exception {
+            TaskAttemptContext task = newTaskContext(job, false, index);
+            Configuration conf = task.getConfiguration();
+            EmbeddedStatusReporter reporter = new EmbeddedStatusReporter();
+            RawKeyValueIterator input = partition.sort(job.getSortComparator());
+            Reducer reducer = ReflectionUtils.newInstance(job.getReducerClass(), conf);
+            OutputFormat output = ReflectionUtils.newInstance(job.getOutputFormatClass(), conf);
+            OutputCommitter committer = output.getOutputCommitter(task);
+            committer.setupTask(task);
+            try {
+                RecordWriter writer = output.getRecordWriter(task);
+                try {
+                    Reducer.Context context = reducer.new Context(
+                            conf,
+                            task.getTaskAttemptID(),
+                            input,
+                            reporter.getCounter(TASK_COUNTER_GROUP, "REDUCE_INPUT_GROUPS"),
+                            reporter.getCounter(TASK_COUNTER_GROUP, "REDUCE_INPUT_RECORDS"),
+                            writer,
+                            committer,
+                            reporter,
+                            job.getGroupingComparator(),
+                            job.getMapOutputKeyClass(),
+                            job.getMapOutputValueClass());
+                    reducer.run(context);
+                } finally {
+                    writer.close(task);
+                }
+                commit(committer, task);
+            } catch (Exception e) {
+                committer.abortTask(task);
+                throw e;
+            }
+            return reporter.getCounters();
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static final class ShuffleWriter extends RecordWriter {
+
+        private final Partitioner partitioner;
+
+        private final ShuffleBuffer[] partitions;
+
+        private final DataOutputBuffer keyBuffer = new DataOutputBuffer();
+
+        private final DataOutputBuffer valueBuffer = new DataOutputBuffer();
+
+        private final Serializer keySerializer;
+
+        private final Serializer valueSerializer;
+
+        private final Counter outputRecords;
+
+        private final Counter outputBytes;
+
+        @SuppressWarnings("unchecked")
+        ShuffleWriter(
+                JobContext job,
+                Configuration conf,
+                ShuffleBuffer[] partitions,
+                EmbeddedStatusReporter reporter) throws IOException, ClassNotFoundException {
+            assert job != null;
+            assert conf != null;
+            assert partitions != null;
+            assert reporter != null;
+            this.partitions = partitions;
+            this.outputRecords = reporter.getCounter(TASK_COUNTER_GROUP, "MAP_OUTPUT_RECORDS");
+            this.outputBytes = reporter.getCounter(TASK_COUNTER_GROUP, "MAP_OUTPUT_BYTES");
+            this.partitioner = partitions.length <= 1
+                ? null
+                : ReflectionUtils.newInstance(job.getPartitionerClass(), conf);
+            SerializationFactory factory = new SerializationFactory(conf);
+            this.keySerializer = factory.getSerializer(job.getMapOutputKeyClass());
+            this.keySerializer.open(keyBuffer);
+            this.valueSerializer = factory.getSerializer(job.getMapOutputValueClass());
+            this.valueSerializer.open(valueBuffer);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void write(Object key, Object value) throws IOException, InterruptedException {
+            int partition = partitioner == null ? 0 : partitioner.getPartition(key, value, partitions.length);
+            keyBuffer.reset();
+            keySerializer.serialize(key);
+            valueBuffer.reset();
+            valueSerializer.serialize(value);
+            partitions[partition].add(
+                    Arrays.copyOf(keyBuffer.getData(), keyBuffer.getLength()),
+                    Arrays.copyOf(valueBuffer.getData(), valueBuffer.getLength()));
+            outputRecords.increment(1);
+            outputBytes.increment(keyBuffer.getLength() + valueBuffer.getLength());
+        }
+
+        @Override
+        public void close(TaskAttemptContext context) throws IOException, InterruptedException {
+            keySerializer.close();
+            valueSerializer.close();
+        }
+    }
+}
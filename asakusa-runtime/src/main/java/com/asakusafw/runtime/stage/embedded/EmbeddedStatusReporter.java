@@ -0,0 +1,67 @@
+/**
+ * Copyright 2011 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.runtime.stage.embedded;
+
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.StatusReporter;
+
+/**
+ * プロセス内で実行するタスクの状態を受け取る。
+ * <p>
+ * カウンタはタスクごとに保持し、タスクの終了後にジョブ全体のカウンタへ集約する。
+ * </p>
+ */
+final class EmbeddedStatusReporter extends StatusReporter {
+
+    private final Counters counters = new Counters();
+
+    /**
+     * このタスクのカウンタ一覧を返す。
+     * @return カウンタ一覧
+     */
+    Counters getCounters() {
+        return counters;
+    }
+
+    @Override
+    public Counter getCounter(Enum<?> name) {
+        return counters.findCounter(name);
+    }
+
+    @Override
+    public Counter getCounter(String group, String name) {
+        return counters.findCounter(group, name);
+    }
+
+    @Override
+    public void progress() {
+        return;
+    }
+
+    @Override
+    public void setStatus(String status) {
+        return;
+    }
+
+    /**
+     * 進捗状況を返す。
+     * @return 常に{@code 0}
+     */
+    public float getProgress() {
+        return 0;
+    }
+}
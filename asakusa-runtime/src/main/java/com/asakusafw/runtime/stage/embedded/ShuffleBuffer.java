@@ -0,0 +1,159 @@
+/**
+ * Copyright 2011 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.runtime.stage.embedded;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.RawComparator;
+import org.apache.hadoop.mapred.RawKeyValueIterator;
+import org.apache.hadoop.util.Progress;
+
+/**
+ * ひとつのパーティションに振り分けられたシャッフルデータを保持する。
+ * <p>
+ * 各レコードは直列化したバイト列として保持し、
+ * ソート用の比較器で整列したのちに{@link RawKeyValueIterator}として取り出す。
+ * </p>
+ */
+final class ShuffleBuffer {
+
+    private final List<Record> records = new ArrayList<Record>();
+
+    private long bytes;
+
+    /**
+     * レコードを追加する。
+     * <p>
+     * このメソッドは複数のスレッドから同時に呼び出せる。
+     * </p>
+     * @param key 直列化したキー
+     * @param value 直列化した値
+     */
+    synchronized void add(byte[] key, byte[] value) {
+        assert key != null;
+        assert value != null;
+        records.add(new Record(key, value));
+        bytes += key.length + value.length;
+    }
+
+    /**
+     * 追加されたレコードの件数を返す。
+     * @return レコードの件数
+     */
+    synchronized int getRecordCount() {
+        return records.size();
+    }
+
+    /**
+     * 追加されたレコードの合計バイト数を返す。
+     * @return 合計バイト数
+     */
+    synchronized long getByteCount() {
+        return bytes;
+    }
+
+    /**
+     * 追加されたレコードを整列し、それらを順に返す反復子を返す。
+     * <p>
+     * 整列は安定で、同じキーを持つレコードは追加された順に返される。
+     * </p>
+     * @param comparator キーの比較器
+     * @return 整列したレコードの反復子
+     */
+    synchronized RawKeyValueIterator sort(final RawComparator<?> comparator) {
+        assert comparator != null;
+        final List<Record> sorted = new ArrayList<Record>(records);
+        Collections.sort(sorted, new Comparator<Record>() {
+            @Override
+            public int compare(Record o1, Record o2) {
+                return comparator.compare(
+                        o1.key, 0, o1.key.length,
+                        o2.key, 0, o2.key.length);
+            }
+        });
+        return new SortedIterator(sorted);
+    }
+
+    private static final class Record {
+
+        final byte[] key;
+
+        final byte[] value;
+
+        Record(byte[] key, byte[] value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    private static final class SortedIterator implements RawKeyValueIterator {
+
+        private final List<Record> records;
+
+        private final DataInputBuffer key = new DataInputBuffer();
+
+        private final DataInputBuffer value = new DataInputBuffer();
+
+        private final Progress progress = new Progress();
+
+        private int index = -1;
+
+        SortedIterator(List<Record> records) {
+            assert records != null;
+            this.records = records;
+        }
+
+        @Override
+        public boolean next() throws IOException {
+            if (index + 1 >= records.size()) {
+                index = records.size();
+                progress.complete();
+                return false;
+            }
+            index++;
+            Record record = records.get(index);
+            key.reset(record.key, record.key.length);
+            value.reset(record.value, record.value.length);
+            progress.set((float) index / records.size());
+            return true;
+        }
+
+        @Override
+        public DataInputBuffer getKey() throws IOException {
+            return key;
+        }
+
+        @Override
+        public DataInputBuffer getValue() throws IOException {
+            return value;
+        }
+
+        @Override
+        public Progress getProgress() {
+            return progress;
+        }
+
+        @Override
+        public void close() throws IOException {
+            return;
+        }
+    }
+}
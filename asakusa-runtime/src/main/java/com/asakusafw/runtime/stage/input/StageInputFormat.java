@@ -18,13 +18,21 @@ package com.asakusafw.runtime.stage.input;
 import java.io.IOException;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.mapreduce.InputFormat;
 import org.apache.hadoop.mapreduce.InputSplit;
@@ -45,22 +53,62 @@ import com.asakusafw.runtime.stage.input.StageInputDriver.Input;
  * <p>
  * 現在のところ、{@link FileInputFormat}およびそのサブクラスに関するもののみを取り扱う。
  * </p>
+ * <p>
+ * 同一の{@code InputFormat, Mapper}を利用する小さなスプリットは、
+ * {@link #KEY_COMBINE_SIZE}に指定されたサイズを上限として、
+ * 同一のホストに配置されたものから優先してひとつの{@link StageInputSplit}にまとめられる。
+ * </p>
+ * <p>
+ * スプリットの計算は{@code InputFormat, Mapper}の組ごとに、
+ * {@link #KEY_SPLIT_THREADS}に指定されたスレッド数で並列に行われる。
+ * </p>
  */
 @SuppressWarnings("rawtypes")
 public class StageInputFormat extends InputFormat {
 
     static final Log LOG = LogFactory.getLog(StageInputFormat.class);
 
+    /**
+     * 小さなスプリットをまとめる際の、ひとつのスプリットの目標サイズ (バイト数) を指定するプロパティキー。
+     * <p>
+     * {@code 0}以下を指定した場合、スプリットはまとめられない。
+     * </p>
+     */
+    public static final String KEY_COMBINE_SIZE = "com.asakusafw.stage.input.combine.size";
+
+    /**
+     * {@link #KEY_COMBINE_SIZE}の既定値 (64MB)。
+     */
+    public static final long DEFAULT_COMBINE_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * スプリットの計算に利用するスレッド数の上限を指定するプロパティキー。
+     * <p>
+     * スプリットは{@code InputFormat, Mapper}の組ごとに並列に計算される。
+     * {@code 1}以下を指定した場合、スプリットは逐次計算される。
+     * </p>
+     */
+    public static final String KEY_SPLIT_THREADS = "com.asakusafw.stage.input.split.threads";
+
+    /**
+     * {@link #KEY_SPLIT_THREADS}の既定値。
+     */
+    public static final int DEFAULT_SPLIT_THREADS = 4;
+
+    private static final int MAX_COMBINED_LOCATIONS = 3;
+
     @Override
     public List<InputSplit> getSplits(JobContext context) throws IOException, InterruptedException {
+        Configuration conf = context.getConfiguration();
         Map<FormatAndMapper, List<Path>> paths = getPaths(context);
-        Map<Class<? extends InputFormat<?, ?>>, InputFormat<?, ?>> formats = instantiateFormats(paths.keySet());
+        long combineSize = conf.getLong(KEY_COMBINE_SIZE, DEFAULT_COMBINE_SIZE);
 
-        Job temporaryJob = new Job(context.getConfiguration());
-        List<InputSplit> results = new ArrayList<InputSplit>();
+        // Job is not thread-safe, so that we prepare each one in this thread
+        List<SplitTask> tasks = new ArrayList<SplitTask>();
         for (Map.Entry<FormatAndMapper, List<Path>> entry : paths.entrySet()) {
             FormatAndMapper formatAndMapper = entry.getKey();
             List<Path> current = entry.getValue();
+            Job temporaryJob = new Job(conf);
             if (current.isEmpty()) {
                 // May not come here in this version (all input should have a path)
                 LOG.warn(MessageFormat.format(
@@ -70,23 +118,200 @@ public class StageInputFormat extends InputFormat {
             } else {
                 FileInputFormat.setInputPaths(temporaryJob, current.toArray(new Path[current.size()]));
             }
-            InputFormat<?, ?> format = formats.get(formatAndMapper.formatClass);
-            assert format != null : formatAndMapper.formatClass;
-            List<InputSplit> splits = format.getSplits(temporaryJob);
-            for (InputSplit split : splits) {
-                StageInputSplit wrapped =
-                    new StageInputSplit(split, formatAndMapper.formatClass, formatAndMapper.mapperClass);
-                wrapped.setConf(context.getConfiguration());
+            InputFormat<?, ?> format = instantiateFormat(formatAndMapper.formatClass);
+            tasks.add(new SplitTask(temporaryJob, format, formatAndMapper, combineSize));
+        }
+
+        int threads = Math.min(tasks.size(), conf.getInt(KEY_SPLIT_THREADS, DEFAULT_SPLIT_THREADS));
+        List<InputSplit> results = new ArrayList<InputSplit>();
+        for (List<StageInputSplit> splits : computeSplits(tasks, threads)) {
+            for (StageInputSplit wrapped : splits) {
+                wrapped.setConf(conf);
                 results.add(wrapped);
             }
         }
         return results;
     }
 
+    private List<List<StageInputSplit>> computeSplits(
+            List<SplitTask> tasks,
+            int threads) throws IOException, InterruptedException {
+        assert tasks != null;
+        List<List<StageInputSplit>> results = new ArrayList<List<StageInputSplit>>();
+        if (threads <= 1) {
+            for (SplitTask task : tasks) {
+                results.add(task.call());
+            }
+            return results;
+        }
+        LOG.info(MessageFormat.format(
+                "Computing splits: groups={0}, threads={1}",
+                tasks.size(),
+                threads));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            // 結果の順序は入力の順序に従う
+            List<Future<List<StageInputSplit>>> futures = executor.invokeAll(tasks);
+            for (Future<List<StageInputSplit>> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof IOException) {
+                        throw (IOException) cause;
+                    } else if (cause instanceof InterruptedException) {
+                        throw (InterruptedException) cause;
+                    } else if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    } else if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw new IOException("Failed to compute input splits", cause);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return results;
+    }
+
+    /**
+     * 指定のスプリット一覧のうち、小さなものをまとめて{@link StageInputSplit}の一覧を返す。
+     * <p>
+     * 目標サイズ以上のスプリットはそのままひとつの{@link StageInputSplit}となる。
+     * それ以外のスプリットは、まず同一のホストに配置されたものどうしを目標サイズまでまとめ、
+     * 最後に残ったものをホストを考慮せずにまとめる。
+     * </p>
+     * @param splits 対象のスプリット一覧
+     * @param formatClass スプリットの元になった{@link InputFormat}
+     * @param mapperClass スプリットを処理する{@link Mapper}
+     * @param combineSize まとめる際の目標サイズ、{@code 0}以下の場合はまとめない
+     * @return まとめた結果
+     * @throws IOException スプリットの情報を取得できなかった場合
+     * @throws InterruptedException 割り込みが発生した場合
+     */
+    static List<StageInputSplit> combine(
+            List<? extends InputSplit> splits,
+            Class<? extends InputFormat<?, ?>> formatClass,
+            Class<? extends Mapper<?, ?, ?, ?>> mapperClass,
+            long combineSize) throws IOException, InterruptedException {
+        assert splits != null;
+        assert formatClass != null;
+        assert mapperClass != null;
+        List<StageInputSplit> results = new ArrayList<StageInputSplit>();
+        if (combineSize <= 0 || splits.size() <= 1) {
+            for (InputSplit split : splits) {
+                results.add(new StageInputSplit(split, formatClass, mapperClass));
+            }
+            return results;
+        }
+
+        // ホストごとに小さなスプリットを分類する
+        Map<String, List<SplitInfo>> hosts = new LinkedHashMap<String, List<SplitInfo>>();
+        List<SplitInfo> small = new ArrayList<SplitInfo>();
+        for (InputSplit split : splits) {
+            SplitInfo info = new SplitInfo(split);
+            if (info.length >= combineSize) {
+                results.add(new StageInputSplit(split, formatClass, mapperClass));
+                continue;
+            }
+            small.add(info);
+            for (String host : info.locations) {
+                List<SplitInfo> members = hosts.get(host);
+                if (members == null) {
+                    members = new ArrayList<SplitInfo>();
+                    hosts.put(host, members);
+                }
+                members.add(info);
+            }
+        }
+
+        // 同一ホスト上のスプリットを目標サイズまでまとめる
+        List<SplitInfo> rest = new ArrayList<SplitInfo>();
+        for (Map.Entry<String, List<SplitInfo>> entry : hosts.entrySet()) {
+            String[] locations = new String[] { entry.getKey() };
+            List<SplitInfo> current = new ArrayList<SplitInfo>();
+            long currentSize = 0;
+            for (SplitInfo info : entry.getValue()) {
+                if (info.assigned) {
+                    continue;
+                }
+                info.assigned = true;
+                current.add(info);
+                currentSize += info.length;
+                if (currentSize >= combineSize) {
+                    results.add(new StageInputSplit(toSplits(current), locations, formatClass, mapperClass));
+                    current = new ArrayList<SplitInfo>();
+                    currentSize = 0;
+                }
+            }
+            if (currentSize >= combineSize / 2) {
+                results.add(new StageInputSplit(toSplits(current), locations, formatClass, mapperClass));
+            } else {
+                rest.addAll(current);
+            }
+        }
+        for (SplitInfo info : small) {
+            if (info.assigned == false) {
+                rest.add(info);
+            }
+        }
+
+        // 残りはホストを考慮せずにまとめる
+        List<SplitInfo> current = new ArrayList<SplitInfo>();
+        long currentSize = 0;
+        for (SplitInfo info : rest) {
+            current.add(info);
+            currentSize += info.length;
+            if (currentSize >= combineSize) {
+                results.add(new StageInputSplit(
+                        toSplits(current), getMajorLocations(current), formatClass, mapperClass));
+                current = new ArrayList<SplitInfo>();
+                currentSize = 0;
+            }
+        }
+        if (current.isEmpty() == false) {
+            results.add(new StageInputSplit(
+                    toSplits(current), getMajorLocations(current), formatClass, mapperClass));
+        }
+        return results;
+    }
+
+    private static List<InputSplit> toSplits(List<SplitInfo> infos) {
+        assert infos != null;
+        List<InputSplit> results = new ArrayList<InputSplit>(infos.size());
+        for (SplitInfo info : infos) {
+            results.add(info.split);
+        }
+        return results;
+    }
+
+    private static String[] getMajorLocations(List<SplitInfo> infos) {
+        assert infos != null;
+        final Map<String, Long> sizes = new HashMap<String, Long>();
+        for (SplitInfo info : infos) {
+            for (String host : info.locations) {
+                Long total = sizes.get(host);
+                sizes.put(host, total == null ? info.length : total + info.length);
+            }
+        }
+        List<String> hosts = new ArrayList<String>(sizes.keySet());
+        Collections.sort(hosts, new Comparator<String>() {
+            @Override
+            public int compare(String o1, String o2) {
+                return sizes.get(o2).compareTo(sizes.get(o1));
+            }
+        });
+        if (hosts.size() > MAX_COMBINED_LOCATIONS) {
+            hosts = hosts.subList(0, MAX_COMBINED_LOCATIONS);
+        }
+        return hosts.toArray(new String[hosts.size()]);
+    }
+
     private Map<FormatAndMapper, List<Path>> getPaths(JobContext context) throws IOException {
         assert context != null;
         List<Input> inputs = StageInputDriver.getInputs(context.getConfiguration());
-        Map<FormatAndMapper, List<Path>> paths = new HashMap<FormatAndMapper, List<Path>>();
+        Map<FormatAndMapper, List<Path>> paths = new LinkedHashMap<FormatAndMapper, List<Path>>();
         for (Input input : inputs) {
             FormatAndMapper fam = new FormatAndMapper(input.getFormatClass(), input.getMapperClass());
             List<Path> list = paths.get(fam);
@@ -99,25 +324,16 @@ public class StageInputFormat extends InputFormat {
         return paths;
     }
 
-    private Map<Class<? extends InputFormat<?, ?>>, InputFormat<?, ?>> instantiateFormats(
-            Set<FormatAndMapper> pairs) throws IOException {
-        assert pairs != null;
-        Map<Class<? extends InputFormat<?, ?>>, InputFormat<?, ?>> results =
-            new HashMap<Class<? extends InputFormat<?, ?>>, InputFormat<?, ?>>();
-        for (FormatAndMapper pair : pairs) {
-            Class<? extends InputFormat<?, ?>> type = pair.formatClass;
-            if (results.containsKey(type) == false) {
-                try {
-                    InputFormat<?, ?> instance = type.newInstance();
-                    results.put(type, instance);
-                } catch (Exception e) {
-                    throw new IOException(MessageFormat.format(
-                            "Cannot instantiate {0}",
-                            type.getName()), e);
-                }
-            }
+    private InputFormat<?, ?> instantiateFormat(
+            Class<? extends InputFormat<?, ?>> type) throws IOException {
+        assert type != null;
+        try {
+            return type.newInstance();
+        } catch (Exception e) {
+            throw new IOException(MessageFormat.format(
+                    "Cannot instantiate {0}",
+                    type.getName()), e);
         }
-        return results;
     }
 
     @Override
@@ -127,8 +343,74 @@ public class StageInputFormat extends InputFormat {
         assert split instanceof StageInputSplit;
         StageInputSplit input = (StageInputSplit) split;
         InputFormat format = ReflectionUtils.newInstance(input.getFormatClass(), context.getConfiguration());
-        RecordReader original = format.createRecordReader(input.getOriginal(), context);
-        return new StageInputRecordReader(original);
+        return new StageInputRecordReader(format);
+    }
+
+    /**
+     * ひとつの{@code InputFormat, Mapper}の組に対するスプリットを計算するタスク。
+     */
+    private static class SplitTask implements Callable<List<StageInputSplit>> {
+
+        private final Job job;
+
+        private final InputFormat<?, ?> format;
+
+        private final FormatAndMapper formatAndMapper;
+
+        private final long combineSize;
+
+        SplitTask(Job job, InputFormat<?, ?> format, FormatAndMapper formatAndMapper, long combineSize) {
+            assert job != null;
+            assert format != null;
+            assert formatAndMapper != null;
+            this.job = job;
+            this.format = format;
+            this.formatAndMapper = formatAndMapper;
+            this.combineSize = combineSize;
+        }
+
+        @Override
+        public List<StageInputSplit> call() throws IOException, InterruptedException {
+            long start = System.currentTimeMillis();
+            List<InputSplit> splits = format.getSplits(job);
+            List<StageInputSplit> combined = combine(
+                    splits,
+                    formatAndMapper.formatClass,
+                    formatAndMapper.mapperClass,
+                    combineSize);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(MessageFormat.format(
+                        "Splits: format={0}, mapper={1}, original={2}, combined={3}, elapsed={4}ms",
+                        formatAndMapper.formatClass.getName(),
+                        formatAndMapper.mapperClass.getName(),
+                        splits.size(),
+                        combined.size(),
+                        String.valueOf(System.currentTimeMillis() - start)));
+            }
+            return combined;
+        }
+    }
+
+    /**
+     * スプリットの長さと配置を一度だけ問い合わせて保持する。
+     */
+    private static class SplitInfo {
+
+        final InputSplit split;
+
+        final long length;
+
+        final String[] locations;
+
+        boolean assigned;
+
+        SplitInfo(InputSplit split) throws IOException, InterruptedException {
+            assert split != null;
+            this.split = split;
+            this.length = split.getLength();
+            String[] hosts = split.getLocations();
+            this.locations = hosts == null ? new String[0] : hosts;
+        }
     }
 
     /**
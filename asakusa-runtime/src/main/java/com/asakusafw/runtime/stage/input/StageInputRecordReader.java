@@ -16,21 +16,43 @@
 package com.asakusafw.runtime.stage.input;
 
 import java.io.IOException;
+import java.util.List;
 
+import org.apache.hadoop.mapreduce.InputFormat;
 import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 
 /**
  * {@link StageInputSplit}を処理する{@link RecordReader}の実装。
+ * <p>
+ * {@link StageInputSplit}が複数の実際のスプリットを束ねている場合、それらを順に処理する。
+ * </p>
  */
 @SuppressWarnings("rawtypes")
 public class StageInputRecordReader extends RecordReader {
 
-    private final RecordReader<?, ?> original;
+    private final InputFormat<?, ?> format;
+
+    private RecordReader<?, ?> current;
+
+    private TaskAttemptContext context;
+
+    private List<InputSplit> splits;
+
+    private int currentIndex;
+
+    private long totalLength;
+
+    private long completedLength;
+
+    private long currentLength;
 
     /**
      * インスタンスを生成する。
+     * <p>
+     * このリーダーは単一の実際のスプリットのみを処理できる。
+     * </p>
      * @param original {@link StageInputSplit#getOriginal()}を処理する{@link RecordReader}
      * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
      */
@@ -38,47 +60,107 @@ public class StageInputRecordReader extends RecordReader {
         if (original == null) {
             throw new IllegalArgumentException("original must not be null"); //$NON-NLS-1$
         }
-        this.original = original;
+        this.format = null;
+        this.current = original;
+    }
+
+    /**
+     * インスタンスを生成する。
+     * @param format {@link StageInputSplit#getOriginals()}のそれぞれを処理するリーダーを生成するフォーマット
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     */
+    public StageInputRecordReader(InputFormat<?, ?> format) {
+        if (format == null) {
+            throw new IllegalArgumentException("format must not be null"); //$NON-NLS-1$
+        }
+        this.format = format;
+        this.current = null;
     }
 
     /**
-     * 実際の処理を行う{@link RecordReader}を返す。
-     * @return 実際の処理を行う{@link RecordReader}
+     * 現在実際の処理を行っている{@link RecordReader}を返す。
+     * @return 実際の処理を行う{@link RecordReader}、すべてのスプリットを処理済みの場合は{@code null}
      */
     public RecordReader<?, ?> getOriginal() {
-        return original;
+        return current;
     }
 
     @Override
     public void initialize(
             InputSplit split,
-            TaskAttemptContext context) throws IOException, InterruptedException {
+            TaskAttemptContext taskContext) throws IOException, InterruptedException {
         assert split instanceof StageInputSplit;
-        original.initialize(((StageInputSplit) split).getOriginal(), context);
+        this.context = taskContext;
+        this.splits = ((StageInputSplit) split).getOriginals();
+        if (format == null && splits.size() != 1) {
+            throw new IOException("Combined split requires an InputFormat to create each RecordReader");
+        }
+        this.totalLength = 0;
+        for (InputSplit s : splits) {
+            totalLength += s.getLength();
+        }
+        this.completedLength = 0;
+        this.currentIndex = 0;
+        open(splits.get(0));
+    }
+
+    private void open(InputSplit split) throws IOException, InterruptedException {
+        assert split != null;
+        if (current == null) {
+            current = format.createRecordReader(split, context);
+        }
+        currentLength = split.getLength();
+        current.initialize(split, context);
     }
 
     @Override
     public boolean nextKeyValue() throws IOException, InterruptedException {
-        return original.nextKeyValue();
+        while (current != null) {
+            if (current.nextKeyValue()) {
+                return true;
+            }
+            current.close();
+            current = null;
+            completedLength += currentLength;
+            currentLength = 0;
+            currentIndex++;
+            if (currentIndex < splits.size()) {
+                open(splits.get(currentIndex));
+            }
+        }
+        return false;
     }
 
     @Override
     public Object getCurrentKey() throws IOException, InterruptedException {
-        return original.getCurrentKey();
+        return current.getCurrentKey();
     }
 
     @Override
     public Object getCurrentValue() throws IOException, InterruptedException {
-        return original.getCurrentValue();
+        return current.getCurrentValue();
     }
 
     @Override
     public float getProgress() throws IOException, InterruptedException {
-        return original.getProgress();
+        if (current == null) {
+            return 1.0f;
+        }
+        if (splits == null || splits.size() == 1) {
+            return current.getProgress();
+        }
+        if (totalLength <= 0) {
+            return (currentIndex + current.getProgress()) / splits.size();
+        }
+        float done = completedLength + currentLength * current.getProgress();
+        return Math.min(1.0f, done / totalLength);
     }
 
     @Override
     public void close() throws IOException {
-        original.close();
+        if (current != null) {
+            current.close();
+            current = null;
+        }
     }
 }
@@ -19,10 +19,14 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import org.apache.hadoop.conf.Configurable;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
 import org.apache.hadoop.mapreduce.InputFormat;
 import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.Mapper;
@@ -33,10 +37,18 @@ import org.apache.hadoop.util.ReflectionUtils;
  * <p>
  * 全体の{@code InputFormat, Mapper}に関する設定を無視して、スプリットごとにそれぞれを指定できる。
  * </p>
+ * <p>
+ * ひとつのスプリットは、同一の{@code InputFormat, Mapper}を利用する複数の実際のスプリットを束ねることができる。
+ * この場合、{@link StageInputRecordReader}はそれぞれのスプリットを順に処理する。
+ * </p>
  */
 public class StageInputSplit extends InputSplit implements Writable, Configurable {
 
-    private InputSplit original;
+    private static final String[] EMPTY_LOCATIONS = new String[0];
+
+    private List<InputSplit> originals;
+
+    private String[] locations;
 
     private Class<? extends InputFormat<?, ?>> formatClass;
 
@@ -62,8 +74,29 @@ public class StageInputSplit extends InputSplit implements Writable, Configurabl
             InputSplit original,
             Class<? extends InputFormat<?, ?>> formatClass,
             Class<? extends Mapper<?, ?, ?, ?>> mapperClass) {
-        if (original == null) {
-            throw new IllegalArgumentException("original must not be null"); //$NON-NLS-1$
+        this(Collections.singletonList(checkOriginal(original)), null, formatClass, mapperClass);
+    }
+
+    /**
+     * 複数の実際のスプリットを束ねたインスタンスを生成する。
+     * @param originals 実際のデータに関する{@link InputSplit}の一覧
+     * @param locations このスプリットを処理するのに適したホスト名の一覧、
+     *     実際のスプリットの情報から算出する場合は{@code null}
+     * @param formatClass このスプリットの元になった{@link InputFormat}
+     * @param mapperClass このスプリットを処理する{@link Mapper}
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合、
+     *     または{@code originals}が空の場合
+     */
+    public StageInputSplit(
+            List<? extends InputSplit> originals,
+            String[] locations,
+            Class<? extends InputFormat<?, ?>> formatClass,
+            Class<? extends Mapper<?, ?, ?, ?>> mapperClass) {
+        if (originals == null) {
+            throw new IllegalArgumentException("originals must not be null"); //$NON-NLS-1$
+        }
+        if (originals.isEmpty()) {
+            throw new IllegalArgumentException("originals must not be empty"); //$NON-NLS-1$
         }
         if (formatClass == null) {
             throw new IllegalArgumentException("formatClass must not be null"); //$NON-NLS-1$
@@ -71,27 +104,60 @@ public class StageInputSplit extends InputSplit implements Writable, Configurabl
         if (mapperClass == null) {
             throw new IllegalArgumentException("mapperClass must not be null"); //$NON-NLS-1$
         }
-        this.original = original;
+        for (InputSplit split : originals) {
+            checkOriginal(split);
+        }
+        this.originals = new ArrayList<InputSplit>(originals);
+        this.locations = locations == null ? null : locations.clone();
         this.formatClass = formatClass;
         this.mapperClass = mapperClass;
     }
 
+    private static InputSplit checkOriginal(InputSplit original) {
+        if (original == null) {
+            throw new IllegalArgumentException("original must not be null"); //$NON-NLS-1$
+        }
+        return original;
+    }
+
     @Override
     public long getLength() throws IOException, InterruptedException {
-        return original.getLength();
+        long total = 0;
+        for (InputSplit split : originals) {
+            total += split.getLength();
+        }
+        return total;
     }
 
     @Override
     public String[] getLocations() throws IOException, InterruptedException {
-        return original.getLocations();
+        if (locations != null) {
+            return locations;
+        }
+        if (originals.size() == 1) {
+            return originals.get(0).getLocations();
+        }
+        return EMPTY_LOCATIONS;
     }
 
     /**
      * 実際のデータに関するスプリットの情報を返す。
+     * <p>
+     * 複数のスプリットを束ねている場合、先頭のスプリットを返す。
+     * </p>
      * @return 実際のデータに関するスプリットの情報
+     * @see #getOriginals()
      */
     public InputSplit getOriginal() {
-        return original;
+        return originals.get(0);
+    }
+
+    /**
+     * このスプリットが束ねている実際のデータに関するスプリットの一覧を返す。
+     * @return 実際のデータに関するスプリットの一覧
+     */
+    public List<InputSplit> getOriginals() {
+        return originals;
     }
 
     /**
@@ -112,25 +178,35 @@ public class StageInputSplit extends InputSplit implements Writable, Configurabl
 
     @Override
     public void write(DataOutput out) throws IOException {
-        Class<? extends InputSplit> splitClass = original.getClass();
-        writeClassByName(out, splitClass);
         writeClassByName(out, formatClass);
         writeClassByName(out, mapperClass);
+        WritableUtils.writeVInt(out, originals.size());
+        for (InputSplit split : originals) {
+            writeClassByName(out, split.getClass());
 
-        // FIXME InputSplit must be a subtype of Writable
-        ((Writable) original).write(out);
+            // FIXME InputSplit must be a subtype of Writable
+            ((Writable) split).write(out);
+        }
+        // ロケーションはスケジューリング時にのみ利用されるため、ここでは転送しない
     }
 
     @SuppressWarnings("unchecked")
     @Override
     public void readFields(DataInput in) throws IOException {
-        Class<? extends InputSplit> splitClass = readClassByName(InputSplit.class, in);
         this.formatClass = (Class<? extends InputFormat<?, ?>>) readClassByName(InputFormat.class, in);
         this.mapperClass = (Class<? extends Mapper<?, ?, ?, ?>>) readClassByName(Mapper.class, in);
-
-        // FIXME InputSplit must be a subtype of Writable
-        this.original = ReflectionUtils.newInstance(splitClass, configuration);
-        ((Writable) original).readFields(in);
+        int count = WritableUtils.readVInt(in);
+        List<InputSplit> splits = new ArrayList<InputSplit>(count);
+        for (int i = 0; i < count; i++) {
+            Class<? extends InputSplit> splitClass = readClassByName(InputSplit.class, in);
+
+            // FIXME InputSplit must be a subtype of Writable
+            InputSplit split = ReflectionUtils.newInstance(splitClass, configuration);
+            ((Writable) split).readFields(in);
+            splits.add(split);
+        }
+        this.originals = splits;
+        this.locations = null;
     }
 
     private void writeClassByName(DataOutput out, Class<?> aClass) throws IOException {
@@ -16,16 +16,25 @@
 package com.asakusafw.runtime.stage.output;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.text.MessageFormat;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.mapreduce.Job;
 import org.apache.hadoop.mapreduce.OutputFormat;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
 import org.apache.hadoop.mapreduce.TaskInputOutputContext;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
 import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
+import org.apache.hadoop.util.ReflectionUtils;
 
 import com.asakusafw.runtime.core.Result;
 import com.asakusafw.runtime.flow.ResultOutput;
@@ -35,12 +44,40 @@ import com.asakusafw.runtime.flow.ResultOutput;
  * <p>
  * 現在のところ、{@link FileOutputFormat}およびそのサブクラスに関するもののみを取り扱う。
  * </p>
+ * <p>
+ * それぞれの出力は最初に要求された際に{@link RecordWriter}を解決し、
+ * 以降は結果をその{@link RecordWriter}に直接書き出す。
+ * 出力を閉じる際に、出力ごとのレコード数とバイト数を{@link #COUNTER_GROUP}のカウンタとして報告する。
+ * </p>
  */
 public class StageOutputDriver {
 
-    private final MultipleOutputs<?, ?> multipleOutputs;
+    static final Log LOG = LogFactory.getLog(StageOutputDriver.class);
+
+    /**
+     * 出力ごとのレコード数やバイト数を報告するカウンタのグループ名。
+     */
+    public static final String COUNTER_GROUP = "com.asakusafw.stage.output";
+
+    /**
+     * 出力ごとの設定を保持するプロパティキーの接頭辞。
+     */
+    static final String K_PREFIX = "com.asakusafw.stage.output.";
+
+    private static final String K_FORMAT = ".format";
+
+    private static final String K_KEY = ".key";
+
+    private static final String K_VALUE = ".value";
+
+    /**
+     * {@link FileOutputFormat}が出力ファイル名の接頭辞として利用するHadoopのプロパティキー。
+     */
+    static final String K_BASE_OUTPUT_NAME = "mapreduce.output.basename";
+
+    private final TaskInputOutputContext<?, ?, ?, ?> context;
 
-    private final Map<String, Result<?>> resultSinks;
+    private final Map<String, Sink> resultSinks;
 
     /**
      * インスタンスを生成する。
@@ -51,8 +88,8 @@ public class StageOutputDriver {
         if (context == null) {
             throw new IllegalArgumentException("context must not be null"); //$NON-NLS-1$
         }
-        this.multipleOutputs = ResultOutput.createMultipleOutputs(context);
-        this.resultSinks = new HashMap<String, Result<?>>();
+        this.context = context;
+        this.resultSinks = new LinkedHashMap<String, Sink>();
     }
 
     /**
@@ -73,14 +110,43 @@ public class StageOutputDriver {
         if (name == null) {
             throw new IllegalArgumentException("name must not be null"); //$NON-NLS-1$
         }
+        Sink sink = resultSinks.get(name);
+        if (sink == null) {
+            sink = open(name);
+            resultSinks.put(name, sink);
+        }
         @SuppressWarnings("unchecked")
-        Result<T> sink = (Result<T>) resultSinks.get(name);
-        if (sink != null) {
-            return sink;
+        Result<T> result = (Result<T>) sink.output;
+        return result;
+    }
+
+    private Sink open(String name) throws IOException, InterruptedException {
+        assert name != null;
+        Configuration conf = context.getConfiguration();
+        @SuppressWarnings("rawtypes")
+        Class<? extends OutputFormat> formatClass =
+            conf.getClass(K_PREFIX + name + K_FORMAT, null, OutputFormat.class);
+        Class<?> keyClass = conf.getClass(K_PREFIX + name + K_KEY, null);
+        Class<?> valueClass = conf.getClass(K_PREFIX + name + K_VALUE, null);
+        if (formatClass == null || keyClass == null || valueClass == null) {
+            throw new IOException(MessageFormat.format(
+                    "Output \"{0}\" is not defined in this job",
+                    name));
         }
-        sink = new ResultOutput<T>(multipleOutputs, name);
-        resultSinks.put(name, sink);
-        return sink;
+        LOG.info(MessageFormat.format("出力{0}を初期化しています", name));
+        Job job = new Job(conf);
+        job.setOutputKeyClass(keyClass);
+        job.setOutputValueClass(valueClass);
+        job.setOutputFormatClass(formatClass);
+        job.getConfiguration().set(K_BASE_OUTPUT_NAME, name);
+        TaskAttemptContext taskContext = new TaskAttemptContext(
+                job.getConfiguration(),
+                context.getTaskAttemptID());
+        OutputFormat<?, ?> format = (OutputFormat<?, ?>) ReflectionUtils.newInstance(
+                formatClass,
+                taskContext.getConfiguration());
+        RecordWriter<?, ?> writer = format.getRecordWriter(taskContext);
+        return new Sink(taskContext, writer, new ResultOutput<Writable>(name, writer));
     }
 
     /**
@@ -89,8 +155,49 @@ public class StageOutputDriver {
      * @throws InterruptedException 出力の破棄に割り込みが発行された場合
      * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
      */
-    public void close() throws IOException, InterruptedException {
-        multipleOutputs.close();
+    public synchronized void close() throws IOException, InterruptedException {
+        IOException firstError = null;
+        for (Sink sink : resultSinks.values()) {
+            try {
+                sink.writer.close(sink.context);
+            } catch (IOException e) {
+                LOG.error(MessageFormat.format(
+                        "出力{0}を閉じられませんでした",
+                        sink.output.getOutputName()), e);
+                if (firstError == null) {
+                    firstError = e;
+                }
+                continue;
+            }
+            reportCounters(sink);
+        }
+        resultSinks.clear();
+        if (firstError != null) {
+            throw firstError;
+        }
+    }
+
+    private void reportCounters(Sink sink) throws InterruptedException {
+        assert sink != null;
+        String name = sink.output.getOutputName();
+        context.getCounter(COUNTER_GROUP, name + ".records").increment(sink.output.getRecordCount());
+        try {
+            Path workPath = FileOutputFormat.getWorkOutputPath(context);
+            FileSystem fs = workPath.getFileSystem(context.getConfiguration());
+            FileStatus[] files = fs.globStatus(new Path(workPath, name + "-*"));
+            long bytes = 0;
+            if (files != null) {
+                for (FileStatus file : files) {
+                    bytes += file.getLen();
+                }
+            }
+            context.getCounter(COUNTER_GROUP, name + ".bytes").increment(bytes);
+        } catch (IOException e) {
+            // バイト数は参考情報のため、取得できなくても処理は続行する
+            LOG.warn(MessageFormat.format(
+                    "出力{0}のバイト数を取得できませんでした",
+                    name), e);
+        }
     }
 
     /**
@@ -141,5 +248,24 @@ public class StageOutputDriver {
             throw new IllegalArgumentException("valueClass must not be null"); //$NON-NLS-1$
         }
         MultipleOutputs.addNamedOutput(job, name, formatClass, keyClass, valueClass);
+        Configuration conf = job.getConfiguration();
+        conf.setClass(K_PREFIX + name + K_FORMAT, formatClass, OutputFormat.class);
+        conf.setClass(K_PREFIX + name + K_KEY, keyClass, Object.class);
+        conf.setClass(K_PREFIX + name + K_VALUE, valueClass, Object.class);
+    }
+
+    private static final class Sink {
+
+        final TaskAttemptContext context;
+
+        final RecordWriter<?, ?> writer;
+
+        final ResultOutput<Writable> output;
+
+        Sink(TaskAttemptContext context, RecordWriter<?, ?> writer, ResultOutput<Writable> output) {
+            this.context = context;
+            this.writer = writer;
+            this.output = output;
+        }
     }
 }
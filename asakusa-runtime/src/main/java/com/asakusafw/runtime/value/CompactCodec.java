@@ -0,0 +1,307 @@
+/**
+ * Copyright 2011 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.runtime.value;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * モデルオブジェクトをコンパクトな形式で直列化するためのユーティリティ。
+ * <p>
+ * この形式では、それぞれの{@link ValueOption}が持つ{@code null}フラグを
+ * レコードごとのビットマップにまとめ、{@code null}でない値の内容のみを書き出す。
+ * 整数値はジグザグ符号化した可変長整数として、文字列は長さ付きのUTF-8バイト列として書き出す。
+ * </p>
+ * <p>
+ * ビットマップはプロパティ8個ごとに1バイトで、各バイトの下位ビットから順に
+ * プロパティの宣言順に対応する。ビットが立っているプロパティは{@code null}を表す。
+ * </p>
+ * <p>
+ * このクラスのメソッドはモデルジェネレータが生成するコードから利用される。
+ * {@code write}および{@code read}は、いずれも{@code null}でない値のみを対象とする。
+ * </p>
+ */
+public final class CompactCodec {
+
+    /**
+     * ひとつのビットマップが取り扱うプロパティの個数。
+     */
+    public static final int BITMAP_WIDTH = 8;
+
+    private static final int VAR_MASK = 0x7f;
+
+    private static final int VAR_CONTINUE = 0x80;
+
+    private static final int VAR_SHIFT = 7;
+
+    private CompactCodec() {
+        throw new AssertionError();
+    }
+
+    /**
+     * 指定の値が{@code null}である場合に、ビットマップ上の対応するビットを返す。
+     * @param option 対象の値
+     * @param index ビットマップ内の位置 ({@code 0}から{@code 7})
+     * @return 対応するビット、{@code null}でない場合は{@code 0}
+     */
+    public static int nullBit(ValueOption<?> option, int index) {
+        return option.isNull() ? (1 << index) : 0;
+    }
+
+    /**
+     * ビットマップ上で指定の位置のプロパティが{@code null}を表す場合のみ{@code true}を返す。
+     * @param bitmap 対象のビットマップ
+     * @param index ビットマップ内の位置 ({@code 0}から{@code 7})
+     * @return {@code null}を表す場合のみ{@code true}
+     */
+    public static boolean isNull(int bitmap, int index) {
+        return (bitmap & (1 << index)) != 0;
+    }
+
+    /**
+     * 値の内容を書き出す。
+     * @param out 出力先
+     * @param option 書き出す値
+     * @throws IOException 出力に失敗した場合
+     */
+    public static void write(DataOutput out, BooleanOption option) throws IOException {
+        out.writeBoolean(option.get());
+    }
+
+    /**
+     * 値の内容を読み出す。
+     * @param in 入力元
+     * @param option 読み出した内容を設定する値
+     * @throws IOException 入力に失敗した場合
+     */
+    @SuppressWarnings("deprecation")
+    public static void read(DataInput in, BooleanOption option) throws IOException {
+        option.modify(in.readBoolean());
+    }
+
+    /**
+     * 値の内容を書き出す。
+     * @param out 出力先
+     * @param option 書き出す値
+     * @throws IOException 出力に失敗した場合
+     */
+    public static void write(DataOutput out, ByteOption option) throws IOException {
+        out.writeByte(option.get());
+    }
+
+    /**
+     * 値の内容を読み出す。
+     * @param in 入力元
+     * @param option 読み出した内容を設定する値
+     * @throws IOException 入力に失敗した場合
+     */
+    @SuppressWarnings("deprecation")
+    public static void read(DataInput in, ByteOption option) throws IOException {
+        option.modify(in.readByte());
+    }
+
+    /**
+     * 値の内容を書き出す。
+     * @param out 出力先
+     * @param option 書き出す値
+     * @throws IOException 出力に失敗した場合
+     */
+    public static void write(DataOutput out, ShortOption option) throws IOException {
+        writeVarLong(out, encodeZigZag(option.get()));
+    }
+
+    /**
+     * 値の内容を読み出す。
+     * @param in 入力元
+     * @param option 読み出した内容を設定する値
+     * @throws IOException 入力に失敗した場合
+     */
+    @SuppressWarnings("deprecation")
+    public static void read(DataInput in, ShortOption option) throws IOException {
+        option.modify((short) decodeZigZag(readVarLong(in)));
+    }
+
+    /**
+     * 値の内容を書き出す。
+     * @param out 出力先
+     * @param option 書き出す値
+     * @throws IOException 出力に失敗した場合
+     */
+    public static void write(DataOutput out, IntOption option) throws IOException {
+        writeVarLong(out, encodeZigZag(option.get()));
+    }
+
+    /**
+     * 値の内容を読み出す。
+     * @param in 入力元
+     * @param option 読み出した内容を設定する値
+     * @throws IOException 入力に失敗した場合
+     */
+    @SuppressWarnings("deprecation")
+    public static void read(DataInput in, IntOption option) throws IOException {
+        option.modify((int) decodeZigZag(readVarLong(in)));
+    }
+
+    /**
+     * 値の内容を書き出す。
+     * @param out 出力先
+     * @param option 書き出す値
+     * @throws IOException 出力に失敗した場合
+     */
+    public static void write(DataOutput out, LongOption option) throws IOException {
+        writeVarLong(out, encodeZigZag(option.get()));
+    }
+
+    /**
+     * 値の内容を読み出す。
+     * @param in 入力元
+     * @param option 読み出した内容を設定する値
+     * @throws IOException 入力に失敗した場合
+     */
+    @SuppressWarnings("deprecation")
+    public static void read(DataInput in, LongOption option) throws IOException {
+        option.modify(decodeZigZag(readVarLong(in)));
+    }
+
+    /**
+     * 値の内容を書き出す。
+     * @param out 出力先
+     * @param option 書き出す値
+     * @throws IOException 出力に失敗した場合
+     */
+    public static void write(DataOutput out, DateOption option) throws IOException {
+        writeVarLong(out, encodeZigZag(option.get().getElapsedDays()));
+    }
+
+    /**
+     * 値の内容を読み出す。
+     * @param in 入力元
+     * @param option 読み出した内容を設定する値
+     * @throws IOException 入力に失敗した場合
+     */
+    @SuppressWarnings("deprecation")
+    public static void read(DataInput in, DateOption option) throws IOException {
+        option.modify((int) decodeZigZag(readVarLong(in)));
+    }
+
+    /**
+     * 値の内容を書き出す。
+     * @param out 出力先
+     * @param option 書き出す値
+     * @throws IOException 出力に失敗した場合
+     */
+    public static void write(DataOutput out, DateTimeOption option) throws IOException {
+        writeVarLong(out, encodeZigZag(option.get().getElapsedSeconds()));
+    }
+
+    /**
+     * 値の内容を読み出す。
+     * @param in 入力元
+     * @param option 読み出した内容を設定する値
+     * @throws IOException 入力に失敗した場合
+     */
+    @SuppressWarnings("deprecation")
+    public static void read(DataInput in, DateTimeOption option) throws IOException {
+        option.modify(decodeZigZag(readVarLong(in)));
+    }
+
+    /**
+     * 値の内容を書き出す。
+     * <p>
+     * 十進数はスケールと、スケールを除いた整数値の2の補数表現に分けて書き出す。
+     * </p>
+     * @param out 出力先
+     * @param option 書き出す値
+     * @throws IOException 出力に失敗した場合
+     */
+    public static void write(DataOutput out, DecimalOption option) throws IOException {
+        BigDecimal value = option.get();
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        writeVarLong(out, encodeZigZag(value.scale()));
+        writeVarLong(out, unscaled.length);
+        out.write(unscaled);
+    }
+
+    /**
+     * 値の内容を読み出す。
+     * @param in 入力元
+     * @param option 読み出した内容を設定する値
+     * @throws IOException 入力に失敗した場合
+     */
+    @SuppressWarnings("deprecation")
+    public static void read(DataInput in, DecimalOption option) throws IOException {
+        int scale = (int) decodeZigZag(readVarLong(in));
+        byte[] unscaled = new byte[(int) readVarLong(in)];
+        in.readFully(unscaled);
+        option.modify(new BigDecimal(new BigInteger(unscaled), scale));
+    }
+
+    /**
+     * 値の内容を書き出す。
+     * <p>
+     * 文字列は{@link org.apache.hadoop.io.Text}と同じ長さ付きのUTF-8バイト列として書き出すため、
+     * 同じ値は常に同じバイト列となり、ブロック圧縮の辞書に乗りやすい。
+     * </p>
+     * @param out 出力先
+     * @param option 書き出す値
+     * @throws IOException 出力に失敗した場合
+     */
+    public static void write(DataOutput out, StringOption option) throws IOException {
+        option.writePayload(out);
+    }
+
+    /**
+     * 値の内容を読み出す。
+     * @param in 入力元
+     * @param option 読み出した内容を設定する値
+     * @throws IOException 入力に失敗した場合
+     */
+    public static void read(DataInput in, StringOption option) throws IOException {
+        option.readPayload(in);
+    }
+
+    static long encodeZigZag(long value) {
+        return (value << 1) ^ (value >> (Long.SIZE - 1));
+    }
+
+    static long decodeZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static void writeVarLong(DataOutput out, long value) throws IOException {
+        long rest = value;
+        while ((rest & ~VAR_MASK) != 0) {
+            out.writeByte((int) (rest & VAR_MASK) | VAR_CONTINUE);
+            rest >>>= VAR_SHIFT;
+        }
+        out.writeByte((int) rest);
+    }
+
+    static long readVarLong(DataInput in) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += VAR_SHIFT) {
+            int b = in.readUnsignedByte();
+            result |= (long) (b & VAR_MASK) << shift;
+            if ((b & VAR_CONTINUE) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed variable length integer");
+    }
+}
@@ -52,6 +52,61 @@ public final class DateUtil {
         DAYS_NOVEMBER,
     };
 
+    /**
+     * 平年の年初からの経過日数に対する月 (1-12) の表。
+     */
+    private static final byte[] MONTH_OF_YEAR_NORMAL = new byte[DAYS_YEAR];
+
+    /**
+     * 閏年の年初からの経過日数に対する月 (1-12) の表。
+     */
+    private static final byte[] MONTH_OF_YEAR_LEAP = new byte[DAYS_YEAR + 1];
+
+    /**
+     * 平年の年初からの経過日数に対する月内の日 (1-31) の表。
+     */
+    private static final byte[] DAY_OF_MONTH_NORMAL = new byte[DAYS_YEAR];
+
+    /**
+     * 閏年の年初からの経過日数に対する月内の日 (1-31) の表。
+     */
+    private static final byte[] DAY_OF_MONTH_LEAP = new byte[DAYS_YEAR + 1];
+
+    static {
+        for (int i = 0; i < DAYS_YEAR; i++) {
+            MONTH_OF_YEAR_NORMAL[i] = (byte) computeMonthOfYear(i, false);
+            DAY_OF_MONTH_NORMAL[i] = (byte) computeDayOfMonth(i, false);
+        }
+        for (int i = 0; i < DAYS_YEAR + 1; i++) {
+            MONTH_OF_YEAR_LEAP[i] = (byte) computeMonthOfYear(i, true);
+            DAY_OF_MONTH_LEAP[i] = (byte) computeDayOfMonth(i, true);
+        }
+    }
+
+    /**
+     * 日付の文字列表現 ({@code yyyy-MM-dd}) のバイト長。
+     */
+    public static final int DATE_LENGTH = 10;
+
+    /**
+     * 日時の文字列表現 ({@code yyyy-MM-dd HH:mm:ss}) のバイト長。
+     */
+    public static final int DATE_TIME_LENGTH = 19;
+
+    /**
+     * 文字列表現を解析できなかったことを表す値。
+     */
+    public static final int INVALID = -1;
+
+    private static final int MAX_YEAR = 9999;
+
+    /**
+     * 数字でない文字を解析した結果 (年を計算しても負の値となる)。
+     */
+    private static final int NOT_DIGITS = -10000;
+
+    private static final int SECONDS_DAY = 86400;
+
     /**
      * 閏年の循環単位。
      */
@@ -196,6 +251,14 @@ public final class DateUtil {
      * @return 対象の日を含む月、<em>1月を1とし、12月を12とする</em>
      */
     public static int getMonthOfYear(int dayOfYear, boolean leap) {
+        byte[] table = leap ? MONTH_OF_YEAR_LEAP : MONTH_OF_YEAR_NORMAL;
+        if (0 <= dayOfYear && dayOfYear < table.length) {
+            return table[dayOfYear];
+        }
+        return computeMonthOfYear(dayOfYear, leap);
+    }
+
+    private static int computeMonthOfYear(int dayOfYear, boolean leap) {
         int d = dayOfYear;
         if (d < DAYS_JANUARY) {
             return 1;
@@ -243,6 +306,14 @@ public final class DateUtil {
      * @return 対応する月内での日、<em>1日を1とし、30日を30などとする</em>
      */
     public static int getDayOfMonth(int dayOfYear, boolean leap) {
+        byte[] table = leap ? DAY_OF_MONTH_LEAP : DAY_OF_MONTH_NORMAL;
+        if (0 <= dayOfYear && dayOfYear < table.length) {
+            return table[dayOfYear];
+        }
+        return computeDayOfMonth(dayOfYear, leap);
+    }
+
+    private static int computeDayOfMonth(int dayOfYear, boolean leap) {
         int d = dayOfYear;
         if (d < DAYS_JANUARY) {
             return d + 1;
@@ -304,6 +375,174 @@ public final class DateUtil {
         return (int) (seconds % 86400);
     }
 
+    /**
+     * {@code yyyy-MM-dd}形式のUTF-8 (ASCII) のバイト列を解析し、西暦0001/01/01からの経過日数を返す。
+     * <p>
+     * このメソッドはオブジェクトを生成しない。
+     * </p>
+     * @param bytes 対象のバイト列
+     * @param offset 対象の開始位置
+     * @param length 対象のバイト長
+     * @return 西暦0001/01/01からの経過日数、解析できない場合や存在しない日付の場合は{@link #INVALID}
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     */
+    public static int parseDate(byte[] bytes, int offset, int length) {
+        if (bytes == null) {
+            throw new IllegalArgumentException("bytes must not be null"); //$NON-NLS-1$
+        }
+        if (length != DATE_LENGTH) {
+            return INVALID;
+        }
+        return parseDate0(bytes, offset);
+    }
+
+    /**
+     * {@code yyyy-MM-dd HH:mm:ss}形式のUTF-8 (ASCII) のバイト列を解析し、
+     * 西暦0001/01/01 00:00:00からの経過秒数を返す。
+     * <p>
+     * このメソッドはオブジェクトを生成しない。
+     * </p>
+     * @param bytes 対象のバイト列
+     * @param offset 対象の開始位置
+     * @param length 対象のバイト長
+     * @return 西暦0001/01/01 00:00:00からの経過秒数、
+     *     解析できない場合や存在しない日時の場合は{@link #INVALID}
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     */
+    public static long parseDateTime(byte[] bytes, int offset, int length) {
+        if (bytes == null) {
+            throw new IllegalArgumentException("bytes must not be null"); //$NON-NLS-1$
+        }
+        if (length != DATE_TIME_LENGTH) {
+            return INVALID;
+        }
+        int days = parseDate0(bytes, offset);
+        if (days == INVALID || bytes[offset + 10] != ' ') {
+            return INVALID;
+        }
+        int hour = parseDigits2(bytes, offset + 11);
+        int minute = parseDigits2(bytes, offset + 14);
+        int second = parseDigits2(bytes, offset + 17);
+        if (bytes[offset + 13] != ':' || bytes[offset + 16] != ':'
+                || hour < 0 || hour >= 24
+                || minute < 0 || minute >= 60
+                || second < 0 || second >= 60) {
+            return INVALID;
+        }
+        return (long) days * SECONDS_DAY + getSecondFromTime(hour, minute, second);
+    }
+
+    private static int parseDate0(byte[] bytes, int offset) {
+        int year = parseDigits2(bytes, offset) * 100 + parseDigits2(bytes, offset + 2);
+        int month = parseDigits2(bytes, offset + 5);
+        int day = parseDigits2(bytes, offset + 8);
+        if (bytes[offset + 4] != '-' || bytes[offset + 7] != '-'
+                || year <= 0 || month <= 0 || month > 12 || day <= 0) {
+            return INVALID;
+        }
+        boolean leap = isLeap(year);
+        int dayInYear = DAYS_MONTH[month - 1] + day - 1 + (month >= 3 && leap ? 1 : 0);
+        byte[] table = leap ? DAY_OF_MONTH_LEAP : DAY_OF_MONTH_NORMAL;
+        if (dayInYear >= table.length || table[dayInYear] != day) {
+            return INVALID;
+        }
+        return getDayFromYear(year) + dayInYear;
+    }
+
+    /**
+     * 2桁の数字を解析する。
+     * @return 解析結果、数字でない文字が含まれる場合は負の値
+     */
+    private static int parseDigits2(byte[] bytes, int offset) {
+        int d1 = bytes[offset] - '0';
+        int d2 = bytes[offset + 1] - '0';
+        if (d1 < 0 || d1 > 9 || d2 < 0 || d2 > 9) {
+            return NOT_DIGITS;
+        }
+        return d1 * 10 + d2;
+    }
+
+    /**
+     * 西暦0001/01/01からの経過日数を{@code yyyy-MM-dd}形式のUTF-8 (ASCII) のバイト列に変換し、
+     * 指定のバッファに書き出す。
+     * <p>
+     * このメソッドはオブジェクトを生成しない。
+     * </p>
+     * @param days 西暦0001/01/01からの経過日数
+     * @param buffer 書き出し先のバッファ ({@link #DATE_LENGTH}バイト以上の空きが必要)
+     * @param offset 書き出し先の開始位置
+     * @return 書き出したバイト数 ({@link #DATE_LENGTH})
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合、
+     *     または日付が西暦0001年から9999年の範囲にない場合
+     */
+    public static int formatDate(int days, byte[] buffer, int offset) {
+        if (buffer == null) {
+            throw new IllegalArgumentException("buffer must not be null"); //$NON-NLS-1$
+        }
+        if (days < 0) {
+            throw new IllegalArgumentException("days must not be negative"); //$NON-NLS-1$
+        }
+        int year = getYearFromDay(days);
+        if (year > MAX_YEAR) {
+            throw new IllegalArgumentException("year must be less than 10000"); //$NON-NLS-1$
+        }
+        int dayInYear = days - getDayFromYear(year);
+        boolean leap = isLeap(year);
+        writeDigits2(year / 100, buffer, offset);
+        writeDigits2(year % 100, buffer, offset + 2);
+        buffer[offset + 4] = '-';
+        writeDigits2(getMonthOfYear(dayInYear, leap), buffer, offset + 5);
+        buffer[offset + 7] = '-';
+        writeDigits2(getDayOfMonth(dayInYear, leap), buffer, offset + 8);
+        return DATE_LENGTH;
+    }
+
+    /**
+     * 西暦0001/01/01 00:00:00からの経過秒数を{@code yyyy-MM-dd HH:mm:ss}形式の
+     * UTF-8 (ASCII) のバイト列に変換し、指定のバッファに書き出す。
+     * <p>
+     * このメソッドはオブジェクトを生成しない。
+     * </p>
+     * @param seconds 西暦0001/01/01 00:00:00からの経過秒数
+     * @param buffer 書き出し先のバッファ ({@link #DATE_TIME_LENGTH}バイト以上の空きが必要)
+     * @param offset 書き出し先の開始位置
+     * @return 書き出したバイト数 ({@link #DATE_TIME_LENGTH})
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合、
+     *     または日時が西暦0001年から9999年の範囲にない場合
+     */
+    public static int formatDateTime(long seconds, byte[] buffer, int offset) {
+        if (buffer == null) {
+            throw new IllegalArgumentException("buffer must not be null"); //$NON-NLS-1$
+        }
+        if (seconds < 0) {
+            throw new IllegalArgumentException("seconds must not be negative"); //$NON-NLS-1$
+        }
+        formatDate(getDayFromSeconds(seconds), buffer, offset);
+        int second = getSecondOfDay(seconds);
+        buffer[offset + 10] = ' ';
+        writeDigits2(second / (60 * 60), buffer, offset + 11);
+        buffer[offset + 13] = ':';
+        writeDigits2(second / 60 % 60, buffer, offset + 14);
+        buffer[offset + 16] = ':';
+        writeDigits2(second % 60, buffer, offset + 17);
+        return DATE_TIME_LENGTH;
+    }
+
+    /**
+     * 指定の経過日数が、{@link #formatDate(int, byte[], int)}で書き出せる範囲にある場合のみ{@code true}を返す。
+     * @param days 西暦0001/01/01からの経過日数
+     * @return 書き出せる範囲にある場合のみ{@code true}
+     */
+    public static boolean isFormattable(int days) {
+        return days >= 0 && getYearFromDay(days) <= MAX_YEAR;
+    }
+
+    private static void writeDigits2(int value, byte[] buffer, int offset) {
+        assert 0 <= value && value < 100;
+        buffer[offset] = (byte) ('0' + value / 10);
+        buffer[offset + 1] = (byte) ('0' + value % 10);
+    }
+
 //    /**
 //     * UNIX秒の開始時刻。
 //     */
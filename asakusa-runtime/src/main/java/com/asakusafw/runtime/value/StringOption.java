@@ -39,6 +39,22 @@ class Something {
         }
     }
 }
+</code></pre>
+ * <p>
+ * 文字列オブジェクトを生成せずに比較する場合、
+ * {@link #toUtf8(String)}であらかじめ比較対象をUTF-8のバイト列に変換しておき、
+ * {@link #has(byte[])}や{@link #startsWith(byte[])}などのメソッドを利用するとよい。
+ * </p>
+<pre><code>
+class Something {
+    static final byte[] PREFIX = StringOption.toUtf8("something");
+
+    void something(Hoge hoge) {
+        if (hoge.getValueOption().startsWith(PREFIX)) {
+            ....
+        }
+    }
+}
 </code></pre>
  */
 public final class StringOption extends ValueOption<StringOption> {
@@ -50,8 +66,26 @@ public final class StringOption extends ValueOption<StringOption> {
         }
     };
 
+    private static final int NO_HASH = 0;
+
+    private static final int UNMAPPABLE = Integer.MIN_VALUE;
+
     private Text entity = new Text();
 
+    /**
+     * {@link #entity}のハッシュ値のキャッシュ、未計算の場合は{@link #NO_HASH}。
+     */
+    private int hashCache = NO_HASH;
+
+    /**
+     * {@link #entity}を{@link #get()}で外部に公開した場合に{@code true}。
+     * <p>
+     * 公開した値は呼び出し元で変更されうるため、次にこのオブジェクトの内容が置き換えられるまで
+     * ハッシュ値をキャッシュしない。
+     * </p>
+     */
+    private boolean exposed;
+
     /**
      * インスタンスを生成する。
      */
@@ -74,6 +108,9 @@ public final class StringOption extends ValueOption<StringOption> {
 
     /**
      * このオブジェクトが表現する値を返す。
+     * <p>
+     * 返した値は、このオブジェクトの内容を次に置き換えるまでの間に限り変更してよい。
+     * </p>
      * @return このオブジェクトが表現する値
      * @throws NullPointerException この値が{@code null}を表現する場合
      */
@@ -81,6 +118,9 @@ public final class StringOption extends ValueOption<StringOption> {
         if (nullValue) {
             throw new NullPointerException();
         }
+        // 返した値は以降も変更されうるので、キャッシュを破棄して利用を停止する
+        hashCache = NO_HASH;
+        exposed = true;
         return entity;
     }
 
@@ -129,6 +169,7 @@ public final class StringOption extends ValueOption<StringOption> {
      */
     public void reset() {
         nullValue = false;
+        clearHash();
         entity.clear();
     }
 
@@ -144,6 +185,7 @@ public final class StringOption extends ValueOption<StringOption> {
             this.nullValue = true;
         } else {
             this.nullValue = false;
+            clearHash();
             entity.set(newText);
         }
         return this;
@@ -161,11 +203,25 @@ public final class StringOption extends ValueOption<StringOption> {
             this.nullValue = true;
         } else {
             this.nullValue = false;
+            clearHash();
             entity.set(newText);
         }
         return this;
     }
 
+    /**
+     * ハッシュ値のキャッシュを破棄し、以降はキャッシュを利用できるようにする。
+     * <p>
+     * このオブジェクトの内容を置き換える際に呼び出す。
+     * {@code null}を表すようになる場合は{@link #hashCode()}がキャッシュを利用しないため、
+     * 再び値を持つようになる際に呼び出せばよい。
+     * </p>
+     */
+    private void clearHash() {
+        hashCache = NO_HASH;
+        exposed = false;
+    }
+
     /**
      * このオブジェクトの内容を、指定のオブジェクトの内容で上書きする。
      * @param optionOrNull 上書きする内容、
@@ -190,9 +246,16 @@ public final class StringOption extends ValueOption<StringOption> {
         if (isNull()) {
             return 1;
         }
-        int result = 1;
-        result = prime * result + entity.hashCode();
-        return result;
+        int hash = hashCache;
+        if (hash == NO_HASH) {
+            int result = 1;
+            result = prime * result + entity.hashCode();
+            hash = result;
+            if (exposed == false) {
+                hashCache = hash;
+            }
+        }
+        return hash;
     }
 
     @Override
@@ -210,8 +273,10 @@ public final class StringOption extends ValueOption<StringOption> {
         if (nullValue != other.nullValue) {
             return false;
         }
-        if (nullValue == false && entity.equals(other.entity) == false) {
-            return false;
+        if (nullValue == false) {
+            if (entity.equals(other.entity) == false) {
+                return false;
+            }
         }
         return true;
     }
@@ -228,9 +293,219 @@ public final class StringOption extends ValueOption<StringOption> {
         if (other == null) {
             return false;
         }
-        Text buffer = BUFFER_POOL.get();
-        buffer.set(other);
-        return entity.equals(buffer);
+        int result = compareUtf8(entity.getBytes(), entity.getLength(), other);
+        if (result == UNMAPPABLE) {
+            Text buffer = BUFFER_POOL.get();
+            buffer.set(other);
+            return entity.equals(buffer);
+        }
+        return result == 0;
+    }
+
+    /**
+     * この値と、指定のUTF-8のバイト列で表現された値が同じものを表現する場合のみ{@code true}を返す。
+     * @param utf8 対象の値をUTF-8でエンコードしたバイト列、または{@code null}
+     * @return 指定の値が同じものを表現する場合のみ{@code true}
+     * @see #toUtf8(String)
+     */
+    public boolean has(byte[] utf8) {
+        if (isNull()) {
+            return utf8 == null;
+        }
+        if (utf8 == null) {
+            return false;
+        }
+        int length = entity.getLength();
+        if (length != utf8.length) {
+            return false;
+        }
+        return regionMatches(entity.getBytes(), 0, utf8, length);
+    }
+
+    /**
+     * この値が、指定のUTF-8のバイト列で表現された値から始まる場合のみ{@code true}を返す。
+     * @param prefix 接頭辞をUTF-8でエンコードしたバイト列
+     * @return 指定の接頭辞から始まる場合のみ{@code true}、この値が{@code null}を表現する場合は{@code false}
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     * @see #toUtf8(String)
+     */
+    public boolean startsWith(byte[] prefix) {
+        if (prefix == null) {
+            throw new IllegalArgumentException("prefix must not be null"); //$NON-NLS-1$
+        }
+        if (isNull()) {
+            return false;
+        }
+        if (entity.getLength() < prefix.length) {
+            return false;
+        }
+        return regionMatches(entity.getBytes(), 0, prefix, prefix.length);
+    }
+
+    /**
+     * この値が、指定のUTF-8のバイト列で表現された値で終わる場合のみ{@code true}を返す。
+     * @param suffix 接尾辞をUTF-8でエンコードしたバイト列
+     * @return 指定の接尾辞で終わる場合のみ{@code true}、この値が{@code null}を表現する場合は{@code false}
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     * @see #toUtf8(String)
+     */
+    public boolean endsWith(byte[] suffix) {
+        if (suffix == null) {
+            throw new IllegalArgumentException("suffix must not be null"); //$NON-NLS-1$
+        }
+        if (isNull()) {
+            return false;
+        }
+        int offset = entity.getLength() - suffix.length;
+        if (offset < 0) {
+            return false;
+        }
+        return regionMatches(entity.getBytes(), offset, suffix, suffix.length);
+    }
+
+    /**
+     * この値が、指定のUTF-8のバイト列で表現された値を含む場合のみ{@code true}を返す。
+     * @param part 部分文字列をUTF-8でエンコードしたバイト列
+     * @return 指定の部分文字列を含む場合のみ{@code true}、この値が{@code null}を表現する場合は{@code false}
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     * @see #toUtf8(String)
+     */
+    public boolean contains(byte[] part) {
+        if (part == null) {
+            throw new IllegalArgumentException("part must not be null"); //$NON-NLS-1$
+        }
+        if (isNull()) {
+            return false;
+        }
+        byte[] bytes = entity.getBytes();
+        int last = entity.getLength() - part.length;
+        for (int i = 0; i <= last; i++) {
+            if (regionMatches(bytes, i, part, part.length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * この値と、指定のUTF-8のバイト列で表現された値が、
+     * ASCII文字の大文字と小文字の違いを無視して同じものを表現する場合のみ{@code true}を返す。
+     * <p>
+     * ASCII以外の文字は、大文字と小文字を区別して比較する。
+     * </p>
+     * @param utf8 対象の値をUTF-8でエンコードしたバイト列、または{@code null}
+     * @return 指定の値が同じものを表現する場合のみ{@code true}
+     * @see #toUtf8(String)
+     */
+    public boolean equalsIgnoreAsciiCase(byte[] utf8) {
+        if (isNull()) {
+            return utf8 == null;
+        }
+        if (utf8 == null) {
+            return false;
+        }
+        int length = entity.getLength();
+        if (length != utf8.length) {
+            return false;
+        }
+        byte[] bytes = entity.getBytes();
+        for (int i = 0; i < length; i++) {
+            if (toAsciiLowerCase(bytes[i]) != toAsciiLowerCase(utf8[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 指定の文字列をUTF-8でエンコードしたバイト列を返す。
+     * <p>
+     * このメソッドの結果は{@link #has(byte[])}などの比較に利用できる。
+     * 比較のたびに呼び出すのではなく、定数として保持しておくこと。
+     * </p>
+     * @param string 対象の文字列
+     * @return UTF-8でエンコードしたバイト列
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     */
+    public static byte[] toUtf8(String string) {
+        if (string == null) {
+            throw new IllegalArgumentException("string must not be null"); //$NON-NLS-1$
+        }
+        Text text = new Text(string);
+        byte[] results = new byte[text.getLength()];
+        System.arraycopy(text.getBytes(), 0, results, 0, results.length);
+        return results;
+    }
+
+    private static boolean regionMatches(byte[] bytes, int offset, byte[] target, int length) {
+        assert bytes != null;
+        assert target != null;
+        for (int i = 0; i < length; i++) {
+            if (bytes[offset + i] != target[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int toAsciiLowerCase(byte b) {
+        if ('A' <= b && b <= 'Z') {
+            return b + ('a' - 'A');
+        }
+        return b;
+    }
+
+    /**
+     * UTF-8のバイト列と文字列を、文字列をエンコードせずに比較する。
+     * @param bytes UTF-8のバイト列
+     * @param length バイト列の長さ
+     * @param string 比較対象の文字列
+     * @return 等しい場合は{@code 0}、異なる場合は{@code 0}以外、
+     *     文字列に対応するサロゲートのない文字が含まれる場合は{@link #UNMAPPABLE}
+     */
+    private static int compareUtf8(byte[] bytes, int length, String string) {
+        assert bytes != null;
+        assert string != null;
+        int position = 0;
+        int count = string.length();
+        for (int i = 0; i < count; i++) {
+            int c = string.charAt(i);
+            if (Character.isHighSurrogate((char) c)) {
+                if (i + 1 >= count || Character.isLowSurrogate(string.charAt(i + 1)) == false) {
+                    return UNMAPPABLE;
+                }
+                c = Character.toCodePoint((char) c, string.charAt(++i));
+            } else if (Character.isLowSurrogate((char) c)) {
+                return UNMAPPABLE;
+            }
+            if (c < 0x80) {
+                if (position + 1 > length || bytes[position++] != (byte) c) {
+                    return 1;
+                }
+            } else if (c < 0x800) {
+                if (position + 2 > length
+                        || bytes[position++] != (byte) (0xc0 | (c >> 6))
+                        || bytes[position++] != (byte) (0x80 | (c & 0x3f))) {
+                    return 1;
+                }
+            } else if (c < 0x10000) {
+                if (position + 3 > length
+                        || bytes[position++] != (byte) (0xe0 | (c >> 12))
+                        || bytes[position++] != (byte) (0x80 | ((c >> 6) & 0x3f))
+                        || bytes[position++] != (byte) (0x80 | (c & 0x3f))) {
+                    return 1;
+                }
+            } else {
+                if (position + 4 > length
+                        || bytes[position++] != (byte) (0xf0 | (c >> 18))
+                        || bytes[position++] != (byte) (0x80 | ((c >> 12) & 0x3f))
+                        || bytes[position++] != (byte) (0x80 | ((c >> 6) & 0x3f))
+                        || bytes[position++] != (byte) (0x80 | (c & 0x3f))) {
+                    return 1;
+                }
+            }
+        }
+        return position == length ? 0 : 1;
     }
 
     /**
@@ -275,7 +550,7 @@ public final class StringOption extends ValueOption<StringOption> {
             out.writeBoolean(false);
         } else {
             out.writeBoolean(true);
-            entity.write(out);
+            writePayload(out);
         }
     }
 
@@ -285,11 +560,33 @@ public final class StringOption extends ValueOption<StringOption> {
         if (in.readBoolean() == false) {
             setNull();
         } else {
-            nullValue = false;
-            entity.readFields(in);
+            readPayload(in);
         }
     }
 
+    /**
+     * {@code null}でない値の内容のみを書き出す。
+     * @param out 出力先
+     * @throws IOException 出力に失敗した場合
+     * @see CompactCodec
+     */
+    void writePayload(DataOutput out) throws IOException {
+        assert nullValue == false;
+        entity.write(out);
+    }
+
+    /**
+     * {@link #writePayload(DataOutput)}で書き出された内容を読み出す。
+     * @param in 入力元
+     * @throws IOException 入力に失敗した場合
+     * @see CompactCodec
+     */
+    void readPayload(DataInput in) throws IOException {
+        nullValue = false;
+        clearHash();
+        entity.readFields(in);
+    }
+
     @SuppressWarnings("deprecation")
     @Override
     public int restore(byte[] bytes, int offset, int limit) throws IOException {
@@ -311,6 +608,7 @@ public final class StringOption extends ValueOption<StringOption> {
         int length = (int) ByteArrayUtil.readVLong(bytes, offset + 1);
         if (limit - offset >= size + 1 + length) {
             nullValue = false;
+            clearHash();
             entity.set(bytes, offset + size + 1, length);
             return size + 1 + length;
         } else {
@@ -0,0 +1,137 @@
+/**
+ * Copyright 2011 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.runtime.core;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.asakusafw.runtime.core.Report.Level;
+
+/**
+ * Test for {@link AsyncReportDelegate}.
+ */
+public class AsyncReportDelegateTest {
+
+    /**
+     * 通知されたレポートが委譲先に渡される。
+     * @throws Exception if occur
+     */
+    @Test
+    public void simple() throws Exception {
+        Collector collector = new Collector();
+        AsyncReportDelegate delegate = new AsyncReportDelegate(collector, 10, 10);
+        ResourceConfiguration conf = new HadoopConfiguration();
+        delegate.setup(conf);
+        delegate.report(Level.INFO, "a");
+        delegate.report(Level.WARN, "b");
+        delegate.report(Level.ERROR, "c");
+        delegate.cleanup(conf);
+
+        assertThat(collector.messages, is(list("INFO:a", "WARN:b", "ERROR:c")));
+        assertThat(collector.cleanup, is(true));
+    }
+
+    /**
+     * 同じ雛形のメッセージは件数が制限され、抑止した件数がまとめて通知される。
+     * @throws Exception if occur
+     */
+    @Test
+    public void rateLimit() throws Exception {
+        Collector collector = new Collector();
+        FixedClock delegate = new FixedClock(collector, 100, 2);
+        ResourceConfiguration conf = new HadoopConfiguration();
+        delegate.setup(conf);
+        for (int i = 0; i < 5; i++) {
+            delegate.report(Level.INFO, "record " + i);
+        }
+        delegate.report(Level.INFO, "other");
+        delegate.now += AsyncReportDelegate.RATE_WINDOW;
+        delegate.report(Level.INFO, "record 5");
+        delegate.cleanup(conf);
+
+        assertThat(collector.messages.size(), is(5));
+        assertThat(collector.messages.get(0), is("INFO:record 0"));
+        assertThat(collector.messages.get(1), is("INFO:record 1"));
+        assertThat(collector.messages.get(2), is("INFO:other"));
+        assertThat(collector.messages.get(3), startsWith("INFO:record 0"));
+        assertThat(collector.messages.get(3), containsString("3"));
+        assertThat(collector.messages.get(4), is("INFO:record 5"));
+    }
+
+    /**
+     * 雛形は数字の部分を無視して判定する。
+     */
+    @Test
+    public void templateKey() {
+        assertThat(
+                AsyncReportDelegate.toTemplateKey(Level.INFO, "id=100, count=2"),
+                is(AsyncReportDelegate.toTemplateKey(Level.INFO, "id=7, count=12345")));
+        assertThat(
+                AsyncReportDelegate.toTemplateKey(Level.INFO, "id=100"),
+                not(AsyncReportDelegate.toTemplateKey(Level.WARN, "id=100")));
+        assertThat(
+                AsyncReportDelegate.toTemplateKey(Level.INFO, "id=100"),
+                not(AsyncReportDelegate.toTemplateKey(Level.INFO, "key=100")));
+    }
+
+    private List<String> list(String... values) {
+        List<String> results = new ArrayList<String>();
+        Collections.addAll(results, values);
+        return results;
+    }
+
+    private static class FixedClock extends AsyncReportDelegate {
+
+        long now = 0;
+
+        FixedClock(Report.Delegate destination, int queueSize, int rateLimit) {
+            super(destination, queueSize, rateLimit);
+        }
+
+        @Override
+        protected long currentTimeMillis() {
+            return now;
+        }
+    }
+
+    private static class Collector extends Report.Delegate {
+
+        final List<String> messages = Collections.synchronizedList(new ArrayList<String>());
+
+        volatile boolean cleanup;
+
+        Collector() {
+            return;
+        }
+
+        @Override
+        public void cleanup(ResourceConfiguration configuration) {
+            cleanup = true;
+        }
+
+        @Override
+        protected void report(Level level, String message) throws IOException {
+            messages.add(level + ":" + message);
+        }
+    }
+}
@@ -334,6 +334,42 @@ public class TsvParserTest {
         assertThat(parser.next(), is(false));
     }
 
+    /**
+     * 存在しない日付は、従来通り暦に沿って繰り越した日付として解析する。
+     * @throws Exception 例外が発生した場合
+     */
+    @Test
+    public void fillDate_overflow() throws Exception {
+        DateOption value = new DateOption();
+        create("date_overflow");
+
+        assertThat(parser.next(), is(true));
+        parser.fill(value);
+        assertThat(value.get(), is(date(2011, 3, 2)));
+        parser.fill(value);
+        assertThat(value.get(), is(date(2012, 3, 1)));
+
+        assertThat(parser.next(), is(false));
+    }
+
+    /**
+     * 存在しない日時は、従来通り暦に沿って繰り越した日時として解析する。
+     * @throws Exception 例外が発生した場合
+     */
+    @Test
+    public void fillDateTime_overflow() throws Exception {
+        DateTimeOption value = new DateTimeOption();
+        create("datetime_overflow");
+
+        assertThat(parser.next(), is(true));
+        parser.fill(value);
+        assertThat(value.get(), is(time(2011, 3, 1, 0, 0, 0)));
+        parser.fill(value);
+        assertThat(value.get(), is(time(2011, 3, 2, 0, 1, 0)));
+
+        assertThat(parser.next(), is(false));
+    }
+
     private Date date(int y, int m, int d) {
         int elapsed = DateUtil.getDayFromDate(y, m, d);
         Date date = new Date();
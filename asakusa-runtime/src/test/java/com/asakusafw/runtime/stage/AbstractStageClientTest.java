@@ -0,0 +1,302 @@
+/**
+ * Copyright 2011 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.runtime.stage;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileUtil;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.compress.DefaultCodec;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.asakusafw.runtime.util.VariableTable;
+
+/**
+ * Test for {@link AbstractStageClient}.
+ */
+public class AbstractStageClientTest {
+
+    private File folder;
+
+    /**
+     * テストを初期化する。
+     * @throws Exception if occur
+     */
+    @Before
+    public void setUp() throws Exception {
+        folder = File.createTempFile("stageclient", ".test");
+        assertThat(folder.delete(), is(true));
+        assertThat(folder.mkdirs(), is(true));
+    }
+
+    /**
+     * テストの情報を破棄する。
+     * @throws Exception if occur
+     */
+    @After
+    public void tearDown() throws Exception {
+        if (folder != null) {
+            FileUtil.fullyDelete(folder);
+        }
+    }
+
+    /**
+     * 既定値のみが設定されたプロパティは明示的な設定とみなさない。
+     */
+    @Test
+    public void isUserDefined_default() {
+        Configuration conf = new JobConf();
+        assertThat(AbstractStageClient.isUserDefined(conf, "mapred.reduce.tasks"), is(false));
+        assertThat(AbstractStageClient.isUserDefined(conf, "com.example.undefined"), is(false));
+    }
+
+    /**
+     * 既定値と異なる値が設定されたプロパティは明示的な設定とみなす。
+     */
+    @Test
+    public void isUserDefined_explicit() {
+        Configuration conf = new JobConf();
+        conf.setInt("mapred.reduce.tasks", 10);
+        assertThat(AbstractStageClient.isUserDefined(conf, "mapred.reduce.tasks"), is(true));
+    }
+
+    /**
+     * 入力データ量からレデュースタスク数を見積もる。
+     * @throws Exception if occur
+     */
+    @Test
+    public void configureReduceTasks_estimate() throws Exception {
+        Job job = new Job(new JobConf());
+        job.getConfiguration().setLong(AbstractStageClient.PROP_REDUCER_BYTES_PER_REDUCER, 1000);
+        MockStageClient client = new MockStageClient(5000, 50);
+        client.configureReduceTasks(job, new VariableTable());
+        assertThat(job.getNumReduceTasks(), is(3));
+    }
+
+    /**
+     * 100バイトに満たない入力でもシャッフルデータ量が0に切り捨てられない。
+     * @throws Exception if occur
+     */
+    @Test
+    public void configureReduceTasks_small() throws Exception {
+        Job job = new Job(new JobConf());
+        job.getConfiguration().setLong(AbstractStageClient.PROP_REDUCER_BYTES_PER_REDUCER, 10);
+        MockStageClient client = new MockStageClient(50, 50);
+        client.configureReduceTasks(job, new VariableTable());
+        assertThat(job.getNumReduceTasks(), is(3));
+    }
+
+    /**
+     * 過去の実行におけるシャッフルデータ量を入力データ量よりも優先する。
+     * @throws Exception if occur
+     */
+    @Test
+    public void configureReduceTasks_history() throws Exception {
+        MockStageClient client = new MockStageClient(1, 100);
+        DataOutputStream output = new DataOutputStream(
+                new FileOutputStream(new File(folder, client.getDefinitionId())));
+        try {
+            output.writeUTF("3000");
+        } finally {
+            output.close();
+        }
+        Job job = new Job(new JobConf());
+        job.getConfiguration().setLong(AbstractStageClient.PROP_REDUCER_BYTES_PER_REDUCER, 1000);
+        job.getConfiguration().set(AbstractStageClient.PROP_REDUCER_HISTORY, folder.toURI().toString());
+        client.configureReduceTasks(job, new VariableTable());
+        assertThat(job.getNumReduceTasks(), is(3));
+    }
+
+    /**
+     * 見積もったレデュースタスク数を上限に合わせる。
+     * @throws Exception if occur
+     */
+    @Test
+    public void configureReduceTasks_max() throws Exception {
+        Job job = new Job(new JobConf());
+        job.getConfiguration().setLong(AbstractStageClient.PROP_REDUCER_BYTES_PER_REDUCER, 1);
+        job.getConfiguration().setInt(AbstractStageClient.PROP_REDUCER_MAX, 5);
+        MockStageClient client = new MockStageClient(1000000, 100);
+        client.configureReduceTasks(job, new VariableTable());
+        assertThat(job.getNumReduceTasks(), is(5));
+    }
+
+    /**
+     * 明示的に指定されたレデュースタスク数を変更しない。
+     * @throws Exception if occur
+     */
+    @Test
+    public void configureReduceTasks_user() throws Exception {
+        Job job = new Job(new JobConf());
+        job.getConfiguration().setLong(AbstractStageClient.PROP_REDUCER_BYTES_PER_REDUCER, 1);
+        job.setNumReduceTasks(7);
+        MockStageClient client = new MockStageClient(1000000, 100);
+        client.configureReduceTasks(job, new VariableTable());
+        assertThat(job.getNumReduceTasks(), is(7));
+    }
+
+    /**
+     * 小さな入力を持つステージの出力は圧縮しない。
+     * @throws Exception if occur
+     */
+    @Test
+    public void configureCompression_small() throws Exception {
+        Job job = new Job(new JobConf());
+        job.getConfiguration().setLong(AbstractStageClient.PROP_COMPRESSION_MIN_BYTES, 100000);
+        MockStageClient client = new MockStageClient(1000, 100);
+        client.outputs = Collections.singletonList(createOutput(true));
+        client.configureCompression(job, new VariableTable());
+        assertThat(job.getConfiguration().getBoolean(AbstractStageClient.KEY_MAP_OUTPUT_COMPRESS, true), is(false));
+        assertThat(FileOutputFormat.getCompressOutput(job), is(false));
+    }
+
+    /**
+     * 大きな入力を持つステージの、後続のステージでのみ利用される出力を圧縮する。
+     * @throws Exception if occur
+     */
+    @Test
+    public void configureCompression_large() throws Exception {
+        Job job = new Job(new JobConf());
+        job.getConfiguration().setLong(AbstractStageClient.PROP_COMPRESSION_MIN_BYTES, 100);
+        MockStageClient client = new MockStageClient(1000, 100);
+        client.outputs = Collections.singletonList(createOutput(true));
+        client.configureCompression(job, new VariableTable());
+        assertThat(job.getConfiguration().getBoolean(AbstractStageClient.KEY_MAP_OUTPUT_COMPRESS, false), is(true));
+        assertThat(FileOutputFormat.getCompressOutput(job), is(true));
+        assertThat(FileOutputFormat.getOutputCompressorClass(job, null), is((Object) DefaultCodec.class));
+    }
+
+    /**
+     * エクスポーターが読み出す出力は、入力が大きくても圧縮しない。
+     * @throws Exception if occur
+     */
+    @Test
+    public void configureCompression_exported() throws Exception {
+        Job job = new Job(new JobConf());
+        job.getConfiguration().setLong(AbstractStageClient.PROP_COMPRESSION_MIN_BYTES, 100);
+        MockStageClient client = new MockStageClient(1000, 100);
+        client.outputs = Collections.singletonList(createOutput(false));
+        client.configureCompression(job, new VariableTable());
+        assertThat(job.getConfiguration().getBoolean(AbstractStageClient.KEY_MAP_OUTPUT_COMPRESS, false), is(true));
+        assertThat(FileOutputFormat.getCompressOutput(job), is(false));
+    }
+
+    /**
+     * 明示的に指定された圧縮の設定を変更しない。
+     * @throws Exception if occur
+     */
+    @Test
+    public void configureCompression_user() throws Exception {
+        Job job = new Job(new JobConf());
+        job.getConfiguration().setLong(AbstractStageClient.PROP_COMPRESSION_MIN_BYTES, 100000);
+        job.getConfiguration().setBoolean(AbstractStageClient.KEY_MAP_OUTPUT_COMPRESS, true);
+        job.getConfiguration().setBoolean(AbstractStageClient.KEY_OUTPUT_COMPRESS, true);
+        MockStageClient client = new MockStageClient(1000, 100);
+        client.outputs = Collections.singletonList(createOutput(false));
+        client.configureCompression(job, new VariableTable());
+        assertThat(job.getConfiguration().getBoolean(AbstractStageClient.KEY_MAP_OUTPUT_COMPRESS, false), is(true));
+        assertThat(FileOutputFormat.getCompressOutput(job), is(true));
+    }
+
+    private StageOutput createOutput(boolean intermediate) {
+        return new StageOutput(
+                "out",
+                NullWritable.class,
+                NullWritable.class,
+                SequenceFileOutputFormat.class,
+                intermediate);
+    }
+
+    private static class MockStageClient extends AbstractStageClient {
+
+        private final long inputSize;
+
+        private final int selectivity;
+
+        List<StageOutput> outputs = Collections.emptyList();
+
+        MockStageClient(long inputSize, int selectivity) {
+            this.inputSize = inputSize;
+            this.selectivity = selectivity;
+        }
+
+        @Override
+        protected boolean isCompressionEnabled() {
+            return true;
+        }
+
+        @SuppressWarnings("rawtypes")
+        @Override
+        protected Class<? extends Reducer> getReducerClassOrNull() {
+            return Reducer.class;
+        }
+
+        @Override
+        protected List<StageOutput> getStageOutputs() {
+            return outputs;
+        }
+
+        @Override
+        long estimateInputSize(Configuration conf, VariableTable variables) {
+            return inputSize;
+        }
+
+        @Override
+        protected int getShuffleSelectivity() {
+            return selectivity;
+        }
+
+        @Override
+        protected String getBatchId() {
+            return "batch";
+        }
+
+        @Override
+        protected String getFlowId() {
+            return "flow";
+        }
+
+        @Override
+        protected String getStageId() {
+            return "stage";
+        }
+
+        @Override
+        protected String getStageOutputPath() {
+            return "output";
+        }
+
+        @Override
+        protected List<StageInput> getStageInputs() {
+            return Collections.emptyList();
+        }
+    }
+}
@@ -0,0 +1,245 @@
+/**
+ * Copyright 2011 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.runtime.stage.embedded;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileUtil;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for {@link EmbeddedJobRunner}.
+ */
+public class EmbeddedJobRunnerTest {
+
+    private File folder;
+
+    /**
+     * テストを初期化する。
+     * @throws Exception if occur
+     */
+    @Before
+    public void setUp() throws Exception {
+        folder = File.createTempFile("embedded", ".test");
+        assertThat(folder.delete(), is(true));
+        assertThat(folder.mkdirs(), is(true));
+    }
+
+    /**
+     * テストの情報を破棄する。
+     * @throws Exception if occur
+     */
+    @After
+    public void tearDown() throws Exception {
+        if (folder != null) {
+            FileUtil.fullyDelete(folder);
+        }
+    }
+
+    /**
+     * シャッフルを含むジョブを実行する。
+     * @throws Exception if occur
+     */
+    @Test
+    public void shuffle() throws Exception {
+        File input = new File(folder, "input");
+        write(new File(input, "a.txt"), "hello", "world", "hello");
+        write(new File(input, "b.txt"), "world", "hello", "asakusa");
+        File output = new File(folder, "output");
+
+        Job job = createJob(input, output);
+        job.setMapOutputKeyClass(Text.class);
+        job.setMapOutputValueClass(IntWritable.class);
+        job.setReducerClass(Sum.class);
+        job.setNumReduceTasks(2);
+
+        EmbeddedJobRunner runner = new EmbeddedJobRunner();
+        assertThat(runner.run(job), is(true));
+
+        List<String> results = read(output);
+        Collections.sort(results);
+        assertThat(results, is(list("asakusa\t1", "hello\t3", "world\t2")));
+        assertThat(new File(output, "_temporary").exists(), is(false));
+        assertThat(runner.getCounters()
+                .findCounter("org.apache.hadoop.mapred.Task$Counter", "MAP_OUTPUT_RECORDS")
+                .getValue(), is(6L));
+    }
+
+    /**
+     * Mapのみのジョブを実行する。
+     * @throws Exception if occur
+     */
+    @Test
+    public void mapOnly() throws Exception {
+        File input = new File(folder, "input");
+        write(new File(input, "a.txt"), "hello", "world");
+        File output = new File(folder, "output");
+
+        Job job = createJob(input, output);
+        job.setNumReduceTasks(0);
+
+        EmbeddedJobRunner runner = new EmbeddedJobRunner();
+        assertThat(runner.run(job), is(true));
+
+        List<String> results = read(output);
+        Collections.sort(results);
+        assertThat(results, is(list("hello\t1", "world\t1")));
+    }
+
+    /**
+     * タスクが失敗した場合。
+     * @throws Exception if occur
+     */
+    @Test
+    public void failure() throws Exception {
+        File input = new File(folder, "input");
+        write(new File(input, "a.txt"), "hello");
+        File output = new File(folder, "output");
+
+        Job job = createJob(input, output);
+        job.setMapperClass(Fail.class);
+        job.setNumReduceTasks(0);
+
+        EmbeddedJobRunner runner = new EmbeddedJobRunner();
+        assertThat(runner.run(job), is(false));
+    }
+
+    private Job createJob(File input, File output) throws IOException {
+        Configuration conf = new Configuration();
+        conf.set("fs.default.name", "file:///");
+        Job job = new Job(conf);
+        job.setInputFormatClass(TextInputFormat.class);
+        FileInputFormat.setInputPaths(job, new Path(input.toURI()));
+        job.setMapperClass(Split.class);
+        job.setOutputKeyClass(Text.class);
+        job.setOutputValueClass(IntWritable.class);
+        job.setOutputFormatClass(TextOutputFormat.class);
+        FileOutputFormat.setOutputPath(job, new Path(output.toURI()));
+        return job;
+    }
+
+    private void write(File file, String... lines) throws IOException {
+        assertThat(file.getParentFile().mkdirs() || file.getParentFile().isDirectory(), is(true));
+        PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+        try {
+            for (String line : lines) {
+                writer.println(line);
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    private List<String> read(File directory) throws IOException {
+        List<String> results = new ArrayList<String>();
+        for (File file : directory.listFiles()) {
+            if (file.getName().startsWith("part-") == false) {
+                continue;
+            }
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(new FileInputStream(file), "UTF-8"));
+            try {
+                while (true) {
+                    String line = reader.readLine();
+                    if (line == null) {
+                        break;
+                    }
+                    results.add(line);
+                }
+            } finally {
+                reader.close();
+            }
+        }
+        return results;
+    }
+
+    private List<String> list(String... values) {
+        List<String> results = new ArrayList<String>();
+        Collections.addAll(results, values);
+        return results;
+    }
+
+    /**
+     * 行をそのまま単語として出力する。
+     */
+    public static class Split extends Mapper<LongWritable, Text, Text, IntWritable> {
+
+        private final IntWritable one = new IntWritable(1);
+
+        @Override
+        protected void map(LongWritable key, Text value, Context context)
+                throws IOException, InterruptedException {
+            context.write(value, one);
+        }
+    }
+
+    /**
+     * 常に失敗する。
+     */
+    public static class Fail extends Mapper<LongWritable, Text, Text, IntWritable> {
+
+        @Override
+        protected void map(LongWritable key, Text value, Context context) throws IOException {
+            throw new IOException("fail");
+        }
+    }
+
+    /**
+     * 単語ごとの出現回数を合計する。
+     */
+    public static class Sum extends Reducer<Text, IntWritable, Text, IntWritable> {
+
+        private final IntWritable result = new IntWritable();
+
+        @Override
+        protected void reduce(Text key, Iterable<IntWritable> values, Context context)
+                throws IOException, InterruptedException {
+            int sum = 0;
+            for (IntWritable value : values) {
+                sum += value.get();
+            }
+            result.set(sum);
+            context.write(key, result);
+        }
+    }
+}
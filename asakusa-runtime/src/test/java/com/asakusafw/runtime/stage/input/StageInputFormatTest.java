@@ -0,0 +1,144 @@
+/**
+ * Copyright 2011 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.runtime.stage.input;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
+import org.junit.Test;
+
+/**
+ * Test for {@link StageInputFormat}.
+ */
+@SuppressWarnings({ "unchecked", "rawtypes" })
+public class StageInputFormatTest {
+
+    private static final Class FORMAT = SequenceFileInputFormat.class;
+
+    private static final Class MAPPER = Mapper.class;
+
+    /**
+     * 小さなスプリットがまとめられる。
+     * @throws Exception テストに失敗した場合
+     */
+    @Test
+    public void combine_small() throws Exception {
+        List<InputSplit> splits = new ArrayList<InputSplit>();
+        for (int i = 0; i < 10; i++) {
+            splits.add(split("a" + i, 10, "host1"));
+        }
+        List<StageInputSplit> results = StageInputFormat.combine(splits, FORMAT, MAPPER, 50);
+        assertThat(results.size(), is(2));
+        for (StageInputSplit result : results) {
+            assertThat(result.getOriginals().size(), is(5));
+            assertThat(result.getLength(), is(50L));
+            assertThat(result.getLocations(), is(new String[] { "host1" }));
+        }
+    }
+
+    /**
+     * 大きなスプリットはまとめられない。
+     * @throws Exception テストに失敗した場合
+     */
+    @Test
+    public void combine_large() throws Exception {
+        List<InputSplit> splits = new ArrayList<InputSplit>();
+        splits.add(split("a", 100, "host1"));
+        splits.add(split("b", 100, "host1"));
+        List<StageInputSplit> results = StageInputFormat.combine(splits, FORMAT, MAPPER, 50);
+        assertThat(results.size(), is(2));
+        for (StageInputSplit result : results) {
+            assertThat(result.getOriginals().size(), is(1));
+        }
+    }
+
+    /**
+     * 異なるホスト上のスプリットはそれぞれのホストごとにまとめられる。
+     * @throws Exception テストに失敗した場合
+     */
+    @Test
+    public void combine_locality() throws Exception {
+        List<InputSplit> splits = new ArrayList<InputSplit>();
+        for (int i = 0; i < 4; i++) {
+            splits.add(split("a" + i, 10, "host1"));
+            splits.add(split("b" + i, 10, "host2"));
+        }
+        List<StageInputSplit> results = StageInputFormat.combine(splits, FORMAT, MAPPER, 40);
+        assertThat(results.size(), is(2));
+        for (StageInputSplit result : results) {
+            String host = result.getLocations()[0];
+            for (InputSplit split : result.getOriginals()) {
+                assertThat(split.getLocations()[0], is(host));
+            }
+        }
+    }
+
+    /**
+     * まとめない設定。
+     * @throws Exception テストに失敗した場合
+     */
+    @Test
+    public void combine_disabled() throws Exception {
+        List<InputSplit> splits = new ArrayList<InputSplit>();
+        for (int i = 0; i < 10; i++) {
+            splits.add(split("a" + i, 10, "host1"));
+        }
+        List<StageInputSplit> results = StageInputFormat.combine(splits, FORMAT, MAPPER, 0);
+        assertThat(results.size(), is(10));
+    }
+
+    /**
+     * まとめたスプリットの直列化。
+     * @throws Exception テストに失敗した場合
+     */
+    @Test
+    public void serialize() throws Exception {
+        List<InputSplit> splits = new ArrayList<InputSplit>();
+        splits.add(split("a", 10, "host1"));
+        splits.add(split("b", 20, "host1"));
+        StageInputSplit split = new StageInputSplit(splits, new String[] { "host1" }, FORMAT, MAPPER);
+        split.setConf(new Configuration());
+
+        DataOutputBuffer out = new DataOutputBuffer();
+        split.write(out);
+        DataInputBuffer in = new DataInputBuffer();
+        in.reset(out.getData(), out.getLength());
+
+        StageInputSplit restored = new StageInputSplit();
+        restored.setConf(new Configuration());
+        restored.readFields(in);
+        assertThat(restored.getFormatClass(), is((Object) FORMAT));
+        assertThat(restored.getMapperClass(), is((Object) MAPPER));
+        assertThat(restored.getOriginals().size(), is(2));
+        assertThat(restored.getLength(), is(30L));
+        assertThat(((FileSplit) restored.getOriginals().get(1)).getPath().getName(), is("b"));
+    }
+
+    private FileSplit split(String name, long length, String host) {
+        return new FileSplit(new Path("/tmp", name), 0, length, new String[] { host });
+    }
+}
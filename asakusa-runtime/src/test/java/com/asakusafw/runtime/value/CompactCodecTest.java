@@ -0,0 +1,166 @@
+/**
+ * Copyright 2011 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.runtime.value;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link CompactCodec}.
+ */
+public class CompactCodecTest {
+
+    /**
+     * 可変長整数の書き出しと読み出し。
+     * @throws Exception if occur
+     */
+    @Test
+    public void varLong() throws Exception {
+        long[] values = {
+                0, 1, -1, 63, -64, 64, -65, 8191, -8192,
+                Integer.MAX_VALUE, Integer.MIN_VALUE,
+                Long.MAX_VALUE, Long.MIN_VALUE,
+        };
+        for (long value : values) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(buffer);
+            CompactCodec.writeVarLong(out, CompactCodec.encodeZigZag(value));
+            out.close();
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(buffer.toByteArray()));
+            assertThat(CompactCodec.decodeZigZag(CompactCodec.readVarLong(in)), is(value));
+            assertThat(in.read(), is(-1));
+        }
+    }
+
+    /**
+     * 小さな整数値は1バイトで表現される。
+     * @throws Exception if occur
+     */
+    @SuppressWarnings("deprecation")
+    @Test
+    public void smallIntegers() throws Exception {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(buffer);
+        CompactCodec.write(out, new IntOption(-64));
+        CompactCodec.write(out, new LongOption().modify(63));
+        out.close();
+        assertThat(buffer.size(), is(2));
+    }
+
+    /**
+     * それぞれの型の書き出しと読み出し。
+     * @throws Exception if occur
+     */
+    @SuppressWarnings("deprecation")
+    @Test
+    public void values() throws Exception {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(buffer);
+        int days = DateUtil.getDayFromDate(2011, 4, 1);
+        long seconds = days * 86400L + 12 * 3600 + 34 * 60 + 56;
+        CompactCodec.write(out, new BooleanOption().modify(true));
+        CompactCodec.write(out, new ByteOption().modify((byte) -3));
+        CompactCodec.write(out, new ShortOption().modify((short) -300));
+        CompactCodec.write(out, new IntOption(100000));
+        CompactCodec.write(out, new LongOption().modify(-10000000000L));
+        CompactCodec.write(out, new DateOption().modify(days));
+        CompactCodec.write(out, new DateTimeOption().modify(seconds));
+        CompactCodec.write(out, new DecimalOption().modify(new BigDecimal("-1234.5678")));
+        CompactCodec.write(out, new StringOption("こんにちは"));
+        out.close();
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(buffer.toByteArray()));
+        assertThat(read(in, new BooleanOption()).get(), is(true));
+        assertThat(read(in, new ByteOption()).get(), is((byte) -3));
+        assertThat(read(in, new ShortOption()).get(), is((short) -300));
+        assertThat(read(in, new IntOption()).get(), is(100000));
+        assertThat(read(in, new LongOption()).get(), is(-10000000000L));
+        assertThat(read(in, new DateOption()).get().getElapsedDays(), is(days));
+        assertThat(read(in, new DateTimeOption()).get().getElapsedSeconds(), is(seconds));
+        assertThat(read(in, new DecimalOption()).get(), is(new BigDecimal("-1234.5678")));
+        assertThat(read(in, new StringOption()).getAsString(), is("こんにちは"));
+        assertThat(in.read(), is(-1));
+    }
+
+    /**
+     * ビットマップの操作。
+     */
+    @Test
+    public void bitmap() {
+        int bitmap = CompactCodec.nullBit(new IntOption(), 0)
+            | CompactCodec.nullBit(new IntOption(1), 1)
+            | CompactCodec.nullBit(new StringOption(), 7);
+        assertThat(bitmap, is(0x81));
+        assertThat(CompactCodec.isNull(bitmap, 0), is(true));
+        assertThat(CompactCodec.isNull(bitmap, 1), is(false));
+        assertThat(CompactCodec.isNull(bitmap, 7), is(true));
+    }
+
+    private BooleanOption read(DataInputStream in, BooleanOption option) throws IOException {
+        CompactCodec.read(in, option);
+        return option;
+    }
+
+    private ByteOption read(DataInputStream in, ByteOption option) throws IOException {
+        CompactCodec.read(in, option);
+        return option;
+    }
+
+    private ShortOption read(DataInputStream in, ShortOption option) throws IOException {
+        CompactCodec.read(in, option);
+        return option;
+    }
+
+    private IntOption read(DataInputStream in, IntOption option) throws IOException {
+        CompactCodec.read(in, option);
+        return option;
+    }
+
+    private LongOption read(DataInputStream in, LongOption option) throws IOException {
+        CompactCodec.read(in, option);
+        return option;
+    }
+
+    private DateOption read(DataInputStream in, DateOption option) throws IOException {
+        CompactCodec.read(in, option);
+        return option;
+    }
+
+    private DateTimeOption read(DataInputStream in, DateTimeOption option) throws IOException {
+        CompactCodec.read(in, option);
+        return option;
+    }
+
+    private DecimalOption read(DataInputStream in, DecimalOption option) throws IOException {
+        CompactCodec.read(in, option);
+        return option;
+    }
+
+    private StringOption read(DataInputStream in, StringOption option) throws IOException {
+        CompactCodec.read(in, option);
+        return option;
+    }
+}
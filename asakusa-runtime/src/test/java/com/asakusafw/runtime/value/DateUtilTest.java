@@ -0,0 +1,157 @@
+/**
+ * Copyright 2011 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.runtime.value;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link DateUtil}.
+ */
+public class DateUtilTest {
+
+    /**
+     * 経過日数と年月日の相互変換を、暦の境界となる日付で確認する。
+     */
+    @Test
+    public void days() {
+        // 範囲の両端
+        checkDays(1, 1, 1);
+        checkDays(1, 12, 31);
+        checkDays(9999, 1, 1);
+        checkDays(9999, 12, 31);
+
+        // 4で割り切れる年は閏年
+        checkDays(4, 2, 28);
+        checkDays(4, 2, 29);
+        checkDays(4, 3, 1);
+        checkDays(2012, 2, 29);
+        checkDays(2012, 12, 31);
+
+        // 100で割り切れる年は平年
+        checkDays(100, 2, 28);
+        checkDays(100, 3, 1);
+        checkDays(1900, 2, 28);
+        checkDays(1900, 3, 1);
+        checkDays(1900, 12, 31);
+
+        // 400で割り切れる年は閏年
+        checkDays(400, 2, 29);
+        checkDays(400, 3, 1);
+        checkDays(2000, 2, 29);
+        checkDays(2000, 12, 31);
+        checkDays(2001, 1, 1);
+
+        // 閏年と平年の各月の初日と末日
+        for (int year : new int[] { 2011, 2012 }) {
+            for (int month = 1; month <= 12; month++) {
+                checkDays(year, month, 1);
+                checkDays(year, month, getDaysInMonth(year, month));
+            }
+        }
+    }
+
+    private void checkDays(int year, int month, int day) {
+        GregorianCalendar calendar = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+        calendar.setGregorianChange(new java.util.Date(Long.MIN_VALUE));
+        calendar.clear();
+        calendar.set(1, 0, 1);
+        long origin = calendar.getTimeInMillis();
+        calendar.set(year, month - 1, day);
+        int days = (int) ((calendar.getTimeInMillis() - origin) / (24L * 60 * 60 * 1000));
+
+        String label = String.format("%04d-%02d-%02d", year, month, day);
+        assertThat(label, DateUtil.getDayFromDate(year, month, day), is(days));
+        int y = DateUtil.getYearFromDay(days);
+        int dayInYear = days - DateUtil.getDayFromYear(y);
+        boolean leap = DateUtil.isLeap(y);
+        assertThat(label, y, is(year));
+        assertThat(label, DateUtil.getMonthOfYear(dayInYear, leap), is(month));
+        assertThat(label, DateUtil.getDayOfMonth(dayInYear, leap), is(day));
+
+        byte[] buffer = new byte[DateUtil.DATE_LENGTH];
+        DateUtil.formatDate(days, buffer, 0);
+        assertThat(new String(buffer), is(label));
+        assertThat(label, DateUtil.parseDate(buffer, 0, buffer.length), is(days));
+    }
+
+    private int getDaysInMonth(int year, int month) {
+        GregorianCalendar calendar = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+        calendar.clear();
+        calendar.set(year, month - 1, 1);
+        return calendar.getActualMaximum(Calendar.DAY_OF_MONTH);
+    }
+
+    /**
+     * 日付の書式化と解析。
+     */
+    @Test
+    public void formatDate() {
+        byte[] buffer = new byte[DateUtil.DATE_LENGTH + 2];
+        int days = DateUtil.getDayFromDate(2011, 3, 31);
+        assertThat(DateUtil.formatDate(days, buffer, 2), is(DateUtil.DATE_LENGTH));
+        assertThat(new String(buffer, 2, DateUtil.DATE_LENGTH), is("2011-03-31"));
+        assertThat(DateUtil.parseDate(buffer, 2, DateUtil.DATE_LENGTH), is(days));
+    }
+
+    /**
+     * 日時の書式化と解析。
+     */
+    @Test
+    public void formatDateTime() {
+        byte[] buffer = new byte[DateUtil.DATE_TIME_LENGTH];
+        long seconds = DateUtil.getDayFromDate(2011, 3, 31) * 86400L
+            + DateUtil.getSecondFromTime(23, 59, 1);
+        assertThat(DateUtil.formatDateTime(seconds, buffer, 0), is(DateUtil.DATE_TIME_LENGTH));
+        assertThat(new String(buffer, 0, DateUtil.DATE_TIME_LENGTH), is("2011-03-31 23:59:01"));
+        assertThat(DateUtil.parseDateTime(buffer, 0, DateUtil.DATE_TIME_LENGTH), is(seconds));
+    }
+
+    /**
+     * 不正な日付の解析。
+     */
+    @Test
+    public void parseInvalid() {
+        assertThat(parseDate("2011-02-29"), is(DateUtil.INVALID));
+        assertThat(parseDate("2012-02-29"), is(DateUtil.getDayFromDate(2012, 2, 29)));
+        assertThat(parseDate("2011-13-01"), is(DateUtil.INVALID));
+        assertThat(parseDate("2011-00-01"), is(DateUtil.INVALID));
+        assertThat(parseDate("2011-01-32"), is(DateUtil.INVALID));
+        assertThat(parseDate("0000-01-01"), is(DateUtil.INVALID));
+        assertThat(parseDate("2011/01/01"), is(DateUtil.INVALID));
+        assertThat(parseDate("2011-01-0x"), is(DateUtil.INVALID));
+        assertThat(parseDate("2011-01-011"), is(DateUtil.INVALID));
+        assertThat(parseDateTime("2011-01-01 24:00:00"), is((long) DateUtil.INVALID));
+        assertThat(parseDateTime("2011-01-01 00:60:00"), is((long) DateUtil.INVALID));
+        assertThat(parseDateTime("2011-01-01T00:00:00"), is((long) DateUtil.INVALID));
+    }
+
+    private int parseDate(String string) {
+        byte[] bytes = string.getBytes();
+        return DateUtil.parseDate(bytes, 0, bytes.length);
+    }
+
+    private long parseDateTime(String string) {
+        byte[] bytes = string.getBytes();
+        return DateUtil.parseDateTime(bytes, 0, bytes.length);
+    }
+}
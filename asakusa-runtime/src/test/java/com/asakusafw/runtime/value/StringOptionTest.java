@@ -18,6 +18,8 @@ package com.asakusafw.runtime.value;
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
 
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
 import org.apache.hadoop.io.Text;
 import org.junit.Test;
 
@@ -283,4 +285,143 @@ public class StringOptionTest extends ValueOptionTestRoot {
         StringOption restored = restore(option);
         assertThat(restored.isNull(), is(true));
     }
+
+    /**
+     * 文字列との比較。
+     */
+    @Test
+    public void hasString() {
+        StringOption option = new StringOption();
+        assertThat(option.has((String) null), is(true));
+        assertThat(option.has("a"), is(false));
+
+        option.modify("Hello, world!");
+        assertThat(option.has("Hello, world!"), is(true));
+        assertThat(option.has("Hello, world"), is(false));
+        assertThat(option.has("Hello, world!!"), is(false));
+        assertThat(option.has((String) null), is(false));
+
+        option.modify("こんにちは\uD842\uDFB7世界");
+        assertThat(option.has("こんにちは\uD842\uDFB7世界"), is(true));
+        assertThat(option.has("こんにちは世界"), is(false));
+    }
+
+    /**
+     * UTF-8のバイト列との比較。
+     */
+    @Test
+    public void hasBytes() {
+        StringOption option = new StringOption();
+        assertThat(option.has((byte[]) null), is(true));
+        assertThat(option.has(StringOption.toUtf8("")), is(false));
+
+        option.modify("こんにちは世界");
+        assertThat(option.has(StringOption.toUtf8("こんにちは世界")), is(true));
+        assertThat(option.has(StringOption.toUtf8("こんにちは")), is(false));
+        assertThat(option.has((byte[]) null), is(false));
+    }
+
+    /**
+     * 接頭辞、接尾辞、部分文字列。
+     */
+    @Test
+    public void substrings() {
+        StringOption option = new StringOption();
+        assertThat(option.startsWith(StringOption.toUtf8("")), is(false));
+        assertThat(option.endsWith(StringOption.toUtf8("")), is(false));
+        assertThat(option.contains(StringOption.toUtf8("")), is(false));
+
+        option.modify("Hello, world!");
+        assertThat(option.startsWith(StringOption.toUtf8("Hello")), is(true));
+        assertThat(option.startsWith(StringOption.toUtf8("world")), is(false));
+        assertThat(option.endsWith(StringOption.toUtf8("world!")), is(true));
+        assertThat(option.endsWith(StringOption.toUtf8("Hello")), is(false));
+        assertThat(option.contains(StringOption.toUtf8(", w")), is(true));
+        assertThat(option.contains(StringOption.toUtf8("Hello, world!")), is(true));
+        assertThat(option.contains(StringOption.toUtf8("Hello, world!!")), is(false));
+        assertThat(option.contains(StringOption.toUtf8("x")), is(false));
+    }
+
+    /**
+     * ASCII文字の大文字小文字を無視した比較。
+     */
+    @Test
+    public void equalsIgnoreAsciiCase() {
+        StringOption option = new StringOption();
+        assertThat(option.equalsIgnoreAsciiCase(null), is(true));
+
+        option.modify("Hello, World!");
+        assertThat(option.equalsIgnoreAsciiCase(StringOption.toUtf8("hello, world!")), is(true));
+        assertThat(option.equalsIgnoreAsciiCase(StringOption.toUtf8("HELLO, WORLD!")), is(true));
+        assertThat(option.equalsIgnoreAsciiCase(StringOption.toUtf8("HELLO, WORLD?")), is(false));
+        assertThat(option.equalsIgnoreAsciiCase(null), is(false));
+    }
+
+    /**
+     * ハッシュ値のキャッシュが値の変更で破棄される。
+     */
+    @Test
+    public void hashCache() {
+        StringOption option = new StringOption();
+        option.modify("a");
+        int first = option.hashCode();
+        assertThat(option.hashCode(), is(first));
+
+        option.modify("b");
+        assertThat(option.hashCode(), is(new StringOption("b").hashCode()));
+
+        option.get().set("a");
+        assertThat(option.hashCode(), is(first));
+        assertThat(option, is(new StringOption("a")));
+    }
+
+    /**
+     * 公開した値を後から変更しても、ハッシュ値と等価性が保たれる。
+     */
+    @Test
+    public void hashCache_exposed() {
+        StringOption option = new StringOption("a");
+        Text text = option.get();
+        StringOption other = new StringOption("b");
+        option.hashCode();
+        other.hashCode();
+
+        text.set("b");
+        assertThat(option.hashCode(), is(other.hashCode()));
+        assertThat(option, is(other));
+        assertThat(other, is(option));
+    }
+
+    /**
+     * 値を公開した後に内容を置き換えると、再びハッシュ値が正しく計算される。
+     * @throws Exception if occur
+     */
+    @SuppressWarnings("deprecation")
+    @Test
+    public void hashCache_exposedThenModified() throws Exception {
+        StringOption option = new StringOption("a");
+        option.get();
+        option.modify("b");
+        assertThat(option.hashCode(), is(new StringOption("b").hashCode()));
+        assertThat(option.hashCode(), is(new StringOption("b").hashCode()));
+
+        option.get();
+        option.copyFrom(new StringOption("c"));
+        assertThat(option.hashCode(), is(new StringOption("c").hashCode()));
+
+        option.get();
+        option.setNull();
+        assertThat(option.hashCode(), is(new StringOption().hashCode()));
+
+        DataOutputBuffer output = new DataOutputBuffer();
+        new StringOption("d").write(output);
+        DataInputBuffer input = new DataInputBuffer();
+        input.reset(output.getData(), output.getLength());
+        option.readFields(input);
+        assertThat(option.hashCode(), is(new StringOption("d").hashCode()));
+
+        option.get().set("e");
+        assertThat(option.hashCode(), is(new StringOption("e").hashCode()));
+        assertThat(option, is(new StringOption("e")));
+    }
 }
@@ -16,12 +16,14 @@
 package com.asakusafw.testdriver;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.hadoop.conf.Configuration;
@@ -43,6 +45,7 @@ import com.asakusafw.compiler.testing.DirectExporterDescription;
 import com.asakusafw.compiler.testing.DirectFlowCompiler;
 import com.asakusafw.compiler.testing.DirectImporterDescription;
 import com.asakusafw.compiler.testing.JobflowInfo;
+import com.asakusafw.testtools.ParallelTasks;
 import com.asakusafw.testtools.TestUtils;
 import com.asakusafw.vocabulary.external.ExporterDescription;
 import com.asakusafw.vocabulary.external.ImporterDescription;
@@ -133,7 +136,8 @@ public class FlowPartTestDriver extends TestDriverBase {
                 "test.batch", flowId, "test.flowpart", createTempLocation(),
                 compileWorkDir, Arrays.asList(new File[] { DirectFlowCompiler
                         .toLibraryPath(flowDescription.getClass()) }),
-                flowDescription.getClass().getClassLoader(), options);
+                flowDescription.getClass().getClassLoader(), options,
+                packageCache);
 
         CommandContext context = new CommandContext(
                 System.getenv("ASAKUSA_HOME") + "/", executionId, batchArgs);
@@ -181,7 +185,7 @@ public class FlowPartTestDriver extends TestDriverBase {
 
         String tableName = testUtils.getTablenameByClass(modelType);
         addCreateIn(tableName, tableName);
-        String path = createInputLocation(tableName).toPath('/');
+        String path = createInputLocation(getCompileWorkLocation(), tableName).toPath('/');
         LOG.info("DirectImporterDescription生成:Path=" + path);
         ImporterDescription desc = new DirectImporterDescription(modelType,
                 path);
@@ -228,7 +232,7 @@ public class FlowPartTestDriver extends TestDriverBase {
         loadIndividually = true;
         addCreateIn(tableName, excelFileName);
 
-        String path = createInputLocation(excelFileName).toPath('/');
+        String path = createInputLocation(getCompileWorkLocation(), excelFileName).toPath('/');
 
         LOG.info("DirectImporterDescription生成:Path=" + excelFileName);
 
@@ -272,7 +276,7 @@ public class FlowPartTestDriver extends TestDriverBase {
 
         String tableName = testUtils.getTablenameByClass(modelType);
         addCreateOut(tableName, tableName);
-        String path = createOutputLocation(tableName).toPath('/');
+        String path = createOutputLocation(getCompileWorkLocation(), tableName).toPath('/');
         LOG.info("DirectExporterDescription生成:Path=" + path);
         ExporterDescription desc = new DirectExporterDescription(modelType,
                 path);
@@ -320,7 +324,7 @@ public class FlowPartTestDriver extends TestDriverBase {
         loadIndividually = true;
         addCreateOut(tableName, excelFileName);
 
-        String path = createOutputLocation(excelFileName).toPath('/');
+        String path = createOutputLocation(getCompileWorkLocation(), excelFileName).toPath('/');
 
         LOG.info("DirectExporterDescription生成:Path=" + excelFileName);
 
@@ -357,68 +361,102 @@ public class FlowPartTestDriver extends TestDriverBase {
     }
 
     private void createSequenceFiles() throws Throwable {
-        for (String table : testUtils.getTablenames()) {
-            createSequenceFile(table, table);
+        FileSystem fs = openFileSystem();
+        try {
+            List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+            for (String table : testUtils.getTablenames()) {
+                tasks.add(createSequenceFileTask(fs, testUtils, table, table));
+            }
+            ParallelTasks.invokeAll(tasks, parallelism);
+        } finally {
+            fs.close();
         }
     }
 
     private void createSequenceFilesIndividually() throws Throwable {
+        FileSystem fs = openFileSystem();
+        try {
+            List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+            for (Map.Entry<String, List<String>> entry : createInMap.entrySet()) {
+                String tablename = entry.getKey();
+                List<String> fileList = entry.getValue();
+                for (String excelFileName : fileList) {
+                    TestUtils utils = createTestUtils(excelFileName);
+                    tasks.add(createSequenceFileTask(fs, utils, tablename, excelFileName));
+                }
+            }
+            ParallelTasks.invokeAll(tasks, parallelism);
+        } finally {
+            fs.close();
+        }
+    }
 
-        for (Map.Entry<String, List<String>> entry : createInMap.entrySet()) {
-            String tablename = entry.getKey();
-            List<String> fileList = entry.getValue();
-            for (String excelFileName : fileList) {
-                List<File> inFileList = new ArrayList<File>();
-                if (testDataDir != null) {
-                    inFileList
-                            .add(new File(testDataDir, excelFileName + ".xls"));
-                } else {
-                    for (File file : testDataFileList) {
-                        if (file.getPath().endsWith(excelFileName + ".xls")) {
-                            inFileList.add(file);
-                            break;
-                        }
-                    }
+    private TestUtils createTestUtils(String excelFileName) throws IOException {
+        List<File> fileList = new ArrayList<File>();
+        if (testDataDir != null) {
+            fileList.add(new File(testDataDir, excelFileName + ".xls"));
+        } else {
+            for (File file : testDataFileList) {
+                if (file.getPath().endsWith(excelFileName + ".xls")) {
+                    fileList.add(file);
+                    break;
                 }
-                testUtils = new TestUtils(inFileList);
-                createSequenceFile(tablename, excelFileName);
             }
         }
+        TestUtils utils = new TestUtils(fileList);
+        // テーブルごとの処理は呼び出し元で並行に実行する
+        utils.setParallelism(1);
+        return utils;
     }
 
-    private void createSequenceFile(String tablename, String excelFileName)
-            throws Throwable {
+    private Callable<Void> createSequenceFileTask(
+            final FileSystem fs,
+            final TestUtils utils,
+            final String tablename,
+            final String excelFileName) {
+        return new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                createSequenceFile(fs, utils, tablename, excelFileName);
+                return null;
+            }
+        };
+    }
 
-        Configuration conf = new Configuration();
-        FileSystem fs = null;
+    private void createSequenceFile(
+            FileSystem fs,
+            TestUtils utils,
+            String tablename,
+            String excelFileName) throws Exception {
+        Configuration conf = fs.getConf();
         SequenceFile.Writer writer = null;
-
         try {
-            fs = FileSystem.get(conf);
-            fs.setWorkingDirectory(fs.getHomeDirectory());
-
             URI seqFilePath = new URI(createInputSequenceFilePath(fs,
                     excelFileName));
             LOG.info("SequenceFileを作成します:Path=" + seqFilePath);
 
             writer = SequenceFile.createWriter(fs, conf,
                     new Path(seqFilePath.getPath()), NullWritable.class,
-                    testUtils.getClassByTablename(tablename));
+                    utils.getClassByTablename(tablename));
 
-            testUtils.storeToSequenceFile(tablename, writer);
+            utils.storeToSequenceFile(tablename, writer);
         } finally {
             if (writer != null) {
                 writer.close();
             }
-            if (fs != null) {
-                fs.close();
-            }
         }
     }
 
     private void loadAndInspectSequenceFiles() throws Throwable {
-        for (String table : testUtils.getTablenames()) {
-            loadSequenceFile(table, table);
+        FileSystem fs = openFileSystem();
+        try {
+            List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+            for (String table : testUtils.getTablenames()) {
+                tasks.add(loadSequenceFileTask(fs, testUtils, table, table));
+            }
+            ParallelTasks.invokeAll(tasks, parallelism);
+        } finally {
+            fs.close();
         }
         if (!testUtils.inspect()) {
             Assert.fail(testUtils.getCauseMessage());
@@ -426,66 +464,97 @@ public class FlowPartTestDriver extends TestDriverBase {
     }
 
     private void loadAndInspectSequenceFilesIndividually() throws Throwable {
-
-        for (Map.Entry<String, List<String>> entry : createOutMap.entrySet()) {
-            String tablename = entry.getKey();
-            List<String> fileList = entry.getValue();
-            for (String excelFileName : fileList) {
-                List<File> outFileList = new ArrayList<File>();
-                if (testDataDir != null) {
-                    outFileList.add(new File(testDataDir, excelFileName
-                            + ".xls"));
-                } else {
-                    for (File file : testDataFileList) {
-                        if (file.getPath().endsWith(excelFileName + ".xls")) {
-                            outFileList.add(file);
-                            break;
+        final FileSystem fs = openFileSystem();
+        List<String> causes;
+        try {
+            List<Callable<String>> tasks = new ArrayList<Callable<String>>();
+            for (Map.Entry<String, List<String>> entry : createOutMap.entrySet()) {
+                final String tablename = entry.getKey();
+                List<String> fileList = entry.getValue();
+                for (final String excelFileName : fileList) {
+                    final TestUtils utils = createTestUtils(excelFileName);
+                    tasks.add(new Callable<String>() {
+                        @Override
+                        public String call() throws Exception {
+                            loadSequenceFile(fs, utils, tablename, excelFileName);
+                            if (!utils.inspect()) {
+                                return utils.getCauseMessage();
+                            }
+                            return null;
                         }
-                    }
-                }
-                testUtils = new TestUtils(outFileList);
-                loadSequenceFile(tablename, excelFileName);
-                if (!testUtils.inspect()) {
-                    Assert.fail(testUtils.getCauseMessage());
-                    return;
+                    });
                 }
             }
+            causes = ParallelTasks.invokeAll(tasks, parallelism);
+        } finally {
+            fs.close();
+        }
+        for (String cause : causes) {
+            if (cause != null) {
+                Assert.fail(cause);
+                return;
+            }
         }
     }
 
-    private void loadSequenceFile(String tablename, String excelFileName)
-            throws Throwable {
-
-        Configuration conf = new Configuration();
-        FileSystem fs = null;
+    private Callable<Void> loadSequenceFileTask(
+            final FileSystem fs,
+            final TestUtils utils,
+            final String tablename,
+            final String excelFileName) {
+        return new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                loadSequenceFile(fs, utils, tablename, excelFileName);
+                return null;
+            }
+        };
+    }
 
-        fs = FileSystem.get(conf);
-        fs.setWorkingDirectory(fs.getHomeDirectory());
-        try {
-            FileStatus[] status = fs.globStatus(new Path(
-                    createOutputSequenceFilePath(fs, excelFileName)));
-            Path[] listedPaths = FileUtil.stat2Paths(status);
-            for (Path path : listedPaths) {
-                if (isSystemFile(path)) {
-                    continue;
-                }
-                SequenceFile.Reader reader = null;
-                try {
-                    LOG.info("SequenceFileをロードします:Path=" + path);
-                    reader = new SequenceFile.Reader(fs, path, conf);
-
-                    testUtils.loadFromSequenceFile(tablename, reader);
-                } finally {
-                    if (reader != null) {
-                        reader.close();
-                    }
+    private void loadSequenceFile(
+            FileSystem fs,
+            TestUtils utils,
+            String tablename,
+            String excelFileName) throws IOException {
+        Configuration conf = fs.getConf();
+        FileStatus[] status = fs.globStatus(new Path(
+                createOutputSequenceFilePath(fs, excelFileName)));
+        Path[] listedPaths = FileUtil.stat2Paths(status);
+        for (Path path : listedPaths) {
+            if (isSystemFile(path)) {
+                continue;
+            }
+            SequenceFile.Reader reader = null;
+            try {
+                LOG.info("SequenceFileをロードします:Path=" + path);
+                reader = new SequenceFile.Reader(fs, path, conf);
+
+                utils.loadFromSequenceFile(tablename, reader);
+            } finally {
+                if (reader != null) {
+                    reader.close();
                 }
             }
-        } finally {
-            fs.close();
         }
     }
 
+    /**
+     * テストデータの配置と取り込みに利用するファイルシステムを開く。
+     * <p>
+     * 返されるファイルシステムは、テーブルごとの処理を並行して実行する間に共有される。
+     * </p>
+     *
+     * @return ホームディレクトリを作業ディレクトリとするファイルシステム
+     * @throws IOException
+     *             ファイルシステムの取得に失敗した場合
+     */
+    private FileSystem openFileSystem() throws IOException {
+        Configuration conf = new Configuration();
+        FileSystem fs = FileSystem.get(conf);
+        fs.setWorkingDirectory(fs.getHomeDirectory());
+        return fs;
+    }
+
     private boolean isSystemFile(Path path) {
         assert path != null;
         String name = path.getName();
@@ -493,34 +562,35 @@ public class FlowPartTestDriver extends TestDriverBase {
                 || name.equals("_logs");
     }
 
-    private Location createInputLocation(String tableName) {
-        Location location = Location.fromPath(clusterWorkDir, '/')
-                .append(executionId).append("input")
+    private Location createInputLocation(Location base, String tableName) {
+        Location location = base.append("input")
                 .append(normalize(tableName));
         return location;
     }
 
-    private Location createOutputLocation(String tableName) {
-        Location location = Location.fromPath(clusterWorkDir, '/')
-                .append(executionId).append("output")
+    private Location createOutputLocation(Location base, String tableName) {
+        Location location = base.append("output")
                 .append(normalize(tableName)).asPrefix();
         return location;
     }
 
     private Location createTempLocation() {
-        Location location = Location.fromPath(clusterWorkDir, '/')
-                .append(executionId).append("temp");
+        Location location = getCompileWorkLocation().append("temp");
         return location;
     }
 
+    private Location createExecutionLocation() {
+        return Location.fromPath(clusterWorkDir, '/').append(executionId);
+    }
+
     private String createInputSequenceFilePath(FileSystem fs, String tableName) {
-        Location location = createInputLocation(tableName);
+        Location location = createInputLocation(createExecutionLocation(), tableName);
         return new Path(fs.getWorkingDirectory(), location.toPath('/'))
                 .toString();
     }
 
     private String createOutputSequenceFilePath(FileSystem fs, String tableName) {
-        Location location = createOutputLocation(tableName);
+        Location location = createOutputLocation(createExecutionLocation(), tableName);
         return new Path(fs.getWorkingDirectory(), location.toPath('/'))
                 .toString();
     }
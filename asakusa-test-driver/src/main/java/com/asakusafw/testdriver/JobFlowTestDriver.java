@@ -29,7 +29,6 @@ import org.junit.Assert;
 import com.asakusafw.compiler.flow.ExternalIoCommandProvider.CommandContext;
 import com.asakusafw.compiler.flow.JobFlowClass;
 import com.asakusafw.compiler.flow.JobFlowDriver;
-import com.asakusafw.compiler.flow.Location;
 import com.asakusafw.compiler.testing.DirectFlowCompiler;
 import com.asakusafw.compiler.testing.JobflowInfo;
 import com.asakusafw.vocabulary.flow.FlowDescription;
@@ -134,13 +133,14 @@ public class JobFlowTestDriver extends TestDriverBase {
                 batchId,
                 flowId,
                 "test.jobflow",
-                Location.fromPath(clusterWorkDir + "/" + executionId, '/'),
+                getCompileWorkLocation(),
                 compileWorkDir,
                 Arrays.asList(new File[] {
                         DirectFlowCompiler.toLibraryPath(jobFlowDescriptionClass)
                 }),
                 jobFlowDescriptionClass.getClassLoader(),
-                options);
+                options,
+                packageCache);
 
             // ジョブフローのjarをImporter/Exporterが要求するディレクトリにコピー
             String jobFlowJarName = "jobflow-" + flowId + ".jar";
@@ -18,6 +18,7 @@ package com.asakusafw.testdriver;
 import static org.hamcrest.CoreMatchers.is;
 
 import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -26,6 +27,8 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.ObjectOutputStream;
 import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.net.URLClassLoader;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -41,6 +44,8 @@ import org.apache.commons.io.IOUtils;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
 import org.junit.Assert;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -48,7 +53,9 @@ import org.slf4j.LoggerFactory;
 import com.asakusafw.compiler.flow.ExternalIoCommandProvider;
 import com.asakusafw.compiler.flow.ExternalIoCommandProvider.CommandContext;
 import com.asakusafw.compiler.flow.FlowCompilerOptions;
+import com.asakusafw.compiler.flow.Location;
 import com.asakusafw.compiler.testing.JobflowInfo;
+import com.asakusafw.compiler.testing.JobflowPackageCache;
 import com.asakusafw.compiler.testing.StageInfo;
 import com.asakusafw.runtime.stage.AbstractStageClient;
 import com.asakusafw.testdriver.TestExecutionPlan.Command;
@@ -110,6 +117,21 @@ public abstract class TestDriverBase {
      */
     protected final FlowCompilerOptions options = new FlowCompilerOptions();
 
+    /**
+     * ステージをHadoopコマンドを起動せずに、テストを実行中のプロセス内で実行する場合に{@code true}。
+     */
+    protected boolean embedded;
+
+    /**
+     * テーブルごとのテストデータの準備や検証を同時に実行する最大数。
+     */
+    protected int parallelism;
+
+    /**
+     * コンパイル済みのジョブフローのパッケージのキャッシュ、利用しない場合は{@code null}。
+     */
+    protected JobflowPackageCache packageCache;
+
     /**
      * コンストラクタ。
      *
@@ -218,6 +240,28 @@ public abstract class TestDriverBase {
         if (clusterWorkDir == null) {
             clusterWorkDir = HADOOPWORK_DIR_DEFAULT;
         }
+        this.embedded = Boolean.getBoolean("asakusa.testdriver.embedded");
+        this.parallelism = Integer.getInteger("asakusa.testdriver.parallelism",
+                testUtils.getParallelism());
+        testUtils.setParallelism(parallelism);
+        String packageCacheDir = System
+                .getProperty("asakusa.testdriver.compilecache.dir");
+        if (packageCacheDir != null && packageCacheDir.trim().isEmpty() == false) {
+            this.packageCache = new JobflowPackageCache(new File(packageCacheDir));
+        }
+    }
+
+    /**
+     * フローコンパイラに指定する、クラスタ上のワークディレクトリの位置を返す。
+     * <p>
+     * パッケージのキャッシュを利用する場合、生成されるプログラムが実行ごとに変化しないよう、
+     * 実行IDの代わりに実行時に展開される変数{@link AbstractStageClient#EXPR_EXECUTION_ID}を利用する。
+     * </p>
+     * @return クラスタ上のワークディレクトリの位置
+     */
+    protected Location getCompileWorkLocation() {
+        String id = packageCache == null ? executionId : AbstractStageClient.EXPR_EXECUTION_ID;
+        return Location.fromPath(clusterWorkDir, '/').append(id);
     }
 
     /**
@@ -394,7 +438,11 @@ public abstract class TestDriverBase {
             HadoopJobInfo jobElement = new HadoopJobInfo(job.getExecutionId(),
                     jobflowPackageFile.getAbsolutePath(), job.getClassName(),
                     job.getProperties());
-            runHadoopJob(jobElement);
+            if (embedded) {
+                runEmbeddedJob(jobElement);
+            } else {
+                runHadoopJob(jobElement);
+            }
         }
     }
 
@@ -453,6 +501,93 @@ public abstract class TestDriverBase {
         }
     }
 
+    /**
+     * Hadoopジョブを、Hadoopコマンドを起動せずにこのプロセス内で実行する。
+     * <p>
+     * ステージの各タスクはこのプロセス内のスレッドで実行され、
+     * 入出力にはこのプロセスの設定で利用可能なファイルシステムを利用する。
+     * </p>
+     *
+     * @param hadoopJobInfo
+     *            実行するHadoopジョブの情報
+     * @throws RuntimeException
+     *             ジョブの実行に失敗した場合
+     */
+    protected void runEmbeddedJob(HadoopJobInfo hadoopJobInfo)
+            throws RuntimeException {
+        LOG.info("【EMBEDDED】 {} ({})", hadoopJobInfo.getClassName(),
+                hadoopJobInfo.getJarName());
+        Configuration conf = new Configuration();
+        File pluginConf = new File(System.getenv("ASAKUSA_HOME"),
+                "core/conf/asakusa-resources.xml");
+        ClassLoader context = Thread.currentThread().getContextClassLoader();
+        ClassLoader loader = null;
+        int exitValue;
+        try {
+            if (pluginConf.isFile()) {
+                conf.addResource(pluginConf.toURI().toURL());
+            }
+            Map<String, String> dPropMap = hadoopJobInfo.getDPropMap();
+            if (dPropMap != null) {
+                for (Map.Entry<String, String> entry : dPropMap.entrySet()) {
+                    conf.set(entry.getKey(), entry.getValue());
+                }
+            }
+            conf.setBoolean(AbstractStageClient.PROP_EMBEDDED, true);
+
+            List<URL> libraries = new ArrayList<URL>();
+            libraries.add(new File(hadoopJobInfo.getJarName()).toURI().toURL());
+            File[] extensions = new File(System.getenv("ASAKUSA_HOME"),
+                    "ext/lib").listFiles();
+            if (extensions != null) {
+                for (File file : extensions) {
+                    if (file.getName().endsWith(".jar")) {
+                        libraries.add(file.toURI().toURL());
+                    }
+                }
+            }
+            loader = new URLClassLoader(
+                    libraries.toArray(new URL[libraries.size()]), context);
+            conf.setClassLoader(loader);
+            Thread.currentThread().setContextClassLoader(loader);
+            Tool tool = Class.forName(hadoopJobInfo.getClassName(), true, loader)
+                    .asSubclass(Tool.class).newInstance();
+            exitValue = ToolRunner.run(conf, tool, new String[0]);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            Thread.currentThread().setContextClassLoader(context);
+            releaseClassLoader(loader);
+        }
+        if (exitValue != 0) {
+            // 異常終了
+            Assert.assertThat(
+                    "Hadoopジョブの実行に失敗しました。ジョブフローID= "
+                            + hadoopJobInfo.getJobFlowId() + ", クラス= "
+                            + hadoopJobInfo.getClassName(), exitValue, is(0));
+        }
+    }
+
+    /**
+     * ジョブの実行に利用したクラスローダが開いているファイルを解放する。
+     * <p>
+     * Java 7以降の{@link URLClassLoader}は{@link Closeable}を実装しているため、
+     * その場合は明示的に閉じる。それ以外の場合はガベージコレクションに任せる。
+     * </p>
+     *
+     * @param loader
+     *            対象のクラスローダ、{@code null}の場合は何もしない
+     */
+    private static void releaseClassLoader(ClassLoader loader) {
+        if (loader instanceof Closeable) {
+            try {
+                ((Closeable) loader).close();
+            } catch (IOException e) {
+                LOG.warn("クラスローダの解放に失敗しました", e);
+            }
+        }
+    }
+
     /**
      * シェル／シェルスクリプトを実行する。
      *
@@ -608,6 +743,36 @@ public abstract class TestDriverBase {
         options.setEnableDebugLogging(enable);
     }
 
+    /**
+     * ステージをHadoopコマンドを起動せずに、テストを実行中のプロセス内で実行するかどうかを変更する。
+     * <p>
+     * 既定ではシステムプロパティ{@code asakusa.testdriver.embedded}の値に従う。
+     * </p>
+     *
+     * @param enable
+     *            プロセス内で実行する場合に{@code true}、Hadoopコマンドを利用する場合に{@code false}
+     */
+    public void setEmbedded(boolean enable) {
+        this.embedded = enable;
+    }
+
+    /**
+     * テーブルごとのテストデータの準備や検証を同時に実行する最大数を変更する。
+     * <p>
+     * データベースへのテストデータの登録と取り込み、クラスタ上へのテストデータの配置と取り込み、
+     * および実行結果の検証を、テーブルや出力ごとに最大でこの数だけ並行して実行する。
+     * 既定ではシステムプロパティ{@code asakusa.testdriver.parallelism}の値に従い、
+     * 指定されていなければテストツールの設定ファイルの値に従う。
+     * </p>
+     *
+     * @param parallelism
+     *            同時に実行する最大数、{@code 1}以下の場合は順に実行する
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+        testUtils.setParallelism(parallelism);
+    }
+
     /**
      * テスト用のプラグイン設定情報({@code -D})を返す。
      *
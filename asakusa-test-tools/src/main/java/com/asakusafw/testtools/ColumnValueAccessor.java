@@ -0,0 +1,128 @@
+/**
+ * Copyright 2011 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.testtools;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.asakusafw.modelgen.emitter.JavaName;
+import com.asakusafw.runtime.io.ModelAccessor;
+import com.asakusafw.runtime.io.TsvIoFactory;
+import com.asakusafw.runtime.value.ValueOption;
+
+/**
+ * モデルオブジェクトから、カラムの位置を指定して値を取り出すクラス。
+ * <p>
+ * モデルジェネレータが生成した{@link ModelAccessor}が存在する場合はそれを利用し、
+ * 存在しない場合はカラムごとに一度だけ解決したゲッターメソッドを呼び出す。
+ * 生成された{@link ModelAccessor}が存在するにもかかわらず生成に失敗した場合は例外をスローする。
+ * </p>
+ */
+public class ColumnValueAccessor {
+
+    private final ModelAccessor<Object> accessor;
+
+    private final int[] indices;
+
+    private final Method[] getters;
+
+    /**
+     * インスタンスを生成する。
+     * @param columnInfos 対象のカラム情報の一覧
+     * @param modelClass 対象のモデルクラス
+     * @throws RuntimeException 生成された{@link ModelAccessor}の生成に失敗した場合
+     */
+    public ColumnValueAccessor(List<ColumnInfo> columnInfos, Class<?> modelClass) {
+        this.accessor = findAccessor(modelClass);
+        this.indices = new int[columnInfos.size()];
+        this.getters = new Method[columnInfos.size()];
+        Map<String, Integer> properties = new HashMap<String, Integer>();
+        if (accessor != null) {
+            for (int i = 0, n = accessor.getPropertyCount(); i < n; i++) {
+                properties.put(toKey(accessor.getPropertyName(i)), i);
+            }
+        }
+        for (int i = 0; i < indices.length; i++) {
+            ColumnInfo info = columnInfos.get(i);
+            Integer index = properties.get(toKey(info.getColumnName()));
+            if (index != null) {
+                indices[i] = index;
+            } else {
+                indices[i] = -1;
+                try {
+                    getters[i] = modelClass.getMethod(info.getGetterName());
+                } catch (SecurityException e) {
+                    throw new RuntimeException(e);
+                } catch (NoSuchMethodException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 生成された{@link ModelAccessor}を利用している場合のみ{@code true}を返す。
+     * @return 生成された{@link ModelAccessor}を利用している場合のみ{@code true}
+     */
+    public boolean isGenerated() {
+        return accessor != null;
+    }
+
+    /**
+     * 指定のモデルオブジェクトから、指定の位置にあるカラムの値を取り出す。
+     * @param model 対象のモデルオブジェクト
+     * @param columnIndex コンストラクタに指定したカラム情報の一覧上の位置
+     * @return 対応する値
+     */
+    public ValueOption<?> get(Object model, int columnIndex) {
+        int index = indices[columnIndex];
+        if (index >= 0) {
+            return accessor.get(model, index);
+        }
+        try {
+            return (ValueOption<?>) getters[columnIndex].invoke(model);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException(e);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        } catch (InvocationTargetException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String toKey(String name) {
+        return JavaName.of(name).toTypeName();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ModelAccessor<Object> findAccessor(Class<?> modelClass) {
+        try {
+            return (ModelAccessor<Object>) new TsvIoFactory<Object>((Class<Object>) modelClass)
+                .createModelAccessor();
+        } catch (IOException e) {
+            if (e.getCause() instanceof ClassNotFoundException) {
+                // 生成されたアクセサが存在しない
+                return null;
+            }
+            // アクセサは存在するが生成に失敗した
+            throw new RuntimeException(e);
+        }
+    }
+}
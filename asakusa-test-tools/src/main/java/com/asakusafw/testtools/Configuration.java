@@ -79,6 +79,31 @@ public final class Configuration {
      */
     private String modelPackage;
 
+    /**
+     * 入力データを一括して挿入する行数。
+     */
+    private int insertBatchSize = Constants.DEFAULT_INSERT_BATCH_SIZE;
+
+    /**
+     * 入力データを{@code LOAD DATA LOCAL INFILE}で書き出す行数の閾値。
+     */
+    private int insertLoadThreshold = Constants.DEFAULT_INSERT_LOAD_THRESHOLD;
+
+    /**
+     * Excelファイルをイベント形式で逐次読み出すかどうか。
+     */
+    private boolean excelStreaming = Constants.DEFAULT_EXCEL_STREAMING;
+
+    /**
+     * テーブルごとのテストデータの準備や検証を同時に実行する最大数。
+     */
+    private int fixtureParallelism = Constants.DEFAULT_FIXTURE_PARALLELISM;
+
+    /**
+     * 実行結果を外部ソートしながら取り込む際にメモリ上に保持するレコード数。
+     */
+    private int inspectSortBufferSize = Constants.DEFAULT_INSPECT_SORT_BUFFER_SIZE;
+
     /**
      * 出力ディレクトリを取得します。
      * @return outputDirectory
@@ -191,6 +216,26 @@ public final class Configuration {
             conf.setJdbcPassword(findProperty(props, Constants.K_JDBC_PASSWORD));
             conf.setDatabaseName(findProperty(props, Constants.K_DATABASE_NAME));
             conf.setOutputDirectory(findProperty(props, Constants.K_OUTPUT_DIR));
+            conf.setInsertBatchSize(findIntProperty(
+                    props,
+                    Constants.K_INSERT_BATCH_SIZE,
+                    Constants.DEFAULT_INSERT_BATCH_SIZE));
+            conf.setInsertLoadThreshold(findIntProperty(
+                    props,
+                    Constants.K_INSERT_LOAD_THRESHOLD,
+                    Constants.DEFAULT_INSERT_LOAD_THRESHOLD));
+            conf.setExcelStreaming(findBooleanProperty(
+                    props,
+                    Constants.K_EXCEL_STREAMING,
+                    Constants.DEFAULT_EXCEL_STREAMING));
+            conf.setFixtureParallelism(findIntProperty(
+                    props,
+                    Constants.K_FIXTURE_PARALLELISM,
+                    Constants.DEFAULT_FIXTURE_PARALLELISM));
+            conf.setInspectSortBufferSize(findIntProperty(
+                    props,
+                    Constants.K_INSPECT_SORT_BUFFER_SIZE,
+                    Constants.DEFAULT_INSPECT_SORT_BUFFER_SIZE));
         } catch (IOException e) {
             throw new IllegalStateException(MessageFormat.format(
                     "設定ファイルの読み出しに失敗しました: {0}={1}",
@@ -214,6 +259,32 @@ public final class Configuration {
         return value;
     }
 
+    private static int findIntProperty(Properties properties, String key, int defaultValue) {
+        assert properties != null;
+        assert key != null;
+        String value = properties.getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException(MessageFormat.format(
+                    "プロパティ\"{0}\"の値が整数ではありません: {1}",
+                    key,
+                    value), e);
+        }
+    }
+
+    private static boolean findBooleanProperty(Properties properties, String key, boolean defaultValue) {
+        assert properties != null;
+        assert key != null;
+        String value = properties.getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        return Boolean.parseBoolean(value.trim());
+    }
 
     private static String findVariable(List<String> variableNames, boolean mandatory) {
         assert variableNames != null;
@@ -262,4 +333,85 @@ public final class Configuration {
     public void setModelPackage(String modelPackage) {
         this.modelPackage = modelPackage;
     }
+
+    /**
+     * 入力データを一括して挿入する行数を取得します。
+     * @return 入力データを一括して挿入する行数
+     */
+    public int getInsertBatchSize() {
+        return insertBatchSize;
+    }
+
+    /**
+     * 入力データを一括して挿入する行数を設定します。
+     * @param insertBatchSize 入力データを一括して挿入する行数
+     */
+    public void setInsertBatchSize(int insertBatchSize) {
+        this.insertBatchSize = insertBatchSize;
+    }
+
+    /**
+     * 入力データを{@code LOAD DATA LOCAL INFILE}で書き出す行数の閾値を取得します。
+     * @return 入力データを{@code LOAD DATA LOCAL INFILE}で書き出す行数の閾値、利用しない場合は負の値
+     */
+    public int getInsertLoadThreshold() {
+        return insertLoadThreshold;
+    }
+
+    /**
+     * 入力データを{@code LOAD DATA LOCAL INFILE}で書き出す行数の閾値を設定します。
+     * @param insertLoadThreshold 入力データを{@code LOAD DATA LOCAL INFILE}で書き出す行数の閾値、
+     *     利用しない場合は負の値
+     */
+    public void setInsertLoadThreshold(int insertLoadThreshold) {
+        this.insertLoadThreshold = insertLoadThreshold;
+    }
+
+    /**
+     * Excelファイルをイベント形式で逐次読み出すかどうかを取得します。
+     * @return イベント形式で逐次読み出す場合は{@code true}
+     */
+    public boolean isExcelStreaming() {
+        return excelStreaming;
+    }
+
+    /**
+     * Excelファイルをイベント形式で逐次読み出すかどうかを設定します。
+     * @param excelStreaming イベント形式で逐次読み出す場合は{@code true}
+     */
+    public void setExcelStreaming(boolean excelStreaming) {
+        this.excelStreaming = excelStreaming;
+    }
+
+    /**
+     * テーブルごとのテストデータの準備や検証を同時に実行する最大数を取得します。
+     * @return 同時に実行する最大数
+     */
+    public int getFixtureParallelism() {
+        return fixtureParallelism;
+    }
+
+    /**
+     * テーブルごとのテストデータの準備や検証を同時に実行する最大数を設定します。
+     * @param fixtureParallelism 同時に実行する最大数、{@code 1}以下の場合は順に実行する
+     */
+    public void setFixtureParallelism(int fixtureParallelism) {
+        this.fixtureParallelism = fixtureParallelism;
+    }
+
+    /**
+     * 実行結果を外部ソートしながら取り込む際にメモリ上に保持するレコード数を取得します。
+     * @return メモリ上に保持するレコード数、外部ソートしない場合は{@code 0}以下
+     */
+    public int getInspectSortBufferSize() {
+        return inspectSortBufferSize;
+    }
+
+    /**
+     * 実行結果を外部ソートしながら取り込む際にメモリ上に保持するレコード数を設定します。
+     * @param inspectSortBufferSize メモリ上に保持するレコード数、外部ソートしない場合は{@code 0}以下
+     */
+    public void setInspectSortBufferSize(int inspectSortBufferSize) {
+        this.inspectSortBufferSize = inspectSortBufferSize;
+    }
 }
@@ -73,6 +73,59 @@ public final class Constants {
      */
     public static final String K_OUTPUT_DIR = "output.directory";
 
+    /**
+     * 設定ファイル内に記述する、入力データを一括して挿入する行数のキー (省略可能)。
+     */
+    public static final String K_INSERT_BATCH_SIZE = "insert.batch.size";
+
+    /**
+     * 設定ファイル内に記述する、入力データを{@code LOAD DATA LOCAL INFILE}で
+     * 書き出す行数の閾値のキー (省略可能)。
+     */
+    public static final String K_INSERT_LOAD_THRESHOLD = "insert.load.threshold";
+
+    /**
+     * 入力データを一括して挿入する行数の既定値。
+     */
+    public static final int DEFAULT_INSERT_BATCH_SIZE = 1000;
+
+    /**
+     * 入力データを{@code LOAD DATA LOCAL INFILE}で書き出す行数の閾値の既定値 (利用しない)。
+     */
+    public static final int DEFAULT_INSERT_LOAD_THRESHOLD = -1;
+
+    /**
+     * 設定ファイル内に記述する、Excelファイルをイベント形式で逐次読み出すかどうかのキー (省略可能)。
+     */
+    public static final String K_EXCEL_STREAMING = "excel.streaming";
+
+    /**
+     * Excelファイルをイベント形式で逐次読み出すかどうかの既定値。
+     */
+    public static final boolean DEFAULT_EXCEL_STREAMING = false;
+
+    /**
+     * 設定ファイル内に記述する、テーブルごとのテストデータの準備や検証を
+     * 同時に実行する最大数のキー (省略可能)。
+     */
+    public static final String K_FIXTURE_PARALLELISM = "fixture.parallelism";
+
+    /**
+     * テーブルごとのテストデータの準備や検証を同時に実行する最大数の既定値。
+     */
+    public static final int DEFAULT_FIXTURE_PARALLELISM = 4;
+
+    /**
+     * 設定ファイル内に記述する、実行結果を外部ソートしながら取り込む際に
+     * メモリ上に保持するレコード数のキー (省略可能)。
+     */
+    public static final String K_INSPECT_SORT_BUFFER_SIZE = "inspect.sort.buffer.size";
+
+    /**
+     * 実行結果を外部ソートしながら取り込む際にメモリ上に保持するレコード数の既定値。
+     */
+    public static final int DEFAULT_INSPECT_SORT_BUFFER_SIZE = 100000;
+
     /**
      * 入力データを定義するExcelシートのシート名。
      */
@@ -16,16 +16,12 @@
 package com.asakusafw.testtools;
 
 import java.io.Serializable;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 
 import org.apache.hadoop.io.Writable;
 
-import com.asakusafw.runtime.value.ValueOption;
-
 /**
  * Modelオブジェクトの比較用のComparator。
  * @param <T> モデルオブジェクトの型
@@ -35,48 +31,42 @@ public class ModelComparator<T extends Writable> implements Comparator<T>, Seria
     private static final long serialVersionUID = 1L;
 
     /**
-     * モデルオブジェクトからキー項目を取得するgetterのリスト。
+     * モデルオブジェクトからキー項目を取得するアクセサ。
      */
-    private List<Method> getters;
+    private final ColumnValueAccessor accessor;
+
+    /**
+     * キー項目の個数。
+     */
+    private final int keyCount;
 
     /**
      * コンストラクタ。
+     * <p>
+     * モデルジェネレータが生成した{@link com.asakusafw.runtime.io.ModelAccessor}が存在する場合は、
+     * それを利用してキー項目を取得する。
+     * </p>
      * @param columnInfos モデルクラスのカラム(フィールド)情報
      * @param modelClass ソート対象のモデルクラス
      */
     public ModelComparator(List<ColumnInfo> columnInfos, Class<?> modelClass) {
-        getters = new ArrayList<Method>();
+        List<ColumnInfo> keys = new ArrayList<ColumnInfo>();
         for (ColumnInfo info : columnInfos) {
             if (info.isKey()) {
-                try {
-                    Method method = modelClass.getMethod(info.getGetterName());
-                    getters.add(method);
-                } catch (SecurityException e) {
-                    throw new RuntimeException(e);
-                } catch (NoSuchMethodException e) {
-                    throw new RuntimeException(e);
-                }
+                keys.add(info);
             }
         }
+        this.accessor = new ColumnValueAccessor(keys, modelClass);
+        this.keyCount = keys.size();
     }
 
     @Override
     public int compare(T o1, T o2) {
-        for (Method getter : getters) {
+        for (int i = 0; i < keyCount; i++) {
             @SuppressWarnings("rawtypes")
-            Comparable vo1;
+            Comparable vo1 = accessor.get(o1, i);
             @SuppressWarnings("rawtypes")
-            Comparable vo2;
-            try {
-                vo1  = (ValueOption<?>) getter.invoke(o1);
-                vo2  = (ValueOption<?>) getter.invoke(o2);
-            } catch (IllegalArgumentException e) {
-                throw new RuntimeException(e);
-            } catch (IllegalAccessException e) {
-                throw new RuntimeException(e);
-            } catch (InvocationTargetException e) {
-                throw new RuntimeException(e);
-            }
+            Comparable vo2 = accessor.get(o2, i);
             @SuppressWarnings("unchecked")
             int ret = vo1.compareTo(vo2);
             if (ret != 0) {
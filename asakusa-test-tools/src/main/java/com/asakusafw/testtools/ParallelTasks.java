@@ -0,0 +1,105 @@
+/**
+ * Copyright 2011 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.testtools;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 互いに独立した処理を、上限付きのスレッドで並行に実行する。
+ * <p>
+ * テーブルごとのテストデータの準備や、出力ごとの結果の検証など、
+ * 共有する状態を持たない処理をまとめて実行するために利用する。
+ * それぞれの処理は、接続などの資源を自身で取得して解放すること。
+ * </p>
+ */
+public final class ParallelTasks {
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    /**
+     * 指定の処理をすべて実行し、それぞれの結果を処理の順序で返す。
+     * <p>
+     * 並行度が{@code 1}以下であるか、処理が1つ以下の場合には、呼び出し元のスレッドで順に実行する。
+     * いずれかの処理が失敗した場合には、すべての処理の終了を待ってから、
+     * 処理の順序で最初に失敗した処理の例外をそのまま送出する。
+     * </p>
+     * @param <T> 処理結果の型
+     * @param tasks 実行する処理の一覧
+     * @param parallelism 同時に実行する処理の最大数
+     * @return 処理結果の一覧
+     * @throws Exception いずれかの処理に失敗した場合
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     */
+    public static <T> List<T> invokeAll(
+            List<? extends Callable<T>> tasks,
+            int parallelism) throws Exception {
+        if (tasks == null) {
+            throw new IllegalArgumentException("tasks must not be null");
+        }
+        List<T> results = new ArrayList<T>();
+        if (parallelism <= 1 || tasks.size() <= 1) {
+            for (Callable<T> task : tasks) {
+                results.add(task.call());
+            }
+            return results;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(parallelism, tasks.size()),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "testtools-worker-" + THREAD_COUNTER.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        try {
+            List<Future<T>> futures = executor.invokeAll(tasks);
+            Throwable failure = null;
+            for (Future<T> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                }
+            }
+            if (failure instanceof Exception) {
+                throw (Exception) failure;
+            } else if (failure instanceof Error) {
+                throw (Error) failure;
+            } else if (failure != null) {
+                throw new ExecutionException(failure);
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private ParallelTasks() {
+        return;
+    }
+}
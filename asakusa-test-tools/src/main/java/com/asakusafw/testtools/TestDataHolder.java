@@ -15,9 +15,13 @@
  */
 package com.asakusafw.testtools;
 
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -46,7 +50,9 @@ import com.asakusafw.runtime.value.IntOption;
 import com.asakusafw.runtime.value.LongOption;
 import com.asakusafw.runtime.value.ShortOption;
 import com.asakusafw.runtime.value.StringOption;
+import com.asakusafw.runtime.value.ValueOption;
 import com.asakusafw.testtools.db.DbUtils;
+import com.asakusafw.testtools.inspect.ModelSorter;
 
 /**
  * テストデータを保持するクラス。
@@ -88,6 +94,21 @@ public class TestDataHolder {
      */
     private RowMatchingCondition rowMatchingCondition;
 
+    /**
+     * モデルオブジェクトから各カラムの値を取り出すアクセサ (未初期化の場合は{@code null})。
+     */
+    private ColumnValueAccessor accessor;
+
+    /**
+     * 実際の出力データを外部ソートしながら取り込む際に、メモリ上に保持するレコード数 (外部ソートしない場合は{@code 0})。
+     */
+    private int sortBufferSize;
+
+    /**
+     * 外部ソートしながら取り込んだ実際の出力データ (存在しない場合は{@code null})。
+     */
+    private ModelSorter sortedActual;
+
     /**
      * インスタンスを生成する。
      * @param source 結果の一覧
@@ -130,12 +151,63 @@ public class TestDataHolder {
 
     /**
      * 実際の出力データを取得します。
+     * <p>
+     * 外部ソートしながら取り込んだデータが存在する場合、それらを全てメモリ上に読み出してから返す。
+     * </p>
      * @return 実際の出力データ
      */
     public List<Writable> getActual() {
+        if (sortedActual != null) {
+            for (Writable model : sortedActual) {
+                actual.add(model);
+            }
+            sortedActual.close();
+            sortedActual = null;
+        }
         return actual;
     }
 
+    /**
+     * 外部ソートしながら取り込んだ実際の出力データを取得します。
+     * <p>
+     * {@link #setSortBufferSize(int)}で外部ソートを有効にした後に、
+     * {@link #loadFromDatabase(Connection)}や{@link #load(SequenceFile.Reader)}で取り込んだデータが対象となる。
+     * </p>
+     * @return 外部ソートしながら取り込んだ実際の出力データ、存在しない場合は{@code null}
+     */
+    public ModelSorter getSortedActual() {
+        return sortedActual;
+    }
+
+    /**
+     * 実際の出力データを外部ソートしながら取り込む際に、メモリ上に保持するレコード数を設定します。
+     * @param sortBufferSize メモリ上に保持するレコード数、外部ソートしない場合は{@code 0}
+     */
+    public void setSortBufferSize(int sortBufferSize) {
+        this.sortBufferSize = Math.max(sortBufferSize, 0);
+    }
+
+    private void addActual(Writable model) throws IOException {
+        assert model != null;
+        if (sortBufferSize <= 0) {
+            actual.add(model);
+            return;
+        }
+        if (sortedActual == null) {
+            Comparator<Writable> comparator = new ModelComparator<Writable>(columnInfos, modelClass);
+            sortedActual = new ModelSorter(modelClass, comparator, sortBufferSize);
+        }
+        sortedActual.add(model);
+    }
+
+    private void clearActual() {
+        actual.clear();
+        if (sortedActual != null) {
+            sortedActual.close();
+            sortedActual = null;
+        }
+    }
+
     /**
      * Excelシートのテスト条件を取得します。
      * @return Excelシートのテスト条件
@@ -146,11 +218,39 @@ public class TestDataHolder {
 
     /**
      * 入力データをDBに書き出す。
+     * <p>
+     * 入力データは{@link Constants#DEFAULT_INSERT_BATCH_SIZE}行ごとに一括して挿入する。
+     * </p>
      * @param conn データベースコネクション
      * @param createTable trueのときテーブルをdrop/createし、falseのときtruncateする
      * @throws SQLException DBへの書き出しに失敗した場合
      */
     public void storeToDatabase(Connection conn, boolean createTable) throws SQLException {
+        storeToDatabase(
+                conn,
+                createTable,
+                Constants.DEFAULT_INSERT_BATCH_SIZE,
+                Constants.DEFAULT_INSERT_LOAD_THRESHOLD);
+    }
+
+    /**
+     * 入力データをDBに書き出す。
+     * <p>
+     * 入力データの行数が{@code loadThreshold}以上の場合、入力データを一時的なTSVファイルに書き出し、
+     * {@code LOAD DATA LOCAL INFILE}でDBに取り込む。
+     * そうでない場合、入力データを{@code batchSize}行ごとに一括して挿入する。
+     * </p>
+     * @param conn データベースコネクション
+     * @param createTable trueのときテーブルをdrop/createし、falseのときtruncateする
+     * @param batchSize 一括して挿入する行数
+     * @param loadThreshold {@code LOAD DATA LOCAL INFILE}を利用する行数の閾値、利用しない場合は負の値
+     * @throws SQLException DBへの書き出しに失敗した場合
+     */
+    public void storeToDatabase(
+            Connection conn,
+            boolean createTable,
+            int batchSize,
+            int loadThreshold) throws SQLException {
         // テーブルの作成
         if (createTable) {
             DbUtils.dropTable(conn, tablename);
@@ -159,6 +259,19 @@ public class TestDataHolder {
             DbUtils.truncateTable(conn, tablename);
         }
 
+        if (source.isEmpty()) {
+            return;
+        }
+        if (loadThreshold >= 0 && source.size() >= loadThreshold) {
+            loadLocalFile(conn);
+        } else {
+            insertBatch(conn, Math.max(batchSize, 1));
+        }
+    }
+
+    private void insertBatch(Connection conn, int batchSize) throws SQLException {
+        assert conn != null;
+        assert batchSize >= 1;
         // INSERT用のSQL文を生成
         StringBuilder sb = new StringBuilder();
         sb.append("INSERT INTO ");
@@ -184,18 +297,218 @@ public class TestDataHolder {
         String sql = sb.toString();
 
         // データのインサート
+        boolean autoCommit = conn.getAutoCommit();
         PreparedStatement ps = null;
+        boolean succeed = false;
         try {
+            if (autoCommit) {
+                conn.setAutoCommit(false);
+            }
             ps = conn.prepareStatement(sql);
+            int count = 0;
             for (Writable model : source) {
                 setModelValue(ps, model);
-                ps.executeUpdate();
+                ps.addBatch();
+                count++;
+                if (count >= batchSize) {
+                    ps.executeBatch();
+                    count = 0;
+                }
             }
+            if (count > 0) {
+                ps.executeBatch();
+            }
+            if (autoCommit) {
+                conn.commit();
+            }
+            succeed = true;
         } finally {
             DbUtils.closeQuietly(ps);
+            if (autoCommit) {
+                if (succeed == false) {
+                    conn.rollback();
+                }
+                conn.setAutoCommit(true);
+            }
         }
     }
 
+    /**
+     * 入力データを一時的なTSVファイルに書き出し、{@code LOAD DATA LOCAL INFILE}でDBに取り込む。
+     * @param conn データベースコネクション
+     * @throws SQLException DBへの書き出しに失敗した場合
+     */
+    private void loadLocalFile(Connection conn) throws SQLException {
+        assert conn != null;
+        File file;
+        try {
+            file = File.createTempFile("testdata-", ".tsv");
+            try {
+                writeTsv(file);
+            } catch (IOException e) {
+                file.delete();
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        try {
+            StringBuilder sb = new StringBuilder();
+            sb.append("LOAD DATA LOCAL INFILE '");
+            sb.append(file.getAbsolutePath().replace(File.separatorChar, '/').replace("'", "\\'"));
+            sb.append("' INTO TABLE ");
+            sb.append(tablename);
+            sb.append(" CHARACTER SET utf8");
+            sb.append(" FIELDS TERMINATED BY '\\t' ESCAPED BY '\\\\'");
+            sb.append(" LINES TERMINATED BY '\\n'");
+            for (int i = 0; i < columnInfos.size(); i++) {
+                if (i == 0) {
+                    sb.append(" (");
+                } else {
+                    sb.append(", ");
+                }
+                sb.append(columnInfos.get(i).getColumnName());
+            }
+            sb.append(")");
+            PreparedStatement ps = null;
+            try {
+                ps = conn.prepareStatement(sb.toString());
+                ps.executeUpdate();
+            } finally {
+                DbUtils.closeQuietly(ps);
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    private void writeTsv(File file) throws IOException {
+        assert file != null;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+        try {
+            StringBuilder sb = new StringBuilder();
+            for (Writable model : source) {
+                sb.setLength(0);
+                for (int i = 0, n = columnInfos.size(); i < n; i++) {
+                    if (i > 0) {
+                        sb.append('\t');
+                    }
+                    appendTsvValue(sb, columnInfos.get(i), getValue(model, i));
+                }
+                sb.append('\n');
+                writer.write(sb.toString());
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * {@code LOAD DATA LOCAL INFILE}の形式で値を追記する。
+     * @param sb 追記先
+     * @param info カラムの情報
+     * @param vo 対象の値
+     */
+    static void appendTsvValue(StringBuilder sb, ColumnInfo info, Object vo) {
+        switch (info.getDataType()) {
+        case LONG:
+        case INT:
+        case SMALL_INT:
+        case TINY_INT:
+            if (((ValueOption<?>) vo).isNull()) {
+                sb.append("\\N");
+            } else {
+                sb.append(vo.toString());
+            }
+            break;
+        case CHAR:
+        case VARCHAR:
+            StringOption stringOption = (StringOption) vo;
+            if (stringOption.isNull()) {
+                sb.append("\\N");
+            } else {
+                appendTsvEscaped(sb, stringOption.getAsString());
+            }
+            break;
+        case TIMESTAMP:
+        case DATETIME:
+            DateTimeOption dateTimeOption = (DateTimeOption) vo;
+            if (dateTimeOption.isNull()) {
+                sb.append("\\N");
+            } else {
+                DateTime dateTime = dateTimeOption.get();
+                sb.append(String.format("%04d-%02d-%02d %02d:%02d:%02d",
+                        dateTime.getYear(),
+                        dateTime.getMonth(),
+                        dateTime.getDay(),
+                        dateTime.getHour(),
+                        dateTime.getMinute(),
+                        dateTime.getSecond()));
+            }
+            break;
+        case DATE:
+            DateOption dateOption = (DateOption) vo;
+            if (dateOption.isNull()) {
+                sb.append("\\N");
+            } else {
+                Date date = dateOption.get();
+                sb.append(String.format("%04d-%02d-%02d",
+                        date.getYear(),
+                        date.getMonth(),
+                        date.getDay()));
+            }
+            break;
+        case DECIMAL:
+            DecimalOption decimalOption = (DecimalOption) vo;
+            if (decimalOption.isNull()) {
+                sb.append("\\N");
+            } else {
+                sb.append(decimalOption.get().toPlainString());
+            }
+            break;
+        default:
+            throw new RuntimeException("Unsupported data type: " + info.getDataType());
+        }
+    }
+
+    private static void appendTsvEscaped(StringBuilder sb, String value) {
+        for (int i = 0, n = value.length(); i < n; i++) {
+            char c = value.charAt(i);
+            switch (c) {
+            case '\\':
+                sb.append("\\\\");
+                break;
+            case '\t':
+                sb.append("\\t");
+                break;
+            case '\n':
+                sb.append("\\n");
+                break;
+            case '\r':
+                sb.append("\\r");
+                break;
+            case '\0':
+                sb.append("\\0");
+                break;
+            default:
+                sb.append(c);
+                break;
+            }
+        }
+    }
+
+    /**
+     * モデルオブジェクトから指定のカラムに対応する値を取り出す。
+     * @param model 対象のモデルオブジェクト
+     * @param index カラムの位置
+     * @return 対応する値
+     */
+    private Object getValue(Writable model, int index) {
+        if (accessor == null) {
+            accessor = new ColumnValueAccessor(columnInfos, modelClass);
+        }
+        return accessor.get(model, index);
+    }
 
     /**
      * PreparedStatementにmodelObjectの値を設定する。
@@ -206,20 +519,8 @@ public class TestDataHolder {
     private void setModelValue(PreparedStatement ps, Writable model) throws SQLException {
         int parameterIndex = 0;
         for (ColumnInfo info : columnInfos) {
+            Object vo = getValue(model, parameterIndex);
             parameterIndex++;
-            Object vo = null;
-            try {
-                Method method = modelClass.getMethod(info.getGetterName());
-                vo = method.invoke(model);
-            } catch (SecurityException e) {
-                throw new RuntimeException(e);
-            } catch (NoSuchMethodException e) {
-                throw new RuntimeException(e);
-            } catch (IllegalAccessException e) {
-                throw new RuntimeException(e);
-            } catch (InvocationTargetException e) {
-                throw new RuntimeException(e);
-            }
             switch (info.getDataType()) {
             case LONG:
                 LongOption longOption = (LongOption) vo;
@@ -342,12 +643,14 @@ public class TestDataHolder {
         try {
             ps = conn.prepareStatement(sql);
             rs = ps.executeQuery();
-            actual.clear();
+            clearActual();
             while (rs.next()) {
                 Writable model;
                 try {
                     model = getModelFromResultSet(rs);
-                    actual.add(model);
+                    addActual(model);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
                 } catch (InstantiationException e) {
                     throw new RuntimeException(e);
                 } catch (IllegalAccessException e) {
@@ -520,7 +823,7 @@ public class TestDataHolder {
                 throw new RuntimeException(e);
             }
             if (reader.next(key, model)) {
-                actual.add(model);
+                addActual(model);
             } else {
                 break;
             }
@@ -552,6 +855,7 @@ public class TestDataHolder {
      */
     public void setModelClass(Class<? extends Writable> modelClass) {
         this.modelClass = modelClass;
+        this.accessor = null;
     }
 
 
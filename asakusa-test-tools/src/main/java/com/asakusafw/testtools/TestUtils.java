@@ -22,9 +22,11 @@ import java.sql.SQLException;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import org.apache.hadoop.io.SequenceFile.Reader;
 import org.apache.hadoop.io.SequenceFile.Writer;
@@ -61,6 +63,16 @@ public class TestUtils {
      */
     long startTime;
 
+    /**
+     * テーブルごとの処理を同時に実行する最大数。
+     */
+    private int parallelism;
+
+    /**
+     * 実行結果を外部ソートしながら取り込む際にメモリ上に保持するレコード数。
+     */
+    private int sortBufferSize;
+
     /**
      * コンストラクタ、 Excelファイルを含むディレクトリを指定する。
      * @param dir 対象のディレクトリ
@@ -105,6 +117,10 @@ public class TestUtils {
      * @throws IOException Excelファイルの読み出しに失敗した場合
      */
     private void init(List<File> excelFileList) throws IOException {
+        Configuration conf = Configuration.getInstance();
+        boolean streaming = conf.isExcelStreaming();
+        parallelism = conf.getFixtureParallelism();
+        sortBufferSize = conf.getInspectSortBufferSize();
         for (File file : excelFileList) {
             String filename = file.getAbsolutePath();
             String lowcaseFilename = filename.toLowerCase();
@@ -113,45 +129,118 @@ public class TestUtils {
                         "Excelファイルではありません({0})",
                         file.getAbsolutePath()));
             }
-            ExcelUtils excelUtils = new ExcelUtils(filename);
+            ExcelUtils excelUtils = new ExcelUtils(filename, streaming);
             TestDataHolder dataHolder = excelUtils.getTestDataHolder();
+            dataHolder.setSortBufferSize(sortBufferSize);
             dataHolderMap.put(dataHolder.getTablename(), dataHolder);
         }
         startTime = System.currentTimeMillis();
     }
 
+    /**
+     * テーブルごとの処理を同時に実行する最大数を取得します。
+     * @return 同時に実行する最大数
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * テーブルごとの処理を同時に実行する最大数を設定します。
+     * <p>
+     * データベースへの書き込みと取り込み、および実行結果の検査は、
+     * テーブルごとに最大でこの数だけ並行して実行する。
+     * データベースを利用する場合、それぞれのテーブルの処理は個別の接続を利用する。
+     * 既定では設定ファイルの{@value Constants#K_FIXTURE_PARALLELISM}の値に従う。
+     * </p>
+     * @param parallelism 同時に実行する最大数、{@code 1}以下の場合は順に実行する
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * 実行結果を外部ソートしながら取り込む際にメモリ上に保持するレコード数を取得します。
+     * @return メモリ上に保持するレコード数
+     */
+    public int getSortBufferSize() {
+        return sortBufferSize;
+    }
+
+    /**
+     * 実行結果を外部ソートしながら取り込む際にメモリ上に保持するレコード数を設定します。
+     * <p>
+     * データベースやシーケンスファイルから取り込んだ実行結果は、
+     * この数を超えるごとにソートして一時ファイルに書き出し、検査の際にマージしながら読み出す。
+     * 既定では設定ファイルの{@value Constants#K_INSPECT_SORT_BUFFER_SIZE}の値に従う。
+     * 以降に取り込む実行結果に対して有効となる。
+     * </p>
+     * @param sortBufferSize メモリ上に保持するレコード数、{@code 0}以下の場合は全てメモリ上に保持する
+     */
+    public void setSortBufferSize(int sortBufferSize) {
+        this.sortBufferSize = sortBufferSize;
+        for (TestDataHolder dataHolder : dataHolderMap.values()) {
+            dataHolder.setSortBufferSize(sortBufferSize);
+        }
+    }
+
     /**
      * テストデータをデータベースに書き込みます。
      * @param createTable trueのときテーブルをdrop/createし、falseのときtruncateする
      */
-    public void storeToDatabase(boolean createTable) {
-        Connection conn = null;
-        try {
-            conn = DbUtils.getConnection();
-            for (TestDataHolder dataHolder : dataHolderMap.values()) {
-                dataHolder.storeToDatabase(conn, createTable);
-            }
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        } finally {
-            DbUtils.closeQuietly(conn);
+    public void storeToDatabase(final boolean createTable) {
+        final Configuration conf = Configuration.getInstance();
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (final TestDataHolder dataHolder : dataHolderMap.values()) {
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() throws SQLException {
+                    Connection conn = DbUtils.getConnection();
+                    try {
+                        dataHolder.storeToDatabase(
+                                conn,
+                                createTable,
+                                conf.getInsertBatchSize(),
+                                conf.getInsertLoadThreshold());
+                    } finally {
+                        DbUtils.closeQuietly(conn);
+                    }
+                    return null;
+                }
+            });
         }
+        invokeAll(tasks);
     }
 
     /**
      * 実行結果をデータベースから取り込みます。
      */
     public void loadFromDatabase() {
-        Connection conn = null;
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (final TestDataHolder dataHolder : dataHolderMap.values()) {
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() throws SQLException {
+                    Connection conn = DbUtils.getConnection();
+                    try {
+                        dataHolder.loadFromDatabase(conn);
+                    } finally {
+                        DbUtils.closeQuietly(conn);
+                    }
+                    return null;
+                }
+            });
+        }
+        invokeAll(tasks);
+    }
+
+    private <T> List<T> invokeAll(List<Callable<T>> tasks) {
         try {
-            conn = DbUtils.getConnection();
-            for (TestDataHolder dataHolder : dataHolderMap.values()) {
-                dataHolder.loadFromDatabase(conn);
-            }
-        } catch (SQLException e) {
+            return ParallelTasks.invokeAll(tasks, parallelism);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
             throw new RuntimeException(e);
-        } finally {
-            DbUtils.closeQuietly(conn);
         }
     }
 
@@ -252,20 +341,36 @@ public class TestUtils {
 
     /**
      * 実行結果が期待したものかを確認します。
+     * <p>
+     * {@link #setInspector(String, Inspector)}でInspectorを指定していないテーブルは、
+     * テーブルごとに並行して検査する。
+     * 指定したInspectorは複数のテーブルで共有されうるため、呼び出し元のスレッドで順に利用する。
+     * </p>
      * @return OKの場合true
      */
     public boolean inspect() {
+        final long finishTime = System.currentTimeMillis();
+        List<String> tablenames = new ArrayList<String>(dataHolderMap.keySet());
+        List<Callable<Inspector>> tasks = new ArrayList<Callable<Inspector>>();
+        for (final String tablename : tablenames) {
+            if (inspectorMap.get(tablename) == null) {
+                tasks.add(new Callable<Inspector>() {
+                    @Override
+                    public Inspector call() {
+                        return inspect(tablename, new DefaultInspector(), finishTime);
+                    }
+                });
+            }
+        }
+        Iterator<Inspector> defaults = invokeAll(tasks).iterator();
         boolean success = true;
-        for (String tablename : dataHolderMap.keySet()) {
-            TestDataHolder dataHolder = dataHolderMap.get(tablename);
+        for (String tablename : tablenames) {
             Inspector inspector = inspectorMap.get(tablename);
             if (inspector == null) {
-                inspector = new DefaultInspector();
+                inspector = defaults.next();
+            } else {
+                inspect(tablename, inspector, finishTime);
             }
-            inspector.setColumnInfos(dataHolder.getColumnInfos());
-            inspector.setStartTime(startTime);
-            inspector.setFinishTime(System.currentTimeMillis());
-            inspector.inspect(dataHolder);
             if (!inspector.isSuccess()) {
                 success = false;
                 causes.addAll(inspector.getCauses());
@@ -273,4 +378,15 @@ public class TestUtils {
         }
         return success;
     }
+
+    private Inspector inspect(String tablename, Inspector inspector, long finishTime) {
+        assert tablename != null;
+        assert inspector != null;
+        TestDataHolder dataHolder = dataHolderMap.get(tablename);
+        inspector.setColumnInfos(dataHolder.getColumnInfos());
+        inspector.setStartTime(startTime);
+        inspector.setFinishTime(finishTime);
+        inspector.inspect(dataHolder);
+        return inspector;
+    }
 }
@@ -0,0 +1,226 @@
+/**
+ * Copyright 2011 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.testtools.excel;
+
+import org.apache.poi.hssf.usermodel.HSSFCell;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DateUtil;
+
+/**
+ * Excelのセルの内容を、ブックの読み出し方法によらずに保持する。
+ * <p>
+ * オブジェクトモデルで読み出したセルと、イベント形式で読み出したセルを同様に扱うために利用する。
+ * セルの種類は{@link Cell#CELL_TYPE_NUMERIC}などの定数で表す。
+ * </p>
+ */
+final class CellData {
+
+    private final String sheetName;
+
+    private final int rowIndex;
+
+    private final int columnIndex;
+
+    private final int cellType;
+
+    private final double numericValue;
+
+    private final String stringValue;
+
+    private final boolean booleanValue;
+
+    private final boolean dateFormatted;
+
+    private CellData(
+            String sheetName,
+            int rowIndex,
+            int columnIndex,
+            int cellType,
+            double numericValue,
+            String stringValue,
+            boolean booleanValue,
+            boolean dateFormatted) {
+        assert sheetName != null;
+        this.sheetName = sheetName;
+        this.rowIndex = rowIndex;
+        this.columnIndex = columnIndex;
+        this.cellType = cellType;
+        this.numericValue = numericValue;
+        this.stringValue = stringValue;
+        this.booleanValue = booleanValue;
+        this.dateFormatted = dateFormatted;
+    }
+
+    /**
+     * オブジェクトモデルのセルから内容を取り出す。
+     * @param cell 対象のセル
+     * @return 対応するセルの内容
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     */
+    static CellData of(HSSFCell cell) {
+        if (cell == null) {
+            throw new IllegalArgumentException("cell must not be null");
+        }
+        String sheetName = cell.getSheet().getSheetName();
+        int row = cell.getRowIndex();
+        int col = cell.getColumnIndex();
+        switch (cell.getCellType()) {
+        case Cell.CELL_TYPE_NUMERIC:
+            return numeric(sheetName, row, col,
+                    cell.getNumericCellValue(),
+                    DateUtil.isCellDateFormatted(cell));
+        case Cell.CELL_TYPE_STRING:
+            return string(sheetName, row, col, cell.getStringCellValue());
+        case Cell.CELL_TYPE_BOOLEAN:
+            return bool(sheetName, row, col, cell.getBooleanCellValue());
+        default:
+            return of(sheetName, row, col, cell.getCellType());
+        }
+    }
+
+    /**
+     * 数値のセルを表す内容を返す。
+     * @param sheetName シート名
+     * @param row 行番号 (0起算)
+     * @param col 列番号 (0起算)
+     * @param value 数値
+     * @param dateFormatted 日付の書式が設定されている場合は{@code true}
+     * @return 対応するセルの内容
+     */
+    static CellData numeric(String sheetName, int row, int col, double value, boolean dateFormatted) {
+        return new CellData(sheetName, row, col, Cell.CELL_TYPE_NUMERIC, value, null, false, dateFormatted);
+    }
+
+    /**
+     * 文字列のセルを表す内容を返す。
+     * @param sheetName シート名
+     * @param row 行番号 (0起算)
+     * @param col 列番号 (0起算)
+     * @param value 文字列
+     * @return 対応するセルの内容
+     */
+    static CellData string(String sheetName, int row, int col, String value) {
+        return new CellData(sheetName, row, col, Cell.CELL_TYPE_STRING, 0, value, false, false);
+    }
+
+    /**
+     * 真偽値のセルを表す内容を返す。
+     * @param sheetName シート名
+     * @param row 行番号 (0起算)
+     * @param col 列番号 (0起算)
+     * @param value 真偽値
+     * @return 対応するセルの内容
+     */
+    static CellData bool(String sheetName, int row, int col, boolean value) {
+        return new CellData(sheetName, row, col, Cell.CELL_TYPE_BOOLEAN, 0, null, value, false);
+    }
+
+    /**
+     * 値を持たないセル (ブランク、エラー、数式) を表す内容を返す。
+     * @param sheetName シート名
+     * @param row 行番号 (0起算)
+     * @param col 列番号 (0起算)
+     * @param cellType セルの種類
+     * @return 対応するセルの内容
+     */
+    static CellData of(String sheetName, int row, int col, int cellType) {
+        return new CellData(sheetName, row, col, cellType, 0, null, false, false);
+    }
+
+    /**
+     * このセルを含むシートの名前を返す。
+     * @return シート名
+     */
+    String getSheetName() {
+        return sheetName;
+    }
+
+    /**
+     * このセルの行番号を返す。
+     * @return 行番号 (0起算)
+     */
+    int getRowIndex() {
+        return rowIndex;
+    }
+
+    /**
+     * このセルの列番号を返す。
+     * @return 列番号 (0起算)
+     */
+    int getColumnIndex() {
+        return columnIndex;
+    }
+
+    /**
+     * このセルの種類を返す。
+     * @return セルの種類
+     * @see Cell#getCellType()
+     */
+    int getCellType() {
+        return cellType;
+    }
+
+    /**
+     * このセルの数値を返す。
+     * @return 数値
+     * @throws IllegalStateException このセルが数値のセルでない場合
+     */
+    double getNumericCellValue() {
+        if (cellType != Cell.CELL_TYPE_NUMERIC) {
+            throw new IllegalStateException("Cannot get a numeric value from a non-numeric cell");
+        }
+        return numericValue;
+    }
+
+    /**
+     * このセルの文字列を返す。
+     * <p>
+     * ブランクのセルに対しては空の文字列を返す。
+     * </p>
+     * @return 文字列
+     * @throws IllegalStateException このセルが文字列のセルでない場合
+     */
+    String getStringCellValue() {
+        if (cellType == Cell.CELL_TYPE_BLANK) {
+            return "";
+        }
+        if (cellType != Cell.CELL_TYPE_STRING) {
+            throw new IllegalStateException("Cannot get a text value from a non-text cell");
+        }
+        return stringValue;
+    }
+
+    /**
+     * このセルの真偽値を返す。
+     * @return 真偽値
+     * @throws IllegalStateException このセルが真偽値のセルでない場合
+     */
+    boolean getBooleanCellValue() {
+        if (cellType != Cell.CELL_TYPE_BOOLEAN) {
+            throw new IllegalStateException("Cannot get a boolean value from a non-boolean cell");
+        }
+        return booleanValue;
+    }
+
+    /**
+     * このセルが日付の書式を持つ数値のセルである場合のみ{@code true}を返す。
+     * @return 日付の書式を持つ数値のセルである場合のみ{@code true}
+     * @see DateUtil#isCellDateFormatted(Cell)
+     */
+    boolean isDateFormatted() {
+        return dateFormatted;
+    }
+}
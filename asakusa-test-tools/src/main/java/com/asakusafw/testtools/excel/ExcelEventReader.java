@@ -0,0 +1,305 @@
+/**
+ * Copyright 2011 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.testtools.excel;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.apache.poi.hssf.eventusermodel.FormatTrackingHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BlankRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.BoundSheetRecord;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.MulBlankRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.RowRecord;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DateUtil;
+
+/**
+ * Excelブックをイベント形式で読み出し、シートの行を逐次通知する。
+ * <p>
+ * ブック全体のオブジェクトモデルを構築せず、レコードを読み出すたびに行を組み立てて
+ * {@link RowHandler}に渡す。
+ * 行は行番号の昇順に通知され、セルが存在しなくても行が定義されていれば空の行として通知する。
+ * </p>
+ */
+final class ExcelEventReader implements HSSFListener {
+
+    /**
+     * 読み出した行を受け取る。
+     */
+    interface RowHandler {
+
+        /**
+         * 読み出した行を処理する。
+         * @param rownum 行番号 (0起算)
+         * @param cells 列番号をインデックスとするセルの一覧、セルが存在しない列は{@code null}
+         */
+        void handle(int rownum, List<CellData> cells);
+    }
+
+    private final Map<String, RowHandler> handlers;
+
+    private final FormatTrackingHSSFListener formats;
+
+    private final List<BoundSheetRecord> boundSheets = new ArrayList<BoundSheetRecord>();
+
+    private BoundSheetRecord[] orderedSheets;
+
+    private SSTRecord sst;
+
+    private int depth;
+
+    private int substreams;
+
+    private String sheetName;
+
+    private RowHandler handler;
+
+    private final SortedSet<Integer> declaredRows = new TreeSet<Integer>();
+
+    private int currentRow = -1;
+
+    private List<CellData> currentCells = new ArrayList<CellData>();
+
+    private ExcelEventReader(Map<String, RowHandler> handlers) {
+        assert handlers != null;
+        this.handlers = handlers;
+        this.formats = new FormatTrackingHSSFListener(this);
+    }
+
+    /**
+     * 指定のExcelファイルを読み出し、シートごとの行をそれぞれのハンドラに通知する。
+     * <p>
+     * シート名は大文字小文字を区別せずに比較する。
+     * ハンドラが登録されていないシートの内容は読み飛ばす。
+     * </p>
+     * @param filename 対象のExcelファイル名
+     * @param handlers シート名と、そのシートの行を受け取るハンドラの対応表
+     * @return ブックに含まれるシート名の一覧
+     * @throws IOException Excelファイルの読み出しに失敗した場合
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     */
+    static List<String> read(String filename, Map<String, RowHandler> handlers) throws IOException {
+        if (filename == null) {
+            throw new IllegalArgumentException("filename must not be null");
+        }
+        if (handlers == null) {
+            throw new IllegalArgumentException("handlers must not be null");
+        }
+        ExcelEventReader reader = new ExcelEventReader(handlers);
+        InputStream in = new FileInputStream(filename);
+        try {
+            POIFSFileSystem fs = new POIFSFileSystem(in);
+            HSSFRequest request = new HSSFRequest();
+            request.addListenerForAllRecords(reader.formats);
+            new HSSFEventFactory().processWorkbookEvents(request, fs);
+        } finally {
+            in.close();
+        }
+        List<String> results = new ArrayList<String>();
+        for (BoundSheetRecord record : reader.boundSheets) {
+            results.add(record.getSheetname());
+        }
+        return results;
+    }
+
+    @Override
+    public void processRecord(Record record) {
+        switch (record.getSid()) {
+        case BoundSheetRecord.sid:
+            boundSheets.add((BoundSheetRecord) record);
+            break;
+        case SSTRecord.sid:
+            sst = (SSTRecord) record;
+            break;
+        case BOFRecord.sid:
+            depth++;
+            if (depth == 1) {
+                // 最初のサブストリームはブック全体の情報、以降はシートごとの情報
+                substreams++;
+                if (substreams >= 2) {
+                    startSheet(substreams - 2);
+                }
+            }
+            break;
+        case EOFRecord.sid:
+            if (depth == 1 && handler != null) {
+                endSheet();
+            }
+            depth--;
+            break;
+        default:
+            // グラフなど、シートに埋め込まれたサブストリームの内容は読み飛ばす
+            if (depth == 1 && handler != null) {
+                processSheetRecord(record);
+            }
+            break;
+        }
+    }
+
+    private void startSheet(int index) {
+        if (orderedSheets == null) {
+            orderedSheets = boundSheets.toArray(new BoundSheetRecord[boundSheets.size()]);
+            Arrays.sort(orderedSheets, new Comparator<BoundSheetRecord>() {
+                @Override
+                public int compare(BoundSheetRecord o1, BoundSheetRecord o2) {
+                    int p1 = o1.getPositionOfBof();
+                    int p2 = o2.getPositionOfBof();
+                    return p1 < p2 ? -1 : (p1 == p2 ? 0 : 1);
+                }
+            });
+        }
+        if (index >= orderedSheets.length) {
+            return;
+        }
+        sheetName = orderedSheets[index].getSheetname();
+        handler = findHandler(sheetName);
+    }
+
+    private RowHandler findHandler(String name) {
+        assert name != null;
+        for (Map.Entry<String, RowHandler> entry : handlers.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(name)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private void processSheetRecord(Record record) {
+        assert sheetName != null;
+        switch (record.getSid()) {
+        case RowRecord.sid:
+            declaredRows.add(((RowRecord) record).getRowNumber());
+            break;
+        case NumberRecord.sid: {
+            NumberRecord number = (NumberRecord) record;
+            double value = number.getValue();
+            boolean date = DateUtil.isValidExcelDate(value)
+                && DateUtil.isADateFormat(formats.getFormatIndex(number), formats.getFormatString(number));
+            addCell(CellData.numeric(sheetName, number.getRow(), number.getColumn(), value, date));
+            break;
+        }
+        case LabelSSTRecord.sid: {
+            LabelSSTRecord label = (LabelSSTRecord) record;
+            String value = sst.getString(label.getSSTIndex()).getString();
+            addCell(CellData.string(sheetName, label.getRow(), label.getColumn(), value));
+            break;
+        }
+        case LabelRecord.sid: {
+            LabelRecord label = (LabelRecord) record;
+            addCell(CellData.string(sheetName, label.getRow(), label.getColumn(), label.getValue()));
+            break;
+        }
+        case BoolErrRecord.sid: {
+            BoolErrRecord boolErr = (BoolErrRecord) record;
+            if (boolErr.isBoolean()) {
+                addCell(CellData.bool(
+                        sheetName, boolErr.getRow(), boolErr.getColumn(), boolErr.getBooleanValue()));
+            } else {
+                addCell(CellData.of(
+                        sheetName, boolErr.getRow(), boolErr.getColumn(), Cell.CELL_TYPE_ERROR));
+            }
+            break;
+        }
+        case FormulaRecord.sid: {
+            FormulaRecord formula = (FormulaRecord) record;
+            addCell(CellData.of(
+                    sheetName, formula.getRow(), formula.getColumn(), Cell.CELL_TYPE_FORMULA));
+            break;
+        }
+        case BlankRecord.sid: {
+            BlankRecord blank = (BlankRecord) record;
+            addCell(CellData.of(sheetName, blank.getRow(), blank.getColumn(), Cell.CELL_TYPE_BLANK));
+            break;
+        }
+        case MulBlankRecord.sid: {
+            MulBlankRecord blanks = (MulBlankRecord) record;
+            for (int col = blanks.getFirstColumn(); col <= blanks.getLastColumn(); col++) {
+                addCell(CellData.of(sheetName, blanks.getRow(), col, Cell.CELL_TYPE_BLANK));
+            }
+            break;
+        }
+        default:
+            break;
+        }
+    }
+
+    private void addCell(CellData cell) {
+        assert cell != null;
+        if (cell.getRowIndex() != currentRow) {
+            flushRow();
+            currentRow = cell.getRowIndex();
+        }
+        currentCells.add(cell);
+    }
+
+    private void flushRow() {
+        if (currentRow < 0) {
+            return;
+        }
+        flushDeclaredRows(currentRow);
+        declaredRows.remove(currentRow);
+        int width = 0;
+        for (CellData cell : currentCells) {
+            width = Math.max(width, cell.getColumnIndex() + 1);
+        }
+        List<CellData> cells = new ArrayList<CellData>(Collections.nCopies(width, (CellData) null));
+        for (CellData cell : currentCells) {
+            cells.set(cell.getColumnIndex(), cell);
+        }
+        handler.handle(currentRow, cells);
+        currentRow = -1;
+        currentCells = new ArrayList<CellData>();
+    }
+
+    private void flushDeclaredRows(int limit) {
+        while (declaredRows.isEmpty() == false && declaredRows.first() < limit) {
+            int rownum = declaredRows.first();
+            declaredRows.remove(rownum);
+            handler.handle(rownum, Collections.<CellData>emptyList());
+        }
+    }
+
+    private void endSheet() {
+        flushRow();
+        flushDeclaredRows(Integer.MAX_VALUE);
+        declaredRows.clear();
+        sheetName = null;
+        handler = null;
+    }
+}
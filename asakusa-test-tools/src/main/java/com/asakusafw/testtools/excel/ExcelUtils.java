@@ -26,7 +26,10 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.hadoop.io.Writable;
 import org.apache.poi.hssf.usermodel.HSSFCell;
@@ -35,6 +38,7 @@ import org.apache.poi.hssf.usermodel.HSSFSheet;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Row;
 
 import com.asakusafw.modelgen.emitter.JavaName;
 import com.asakusafw.modelgen.source.MySqlDataType;
@@ -80,10 +84,17 @@ public class ExcelUtils {
     private String filename;
     private String tablename;
     private RowMatchingCondition rowMatchingCondition;
-    private HSSFWorkbook workbook;
+    private final boolean streaming;
     private HSSFSheet inputDataSheet;
     private HSSFSheet outputDataSheet;
-    private HSSFSheet testConditionSheet;
+    private String inputDataSheetName;
+    private String outputDataSheetName;
+    private String testConditionSheetName;
+
+    /**
+     * 行番号をキーに、テスト条件のシートの各行のセルを保持するマップ。
+     */
+    private Map<Integer, List<CellData>> testConditionRows;
 
     /**
      * 日付型のフォーマッタ。
@@ -105,27 +116,38 @@ public class ExcelUtils {
 
     /**
      * 指定のExcelファイルを利用してインスタンスを生成する。
+     * <p>
+     * Excelファイルはブック全体をメモリ上に読み込んでから処理する。
+     * </p>
      * @param filename Excelファイルのファイル名
      * @throws IOException Excelファイルの読み出しに失敗した場合
      */
     public ExcelUtils(String filename) throws IOException {
+        this(filename, false);
+    }
+
+    /**
+     * 指定のExcelファイルを利用してインスタンスを生成する。
+     * <p>
+     * {@code streaming}に{@code true}を指定した場合、Excelファイルをイベント形式で逐次読み出す。
+     * このときブック全体のオブジェクトモデルを構築せず、入力データと出力データのシートは
+     * {@link #getTestDataHolder()}の呼び出し時に読み出しながらモデルオブジェクトに変換する。
+     * 大量の行を含むExcelファイルを扱う場合に、使用するメモリと読み出しにかかる時間を抑えられる。
+     * </p>
+     * @param filename Excelファイルのファイル名
+     * @param streaming イベント形式で逐次読み出す場合は{@code true}
+     * @throws IOException Excelファイルの読み出しに失敗した場合
+     */
+    public ExcelUtils(String filename, boolean streaming) throws IOException {
         this.filename = filename;
-        InputStream is = new FileInputStream(filename);
-        workbook = new HSSFWorkbook(is);
-        inputDataSheet = workbook.getSheet(Constants.INPUT_DATA_SHEET_NAME);
-        if (inputDataSheet == null) {
-            throw new IOException("Excelファイル: " + filename + "に入力データのシートが存在しません");
-        }
-        outputDataSheet = workbook.getSheet(Constants.OUTPUT_DATA_SHEET_NAME);
-        if (outputDataSheet == null) {
-            throw new IOException("Excelファイル: " + filename + "に出力データのシートが存在しません");
-        }
-        testConditionSheet = workbook.getSheet(Constants.TEST_CONDITION_SHEET_NAME);
-        if (testConditionSheet == null) {
-            throw new IOException("Excelファイル: " + filename + "にテスト条件データのシートが存在しません");
+        this.streaming = streaming;
+        if (streaming) {
+            openStreaming();
+        } else {
+            open();
         }
 
-        HSSFCell tableNameCell = getCell(testConditionSheet,
+        CellData tableNameCell = getCell(
                 ConditionSheetItem.TABLE_NAME.getRow(),
                 ConditionSheetItem.TABLE_NAME.getCol() + 1);
         tablename = tableNameCell.getStringCellValue();
@@ -133,7 +155,7 @@ public class ExcelUtils {
             throw new IOException("Excelファイル: " + filename + "にテーブル名が定義されていません");
         }
 
-        HSSFCell rowMatchingConditionCell = getCell(testConditionSheet,
+        CellData rowMatchingConditionCell = getCell(
                 ConditionSheetItem.ROW_MATCHING_CONDITION.getRow(),
                 ConditionSheetItem.ROW_MATCHING_CONDITION.getCol() + 1);
         String rowMatchingConditionStr = rowMatchingConditionCell.getStringCellValue();
@@ -148,61 +170,154 @@ public class ExcelUtils {
     }
 
     /**
-     * シート、行、カラム位置を指定してセルを取得する。
-     * @param sheet 対象のシート
+     * ブック全体をメモリ上に読み込み、各シートを取り出す。
+     * @throws IOException Excelファイルの読み出しに失敗した場合
+     */
+    private void open() throws IOException {
+        HSSFWorkbook workbook;
+        InputStream is = new FileInputStream(filename);
+        try {
+            workbook = new HSSFWorkbook(is);
+        } finally {
+            is.close();
+        }
+        inputDataSheet = workbook.getSheet(Constants.INPUT_DATA_SHEET_NAME);
+        if (inputDataSheet == null) {
+            throw new IOException("Excelファイル: " + filename + "に入力データのシートが存在しません");
+        }
+        outputDataSheet = workbook.getSheet(Constants.OUTPUT_DATA_SHEET_NAME);
+        if (outputDataSheet == null) {
+            throw new IOException("Excelファイル: " + filename + "に出力データのシートが存在しません");
+        }
+        HSSFSheet testConditionSheet = workbook.getSheet(Constants.TEST_CONDITION_SHEET_NAME);
+        if (testConditionSheet == null) {
+            throw new IOException("Excelファイル: " + filename + "にテスト条件データのシートが存在しません");
+        }
+        inputDataSheetName = inputDataSheet.getSheetName();
+        outputDataSheetName = outputDataSheet.getSheetName();
+        testConditionSheetName = testConditionSheet.getSheetName();
+        testConditionRows = new HashMap<Integer, List<CellData>>();
+        for (Iterator<Row> iter = testConditionSheet.rowIterator(); iter.hasNext();) {
+            HSSFRow row = (HSSFRow) iter.next();
+            testConditionRows.put(row.getRowNum(), toCells(row));
+        }
+    }
+
+    /**
+     * ブックをイベント形式で読み出し、シート名とテスト条件のシートの内容のみを取り出す。
+     * @throws IOException Excelファイルの読み出しに失敗した場合
+     */
+    private void openStreaming() throws IOException {
+        final Map<Integer, List<CellData>> rows = new HashMap<Integer, List<CellData>>();
+        Map<String, ExcelEventReader.RowHandler> handlers = new HashMap<String, ExcelEventReader.RowHandler>();
+        handlers.put(Constants.TEST_CONDITION_SHEET_NAME, new ExcelEventReader.RowHandler() {
+            @Override
+            public void handle(int rownum, List<CellData> cells) {
+                rows.put(rownum, cells);
+            }
+        });
+        List<String> sheetNames = ExcelEventReader.read(filename, handlers);
+        inputDataSheetName = findSheetName(sheetNames, Constants.INPUT_DATA_SHEET_NAME);
+        if (inputDataSheetName == null) {
+            throw new IOException("Excelファイル: " + filename + "に入力データのシートが存在しません");
+        }
+        outputDataSheetName = findSheetName(sheetNames, Constants.OUTPUT_DATA_SHEET_NAME);
+        if (outputDataSheetName == null) {
+            throw new IOException("Excelファイル: " + filename + "に出力データのシートが存在しません");
+        }
+        testConditionSheetName = findSheetName(sheetNames, Constants.TEST_CONDITION_SHEET_NAME);
+        if (testConditionSheetName == null) {
+            throw new IOException("Excelファイル: " + filename + "にテスト条件データのシートが存在しません");
+        }
+        testConditionRows = rows;
+    }
+
+    /**
+     * {@link HSSFWorkbook#getSheet(String)}と同様に、大文字小文字を区別せずにシート名を検索する。
+     * @param sheetNames ブックに含まれるシート名の一覧
+     * @param name 検索するシート名
+     * @return 対応するシート名、存在しない場合は{@code null}
+     */
+    private String findSheetName(List<String> sheetNames, String name) {
+        for (String sheetName : sheetNames) {
+            if (sheetName.equalsIgnoreCase(name)) {
+                return sheetName;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 行に含まれるセルの内容を、列番号をインデックスとするリストに変換する。
      * @param row 対象の行
+     * @return セルの内容の一覧、セルが存在しない列は{@code null}
+     */
+    private List<CellData> toCells(HSSFRow row) {
+        List<CellData> cells = new ArrayList<CellData>();
+        for (int col = 0; col < row.getLastCellNum(); col++) {
+            HSSFCell cell = row.getCell(col);
+            cells.add(cell == null ? null : CellData.of(cell));
+        }
+        return cells;
+    }
+
+    /**
+     * シート、行、カラム位置を指定してセルを取得する。
+     * @param sheetName 対象のシート名
+     * @param rownum 対象の行番号
+     * @param row 対象の行に含まれるセルの一覧
      * @param col 対象のカラム番号
      * @return 対応するセルの内容
      */
-    private HSSFCell getCell(HSSFSheet sheet, HSSFRow row, int col) {
-        HSSFCell cell = row.getCell(col);
+    private CellData getCell(String sheetName, int rownum, List<CellData> row, int col) {
+        CellData cell = col < row.size() ? row.get(col) : null;
         if (cell == null) {
             String fmt = "Excelファイルが異常です(空セル), file = %s, sheet = %s, row = %d, col = %d";
-            String msg = String.format(fmt, filename, sheet.getSheetName(), row.getRowNum() + 1, col + 1);
+            String msg = String.format(fmt, filename, sheetName, rownum + 1, col + 1);
             throw new InvalidExcelBookException(msg);
         }
         return cell;
     }
 
     /**
-     * シート、行位置、カラム位置を指定してセルを取得する。
-     * @param sheet 対象のシート
+     * テスト条件のシートの行位置、カラム位置を指定してセルを取得する。
      * @param rownum 対象の行番号
      * @param col 対象のカラム番号
      * @return 対応するセルの内容
      */
-    private HSSFCell getCell(HSSFSheet sheet, int rownum, int col) {
-        HSSFRow row = sheet.getRow(rownum);
+    private CellData getCell(int rownum, int col) {
+        List<CellData> row = testConditionRows.get(rownum);
         if (row == null) {
             String fmt = "Excelファイルが異常です(空行), file = %s, sheet = %s, row = %d";
-            String msg = String.format(fmt, filename, sheet.getSheetName(), rownum);
+            String msg = String.format(fmt, filename, testConditionSheetName, rownum);
             throw new InvalidExcelBookException(msg);
         }
-        HSSFCell cell = getCell(sheet, row, col);
+        CellData cell = getCell(testConditionSheetName, rownum, row, col);
         return cell;
     }
 
     /**
      * テスト条件のシートの指定の行から、指定の項目のセルを取り出す。
      * @param item テスト条件の項目
+     * @param rownum 対象の行番号
      * @param row 対象の行
      * @return 対応するセルの内容
      */
-    private HSSFCell getCell(ConditionSheetItem item, HSSFRow row) {
+    private CellData getCell(ConditionSheetItem item, int rownum, List<CellData> row) {
         int col = item.getCol();
-        HSSFCell cell = getCell(testConditionSheet, row, col);
+        CellData cell = getCell(testConditionSheetName, rownum, row, col);
         return cell;
     }
 
     /**
      * テスト条件のシートの指定の行から、指定の項目のセルの値(文字列)を取り出す。
-     * @param sheet 対象のシート
      * @param item テスト条件の項目
+     * @param rownum 対象の行番号
      * @param row 対象の行
      * @return 対応するセルの内容
      */
-    private String getStringCellValue(HSSFSheet sheet, ConditionSheetItem item, HSSFRow row) {
-        HSSFCell cell = getCell(item, row);
+    private String getStringCellValue(ConditionSheetItem item, int rownum, List<CellData> row) {
+        CellData cell = getCell(item, rownum, row);
         String ret;
         if (cell.getCellType() == Cell.CELL_TYPE_NUMERIC) {
             double dval = cell.getNumericCellValue();
@@ -212,9 +327,8 @@ public class ExcelUtils {
             ret = "";
         } else if (cell.getCellType() != Cell.CELL_TYPE_STRING) {
             String fmt = "Excelファイルが異常です。文字列のセルに文字列以外の値が設定されています。 file = %s, sheet = %s, row = %d, col = %d";
-            int rownum = row.getRowNum() + 1;
             int col = item.getCol() + 1;
-            String msg = String.format(fmt, filename, sheet.getSheetName(), rownum, col);
+            String msg = String.format(fmt, filename, testConditionSheetName, rownum + 1, col);
             throw new InvalidExcelBookException(msg);
         } else {
             ret = cell.getStringCellValue();
@@ -222,8 +336,8 @@ public class ExcelUtils {
         return ret;
     }
 
-    private Double getDubleCellValue(HSSFSheet sheet, ConditionSheetItem item, HSSFRow row) {
-        HSSFCell cell = getCell(item, row);
+    private Double getDubleCellValue(ConditionSheetItem item, int rownum, List<CellData> row) {
+        CellData cell = getCell(item, rownum, row);
         Double ret;
         if (cell.getCellType() == Cell.CELL_TYPE_STRING) {
             String str = cell.getStringCellValue();
@@ -234,9 +348,8 @@ public class ExcelUtils {
                     ret = Double.parseDouble(str);
                 } catch (NumberFormatException e) {
                     String fmt = "Excelファイルが異常です。数値のセルに数値以外の値が設定されています。 file = %s, sheet = %s, row = %d, col = %d";
-                    int rownum = row.getRowNum() + 1;
                     int col = item.getCol() + 1;
-                    String msg = String.format(fmt, filename, sheet.getSheetName(), rownum, col);
+                    String msg = String.format(fmt, filename, testConditionSheetName, rownum + 1, col);
                     throw new InvalidExcelBookException(msg);
                 }
             }
@@ -244,9 +357,8 @@ public class ExcelUtils {
             ret = null;
         } else if (cell.getCellType() != Cell.CELL_TYPE_NUMERIC) {
             String fmt = "Excelファイルが異常です。数値のセルに数値以外の値が設定されています。 file = %s, sheet = %s, row = %d, col = %d";
-            int rownum = row.getRowNum() + 1;
             int col = item.getCol() + 1;
-            String msg = String.format(fmt, filename, sheet.getSheetName(), rownum, col);
+            String msg = String.format(fmt, filename, testConditionSheetName, rownum + 1, col);
             throw new InvalidExcelBookException(msg);
         } else {
             ret =  cell.getNumericCellValue();
@@ -257,12 +369,12 @@ public class ExcelUtils {
     /**
      * テスト条件が不正だったときのメッセージを組み立てる。
      * @param item 不正だったテスト条件の項目
-     * @param row 対象の行
+     * @param rownum 対象の行番号
      * @return 不正の内容を表すメッセージ
      */
-    private String creaetExceptionMessage(ConditionSheetItem item, HSSFRow row) {
+    private String creaetExceptionMessage(ConditionSheetItem item, int rownum) {
         String fmt = "Excelファイルが異常です。テスト条件のシートの定義が不正です。 file = %s, 行 = %d, 項目 = %s";
-        String msg = String.format(fmt, filename, row.getRowNum() + 1, item.getName());
+        String msg = String.format(fmt, filename, rownum + 1, item.getName());
         return msg;
     }
 
@@ -277,32 +389,32 @@ public class ExcelUtils {
         int rownum = ConditionSheetItem.NO.getRow();
         for (;;) {
             rownum++;
-            HSSFRow row = testConditionSheet.getRow(rownum);
+            List<CellData> row = testConditionRows.get(rownum);
             if (row == null) {
                 break;
             }
 
             // カラム名
-            String columnName = getStringCellValue(testConditionSheet, ConditionSheetItem.COLUMN_NAME, row);
+            String columnName = getStringCellValue(ConditionSheetItem.COLUMN_NAME, rownum, row);
             if (columnName.length() == 0) {
-                String msg = creaetExceptionMessage(ConditionSheetItem.COLUMN_NAME, row);
+                String msg = creaetExceptionMessage(ConditionSheetItem.COLUMN_NAME, rownum);
                 throw new InvalidExcelBookException(msg);
             }
 
             // カラムコメント
-            String columnComment = getStringCellValue(testConditionSheet, ConditionSheetItem.COLUMN_COMMENT, row);
+            String columnComment = getStringCellValue(ConditionSheetItem.COLUMN_COMMENT, rownum, row);
 
             // データ型
-            String dataTypeStr = getStringCellValue(testConditionSheet, ConditionSheetItem.DATA_TYPE, row);
+            String dataTypeStr = getStringCellValue(ConditionSheetItem.DATA_TYPE, rownum, row);
             MySqlDataType dataType = MySqlDataType.getDataTypeByString(dataTypeStr);
             if (dataType == null) {
-                String msg = creaetExceptionMessage(ConditionSheetItem.DATA_TYPE, row);
+                String msg = creaetExceptionMessage(ConditionSheetItem.DATA_TYPE, rownum);
                 throw new InvalidExcelBookException(msg);
             }
 
             // 文字列長、桁数、精度
-            Double dWidth = getDubleCellValue(testConditionSheet, ConditionSheetItem.WIDTH, row);
-            Double dScale = getDubleCellValue(testConditionSheet, ConditionSheetItem.SCALE, row);
+            Double dWidth = getDubleCellValue(ConditionSheetItem.WIDTH, rownum, row);
+            Double dScale = getDubleCellValue(ConditionSheetItem.SCALE, rownum, row);
 
             long characterMaximumLength = 0;
             int numericPrecision = 0;
@@ -311,19 +423,19 @@ public class ExcelUtils {
             case CHAR:
             case VARCHAR:
                 if (dWidth == null) {
-                    String msg = creaetExceptionMessage(ConditionSheetItem.WIDTH, row);
+                    String msg = creaetExceptionMessage(ConditionSheetItem.WIDTH, rownum);
                     throw new InvalidExcelBookException(msg);
                 }
                 characterMaximumLength = dWidth.longValue();
                 break;
             case DECIMAL:
                 if (dWidth == null) {
-                    String msg = creaetExceptionMessage(ConditionSheetItem.WIDTH, row);
+                    String msg = creaetExceptionMessage(ConditionSheetItem.WIDTH, rownum);
                     throw new InvalidExcelBookException(msg);
                 }
                 numericPrecision = dWidth.intValue();
                 if (dScale == null) {
-                    String msg = creaetExceptionMessage(ConditionSheetItem.SCALE, row);
+                    String msg = creaetExceptionMessage(ConditionSheetItem.SCALE, rownum);
                     throw new InvalidExcelBookException(msg);
                 }
                 numericScale = dScale.intValue();
@@ -334,35 +446,33 @@ public class ExcelUtils {
             }
 
             // キー項目フラグ
-            String keyStr = getStringCellValue(testConditionSheet, ConditionSheetItem.KEY_FLAG, row);
+            String keyStr = getStringCellValue(ConditionSheetItem.KEY_FLAG, rownum, row);
             boolean key = true;
             if (keyStr.trim().length() == 0) {
                 key = false;
             }
             // NULL可
-            String nullableStr = getStringCellValue(testConditionSheet, ConditionSheetItem.NULLABLE, row);
+            String nullableStr = getStringCellValue(ConditionSheetItem.NULLABLE, rownum, row);
             boolean nullable = true;
             if (nullableStr.trim().length() == 0) {
                 nullable = false;
             }
 
             // テスト条件
-            String columnMatchingConditionStr = getStringCellValue(
-                    testConditionSheet, ConditionSheetItem.MATCHING_CONDITION, row);
+            String columnMatchingConditionStr = getStringCellValue(ConditionSheetItem.MATCHING_CONDITION, rownum, row);
             ColumnMatchingCondition columnMatchingCondition
                 = ColumnMatchingCondition.getConditonByJapanseName(columnMatchingConditionStr);
             if (columnMatchingCondition == null) {
-                String msg = creaetExceptionMessage(ConditionSheetItem.MATCHING_CONDITION, row);
+                String msg = creaetExceptionMessage(ConditionSheetItem.MATCHING_CONDITION, rownum);
                 throw new InvalidExcelBookException(msg);
             }
 
             // NULL値の扱い
-            String nullValueConditionStr = getStringCellValue(
-                    testConditionSheet, ConditionSheetItem.NULL_VALUE_CONDITION, row);
+            String nullValueConditionStr = getStringCellValue(ConditionSheetItem.NULL_VALUE_CONDITION, rownum, row);
             NullValueCondition nullValueCondition
                 = NullValueCondition.getConditonByJapanseName(nullValueConditionStr);
             if (nullValueCondition == null) {
-                String msg = creaetExceptionMessage(ConditionSheetItem.NULL_VALUE_CONDITION, row);
+                String msg = creaetExceptionMessage(ConditionSheetItem.NULL_VALUE_CONDITION, rownum);
                 throw new InvalidExcelBookException(msg);
             }
 
@@ -441,13 +551,12 @@ public class ExcelUtils {
     /**
      * 指定のシートの情報からモデルオブジェクトのリストを作成する。
      * @param sheet 入力データのシートまたは出力データのシート
+     * @param builder モデルオブジェクトを作成するオブジェクト
      * @return モデルオブジェクトのリスト
      */
-    private List<Writable> createDatalList(HSSFSheet sheet) {
+    private List<Writable> createDatalList(HSSFSheet sheet, ModelBuilder builder) {
         List<Writable> list = new ArrayList<Writable>();
 
-        Class<?> modelClass = getModelClass();
-
         int rownum = 0; // 0行目はコメント行、最初にインクリメントされて
                         // 1行目から処理する
         for (;;) {
@@ -456,6 +565,30 @@ public class ExcelUtils {
             if (row == null) {
                 break;
             }
+            list.add(builder.build(sheet.getSheetName(), rownum, toCells(row)));
+        }
+        return list;
+    }
+
+    /**
+     * 行に含まれるセルの内容からモデルオブジェクトを作成する。
+     * <p>
+     * モデルクラスのプロパティを設定するメソッドは、カラムごとに一度だけ検索する。
+     * </p>
+     */
+    private class ModelBuilder {
+
+        private final Class<?> modelClass;
+
+        private final Method[] setters;
+
+        ModelBuilder(Class<?> modelClass) {
+            assert modelClass != null;
+            this.modelClass = modelClass;
+            this.setters = new Method[columnInfos.size()];
+        }
+
+        Writable build(String sheetName, int rownum, List<CellData> row) {
             Writable model;
             try {
                 model = (Writable) modelClass.newInstance();
@@ -465,7 +598,7 @@ public class ExcelUtils {
                 throw new RuntimeException(e);
             }
             for (int col = 0; col < columnInfos.size(); col++) {
-                HSSFCell cell = getCell(sheet, row, col);
+                CellData cell = getCell(sheetName, rownum, row, col);
                 MySqlDataType type = columnInfos.get(col).getDataType();
                 ValueOption<?> vo;
                 switch (type) {
@@ -499,9 +632,11 @@ public class ExcelUtils {
                     throw new RuntimeException("Unsupported data type: " + type);
                 }
                 try {
-                    String setterName = columnInfos.get(col).getSetterName();
-                    Method setter = model.getClass().getMethod(setterName, vo.getClass());
-                    setter.invoke(model, vo);
+                    if (setters[col] == null) {
+                        String setterName = columnInfos.get(col).getSetterName();
+                        setters[col] = modelClass.getMethod(setterName, vo.getClass());
+                    }
+                    setters[col].invoke(model, vo);
                 } catch (IllegalAccessException e) {
                     throw new RuntimeException(e);
                 } catch (InvocationTargetException e) {
@@ -510,9 +645,51 @@ public class ExcelUtils {
                     throw new RuntimeException(e);
                 }
             }
-            list.add(model);
+            return model;
+        }
+    }
+
+    /**
+     * イベント形式で読み出した行を、読み出すたびにモデルオブジェクトに変換する。
+     * <p>
+     * 0行目はコメント行として読み飛ばし、1行目から最初の空行の手前までを変換する。
+     * </p>
+     */
+    private class DataRowHandler implements ExcelEventReader.RowHandler {
+
+        private final String sheetName;
+
+        private final ModelBuilder builder;
+
+        private final List<Writable> results = new ArrayList<Writable>();
+
+        private int nextRownum = 1;
+
+        private boolean finished;
+
+        DataRowHandler(String sheetName, ModelBuilder builder) {
+            assert sheetName != null;
+            assert builder != null;
+            this.sheetName = sheetName;
+            this.builder = builder;
+        }
+
+        @Override
+        public void handle(int rownum, List<CellData> cells) {
+            if (finished || rownum < nextRownum) {
+                return;
+            }
+            if (rownum != nextRownum) {
+                finished = true;
+                return;
+            }
+            results.add(builder.build(sheetName, rownum, cells));
+            nextRownum++;
+        }
+
+        List<Writable> getResults() {
+            return results;
         }
-        return list;
     }
 
     /**
@@ -521,7 +698,7 @@ public class ExcelUtils {
      * @return 対応する値
      */
     @SuppressWarnings("deprecation")
-    private ByteOption getByteOption(HSSFCell cell) {
+    private ByteOption getByteOption(CellData cell) {
         Long l = getLong(cell);
         ByteOption op = new ByteOption();
         if (l == null) {
@@ -542,7 +719,7 @@ public class ExcelUtils {
      * @return 対応する値
      */
     @SuppressWarnings("deprecation")
-    private ShortOption getShortOption(HSSFCell cell) {
+    private ShortOption getShortOption(CellData cell) {
         Long l = getLong(cell);
         ShortOption op = new ShortOption();
         if (l == null) {
@@ -563,7 +740,7 @@ public class ExcelUtils {
      * @return 対応する値
      */
     @SuppressWarnings("deprecation")
-    private IntOption getIntOption(HSSFCell cell) {
+    private IntOption getIntOption(CellData cell) {
         Long l = getLong(cell);
         IntOption op = new IntOption();
         if (l == null) {
@@ -584,7 +761,7 @@ public class ExcelUtils {
      * @return 対応する値
      */
     @SuppressWarnings("deprecation")
-    private LongOption getLongOption(HSSFCell cell) {
+    private LongOption getLongOption(CellData cell) {
         Long l = getLong(cell);
         LongOption op = new LongOption();
         if (l == null) {
@@ -602,7 +779,7 @@ public class ExcelUtils {
      * @return 対応する値
      */
     @SuppressWarnings("deprecation")
-    private DateOption getDateOption(HSSFCell cell) {
+    private DateOption getDateOption(CellData cell) {
         Date date = getDate(cell);
         DateOption op = new DateOption();
         if (date == null) {
@@ -632,7 +809,7 @@ public class ExcelUtils {
      * @return 対応する値
      */
     @SuppressWarnings("deprecation")
-    private DateTimeOption getDateTimeOption(HSSFCell cell) {
+    private DateTimeOption getDateTimeOption(CellData cell) {
         Date date = getDate(cell);
         DateTimeOption op = new DateTimeOption();
         if (date == null) {
@@ -661,7 +838,7 @@ public class ExcelUtils {
      * @return 対応する値
      */
     @SuppressWarnings("deprecation")
-    private StringOption getStringOption(HSSFCell cell) {
+    private StringOption getStringOption(CellData cell) {
         String str;
         switch(cell.getCellType()) {
         case Cell.CELL_TYPE_BLANK:
@@ -675,7 +852,7 @@ public class ExcelUtils {
             }
             break;
         case Cell.CELL_TYPE_NUMERIC:
-            if (DateUtil.isCellDateFormatted(cell)) {
+            if (cell.isDateFormatted()) {
                 double d = cell.getNumericCellValue();
                 Date date = DateUtil.getJavaDate(d);
                 str = dateTimeFormat.format(date);
@@ -705,7 +882,7 @@ public class ExcelUtils {
      * @return 対応する値
      */
     @SuppressWarnings("deprecation")
-    private DecimalOption getDecimalOption(HSSFCell cell) {
+    private DecimalOption getDecimalOption(CellData cell) {
         BigDecimal bigDecimal;
         switch(cell.getCellType()) {
         case Cell.CELL_TYPE_BLANK:
@@ -719,7 +896,7 @@ public class ExcelUtils {
             }
             break;
         case Cell.CELL_TYPE_NUMERIC:
-            if (DateUtil.isCellDateFormatted(cell)) {
+            if (cell.isDateFormatted()) {
                 String msg = createCellTypeMismatchExceptionMsg(cell, "DECIMAL");
                 throw new CellTypeMismatchException(msg);
             } else {
@@ -763,14 +940,14 @@ public class ExcelUtils {
      * @param cell 対象のセル
      * @return 対応する値
      */
-    private Date getDate(HSSFCell cell) {
+    private Date getDate(CellData cell) {
         Date date;
         switch(cell.getCellType()) {
         case Cell.CELL_TYPE_BLANK:
             date = null;
             break;
         case Cell.CELL_TYPE_NUMERIC:
-            if (DateUtil.isCellDateFormatted(cell)) {
+            if (cell.isDateFormatted()) {
                 double d = cell.getNumericCellValue();
                 date = DateUtil.getJavaDate(d);
             } else {
@@ -806,7 +983,7 @@ public class ExcelUtils {
      * @param cell 対象のセル
      * @return 対応する値
      */
-    private Long getLong(HSSFCell cell) {
+    private Long getLong(CellData cell) {
         Long l;
         switch(cell.getCellType()) {
         case Cell.CELL_TYPE_BLANK:
@@ -855,10 +1032,10 @@ public class ExcelUtils {
      * @param msg エラーメッセージ
      * @return Exception用のメッセージ
      */
-    private String createExceptionMsg(HSSFCell cell, String msg) {
+    private String createExceptionMsg(CellData cell, String msg) {
         int col = cell.getColumnIndex();
         int rownum = cell.getRowIndex();
-        String sheetName = cell.getSheet().getSheetName();
+        String sheetName = cell.getSheetName();
         String fmt = "%s, filename = %s, sheet = %s, row = %d, col = %d";
         String ret = String.format(fmt, msg, filename, sheetName, rownum + 1, col + 1);
         return ret;
@@ -872,10 +1049,10 @@ public class ExcelUtils {
      * @param expect 期待する型を表す文字列
      * @return Exception用のメッセージ
      */
-    private String createCellTypeMismatchExceptionMsg(HSSFCell cell, String expect) {
+    private String createCellTypeMismatchExceptionMsg(CellData cell, String expect) {
         int col = cell.getColumnIndex();
         int rownum = cell.getRowIndex();
-        String sheetName = cell.getSheet().getSheetName();
+        String sheetName = cell.getSheetName();
         String actual;
         switch(cell.getCellType()) {
         case Cell.CELL_TYPE_BLANK:
@@ -891,7 +1068,7 @@ public class ExcelUtils {
             actual = "数式";
             break;
         case Cell.CELL_TYPE_NUMERIC:
-            if (DateUtil.isCellDateFormatted(cell)) {
+            if (cell.isDateFormatted()) {
                 actual = "日付";
             } else {
                 actual = "数値";
@@ -923,9 +1100,27 @@ public class ExcelUtils {
      * @return 現在のExcelブックに対応する{@link TestDataHolder}のオブジェクト
      */
     public TestDataHolder getTestDataHolder() {
-        List<Writable> source = createDatalList(inputDataSheet);
-        List<Writable> expect = createDatalList(outputDataSheet);
         Class<? extends Writable> modelClass = getModelClass();
+        ModelBuilder builder = new ModelBuilder(modelClass);
+        List<Writable> source;
+        List<Writable> expect;
+        if (streaming) {
+            DataRowHandler input = new DataRowHandler(inputDataSheetName, builder);
+            DataRowHandler output = new DataRowHandler(outputDataSheetName, builder);
+            Map<String, ExcelEventReader.RowHandler> handlers = new HashMap<String, ExcelEventReader.RowHandler>();
+            handlers.put(inputDataSheetName, input);
+            handlers.put(outputDataSheetName, output);
+            try {
+                ExcelEventReader.read(filename, handlers);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            source = input.getResults();
+            expect = output.getResults();
+        } else {
+            source = createDatalList(inputDataSheet, builder);
+            expect = createDatalList(outputDataSheet, builder);
+        }
         return new TestDataHolder(source, expect, columnInfos, modelClass, rowMatchingCondition);
     }
 }
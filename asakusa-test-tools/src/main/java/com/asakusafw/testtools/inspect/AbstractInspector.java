@@ -15,17 +15,22 @@
  */
 package com.asakusafw.testtools.inspect;
 
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.hadoop.io.Writable;
 
 import com.asakusafw.runtime.value.ValueOption;
 import com.asakusafw.testtools.ColumnInfo;
+import com.asakusafw.testtools.ColumnValueAccessor;
 import com.asakusafw.testtools.ModelComparator;
 import com.asakusafw.testtools.RowMatchingCondition;
 import com.asakusafw.testtools.TestDataHolder;
@@ -39,6 +44,16 @@ import com.asakusafw.testtools.inspect.Cause.Type;
  */
 public abstract class AbstractInspector implements Inspector {
 
+    /**
+     * 記録するNG原因の最大数の既定値 (無制限)。
+     */
+    public static final int DEFAULT_MAX_CAUSES = Integer.MAX_VALUE;
+
+    /**
+     * 外部ソートの際にメモリ上に保持するレコード数の既定値。
+     */
+    public static final int DEFAULT_SORT_BUFFER_SIZE = 100000;
+
     /**
      * 全カラムの情報。
      */
@@ -65,6 +80,26 @@ public abstract class AbstractInspector implements Inspector {
      */
     private List<Cause> causes = new ArrayList<Cause>();
 
+    /**
+     * 記録するNG原因の最大数。
+     */
+    private int maxCauses = DEFAULT_MAX_CAUSES;
+
+    /**
+     * 外部ソートの際にメモリ上に保持するレコード数。
+     */
+    private int sortBufferSize = DEFAULT_SORT_BUFFER_SIZE;
+
+    /**
+     * モデルクラスと、そのカラムの値を取り出すアクセサの対応表。
+     */
+    private final Map<Class<?>, ColumnValueAccessor> accessors = new HashMap<Class<?>, ColumnValueAccessor>();
+
+    /**
+     * カラムの情報と、{@link #columnInfos}内でのその位置の対応表。
+     */
+    private final Map<ColumnInfo, Integer> columnIndexes = new IdentityHashMap<ColumnInfo, Integer>();
+
 
     /**
      * 検査を実行するメソッド。
@@ -89,6 +124,9 @@ public abstract class AbstractInspector implements Inspector {
         } else {
             keyValueString = getKeyValueString(expect);
         }
+        if (isCauseLimitReached()) {
+            return;
+        }
         Cause cause = new Cause(type, tableNameString +  keyValueString, expect, actual);
         causes.add(cause);
     }
@@ -106,6 +144,9 @@ public abstract class AbstractInspector implements Inspector {
     protected final void fail(Type type, Writable expect, Writable actual,
             ValueOption<?> expectVal, ValueOption<?> actualVal,
             ColumnInfo columnInfo) {
+        if (isCauseLimitReached()) {
+            return;
+        }
         String format = "table = %s, %s,  column name = %s, expected = %s, actual = %s";
         String additionalMessage = String.format(format, columnInfo.getTableName(),
                 getKeyValueString(actual), columnInfo.getColumnName(),
@@ -156,6 +197,11 @@ public abstract class AbstractInspector implements Inspector {
     @Override
     public void setColumnInfos(List<ColumnInfo> columnInfos) {
         this.columnInfos = columnInfos;
+        this.accessors.clear();
+        this.columnIndexes.clear();
+        for (int i = 0, n = columnInfos.size(); i < n; i++) {
+            columnIndexes.put(columnInfos.get(i), i);
+        }
         for (ColumnInfo info : columnInfos) {
             keyColumnInfos.add(info);
         }
@@ -199,6 +245,51 @@ public abstract class AbstractInspector implements Inspector {
         this.finishTime = finishTime;
     }
 
+    /**
+     * 記録するNG原因の最大数を取得します。
+     * @return 記録するNG原因の最大数
+     */
+    public int getMaxCauses() {
+        return maxCauses;
+    }
+
+    /**
+     * 記録するNG原因の最大数を設定します。
+     * NG原因の数がこの値に達した場合、以降の検査は打ち切られます。
+     * @param maxCauses 記録するNG原因の最大数
+     * @throws IllegalArgumentException 引数が{@code 1}未満の場合
+     */
+    public void setMaxCauses(int maxCauses) {
+        if (maxCauses < 1) {
+            throw new IllegalArgumentException("maxCauses must be positive");
+        }
+        this.maxCauses = maxCauses;
+    }
+
+    /**
+     * 外部ソートの際にメモリ上に保持するレコード数を取得します。
+     * @return 外部ソートの際にメモリ上に保持するレコード数
+     */
+    public int getSortBufferSize() {
+        return sortBufferSize;
+    }
+
+    /**
+     * 外部ソートの際にメモリ上に保持するレコード数を設定します。
+     * @param sortBufferSize 外部ソートの際にメモリ上に保持するレコード数
+     * @throws IllegalArgumentException 引数が{@code 1}未満の場合
+     */
+    public void setSortBufferSize(int sortBufferSize) {
+        if (sortBufferSize < 1) {
+            throw new IllegalArgumentException("sortBufferSize must be positive");
+        }
+        this.sortBufferSize = sortBufferSize;
+    }
+
+    private boolean isCauseLimitReached() {
+        return causes.size() >= maxCauses;
+    }
+
     @Override
     public final List<Cause> getCauses() {
         return causes;
@@ -206,25 +297,37 @@ public abstract class AbstractInspector implements Inspector {
 
     /**
      * 指定のモデルオブジェクトの指定のカラムの値を取得する。
+     * <p>
+     * モデルジェネレータが生成したアクセサが存在する場合はそれを利用し、
+     * 存在しない場合はカラムごとに一度だけ解決したゲッターメソッドを利用する。
+     * </p>
      * @param model モデルオブジェクト
      * @param info カラム情報
      * @return カラムの値
      */
     protected final ValueOption<?> getValue(Writable model, ColumnInfo info) {
-        ValueOption<?> vo = null;
-        try {
-            Method method = model.getClass().getMethod(info.getGetterName());
-            vo = (ValueOption<?>) method.invoke(model);
-        } catch (SecurityException e) {
-            throw new RuntimeException(e);
-        } catch (NoSuchMethodException e) {
-            throw new RuntimeException(e);
-        } catch (IllegalAccessException e) {
-            throw new RuntimeException(e);
-        } catch (InvocationTargetException e) {
-            throw new RuntimeException(e);
+        Integer index = columnIndexes.get(info);
+        if (index == null) {
+            try {
+                Method method = model.getClass().getMethod(info.getGetterName());
+                return (ValueOption<?>) method.invoke(model);
+            } catch (SecurityException e) {
+                throw new RuntimeException(e);
+            } catch (NoSuchMethodException e) {
+                throw new RuntimeException(e);
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException(e);
+            } catch (InvocationTargetException e) {
+                throw new RuntimeException(e);
+            }
         }
-        return vo;
+        Class<?> modelClass = model.getClass();
+        ColumnValueAccessor accessor = accessors.get(modelClass);
+        if (accessor == null) {
+            accessor = new ColumnValueAccessor(columnInfos, modelClass);
+            accessors.put(modelClass, accessor);
+        }
+        return accessor.get(model, index);
     }
 
     @Override
@@ -262,39 +365,119 @@ public abstract class AbstractInspector implements Inspector {
         // 各テーブルに対し、検査を実施する
         Comparator<Writable> comparator = new ModelComparator<Writable>(columnInfos, dataHolder.getModelClass());
 
+        // 外部ソートしながら取り込んだ実データは、メモリ上に読み出さずにマージしながら検査する
+        ModelSorter sortedActual = dataHolder.getSortedActual();
+        if (sortedActual != null) {
+            return inspect(
+                    dataHolder.getExpect(),
+                    sortedActual,
+                    comparator,
+                    dataHolder.getRowMatchingCondition());
+        }
+        return inspect(
+                dataHolder.getExpect(),
+                dataHolder.getActual(),
+                comparator,
+                dataHolder.getRowMatchingCondition());
+    }
+
+    /**
+     * ソートされていない期待データと実データを、外部ソートとマージによって検査する。
+     * <p>
+     * それぞれのデータは{@link #getSortBufferSize()}件ごとにソートして一時ファイルに書き出すため、
+     * 全てのレコードをメモリ上に保持せずに検査できる。
+     * </p>
+     * @param modelClass 対象のモデルクラス
+     * @param rowMatchingCondition 行の同一性比較条件
+     * @param expect 期待データ
+     * @param actual 実データ
+     * @return 検査を最後まで実施した場合は{@code true}、キーの重複により検査を打ち切った場合は{@code false}
+     * @throws IOException 一時ファイルの入出力に失敗した場合
+     */
+    public boolean inspect(
+            Class<? extends Writable> modelClass,
+            RowMatchingCondition rowMatchingCondition,
+            Iterator<? extends Writable> expect,
+            Iterator<? extends Writable> actual) throws IOException {
+        // テスト終了時刻が設定されていない場合、テスト終了時刻に現在時刻を指定
+        if (finishTime == 0) {
+            finishTime = System.currentTimeMillis();
+        }
+
+        // 検査しないと指定されたテーブルに対しては常に成功を返す
+        if (rowMatchingCondition == RowMatchingCondition.NONE) {
+            return true;
+        }
+
+        Comparator<Writable> comparator = new ModelComparator<Writable>(columnInfos, modelClass);
+        ModelSorter expectSorter = new ModelSorter(modelClass, comparator, sortBufferSize);
+        try {
+            ModelSorter actualSorter = new ModelSorter(modelClass, comparator, sortBufferSize);
+            try {
+                while (expect.hasNext()) {
+                    expectSorter.add(expect.next());
+                }
+                while (actual.hasNext()) {
+                    actualSorter.add(actual.next());
+                }
+                return inspect(expectSorter, actualSorter, comparator, rowMatchingCondition);
+            } finally {
+                actualSorter.close();
+            }
+        } finally {
+            expectSorter.close();
+        }
+    }
+
+    private boolean inspect(
+            Iterable<? extends Writable> expect,
+            Iterable<? extends Writable> actual,
+            Comparator<Writable> comparator,
+            RowMatchingCondition rowMatchingCondition) {
+        assert expect != null;
+        assert actual != null;
+        assert comparator != null;
+        assert rowMatchingCondition != null;
+
         // 期待データのキーが重複していないかの検査
-        List<Writable> expect = dataHolder.getExpect();
-        for (int i = 1, n = expect.size(); i < n; i++) {
-            if (comparator.compare(expect.get(i - 1), expect.get(i)) == 0) {
-                fail(Type.DUPLICATEED_KEY_IN_EXPECT_RECORDS, expect.get(i), null);
+        Writable previous = null;
+        for (Writable current : expect) {
+            if (previous != null && comparator.compare(previous, current) == 0) {
+                fail(Type.DUPLICATEED_KEY_IN_EXPECT_RECORDS, current, null);
             }
+            previous = current;
         }
 
         // 実際の出力データのキーが重複してないかの検査
-        List<Writable> actual = dataHolder.getActual();
-        for (int i = 1, n = actual.size(); i < n; i++) {
-            if (comparator.compare(actual.get(i - 1), actual.get(i)) == 0) {
-                fail(Type.DUPLICATEED_KEY_IN_ACTUALT_RECORDS, null, actual.get(i));
+        previous = null;
+        for (Writable current : actual) {
+            if (previous != null && comparator.compare(previous, current) == 0) {
+                fail(Type.DUPLICATEED_KEY_IN_ACTUALT_RECORDS, null, current);
             }
+            previous = current;
         }
         if (!isSuccess()) {
             return false; // キーの重複がある場合検査を失敗させ、以降の処理を実行しない
         }
 
         // 各レコードを比較
-        Iterator<Writable> expectIterator = expect.iterator();
-        Iterator<Writable> actualIterator = actual.iterator();
+        Iterator<? extends Writable> expectIterator = expect.iterator();
+        Iterator<? extends Writable> actualIterator = actual.iterator();
         Writable expectRow = null;
         Writable actualRow = null;
         for (;;) {
+            // NG原因の数が上限に達した場合は比較を打ち切る
+            if (isCauseLimitReached()) {
+                break;
+            }
             // expect, actualのどちらかしか存在しない場合
             if (!expectIterator.hasNext() && expectRow == null) {
                 if (actualRow != null) {
                     fail(Type.NO_EXPECT_RECORD, null, actualRow);
                 }
-                while (actualIterator.hasNext()) {
-                    actualRow = actualIterator.next();
-                    if (dataHolder.getRowMatchingCondition() == RowMatchingCondition.EXACT) {
+                if (rowMatchingCondition == RowMatchingCondition.EXACT) {
+                    while (actualIterator.hasNext() && !isCauseLimitReached()) {
+                        actualRow = actualIterator.next();
                         fail(Type.NO_EXPECT_RECORD, null, actualRow);
                     }
                 }
@@ -305,7 +488,7 @@ public abstract class AbstractInspector implements Inspector {
                 if (expectRow != null) {
                     fail(Type.NO_ACTUAL_RECORD, expectRow, null);
                 }
-                while (expectIterator.hasNext()) {
+                while (expectIterator.hasNext() && !isCauseLimitReached()) {
                     expectRow = expectIterator.next();
                     fail(Type.NO_ACTUAL_RECORD, expectRow, null);
                 }
@@ -330,7 +513,7 @@ public abstract class AbstractInspector implements Inspector {
                 actualRow = null;
             } else {
                 // 実際のデータに対応する期待データが存在しない
-                if (dataHolder.getRowMatchingCondition() == RowMatchingCondition.EXACT) {
+                if (rowMatchingCondition == RowMatchingCondition.EXACT) {
                     fail(Type.NO_EXPECT_RECORD,  null, actualRow);
                 }
                 actualRow = null;
@@ -0,0 +1,299 @@
+/**
+ * Copyright 2011 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.testtools.inspect;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+import org.apache.hadoop.io.Writable;
+
+/**
+ * モデルオブジェクトを外部ソートするクラス。
+ * <p>
+ * 追加されたモデルオブジェクトはメモリ上に保持し、その個数がバッファの大きさに達するたびに
+ * ソートして一時ファイルに書き出す。
+ * {@link #iterator()}はそれぞれの一時ファイルとメモリ上の残りをマージしながら順に返す。
+ * </p>
+ * <p>
+ * 追加したモデルオブジェクトはこのクラスが保持するため、追加後に変更してはならない。
+ * また、一時ファイルから読み出したモデルオブジェクトは要素ごとに異なるインスタンスとなる。
+ * </p>
+ */
+public class ModelSorter implements Iterable<Writable>, Closeable {
+
+    private final Class<? extends Writable> modelClass;
+
+    private final Comparator<? super Writable> comparator;
+
+    private final int bufferSize;
+
+    private final List<Writable> buffer;
+
+    private boolean bufferSorted;
+
+    private final List<File> runs = new ArrayList<File>();
+
+    private final List<Closeable> opened = new ArrayList<Closeable>();
+
+    /**
+     * インスタンスを生成する。
+     * @param modelClass 対象のモデルクラス
+     * @param comparator モデルオブジェクトの比較器
+     * @param bufferSize メモリ上に保持するモデルオブジェクトの最大数
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     */
+    public ModelSorter(
+            Class<? extends Writable> modelClass,
+            Comparator<? super Writable> comparator,
+            int bufferSize) {
+        if (modelClass == null) {
+            throw new IllegalArgumentException("modelClass must not be null");
+        }
+        if (comparator == null) {
+            throw new IllegalArgumentException("comparator must not be null");
+        }
+        this.modelClass = modelClass;
+        this.comparator = comparator;
+        this.bufferSize = Math.max(bufferSize, 1);
+        this.buffer = new ArrayList<Writable>(Math.min(this.bufferSize, 1024));
+    }
+
+    /**
+     * モデルオブジェクトを追加する。
+     * @param model 追加するモデルオブジェクト
+     * @throws IOException 一時ファイルへの書き出しに失敗した場合
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     */
+    public void add(Writable model) throws IOException {
+        if (model == null) {
+            throw new IllegalArgumentException("model must not be null");
+        }
+        buffer.add(model);
+        bufferSorted = false;
+        if (buffer.size() >= bufferSize) {
+            spill();
+        }
+    }
+
+    /**
+     * これまでに一時ファイルに書き出した回数を返す。
+     * @return 一時ファイルに書き出した回数
+     */
+    public int getRunCount() {
+        return runs.size();
+    }
+
+    private void spill() throws IOException {
+        sortBuffer();
+        File file = File.createTempFile("asakusa-inspect-", ".bin");
+        runs.add(file);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        try {
+            out.writeInt(buffer.size());
+            for (Writable model : buffer) {
+                model.write(out);
+            }
+        } finally {
+            out.close();
+        }
+        buffer.clear();
+    }
+
+    private void sortBuffer() {
+        if (bufferSorted == false) {
+            Collections.sort(buffer, comparator);
+            bufferSorted = true;
+        }
+    }
+
+    /**
+     * 追加されたモデルオブジェクトをソート順に返す反復子を返す。
+     * <p>
+     * このメソッドは何度でも呼び出せるが、返された反復子を利用している間に
+     * モデルオブジェクトを追加してはならない。
+     * </p>
+     * @throws RuntimeException 一時ファイルの読み出しに失敗した場合
+     */
+    @Override
+    public Iterator<Writable> iterator() {
+        sortBuffer();
+        List<Cursor> cursors = new ArrayList<Cursor>(runs.size() + 1);
+        try {
+            for (File file : runs) {
+                cursors.add(new FileCursor(cursors.size(), file));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        cursors.add(new ListCursor(cursors.size(), buffer.iterator()));
+        return new MergeIterator(cursors);
+    }
+
+    /**
+     * 保持しているモデルオブジェクトと一時ファイルを破棄する。
+     */
+    @Override
+    public void close() {
+        for (Closeable closeable : opened) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // ignored
+            }
+        }
+        opened.clear();
+        for (File file : runs) {
+            file.delete();
+        }
+        runs.clear();
+        buffer.clear();
+    }
+
+    private abstract static class Cursor {
+
+        final int index;
+
+        Writable current;
+
+        Cursor(int index) {
+            this.index = index;
+        }
+
+        abstract boolean advance() throws IOException;
+    }
+
+    private static final class ListCursor extends Cursor {
+
+        private final Iterator<Writable> iterator;
+
+        ListCursor(int index, Iterator<Writable> iterator) {
+            super(index);
+            this.iterator = iterator;
+        }
+
+        @Override
+        boolean advance() {
+            if (iterator.hasNext()) {
+                current = iterator.next();
+                return true;
+            }
+            current = null;
+            return false;
+        }
+    }
+
+    private final class FileCursor extends Cursor {
+
+        private final DataInputStream input;
+
+        private int rest;
+
+        FileCursor(int index, File file) throws IOException {
+            super(index);
+            this.input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            opened.add(input);
+            this.rest = input.readInt();
+        }
+
+        @Override
+        boolean advance() throws IOException {
+            if (rest <= 0) {
+                current = null;
+                input.close();
+                opened.remove(input);
+                return false;
+            }
+            Writable model;
+            try {
+                model = modelClass.newInstance();
+            } catch (InstantiationException e) {
+                throw new RuntimeException(e);
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException(e);
+            }
+            model.readFields(input);
+            current = model;
+            rest--;
+            return true;
+        }
+    }
+
+    private final class MergeIterator implements Iterator<Writable> {
+
+        private final PriorityQueue<Cursor> queue;
+
+        MergeIterator(List<Cursor> cursors) {
+            this.queue = new PriorityQueue<Cursor>(cursors.size(), new Comparator<Cursor>() {
+                @Override
+                public int compare(Cursor o1, Cursor o2) {
+                    int result = comparator.compare(o1.current, o2.current);
+                    if (result != 0) {
+                        return result;
+                    }
+                    return o1.index - o2.index;
+                }
+            });
+            for (Cursor cursor : cursors) {
+                push(cursor);
+            }
+        }
+
+        private void push(Cursor cursor) {
+            try {
+                if (cursor.advance()) {
+                    queue.add(cursor);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return queue.isEmpty() == false;
+        }
+
+        @Override
+        public Writable next() {
+            Cursor cursor = queue.poll();
+            if (cursor == null) {
+                throw new NoSuchElementException();
+            }
+            Writable result = cursor.current;
+            push(cursor);
+            return result;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
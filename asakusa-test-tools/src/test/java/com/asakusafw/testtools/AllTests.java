@@ -24,6 +24,7 @@ import com.asakusafw.testtools.db.DbUtilTest;
 import com.asakusafw.testtools.excel.ExcelUtilsTest;
 import com.asakusafw.testtools.inspect.CauseTest;
 import com.asakusafw.testtools.inspect.DefaultInspectorTest;
+import com.asakusafw.testtools.inspect.ModelSorterTest;
 
 
 @RunWith(Suite.class)
@@ -33,7 +34,10 @@ import com.asakusafw.testtools.inspect.DefaultInspectorTest;
    ExcelUtilsTest.class,
    DefaultInspectorTest.class,
    TestUtilsTest.class,
-   CauseTest.class
+   ColumnValueAccessorTest.class,
+   CauseTest.class,
+   ModelSorterTest.class,
+   ParallelTasksTest.class
 })
 
 public class AllTests {
@@ -0,0 +1,66 @@
+/**
+ * Copyright 2011 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.testtools;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.asakusafw.modelgen.source.MySqlDataType;
+import com.asakusafw.testtools.model.BrokenAccessorModel;
+
+import test.modelgen.model.AllTypesWNoerr;
+
+/**
+ * Test for {@link ColumnValueAccessor}.
+ */
+public class ColumnValueAccessorTest {
+
+    /**
+     * 生成されたアクセサが存在しない場合はゲッターメソッドを利用する。
+     */
+    @Test
+    public void reflective() {
+        ColumnValueAccessor accessor = new ColumnValueAccessor(
+                Arrays.asList(column("C_TAG", MySqlDataType.VARCHAR), column("C_BIGINT", MySqlDataType.LONG)),
+                AllTypesWNoerr.class);
+        assertThat(accessor.isGenerated(), is(false));
+
+        AllTypesWNoerr model = new AllTypesWNoerr();
+        model.setCTagAsString("hello");
+        model.setCBigint(100L);
+        assertThat(accessor.get(model, 0), sameInstance((Object) model.getCTagOption()));
+        assertThat(accessor.get(model, 1), sameInstance((Object) model.getCBigintOption()));
+    }
+
+    /**
+     * 生成されたアクセサが存在するが生成に失敗する場合は例外をスローする。
+     */
+    @Test(expected = RuntimeException.class)
+    public void brokenAccessor() {
+        new ColumnValueAccessor(
+                Arrays.asList(column("VALUE", MySqlDataType.VARCHAR)),
+                BrokenAccessorModel.class);
+    }
+
+    private ColumnInfo column(String name, MySqlDataType type) {
+        return new ColumnInfo("ALL_TYPES_W_NOERR", name, null, type, 10, 10, 0, true, true,
+                ColumnMatchingCondition.EXACT, NullValueCondition.NORMAL);
+    }
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright 2011 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.testtools;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link ParallelTasks}.
+ */
+public class ParallelTasksTest {
+
+    /**
+     * 処理結果は処理の順序で返される。
+     * @throws Exception if occur
+     */
+    @Test
+    public void ordered() throws Exception {
+        List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+        for (int i = 0; i < 10; i++) {
+            final int value = i;
+            tasks.add(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    Thread.sleep((10 - value) * 5);
+                    return value;
+                }
+            });
+        }
+        List<Integer> results = ParallelTasks.invokeAll(tasks, 4);
+        assertThat(results, is(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9)));
+    }
+
+    /**
+     * 指定の並行度まで同時に実行され、それを超えない。
+     * @throws Exception if occur
+     */
+    @Test
+    public void bounded() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(2);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger peak = new AtomicInteger();
+        List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>();
+        for (int i = 0; i < 6; i++) {
+            tasks.add(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    int current = running.incrementAndGet();
+                    synchronized (peak) {
+                        peak.set(Math.max(peak.get(), current));
+                    }
+                    latch.countDown();
+                    boolean met = latch.await(10, TimeUnit.SECONDS);
+                    Thread.sleep(10);
+                    running.decrementAndGet();
+                    return met;
+                }
+            });
+        }
+        List<Boolean> results = ParallelTasks.invokeAll(tasks, 2);
+        assertThat(results, not(hasItem(false)));
+        assertThat(peak.get(), is(2));
+    }
+
+    /**
+     * 並行度が1の場合は呼び出し元のスレッドで実行する。
+     * @throws Exception if occur
+     */
+    @Test
+    public void sequential() throws Exception {
+        Callable<Thread> task = new Callable<Thread>() {
+            @Override
+            public Thread call() {
+                return Thread.currentThread();
+            }
+        };
+        List<Callable<Thread>> tasks = new ArrayList<Callable<Thread>>();
+        tasks.add(task);
+        tasks.add(task);
+        List<Thread> results = ParallelTasks.invokeAll(tasks, 1);
+        assertThat(results.get(0), sameInstance(Thread.currentThread()));
+        assertThat(results.get(1), sameInstance(Thread.currentThread()));
+    }
+
+    /**
+     * 失敗した処理の例外がそのまま送出される。
+     * @throws Exception if occur
+     */
+    @Test
+    public void failure() throws Exception {
+        final AtomicInteger done = new AtomicInteger();
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (int i = 0; i < 4; i++) {
+            final int index = i;
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    if (index == 1) {
+                        throw new IOException("failed-" + index);
+                    }
+                    done.incrementAndGet();
+                    return null;
+                }
+            });
+        }
+        try {
+            ParallelTasks.invokeAll(tasks, 4);
+            fail();
+        } catch (IOException e) {
+            assertThat(e.getMessage(), is("failed-1"));
+        }
+        assertThat(done.get(), is(3));
+    }
+}
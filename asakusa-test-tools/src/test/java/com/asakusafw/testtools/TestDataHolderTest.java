@@ -28,6 +28,7 @@ import java.util.List;
 import org.apache.hadoop.io.Writable;
 import org.junit.Test;
 
+import com.asakusafw.modelgen.source.MySqlDataType;
 import com.asakusafw.runtime.value.ByteOption;
 import com.asakusafw.runtime.value.DateOption;
 import com.asakusafw.runtime.value.DateTime;
@@ -575,6 +576,74 @@ public class TestDataHolderTest {
     }
 
 
+    /**
+     * 一括挿入および{@code LOAD DATA LOCAL INFILE}による書き出しのテスト。
+     * @throws Exception if occur
+     */
+    @Test
+    public void storeBatch() throws Exception {
+        String TEST_FILE = "src/test/data/Excel/ExcelUtils/ALLT_TYPES_W_NOERR.xls";
+        ExcelUtils excelUtils = new ExcelUtils(TEST_FILE);
+        TestDataHolder dataHolder = excelUtils.getTestDataHolder();
+        int size = dataHolder.getSource().size();
+
+        Connection conn = null;
+        try {
+            conn = DbUtils.getConnection();
+            // 端数の出る行数ごとに一括挿入
+            dataHolder.storeToDatabase(conn, true, 2, -1);
+            dataHolder.loadFromDatabase(conn);
+            assertEquals(size, dataHolder.getActual().size());
+
+            // LOAD DATA LOCAL INFILE
+            dataHolder.storeToDatabase(conn, false, 2, 0);
+            dataHolder.loadFromDatabase(conn);
+            assertEquals(size, dataHolder.getActual().size());
+        } finally {
+            DbUtils.closeQuietly(conn);
+        }
+    }
+
+    /**
+     * {@code LOAD DATA LOCAL INFILE}向けの値の書き出し。
+     */
+    @SuppressWarnings("deprecation")
+    @Test
+    public void appendTsvValue() {
+        StringBuilder sb = new StringBuilder();
+        TestDataHolder.appendTsvValue(sb, column(MySqlDataType.VARCHAR), new StringOption("a\tb\\c\nd"));
+        assertEquals("a\\tb\\\\c\\nd", sb.toString());
+
+        sb.setLength(0);
+        TestDataHolder.appendTsvValue(sb, column(MySqlDataType.INT), new IntOption());
+        assertEquals("\\N", sb.toString());
+
+        sb.setLength(0);
+        TestDataHolder.appendTsvValue(sb, column(MySqlDataType.INT), new IntOption(-100));
+        assertEquals("-100", sb.toString());
+
+        sb.setLength(0);
+        TestDataHolder.appendTsvValue(sb, column(MySqlDataType.DATE),
+                new DateOption().modify(DateUtil.getDayFromDate(2011, 3, 31)));
+        assertEquals("2011-03-31", sb.toString());
+
+        sb.setLength(0);
+        TestDataHolder.appendTsvValue(sb, column(MySqlDataType.DATETIME),
+                new DateTimeOption().modify(DateUtil.getDayFromDate(2011, 3, 31) * 86400L
+                        + DateUtil.getSecondFromTime(1, 2, 3)));
+        assertEquals("2011-03-31 01:02:03", sb.toString());
+
+        sb.setLength(0);
+        TestDataHolder.appendTsvValue(sb, column(MySqlDataType.DECIMAL),
+                new DecimalOption().modify(new BigDecimal("1E+3")));
+        assertEquals("1000", sb.toString());
+    }
+
+    private ColumnInfo column(MySqlDataType type) {
+        return new ColumnInfo("T", "C", null, type, 10, 10, 0, true, false,
+                ColumnMatchingCondition.EXACT, NullValueCondition.NORMAL);
+    }
+
     /**
      * sortメソッドのテスト
      * @throws Exception
@@ -53,6 +53,7 @@ import com.asakusafw.testtools.ColumnInfo;
 import com.asakusafw.testtools.ColumnMatchingCondition;
 import com.asakusafw.testtools.Constants;
 import com.asakusafw.testtools.NullValueCondition;
+import com.asakusafw.testtools.TestDataHolder;
 import com.asakusafw.testtools.excel.CellTypeMismatchException;
 import com.asakusafw.testtools.excel.ExcelUtils;
 import com.asakusafw.testtools.excel.InvalidExcelBookException;
@@ -915,18 +916,85 @@ public class ExcelUtilsTest {
 
 
 
+    /**
+     * イベント形式で逐次読み出した場合も、同じカラム情報とモデルオブジェクトが得られること。
+     * @throws Exception if occur
+     */
+    @Test
+    public void testStreaming() throws Exception {
+        String filename = "src/test/data/Excel/ExcelUtils/ALLT_TYPES_W_NOERR.xls";
+        ExcelUtils expected = new ExcelUtils(filename);
+        ExcelUtils actual = new ExcelUtils(filename, true);
+
+        List<ColumnInfo> expectedInfos = expected.getColumnInfos();
+        List<ColumnInfo> actualInfos = actual.getColumnInfos();
+        assertEquals(expectedInfos.size(), actualInfos.size());
+        for (int i = 0; i < expectedInfos.size(); i++) {
+            ColumnInfo e = expectedInfos.get(i);
+            ColumnInfo a = actualInfos.get(i);
+            assertEquals(e.getTableName(), a.getTableName());
+            assertEquals(e.getColumnName(), a.getColumnName());
+            assertEquals(e.getColumnComment(), a.getColumnComment());
+            assertEquals(e.getDataType(), a.getDataType());
+            assertEquals(e.getCharacterMaximumLength(), a.getCharacterMaximumLength());
+            assertEquals(e.getNumericPrecision(), a.getNumericPrecision());
+            assertEquals(e.getNumericScale(), a.getNumericScale());
+            assertEquals(e.isKey(), a.isKey());
+            assertEquals(e.isNullable(), a.isNullable());
+            assertEquals(e.getColumnMatchingCondition(), a.getColumnMatchingCondition());
+            assertEquals(e.getNullValueCondition(), a.getNullValueCondition());
+        }
+
+        TestDataHolder expectedHolder = expected.getTestDataHolder();
+        TestDataHolder actualHolder = actual.getTestDataHolder();
+        assertEquals(expectedHolder.getTablename(), actualHolder.getTablename());
+        assertEquals(expectedHolder.getModelClass(), actualHolder.getModelClass());
+        assertEquals(expectedHolder.getSource(), actualHolder.getSource());
+        assertEquals(expectedHolder.getExpect(), actualHolder.getExpect());
+    }
+
+    /**
+     * イベント形式で逐次読み出した場合も、テスト条件のシートの不備を同じメッセージで報告すること。
+     * @throws Exception if occur
+     */
+    @Test
+    public void testStreamingInvalid() throws Exception {
+        String[] filenames = {
+                "src/test/data/Excel/ExcelUtils/BROKEN_TABLENAME2.xls",
+                "src/test/data/Excel/ExcelUtils/EMPTY_SEETS.xls",
+                "src/test/data/Excel/ExcelUtils/NO_WIDTH1.xls",
+                "src/test/data/Excel/ExcelUtils/INVALID_NUM1.xls",
+                "src/test/data/Excel/ExcelUtils/INVALID_STR.xls",
+        };
+        for (String filename : filenames) {
+            String expected = null;
+            try {
+                new ExcelUtils(filename);
+            } catch (InvalidExcelBookException e) {
+                expected = e.getLocalizedMessage();
+            }
+            String actual = null;
+            try {
+                new ExcelUtils(filename, true);
+            } catch (InvalidExcelBookException e) {
+                actual = e.getLocalizedMessage();
+            }
+            assertEquals(filename, expected, actual);
+        }
+    }
+
     public void testGetXXXOptionDo(ExcelUtils excelUtils, HSSFSheet sheet, DATA data, TYPES types, Object expected) throws Exception {
         int rownum = data.getRownum();
         int colpos = types.getColpos();
         HSSFCell cell = getCell(sheet, rownum, colpos);
         String methodName = types.getMethodName();
-        Method method = excelUtils.getClass().getDeclaredMethod(methodName, HSSFCell.class);
+        Method method = excelUtils.getClass().getDeclaredMethod(methodName, CellData.class);
         method.setAccessible(true);
 
         Throwable t = null;
         Object actual = null;
         try {
-            actual = method.invoke(excelUtils, cell);
+            actual = method.invoke(excelUtils, CellData.of(cell));
         } catch (InvocationTargetException e) {
             t = e.getCause();
         }
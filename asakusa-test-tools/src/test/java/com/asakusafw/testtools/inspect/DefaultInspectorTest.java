@@ -1247,6 +1247,91 @@ public class DefaultInspectorTest {
     }
 
 
+    /**
+     * 外部ソートを利用して検査する場合。
+     * @throws Exception if occur
+     */
+    @Test
+    public void testInspectStreaming() throws Exception {
+        initDataHolder(TEST_FILE);
+        DefaultInspector inspector = new DefaultInspector();
+        inspector.setColumnInfos(dataHolder.getColumnInfos());
+        inspector.setStartTime(System.currentTimeMillis());
+        inspector.setSortBufferSize(5);
+        boolean completed = inspector.inspect(
+                dataHolder.getModelClass(),
+                dataHolder.getRowMatchingCondition(),
+                dataHolder.getExpect().iterator(),
+                dataHolder.getActual().iterator());
+        assertTrue(completed);
+        assertEquals("エラー原因のリストの要素数", 0, inspector.getCauses().size());
+
+        // 期待値が存在しない場合
+        inspector.clear();
+        inspector.inspect(
+                dataHolder.getModelClass(),
+                RowMatchingCondition.EXACT,
+                new ArrayList<Writable>().iterator(),
+                dataHolder.getActual().iterator());
+        assertEquals("エラー原因のリストの要素数", ROWNS_IN_TEST_FILE, inspector.getCauses().size());
+        for (Cause cause : inspector.getCauses()) {
+            assertEquals("エラー原因のチェック", Type.NO_EXPECT_RECORD, cause.getType());
+        }
+    }
+
+    /**
+     * 外部ソートしながら取り込んだ実データを検査する場合。
+     * @throws Exception if occur
+     */
+    @Test
+    public void testInspectSortedActual() throws Exception {
+        ExcelUtils excelUtils = new ExcelUtils(TEST_FILE);
+        dataHolder = excelUtils.getTestDataHolder();
+        dataHolder.setSortBufferSize(3);
+        Connection conn = null;
+        try {
+            conn = DbUtils.getConnection();
+            dataHolder.storeToDatabase(conn, true);
+            dataHolder.loadFromDatabase(conn);
+        } finally {
+            DbUtils.closeQuietly(conn);
+        }
+        assertNotNull(dataHolder.getSortedActual());
+        assertTrue(dataHolder.getSortedActual().getRunCount() > 0);
+
+        DefaultInspector inspector = new DefaultInspector();
+        inspector.setColumnInfos(dataHolder.getColumnInfos());
+        inspector.setStartTime(System.currentTimeMillis());
+        inspector.inspect(dataHolder);
+        assertEquals("エラー原因のリストの要素数", 0, inspector.getCauses().size());
+
+        // 期待値が存在しない場合
+        dataHolder.getExpect().clear();
+        inspector.clear();
+        inspector.inspect(dataHolder);
+        assertEquals("エラー原因のリストの要素数", ROWNS_IN_TEST_FILE, inspector.getCauses().size());
+
+        // 取り込んだ実データはメモリ上に読み出せる
+        assertEquals(ROWNS_IN_TEST_FILE, dataHolder.getActual().size());
+    }
+
+    /**
+     * 記録するエラー原因の数に上限を設定した場合。
+     * @throws Exception if occur
+     */
+    @Test
+    public void testMaxCauses() throws Exception {
+        initDataHolder(TEST_FILE);
+        dataHolder.getExpect().clear();
+        DefaultInspector inspector = new DefaultInspector();
+        inspector.setColumnInfos(dataHolder.getColumnInfos());
+        inspector.setStartTime(System.currentTimeMillis());
+        inspector.setMaxCauses(3);
+        inspector.inspect(dataHolder);
+        assertFalse("検査失敗", inspector.isSuccess());
+        assertEquals("エラー原因のリストの要素数", 3, inspector.getCauses().size());
+    }
+
     /**
      * 実値のモデルオブジェクトのリストを返す
      * @return 実値のモデルオブジェクトのリスト
@@ -0,0 +1,116 @@
+/**
+ * Copyright 2011 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.testtools.inspect;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.Writable;
+import org.junit.Test;
+
+/**
+ * Test for {@link ModelSorter}.
+ */
+public class ModelSorterTest {
+
+    private static final Comparator<Writable> COMPARATOR = new Comparator<Writable>() {
+        @Override
+        public int compare(Writable o1, Writable o2) {
+            return ((IntWritable) o1).compareTo(o2);
+        }
+    };
+
+    /**
+     * メモリ上のみでソートする。
+     * @throws Exception if occur
+     */
+    @Test
+    public void inMemory() throws Exception {
+        ModelSorter sorter = new ModelSorter(IntWritable.class, COMPARATOR, 100);
+        try {
+            sorter.add(new IntWritable(3));
+            sorter.add(new IntWritable(1));
+            sorter.add(new IntWritable(2));
+            assertThat(sorter.getRunCount(), is(0));
+            assertThat(toList(sorter), is(list(1, 2, 3)));
+        } finally {
+            sorter.close();
+        }
+    }
+
+    /**
+     * 一時ファイルに書き出しながらソートする。
+     * @throws Exception if occur
+     */
+    @Test
+    public void external() throws Exception {
+        ModelSorter sorter = new ModelSorter(IntWritable.class, COMPARATOR, 7);
+        try {
+            Random random = new Random(12345);
+            List<Integer> expected = new ArrayList<Integer>();
+            for (int i = 0; i < 100; i++) {
+                int value = random.nextInt(50);
+                expected.add(value);
+                sorter.add(new IntWritable(value));
+            }
+            Collections.sort(expected);
+            assertThat(sorter.getRunCount(), is(14));
+            assertThat(toList(sorter), is(expected));
+
+            // 何度でも読み出せる
+            assertThat(toList(sorter), is(expected));
+        } finally {
+            sorter.close();
+        }
+    }
+
+    /**
+     * 要素がない場合。
+     * @throws Exception if occur
+     */
+    @Test
+    public void empty() throws Exception {
+        ModelSorter sorter = new ModelSorter(IntWritable.class, COMPARATOR, 7);
+        try {
+            assertThat(sorter.iterator().hasNext(), is(false));
+        } finally {
+            sorter.close();
+        }
+    }
+
+    private List<Integer> toList(ModelSorter sorter) {
+        List<Integer> results = new ArrayList<Integer>();
+        for (Writable model : sorter) {
+            results.add(((IntWritable) model).get());
+        }
+        return results;
+    }
+
+    private List<Integer> list(Integer... values) {
+        List<Integer> results = new ArrayList<Integer>();
+        for (Integer value : values) {
+            results.add(value);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * Copyright 2011 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.testtools.io;
+
+import com.asakusafw.runtime.io.ModelAccessor;
+import com.asakusafw.runtime.value.ValueOption;
+import com.asakusafw.testtools.model.BrokenAccessorModel;
+
+/**
+ * 初期化に失敗する{@link ModelAccessor}。
+ */
+public class BrokenAccessorModelModelAccessor implements ModelAccessor<BrokenAccessorModel> {
+
+    /**
+     * インスタンスの生成に常に失敗する。
+     */
+    public BrokenAccessorModelModelAccessor() {
+        throw new IllegalStateException("broken");
+    }
+
+    @Override
+    public Class<BrokenAccessorModel> getModelClass() {
+        return BrokenAccessorModel.class;
+    }
+
+    @Override
+    public int getPropertyCount() {
+        return 0;
+    }
+
+    @Override
+    public String getPropertyName(int index) {
+        throw new IndexOutOfBoundsException();
+    }
+
+    @Override
+    public ValueOption<?> get(BrokenAccessorModel model, int index) {
+        throw new IndexOutOfBoundsException();
+    }
+}
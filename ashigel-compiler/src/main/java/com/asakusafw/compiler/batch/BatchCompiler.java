@@ -19,6 +19,7 @@ import java.io.IOException;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -56,7 +57,16 @@ public class BatchCompiler {
     public Workflow compile(BatchDescription description) throws IOException {
         Precondition.checkMustNotBeNull(description, "description"); //$NON-NLS-1$
         Workflow workflow = createWorkflow(description);
-        processUnits(workflow.getGraph().getNodeSet());
+        boolean processed = false;
+        try {
+            processUnits(Graphs.sortPostOrder(workflow.getGraph()));
+            processed = true;
+        } finally {
+            if (processed == false) {
+                environment.cancelTasks();
+            }
+        }
+        environment.awaitTasks();
         if (environment.hasError()) {
             throw new IOException("ワークフローの解析に失敗したため、処理を中断します");
         }
@@ -80,7 +90,7 @@ public class BatchCompiler {
         }
     }
 
-    private void processUnits(Set<Workflow.Unit> units) throws IOException {
+    private void processUnits(List<Workflow.Unit> units) throws IOException {
         assert units != null;
         WorkflowProcessor.Repository repo = environment.getWorkflows();
         for (Workflow.Unit unit : units) {
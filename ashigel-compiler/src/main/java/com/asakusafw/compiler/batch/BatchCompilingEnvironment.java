@@ -19,8 +19,18 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.InterruptedIOException;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,7 +48,11 @@ public class BatchCompilingEnvironment {
 
     private final AtomicBoolean initialized = new AtomicBoolean(false);
 
-    private boolean sawError;
+    private volatile boolean sawError;
+
+    private ExecutorService executor;
+
+    private final List<Future<?>> running = new ArrayList<Future<?>>();
 
     /**
      * インスタンスを生成する。
@@ -116,6 +130,110 @@ public class BatchCompilingEnvironment {
         return new FileOutputStream(file);
     }
 
+    /**
+     * 指定のタスクを、他のタスクと並行して実行する。
+     * <p>
+     * 同時に実行するタスクの最大数は
+     * {@link com.asakusafw.compiler.flow.FlowCompilerOptions#getJobflowParallelism()}に従い、
+     * これが{@code 1}以下の場合はこのメソッドの内部でタスクを実行する。
+     * 実行を依頼したタスクは、{@link #awaitTasks()}で完了を待つこと。
+     * </p>
+     * <p>
+     * タスクはこの環境の他のオブジェクトと状態を共有しないように構成すること。
+     * </p>
+     * @param task 対象のタスク
+     * @throws IOException 並行せずに実行したタスクが失敗した場合
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     */
+    public void execute(Callable<?> task) throws IOException {
+        Precondition.checkMustNotBeNull(task, "task"); //$NON-NLS-1$
+        int parallelism = configuration.getFlowCompilerOptions().getJobflowParallelism();
+        if (parallelism <= 1) {
+            call(task);
+            return;
+        }
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(parallelism, new ThreadFactory() {
+                private final AtomicInteger counter = new AtomicInteger();
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r);
+                    thread.setName(MessageFormat.format(
+                            "batch-compiler-{0}",
+                            counter.incrementAndGet()));
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        running.add(executor.submit(task));
+    }
+
+    private void call(Callable<?> task) throws IOException {
+        assert task != null;
+        try {
+            task.call();
+        } catch (IOException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * {@link #execute(Callable)}で実行を依頼した全てのタスクの完了を待つ。
+     * <p>
+     * 複数のタスクが失敗した場合、実行を依頼した順序で最初に失敗したタスクの例外を送出する。
+     * </p>
+     * @throws IOException いずれかのタスクが失敗した場合
+     */
+    public void awaitTasks() throws IOException {
+        try {
+            Throwable failure = null;
+            for (Future<?> future : running) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                    } else {
+                        LOG.debug("Suppressed failure", e.getCause());
+                    }
+                }
+            }
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            } else if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (failure instanceof Error) {
+                throw (Error) failure;
+            } else if (failure != null) {
+                throw new IOException(failure);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for tasks");
+        } finally {
+            cancelTasks();
+        }
+    }
+
+    /**
+     * {@link #execute(Callable)}で実行を依頼したタスクのうち、完了していないものを中断する。
+     */
+    public void cancelTasks() {
+        for (Future<?> future : running) {
+            future.cancel(true);
+        }
+        running.clear();
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
     /**
      * この環境に対してエラーメッセージを追加する。
      * @param format メッセージのフォーマット ({@link MessageFormat}形式)
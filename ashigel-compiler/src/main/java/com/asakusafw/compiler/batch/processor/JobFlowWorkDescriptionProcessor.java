@@ -17,6 +17,7 @@ package com.asakusafw.compiler.batch.processor;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.Callable;
 
 import com.asakusafw.compiler.batch.AbstractWorkDescriptionProcessor;
 import com.asakusafw.compiler.batch.BatchCompilerConfiguration;
@@ -63,13 +64,20 @@ public class JobFlowWorkDescriptionProcessor
             return null;
         }
         FlowCompilerConfiguration config = createConfiguration(jobflow);
-        FlowCompiler compiler = new FlowCompiler(config);
+        final FlowCompiler compiler = new FlowCompiler(config);
         JobflowModel model = compiler.compile(jobflow.getGraph());
 
-        File batchOutput = getEnvironment().getConfiguration().getOutputDirectory();
-        String flowId = compiler.getTargetFlowId();
-        compiler.buildSources(getPackageLocation(batchOutput, flowId));
-        compiler.collectSources(getSourceLocation(batchOutput, flowId));
+        // the packaging only uses this jobflow's own packager, so it can run concurrently
+        final File batchOutput = getEnvironment().getConfiguration().getOutputDirectory();
+        final String flowId = compiler.getTargetFlowId();
+        getEnvironment().execute(new Callable<Void>() {
+            @Override
+            public Void call() throws IOException {
+                compiler.buildSources(getPackageLocation(batchOutput, flowId));
+                compiler.collectSources(getSourceLocation(batchOutput, flowId));
+                return null;
+            }
+        });
         return model;
     }
 
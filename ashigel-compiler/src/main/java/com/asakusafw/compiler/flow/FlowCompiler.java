@@ -72,6 +72,7 @@ public class FlowCompiler {
     public JobflowModel compile(FlowGraph graph) throws IOException {
         Precondition.checkMustNotBeNull(graph, "graph"); //$NON-NLS-1$
         validate(graph);
+        environment.setCounterGroupNames(FlowProfile.getCounterGroupNames(graph));
         StageGraph stageGraph = plan(graph);
         visualize(graph, stageGraph);
         List<StageModel> stages = compileStages(stageGraph);
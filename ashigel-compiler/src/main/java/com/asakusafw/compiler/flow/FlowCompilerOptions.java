@@ -15,6 +15,12 @@
  */
 package com.asakusafw.compiler.flow;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.text.MessageFormat;
 import java.util.NoSuchElementException;
 import java.util.Properties;
 import java.util.regex.Matcher;
@@ -24,6 +30,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.asakusafw.compiler.common.Precondition;
+import com.asakusafw.vocabulary.operator.Logging;
 
 /**
  * Flowコンパイラのオプション設定。
@@ -37,6 +44,31 @@ public class FlowCompilerOptions {
      */
     public static final String K_OPTIONS = "com.asakusafw.compiler.options";
 
+    /**
+     * プロファイル情報のファイルを指定する際の設定名。
+     * @see FlowProfile
+     */
+    public static final String K_PROFILE = "com.asakusafw.compiler.profile";
+
+    /**
+     * 残すロギング演算子のうち最も詳細なレベルを指定する際の設定名。
+     * @see Logging.Level
+     */
+    public static final String K_LOGGING_LEVEL = "com.asakusafw.compiler.logging.level";
+
+    /**
+     * 生成したプログラムのコンパイルを同時に実行する最大数を指定する際の設定名。
+     * <p>
+     * 省略した場合は{@code 1}で、全てのプログラムを一度にまとめてコンパイルする。
+     * </p>
+     */
+    public static final String K_BUILD_PARALLELISM = "com.asakusafw.compiler.build.parallelism";
+
+    /**
+     * バッチに含まれるジョブフローのパッケージングを同時に実行する最大数を指定する際の設定名。
+     */
+    public static final String K_JOBFLOW_PARALLELISM = "com.asakusafw.compiler.jobflow.parallelism";
+
     /**
      * オプションの項目一覧。
      */
@@ -113,6 +145,32 @@ public class FlowCompilerOptions {
                 options.setEnableDebugLogging(value);
             }
         },
+
+        /**
+         * オプション項目: ステージの出力やマップ出力を、見積もったデータ量に応じて圧縮する。
+         * <p>
+         * 利用するコーデックや圧縮の形式は実行時の設定で変更できる。
+         * デフォルトでは無効 (false) で、クラスタの設定に従う。
+         * </p>
+         */
+        enableStageCompression(false) {
+            @Override void setTo(FlowCompilerOptions options, boolean value) {
+                options.setEnableStageCompression(value);
+            }
+        },
+
+        /**
+         * オプション項目: 演算子ごとのレコード数と処理時間をHadoopのカウンタとして報告する。
+         * <p>
+         * Hadoopのカウンタ数の上限を超えないよう、計測する演算子の数はステージごとに制限される。
+         * デフォルトでは無効 (false)。
+         * </p>
+         */
+        enableInstrumentation(false) {
+            @Override void setTo(FlowCompilerOptions options, boolean value) {
+                options.setEnableInstrumentation(value);
+            }
+        },
         ;
 
         /**
@@ -139,6 +197,18 @@ public class FlowCompilerOptions {
 
     private volatile boolean enableDebugLogging;
 
+    private volatile boolean enableStageCompression;
+
+    private volatile boolean enableInstrumentation;
+
+    private volatile FlowProfile profile = FlowProfile.EMPTY;
+
+    private volatile Logging.Level loggingLevel;
+
+    private volatile int buildParallelism = 1;
+
+    private volatile int jobflowParallelism = 1;
+
     /**
      * デフォルトの設定でインスタンスを生成する。
      */
@@ -153,7 +223,9 @@ public class FlowCompilerOptions {
     /**
      * デフォルトの設定をプロパティからロードする。
      * <p>
-     * 利用するプロパティのキーは現在のところ{@link #K_OPTIONS}のみで、
+     * 利用するプロパティのキーは{@link #K_OPTIONS}、{@link #K_PROFILE}、{@link #K_LOGGING_LEVEL}、
+     * {@link #K_BUILD_PARALLELISM}、および{@link #K_JOBFLOW_PARALLELISM}で、
+     * {@link #K_OPTIONS}には
      * 以下のような{@code OptionList}の形式で指定すること。
      * </p>
 <pre><code>
@@ -173,6 +245,11 @@ OptionName:
      * また、利用可能なオプション名は{@link FlowCompilerOptions.Item}
      * に定義される列挙定数の名前に等しい。
      * </p>
+     * <p>
+     * {@link #K_PROFILE}には{@link FlowProfile}の形式で書かれたファイルのパスを指定する。
+     * {@link #K_LOGGING_LEVEL}には{@link Logging.Level}に定義される列挙定数の名前を指定する。
+     * {@link #K_BUILD_PARALLELISM}と{@link #K_JOBFLOW_PARALLELISM}には正の整数を指定する。
+     * </p>
      * @param properties プロパティ一覧
      * @return オプション設定
      * @throws IllegalArgumentException 引数に{@code null}が指定された場合
@@ -200,9 +277,53 @@ OptionName:
                 continue;
             }
         }
+        String profilePath = properties.getProperty(K_PROFILE);
+        if (profilePath != null && profilePath.trim().isEmpty() == false) {
+            results.setProfile(loadProfile(new File(profilePath.trim())));
+        }
+        String loggingLevel = properties.getProperty(K_LOGGING_LEVEL);
+        if (loggingLevel != null && loggingLevel.trim().isEmpty() == false) {
+            try {
+                results.setLoggingLevel(Logging.Level.valueOf(loggingLevel.trim().toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                LOG.warn("ロギングのレベル\"{}\"を解釈できません", loggingLevel);
+            }
+        }
+        String buildParallelism = properties.getProperty(K_BUILD_PARALLELISM);
+        if (buildParallelism != null && buildParallelism.trim().isEmpty() == false) {
+            try {
+                results.setBuildParallelism(Integer.parseInt(buildParallelism.trim()));
+            } catch (NumberFormatException e) {
+                LOG.warn("コンパイルの並列度\"{}\"を解釈できません", buildParallelism);
+            }
+        }
+        String jobflowParallelism = properties.getProperty(K_JOBFLOW_PARALLELISM);
+        if (jobflowParallelism != null && jobflowParallelism.trim().isEmpty() == false) {
+            try {
+                results.setJobflowParallelism(Integer.parseInt(jobflowParallelism.trim()));
+            } catch (NumberFormatException e) {
+                LOG.warn("ジョブフローのパッケージングの並列度\"{}\"を解釈できません", jobflowParallelism);
+            }
+        }
         return results;
     }
 
+    private static FlowProfile loadProfile(File file) {
+        assert file != null;
+        LOG.info("プロファイル情報{}を利用します", file);
+        try {
+            Reader reader = new InputStreamReader(new FileInputStream(file), "UTF-8");
+            try {
+                return FlowProfile.load(reader);
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            LOG.warn(MessageFormat.format("プロファイル情報{0}を読み出せません", file), e);
+            return FlowProfile.EMPTY;
+        }
+    }
+
     /**
      * Combinerを有効にする。
      * @return 設定値
@@ -298,4 +419,136 @@ OptionName:
     public void setEnableDebugLogging(boolean enable) {
         this.enableDebugLogging = enable;
     }
+
+    /**
+     * ステージの出力やマップ出力を、見積もったデータ量に応じて圧縮する。
+     * @return 設定値
+     */
+    public boolean isEnableStageCompression() {
+        return this.enableStageCompression;
+    }
+
+    /**
+     * ステージの出力やマップ出力を、見積もったデータ量に応じて圧縮する。
+     * @param enable 設定値
+     */
+    public void setEnableStageCompression(boolean enable) {
+        this.enableStageCompression = enable;
+    }
+
+    /**
+     * 演算子の出力ごとのレコード数と処理時間をHadoopのカウンタとして報告する。
+     * @return 設定値
+     */
+    public boolean isEnableInstrumentation() {
+        return this.enableInstrumentation;
+    }
+
+    /**
+     * 演算子の出力ごとのレコード数と処理時間をHadoopのカウンタとして報告する。
+     * @param enable 設定値
+     */
+    public void setEnableInstrumentation(boolean enable) {
+        this.enableInstrumentation = enable;
+    }
+
+    /**
+     * 過去の実行結果から得られたプロファイル情報を返す。
+     * @return プロファイル情報
+     */
+    public FlowProfile getProfile() {
+        return this.profile;
+    }
+
+    /**
+     * 過去の実行結果から得られたプロファイル情報を設定する。
+     * @param profile プロファイル情報
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     */
+    public void setProfile(FlowProfile profile) {
+        Precondition.checkMustNotBeNull(profile, "profile"); //$NON-NLS-1$
+        this.profile = profile;
+    }
+
+    /**
+     * 残すロギング演算子のうち最も詳細なレベルを返す。
+     * <p>
+     * これより詳細なレベルのロギング演算子はコンパイル時に除去される。
+     * </p>
+     * @return 残すロギング演算子のうち最も詳細なレベル、
+     *     {@link #isEnableDebugLogging()}に従う場合は{@code null}
+     */
+    public Logging.Level getLoggingLevel() {
+        return loggingLevel;
+    }
+
+    /**
+     * 残すロギング演算子のうち最も詳細なレベルを設定する。
+     * @param level 残すロギング演算子のうち最も詳細なレベル、
+     *     {@link #isEnableDebugLogging()}に従う場合は{@code null}
+     */
+    public void setLoggingLevel(Logging.Level level) {
+        this.loggingLevel = level;
+    }
+
+    /**
+     * 生成したプログラムのコンパイルを同時に実行する最大数を返す。
+     * <p>
+     * この値はバッチ全体での最大数で、ジョブフローごとの最大数は
+     * {@link #getBuildParallelismPerJobflow()}で取得できる。
+     * </p>
+     * @return 同時に実行する最大数
+     */
+    public int getBuildParallelism() {
+        return buildParallelism;
+    }
+
+    /**
+     * 1つのジョブフローについて、生成したプログラムのコンパイルを同時に実行する最大数を返す。
+     * <p>
+     * {@link #getJobflowParallelism()}の数までジョブフローを並行してパッケージングする場合、
+     * それぞれのジョブフローでさらにコンパイルを並行して実行するため、
+     * {@link #getBuildParallelism()}をジョブフローの並列度で割った数を返す (最小は{@code 1})。
+     * これにより、バッチ全体で同時に実行されるコンパイルの数はおおむね{@link #getBuildParallelism()}に収まる。
+     * </p>
+     * @return 同時に実行する最大数
+     */
+    public int getBuildParallelismPerJobflow() {
+        return Math.max(1, buildParallelism / Math.max(1, jobflowParallelism));
+    }
+
+    /**
+     * 生成したプログラムのコンパイルを同時に実行する最大数を設定する。
+     * <p>
+     * 既定値は{@code 1}で、全てのプログラムを一度にまとめてコンパイルする。
+     * 並行してコンパイルする場合、それぞれのコンパイラが構文木やシンボル表を個別に保持するため、
+     * 並列度にほぼ比例してコンパイラのヒープ使用量が増える。
+     * ジョブフローを並行してパッケージングする場合は、それらの間で分け合う。
+     * </p>
+     * @param parallelism 同時に実行する最大数、{@code 1}以下の場合は一度にまとめてコンパイルする
+     */
+    public void setBuildParallelism(int parallelism) {
+        this.buildParallelism = parallelism;
+    }
+
+    /**
+     * バッチに含まれるジョブフローのパッケージングを同時に実行する最大数を返す。
+     * @return 同時に実行する最大数
+     */
+    public int getJobflowParallelism() {
+        return jobflowParallelism;
+    }
+
+    /**
+     * バッチに含まれるジョブフローのパッケージングを同時に実行する最大数を設定する。
+     * <p>
+     * 既定値は{@code 1}で、ジョブフローを順にパッケージングする。
+     * 2以上を指定した場合、ジョブフローごとのコンパイルの並列度は
+     * {@link #getBuildParallelismPerJobflow()}に制限される。
+     * </p>
+     * @param parallelism 同時に実行する最大数、{@code 1}以下の場合は順に実行する
+     */
+    public void setJobflowParallelism(int parallelism) {
+        this.jobflowParallelism = parallelism;
+    }
 }
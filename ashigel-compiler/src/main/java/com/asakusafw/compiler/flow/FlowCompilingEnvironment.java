@@ -19,6 +19,9 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.text.MessageFormat;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
@@ -28,6 +31,7 @@ import org.slf4j.LoggerFactory;
 
 import com.asakusafw.compiler.common.JavaName;
 import com.asakusafw.compiler.common.Precondition;
+import com.asakusafw.vocabulary.flow.graph.FlowElementDescription;
 import com.ashigeru.lang.java.model.syntax.CompilationUnit;
 import com.ashigeru.lang.java.model.syntax.ModelFactory;
 import com.ashigeru.lang.java.model.syntax.Name;
@@ -47,7 +51,9 @@ public class FlowCompilingEnvironment {
 
     private final AtomicInteger counter = new AtomicInteger();
 
-    private boolean sawError;
+    private volatile boolean sawError;
+
+    private volatile Map<FlowElementDescription, String> counterGroupNames = Collections.emptyMap();
 
     /**
      * インスタンスを生成する。
@@ -352,6 +358,44 @@ public class FlowCompilingEnvironment {
         return config.getOptions();
     }
 
+    /**
+     * 対象のフローに含まれる演算子のカウンタグループ名を設定する。
+     * @param names 演算子の記述とカウンタグループ名の対応表
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     * @see FlowProfile#getCounterGroupNames(com.asakusafw.vocabulary.flow.graph.FlowGraph)
+     */
+    public void setCounterGroupNames(Map<FlowElementDescription, String> names) {
+        Precondition.checkMustNotBeNull(names, "names"); //$NON-NLS-1$
+        this.counterGroupNames = Collections.unmodifiableMap(new HashMap<FlowElementDescription, String>(names));
+    }
+
+    /**
+     * 対象のフローに含まれる演算子のカウンタグループ名の対応表を返す。
+     * @return 演算子の記述とカウンタグループ名の対応表
+     */
+    public Map<FlowElementDescription, String> getCounterGroupNames() {
+        return counterGroupNames;
+    }
+
+    /**
+     * 指定の要素に関する統計情報を報告する際のカウンタグループ名を返す。
+     * <p>
+     * 名前が割り当てられていない要素については、
+     * {@link FlowProfile#getCounterGroupName(FlowElementDescription)}の結果を返す。
+     * </p>
+     * @param description 対象の要素
+     * @return 対応するカウンタグループ名
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     */
+    public String getCounterGroupName(FlowElementDescription description) {
+        Precondition.checkMustNotBeNull(description, "description"); //$NON-NLS-1$
+        String name = counterGroupNames.get(description);
+        if (name != null) {
+            return name;
+        }
+        return FlowProfile.getCounterGroupName(description);
+    }
+
     /**
      * この環境に対してエラーメッセージを追加する。
      * @param format メッセージのフォーマット ({@link MessageFormat}形式)
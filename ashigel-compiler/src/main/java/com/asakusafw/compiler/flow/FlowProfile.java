@@ -0,0 +1,436 @@
+/**
+ * Copyright 2011 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.compiler.flow;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.asakusafw.compiler.common.Precondition;
+import com.asakusafw.vocabulary.external.ImporterDescription.DataSize;
+import com.asakusafw.vocabulary.flow.graph.FlowElement;
+import com.asakusafw.vocabulary.flow.graph.FlowElementDescription;
+import com.asakusafw.vocabulary.flow.graph.FlowElementInput;
+import com.asakusafw.vocabulary.flow.graph.FlowElementKind;
+import com.asakusafw.vocabulary.flow.graph.FlowElementOutput;
+import com.asakusafw.vocabulary.flow.graph.FlowGraph;
+import com.asakusafw.vocabulary.flow.graph.FlowIn;
+import com.asakusafw.vocabulary.flow.graph.FlowPartDescription;
+import com.asakusafw.vocabulary.flow.graph.OperatorDescription;
+
+/**
+ * 過去の実行結果から得られたプロファイル情報。
+ * <p>
+ * プロファイルは{@code key=value}の形式の行を並べたテキストで、
+ * 差分を取りやすいよう常にキーの順に整列して書き出す。
+ * {@code #}で始まる行と空行は無視する。
+ * 利用可能なキーは以下のとおり。
+ * </p>
+<pre><code>
+(flowId).input.(inputName).bytes=(入力データのバイト数)
+(flowId).stage.(stageNumber).selectivity=(入力に対するシャッフルデータ量の百分率)
+(flowId).stage.(stageNumber).combiner=(Combinerを利用する場合にtrue)
+(flowId).stage.(stageNumber).elapsed=(ステージの経過時間のミリ秒数)
+(flowId).stage.(stageNumber).records.in=(ステージへの入力レコード数)
+(flowId).stage.(stageNumber).records.out=(ステージからの出力レコード数)
+(flowId).stage.(stageNumber).shuffle.bytes=(シャッフルデータのバイト数)
+(flowId).stage.(stageNumber).skew=(Reduceタスクの平均処理時間に対する最長処理時間の百分率)
+(flowId).operator.(counterGroup).nanos=(演算子の処理時間のナノ秒数)
+</code></pre>
+ * <p>
+ * 演算子の{@code counterGroup}は{@link #getCounterGroupNames(FlowGraph)}が割り当てる名前で、
+ * 演算子の計測を有効にした際に報告されるカウンタのグループ名と一致する。
+ * </p>
+ * <p>
+ * ステージ番号はコンパイル結果に依存するため、
+ * フローの構造を変更した場合はステージに関する情報を取り直す必要がある。
+ * </p>
+ */
+public class FlowProfile {
+
+    static final Logger LOG = LoggerFactory.getLogger(FlowProfile.class);
+
+    /**
+     * 情報を持たないプロファイル。
+     */
+    public static final FlowProfile EMPTY = new FlowProfile(new TreeMap<String, String>());
+
+    /**
+     * {@link DataSize#TINY}として扱うデータサイズの上限 (バイト数)。
+     */
+    static final long TINY_LIMIT = 10L * 1024 * 1024;
+
+    /**
+     * {@link DataSize#SMALL}として扱うデータサイズの上限 (バイト数)。
+     */
+    static final long SMALL_LIMIT = 200L * 1024 * 1024;
+
+    private static final Comparator<FlowElement> ELEMENT_ORDER = new Comparator<FlowElement>() {
+        @Override
+        public int compare(FlowElement o1, FlowElement o2) {
+            return getSortKey(o1).compareTo(getSortKey(o2));
+        }
+    };
+
+    private final SortedMap<String, String> entries;
+
+    /**
+     * インスタンスを生成する。
+     * @param entries プロファイルの項目一覧
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     */
+    public FlowProfile(Map<String, String> entries) {
+        Precondition.checkMustNotBeNull(entries, "entries"); //$NON-NLS-1$
+        this.entries = Collections.unmodifiableSortedMap(new TreeMap<String, String>(entries));
+    }
+
+    /**
+     * プロファイルを読み出す。
+     * @param reader 読み出し元
+     * @return 読み出したプロファイル
+     * @throws IOException 読み出しに失敗した場合
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     */
+    public static FlowProfile load(Reader reader) throws IOException {
+        Precondition.checkMustNotBeNull(reader, "reader"); //$NON-NLS-1$
+        BufferedReader buffer = new BufferedReader(reader);
+        Map<String, String> entries = new TreeMap<String, String>();
+        int lineNumber = 0;
+        while (true) {
+            String line = buffer.readLine();
+            if (line == null) {
+                break;
+            }
+            lineNumber++;
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            int separator = trimmed.indexOf('=');
+            if (separator < 0) {
+                LOG.warn("プロファイルの{}行目を解釈できません: {}", lineNumber, line);
+                continue;
+            }
+            entries.put(
+                    trimmed.substring(0, separator).trim(),
+                    trimmed.substring(separator + 1).trim());
+        }
+        return new FlowProfile(entries);
+    }
+
+    /**
+     * このプロファイルをキーの順に書き出す。
+     * @param writer 書き出し先
+     * @throws IOException 書き出しに失敗した場合
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     */
+    public void store(Writer writer) throws IOException {
+        Precondition.checkMustNotBeNull(writer, "writer"); //$NON-NLS-1$
+        PrintWriter printer = new PrintWriter(writer);
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            printer.print(entry.getKey());
+            printer.print('=');
+            printer.println(entry.getValue());
+        }
+        printer.flush();
+        if (printer.checkError()) {
+            throw new IOException("Failed to write profile");
+        }
+    }
+
+    /**
+     * このプロファイルの項目一覧を返す。
+     * @return 項目一覧 (キーの順)
+     */
+    public SortedMap<String, String> getEntries() {
+        return entries;
+    }
+
+    /**
+     * 指定の入力について、過去の実行結果から見積もったデータサイズを返す。
+     * @param flowId 対象のフローID
+     * @param inputName 対象の入力の名前
+     * @return 見積もったデータサイズ、情報がない場合は{@code null}
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     */
+    public DataSize getInputDataSize(String flowId, String inputName) {
+        Precondition.checkMustNotBeNull(flowId, "flowId"); //$NON-NLS-1$
+        Precondition.checkMustNotBeNull(inputName, "inputName"); //$NON-NLS-1$
+        long bytes = getLong(MessageFormat.format("{0}.input.{1}.bytes", flowId, inputName));
+        if (bytes < 0) {
+            return null;
+        }
+        if (bytes < TINY_LIMIT) {
+            return DataSize.TINY;
+        }
+        if (bytes < SMALL_LIMIT) {
+            return DataSize.SMALL;
+        }
+        return DataSize.LARGE;
+    }
+
+    /**
+     * 指定のステージについて、入力に対するシャッフルデータ量の百分率を返す。
+     * @param flowId 対象のフローID
+     * @param stageNumber 対象のステージ番号
+     * @return 入力に対するシャッフルデータ量の百分率、情報がない場合は負の値
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     */
+    public int getShuffleSelectivity(String flowId, int stageNumber) {
+        Precondition.checkMustNotBeNull(flowId, "flowId"); //$NON-NLS-1$
+        long value = getLong(MessageFormat.format("{0}.stage.{1}.selectivity", flowId, String.valueOf(stageNumber)));
+        if (value < 0) {
+            return -1;
+        }
+        return (int) Math.min(value, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 指定のステージでCombinerを利用するかどうかを返す。
+     * @param flowId 対象のフローID
+     * @param stageNumber 対象のステージ番号
+     * @return Combinerを利用する場合は{@code true}、利用しない場合は{@code false}、
+     *     情報がない場合は{@code null}
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     */
+    public Boolean getCombiner(String flowId, int stageNumber) {
+        Precondition.checkMustNotBeNull(flowId, "flowId"); //$NON-NLS-1$
+        String value = entries.get(MessageFormat.format("{0}.stage.{1}.combiner", flowId, String.valueOf(stageNumber)));
+        if (value == null) {
+            return null;
+        }
+        return Boolean.valueOf(value);
+    }
+
+    /**
+     * 指定のステージについて、過去の実行結果から得られた統計値を返す。
+     * @param flowId 対象のフローID
+     * @param stageNumber 対象のステージ番号
+     * @param metric 統計値の種類
+     * @return 統計値、情報がない場合は負の値
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     */
+    public long getStageMetric(String flowId, int stageNumber, StageMetric metric) {
+        Precondition.checkMustNotBeNull(flowId, "flowId"); //$NON-NLS-1$
+        Precondition.checkMustNotBeNull(metric, "metric"); //$NON-NLS-1$
+        return getLong(MessageFormat.format(
+                "{0}.stage.{1}.{2}",
+                flowId,
+                String.valueOf(stageNumber),
+                metric.getKey()));
+    }
+
+    /**
+     * 指定の演算子について、過去の実行結果から得られた処理時間を返す。
+     * @param flowId 対象のフローID
+     * @param counterGroup 対象の演算子のカウンタグループ名
+     * @return 処理時間のナノ秒数、情報がない場合は負の値
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     * @see #getCounterGroupNames(FlowGraph)
+     */
+    public long getOperatorElapsed(String flowId, String counterGroup) {
+        Precondition.checkMustNotBeNull(flowId, "flowId"); //$NON-NLS-1$
+        Precondition.checkMustNotBeNull(counterGroup, "counterGroup"); //$NON-NLS-1$
+        return getLong(MessageFormat.format(
+                "{0}.operator.{1}.nanos",
+                flowId,
+                counterGroup));
+    }
+
+    /**
+     * 指定のフローグラフに含まれる演算子に、統計情報を報告する際のカウンタグループ名を割り当てる。
+     * <p>
+     * 名前は{@code 宣言クラスの完全限定名#メソッド名.通番}の形式で、
+     * 通番は同じメソッドを利用する演算子ごとに、フローの入力から近い順に1から割り当てる。
+     * フロー部品の内側の演算子も対象となる。
+     * </p>
+     * @param graph 対象のフローグラフ
+     * @return 演算子の記述とカウンタグループ名の対応表
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     */
+    public static Map<FlowElementDescription, String> getCounterGroupNames(FlowGraph graph) {
+        Precondition.checkMustNotBeNull(graph, "graph"); //$NON-NLS-1$
+        List<FlowElement> elements = new ArrayList<FlowElement>();
+        collectElements(graph, elements, new HashSet<FlowElement>());
+        Map<String, Integer> serialNumbers = new HashMap<String, Integer>();
+        Map<FlowElementDescription, String> results = new HashMap<FlowElementDescription, String>();
+        for (FlowElement element : elements) {
+            FlowElementDescription description = element.getDescription();
+            if (description.getKind() != FlowElementKind.OPERATOR || results.containsKey(description)) {
+                continue;
+            }
+            String name = getCounterGroupName(description);
+            Integer last = serialNumbers.get(name);
+            int serialNumber = last == null ? 1 : last + 1;
+            serialNumbers.put(name, serialNumber);
+            results.put(description, MessageFormat.format("{0}.{1}", name, String.valueOf(serialNumber)));
+        }
+        return results;
+    }
+
+    /**
+     * 指定の要素について、通番を含まないカウンタグループ名を返す。
+     * <p>
+     * 演算子の場合は{@code 宣言クラスの完全限定名#メソッド名}、
+     * それ以外の場合は要素の名前となる。
+     * {@link #getCounterGroupNames(FlowGraph)}で名前を割り当てられなかった要素に利用する。
+     * </p>
+     * @param description 対象の要素
+     * @return 対応するカウンタグループ名
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     */
+    public static String getCounterGroupName(FlowElementDescription description) {
+        Precondition.checkMustNotBeNull(description, "description"); //$NON-NLS-1$
+        if (description instanceof OperatorDescription) {
+            OperatorDescription.Declaration declaration = ((OperatorDescription) description).getDeclaration();
+            return MessageFormat.format(
+                    "{0}#{1}",
+                    declaration.getDeclaring().getName(),
+                    declaration.getName());
+        }
+        return description.getName();
+    }
+
+    private static void collectElements(FlowGraph graph, List<FlowElement> results, Set<FlowElement> saw) {
+        assert graph != null;
+        assert results != null;
+        assert saw != null;
+        // 接続の集合は順序を持たないため、フローの入力から幅優先でたどり、同じ段の要素は名前の順に並べる
+        LinkedList<FlowElement> work = new LinkedList<FlowElement>();
+        for (FlowIn<?> input : graph.getFlowInputs()) {
+            work.add(input.getFlowElement());
+        }
+        while (work.isEmpty() == false) {
+            FlowElement element = work.removeFirst();
+            if (saw.contains(element)) {
+                continue;
+            }
+            saw.add(element);
+            results.add(element);
+            FlowElementDescription description = element.getDescription();
+            if (description.getKind() == FlowElementKind.FLOW_COMPONENT) {
+                collectElements(((FlowPartDescription) description).getFlowGraph(), results, saw);
+            }
+            for (FlowElementOutput output : element.getOutputPorts()) {
+                List<FlowElement> next = new ArrayList<FlowElement>();
+                for (FlowElementInput opposite : output.getOpposites()) {
+                    next.add(opposite.getOwner());
+                }
+                Collections.sort(next, ELEMENT_ORDER);
+                work.addAll(next);
+            }
+        }
+    }
+
+    static String getSortKey(FlowElement element) {
+        assert element != null;
+        FlowElementDescription description = element.getDescription();
+        StringBuilder buf = new StringBuilder();
+        buf.append(description.getKind());
+        buf.append(':');
+        buf.append(getCounterGroupName(description));
+        if (description instanceof OperatorDescription) {
+            for (OperatorDescription.Parameter parameter : ((OperatorDescription) description).getParameters()) {
+                buf.append(':');
+                buf.append(parameter.getValue());
+            }
+        }
+        return buf.toString();
+    }
+
+    private long getLong(String key) {
+        assert key != null;
+        String value = entries.get(key);
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            LOG.warn("プロファイルの項目{}を数値として解釈できません: {}", key, value);
+            return -1;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MessageFormat.format("FlowProfile({0} entries)", entries.size());
+    }
+
+    /**
+     * ステージに関する統計値の種類。
+     */
+    public enum StageMetric {
+
+        /**
+         * ステージの経過時間のミリ秒数。
+         */
+        ELAPSED("elapsed"),
+
+        /**
+         * ステージへの入力レコード数。
+         */
+        INPUT_RECORDS("records.in"),
+
+        /**
+         * ステージからの出力レコード数。
+         */
+        OUTPUT_RECORDS("records.out"),
+
+        /**
+         * シャッフルデータのバイト数。
+         */
+        SHUFFLE_BYTES("shuffle.bytes"),
+
+        /**
+         * Reduceタスクの平均処理時間に対する最長処理時間の百分率。
+         */
+        SKEW("skew"),
+        ;
+
+        private final String key;
+
+        private StageMetric(String key) {
+            assert key != null;
+            this.key = key;
+        }
+
+        /**
+         * この統計値を表すプロファイル上のキーの末尾を返す。
+         * @return キーの末尾
+         */
+        public String getKey() {
+            return key;
+        }
+    }
+}
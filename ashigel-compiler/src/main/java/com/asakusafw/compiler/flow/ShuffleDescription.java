@@ -16,6 +16,7 @@
 package com.asakusafw.compiler.flow;
 
 import java.lang.reflect.Type;
+import java.util.List;
 
 import com.asakusafw.compiler.common.Precondition;
 import com.asakusafw.vocabulary.flow.graph.ShuffleKey;
@@ -32,6 +33,8 @@ public class ShuffleDescription {
 
     private LinePartProcessor converter;
 
+    private List<String> valuePropertiesOrNull;
+
     /**
      * インスタンスを生成する。
      * @param outputType レデュースに入力される型
@@ -43,12 +46,30 @@ public class ShuffleDescription {
             Type outputType,
             ShuffleKey keyInfo,
             LinePartProcessor converter) {
+        this(outputType, keyInfo, converter, null);
+    }
+
+    /**
+     * インスタンスを生成する。
+     * @param outputType レデュースに入力される型
+     * @param keyInfo シャッフルで利用するキーの情報
+     * @param converter シャッフル前に適用される変換機
+     * @param valuePropertiesOrNull
+     *     レデュース側で利用されるプロパティ名の一覧、全てのプロパティを利用する場合は{@code null}
+     * @throws IllegalArgumentException 引数に{@code null}が含まれる場合
+     */
+    public ShuffleDescription(
+            Type outputType,
+            ShuffleKey keyInfo,
+            LinePartProcessor converter,
+            List<String> valuePropertiesOrNull) {
         Precondition.checkMustNotBeNull(outputType, "outputType"); //$NON-NLS-1$
         Precondition.checkMustNotBeNull(keyInfo, "keyInfo"); //$NON-NLS-1$
         Precondition.checkMustNotBeNull(converter, "converter"); //$NON-NLS-1$
         this.outputType = outputType;
         this.keyInfo = keyInfo;
         this.converter = converter;
+        this.valuePropertiesOrNull = valuePropertiesOrNull;
     }
 
     /**
@@ -74,4 +95,15 @@ public class ShuffleDescription {
     public LinePartProcessor getConverter() {
         return converter;
     }
+
+    /**
+     * レデュース側で利用されるプロパティ名の一覧を返す。
+     * <p>
+     * シャッフルフェーズでは、ここに含まれるプロパティとキープロパティのみが転送される。
+     * </p>
+     * @return レデュース側で利用されるプロパティ名の一覧、全てのプロパティを利用する場合は{@code null}
+     */
+    public List<String> getValuePropertiesOrNull() {
+        return valuePropertiesOrNull;
+    }
 }
@@ -51,6 +51,8 @@ import com.asakusafw.vocabulary.flow.graph.FlowElementDescription;
 import com.asakusafw.vocabulary.flow.graph.FlowElementKind;
 import com.asakusafw.vocabulary.flow.graph.InputDescription;
 import com.asakusafw.vocabulary.flow.graph.OutputDescription;
+import com.ashigeru.util.graph.Graph;
+import com.ashigeru.util.graph.Graphs;
 
 /**
  * ジョブフローの構造を解析する。
@@ -113,14 +115,68 @@ public class JobflowAnalyzer {
         if (hasError()) {
             return null;
         }
+        markIntermediate(exports, stages);
 
-        return new JobflowModel(
+        JobflowModel jobflow = new JobflowModel(
                 graph,
                 environment.getBatchId(),
                 environment.getFlowId(),
                 imports,
                 exports,
                 stages);
+        computeCriticalPaths(jobflow);
+        return jobflow;
+    }
+
+    /**
+     * 各ステージについて、そのステージを通る最長のパスの重みを計算する。
+     * <p>
+     * パスの重みは経路上のステージの見積もりコストの和で、
+     * 先頭からステージまでの最長距離と、ステージから末尾までの最長距離を合成して求める。
+     * </p>
+     * @param jobflow 対象のジョブフロー
+     */
+    private void computeCriticalPaths(JobflowModel jobflow) {
+        assert jobflow != null;
+        Graph<Stage> graph = jobflow.getDependencyGraph();
+
+        // 先頭からこのステージまで (このステージを含む)
+        Map<Stage, Integer> upstreams = new HashMap<Stage, Integer>();
+        for (Stage stage : Graphs.sortPostOrder(graph)) {
+            int max = 0;
+            for (Stage pred : graph.getConnected(stage)) {
+                max = Math.max(max, upstreams.get(pred));
+            }
+            upstreams.put(stage, max + stage.getEstimatedCost());
+        }
+
+        // このステージから末尾まで (このステージを含む)
+        Graph<Stage> transposed = Graphs.transpose(graph);
+        Map<Stage, Integer> downstreams = new HashMap<Stage, Integer>();
+        for (Stage stage : Graphs.sortPostOrder(transposed)) {
+            int max = 0;
+            for (Stage succ : transposed.getConnected(stage)) {
+                max = Math.max(max, downstreams.get(succ));
+            }
+            downstreams.put(stage, max + stage.getEstimatedCost());
+        }
+
+        Map<Stage, Integer> weights = new HashMap<Stage, Integer>();
+        int maxWeight = 0;
+        for (Stage stage : jobflow.getStages()) {
+            int weight = upstreams.get(stage) + downstreams.get(stage) - stage.getEstimatedCost();
+            weights.put(stage, weight);
+            maxWeight = Math.max(maxWeight, weight);
+        }
+        for (Stage stage : jobflow.getStages()) {
+            int weight = weights.get(stage);
+            LOG.debug("{}のクリティカルパス重みは{}/{}です", new Object[] {
+                    stage,
+                    weight,
+                    maxWeight,
+            });
+            stage.setCriticalPath(weight, maxWeight);
+        }
     }
 
     private List<Import> analyzeImports(StageGraph graph, Collection<StageModel> stageModels) {
@@ -329,6 +385,20 @@ public class JobflowAnalyzer {
         target.resolveSources(opposites);
     }
 
+    private void markIntermediate(List<Export> exports, List<Stage> stages) {
+        assert exports != null;
+        assert stages != null;
+        Set<Source> exported = new HashSet<Source>();
+        for (Export export : exports) {
+            exported.addAll(export.getResolvedSources());
+        }
+        for (Stage stage : stages) {
+            for (Delivery delivery : stage.getDeliveries()) {
+                delivery.setIntermediate(exported.contains(delivery) == false);
+            }
+        }
+    }
+
     private Map<FlowBlock.Output, Source> createOutputMap(
             List<Import> imports,
             List<Stage> stages) {
@@ -181,6 +181,10 @@ public class JobflowModel extends Compilable.Trait<CompiledJobflow> {
 
         private Set<SideData> sideData;
 
+        private int criticalPathWeight;
+
+        private int maxCriticalPathWeight;
+
         /**
          * インスタンスを生成する。
          * @param number このステージのステージ番号
@@ -247,6 +251,53 @@ public class JobflowModel extends Compilable.Trait<CompiledJobflow> {
             return sideData;
         }
 
+        /**
+         * このステージの見積もりコストを返す。
+         * <p>
+         * 見積もりコストはジョブフロー内のステージ間で比較するための相対値で、
+         * マップフェーズのみのステージは{@code 1}、
+         * シャッフルとレデュースフェーズを伴うステージは{@code 3}となる。
+         * </p>
+         * @return 見積もりコスト
+         */
+        public int getEstimatedCost() {
+            return reduceOrNull == null ? 1 : 3;
+        }
+
+        /**
+         * このステージを通る最長のパスの重み (見積もりコストの和) を返す。
+         * @return このステージを通る最長のパスの重み、未計算の場合は{@code 0}
+         */
+        public int getCriticalPathWeight() {
+            return criticalPathWeight;
+        }
+
+        /**
+         * このステージを含むジョブフローのクリティカルパスの重みを返す。
+         * <p>
+         * {@link #getCriticalPathWeight()}がこの値に等しい場合、
+         * このステージはクリティカルパス上にある。
+         * </p>
+         * @return ジョブフローのクリティカルパスの重み、未計算の場合は{@code 0}
+         */
+        public int getMaxCriticalPathWeight() {
+            return maxCriticalPathWeight;
+        }
+
+        /**
+         * このステージのクリティカルパスに関する情報を設定する。
+         * @param weight このステージを通る最長のパスの重み
+         * @param maxWeight ジョブフローのクリティカルパスの重み
+         * @throws IllegalArgumentException 引数が不正である場合
+         */
+        public void setCriticalPath(int weight, int maxWeight) {
+            if (weight < 0 || weight > maxWeight) {
+                throw new IllegalArgumentException();
+            }
+            this.criticalPathWeight = weight;
+            this.maxCriticalPathWeight = maxWeight;
+        }
+
         @Override
         public String toString() {
             return MessageFormat.format(
@@ -538,6 +589,8 @@ public class JobflowModel extends Compilable.Trait<CompiledJobflow> {
 
         private Set<Location> locations;
 
+        private boolean intermediate;
+
         /**
          * インスタンスを生成する。
          * @param outputs 関連する出力ポートの一覧
@@ -560,6 +613,25 @@ public class JobflowModel extends Compilable.Trait<CompiledJobflow> {
             return port.getDescription().getDataType();
         }
 
+        /**
+         * この成果物が後続のステージでのみ利用される場合に{@code true}を返す。
+         * <p>
+         * エクスポーターが読み出す成果物の場合は{@code false}となる。
+         * </p>
+         * @return 後続のステージでのみ利用される場合に{@code true}
+         */
+        public boolean isIntermediate() {
+            return intermediate;
+        }
+
+        /**
+         * この成果物が後続のステージでのみ利用されるかどうかを設定する。
+         * @param intermediate 後続のステージでのみ利用される場合に{@code true}
+         */
+        public void setIntermediate(boolean intermediate) {
+            this.intermediate = intermediate;
+        }
+
         @Override
         @SuppressWarnings("rawtypes")
         public Class<? extends InputFormat> getInputFormatType() {
@@ -106,6 +106,10 @@ public class StageClientEmitter {
 
         private static final char PATH_SEPARATOR = '/';
 
+        private static final int SHUFFLE_SELECTIVITY_DEFAULT = 100;
+
+        private static final int SHUFFLE_SELECTIVITY_WITH_COMBINER = 50;
+
         private FlowCompilingEnvironment environment;
 
         private Stage stage;
@@ -146,6 +150,7 @@ public class StageClientEmitter {
             members.add(createStageInputsMethod());
             members.add(createStageOutputsMethod());
             members.add(createStageResourcesMethod());
+            members.addAll(createSchedulingMethods());
             if (stage.getReduceOrNull() != null) {
                 members.addAll(createShuffleMethods());
             }
@@ -179,6 +184,29 @@ public class StageClientEmitter {
             return results;
         }
 
+        private List<MethodDeclaration> createSchedulingMethods() {
+            List<MethodDeclaration> results = new ArrayList<MethodDeclaration>();
+            results.add(createValueMethod(
+                    AbstractStageClient.METHOD_ESTIMATED_COST,
+                    t(int.class),
+                    Models.toLiteral(factory, stage.getEstimatedCost())));
+            results.add(createValueMethod(
+                    AbstractStageClient.METHOD_CRITICAL_PATH_WEIGHT,
+                    t(int.class),
+                    Models.toLiteral(factory, stage.getCriticalPathWeight())));
+            results.add(createValueMethod(
+                    AbstractStageClient.METHOD_MAX_CRITICAL_PATH_WEIGHT,
+                    t(int.class),
+                    Models.toLiteral(factory, stage.getMaxCriticalPathWeight())));
+            if (environment.getOptions().isEnableStageCompression()) {
+                results.add(createValueMethod(
+                        AbstractStageClient.METHOD_COMPRESSION_ENABLED,
+                        t(boolean.class),
+                        Models.toLiteral(factory, true)));
+            }
+            return results;
+        }
+
         private MethodDeclaration createStageOutputPath() {
             String path = environment
                 .getStageLocation(stage.getNumber())
@@ -243,7 +271,8 @@ public class StageClientEmitter {
                                     Models.toLiteral(factory, location.getName()),
                                     factory.newClassLiteral(t(NullWritable.class)),
                                     valueType,
-                                    factory.newClassLiteral(t(outputFormatType)))
+                                    factory.newClassLiteral(t(outputFormatType)),
+                                    Models.toLiteral(factory, process.isIntermediate()))
                             .toExpression())
                         .toStatement());
                 }
@@ -309,6 +338,10 @@ public class StageClientEmitter {
                         AbstractStageClient.METHOD_COMBINER_CLASS,
                         importer.toType(reduce.getCombinerTypeNameOrNull())));
             }
+            results.add(createValueMethod(
+                    AbstractStageClient.METHOD_SHUFFLE_SELECTIVITY,
+                    t(int.class),
+                    Models.toLiteral(factory, estimateShuffleSelectivity(reduce))));
             results.add(createClassLiteralMethod(
                     AbstractStageClient.METHOD_SORT_COMPARATOR_CLASS,
                     importer.toType(reduce.getSortComparatorTypeName())));
@@ -321,6 +354,21 @@ public class StageClientEmitter {
             return results;
         }
 
+        private int estimateShuffleSelectivity(Reduce reduce) {
+            assert reduce != null;
+            int profiled = environment.getOptions().getProfile().getShuffleSelectivity(
+                    environment.getFlowId(),
+                    stage.getNumber());
+            if (profiled >= 0) {
+                return profiled;
+            }
+            // 部分集約を行う場合、シャッフルされるデータはおおむね入力より小さくなる
+            if (reduce.getCombinerTypeNameOrNull() != null) {
+                return SHUFFLE_SELECTIVITY_WITH_COMBINER;
+            }
+            return SHUFFLE_SELECTIVITY_DEFAULT;
+        }
+
         private Javadoc createJavadoc() {
             return new JavadocBuilder(factory)
                 .text("ステージ{0}のジョブを実行するクライアント。", stage.getNumber())
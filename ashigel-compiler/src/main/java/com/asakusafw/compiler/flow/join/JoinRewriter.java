@@ -39,6 +39,7 @@ import com.asakusafw.compiler.flow.join.operator.SideDataJoin;
 import com.asakusafw.compiler.flow.join.operator.SideDataJoinUpdate;
 import com.asakusafw.compiler.flow.plan.FlowGraphUtil;
 import com.asakusafw.vocabulary.external.ImporterDescription;
+import com.asakusafw.vocabulary.external.ImporterDescription.DataSize;
 import com.asakusafw.vocabulary.flow.graph.FlowBoundary;
 import com.asakusafw.vocabulary.flow.graph.FlowElement;
 import com.asakusafw.vocabulary.flow.graph.FlowElementAttribute;
@@ -98,7 +99,13 @@ public class JoinRewriter extends FlowCompilingEnvironment.Initialized implement
             return false;
         }
         FlowCompilerOptions options = getEnvironment().getOptions();
-        switch (importer.getDataSize()) {
+        DataSize dataSize = importer.getDataSize();
+        DataSize profiled = options.getProfile().getInputDataSize(getEnvironment().getFlowId(), desc.getName());
+        if (profiled != null) {
+            LOG.debug("{}のデータサイズはプロファイル情報から{}とみなします", desc.getName(), profiled);
+            dataSize = profiled;
+        }
+        switch (dataSize) {
             case TINY:
                 return options.isHashJoinForTiny();
             case SMALL:
@@ -32,7 +32,12 @@ import com.asakusafw.vocabulary.operator.Logging.Level;
 import com.ashigeru.lang.java.model.syntax.Name;
 
 /**
- * デバッグロギングを除去する。
+ * 指定のレベルより詳細なロギング演算子を除去する。
+ * <p>
+ * 残すレベルは{@link com.asakusafw.compiler.flow.FlowCompilerOptions#getLoggingLevel()}で指定し、
+ * 指定がない場合はデバッグロギングのみを除去する
+ * ({@link com.asakusafw.compiler.flow.FlowCompilerOptions#isEnableDebugLogging()}が有効な場合は除去しない)。
+ * </p>
  */
 public class LoggingFilter extends FlowCompilingEnvironment.Initialized implements FlowGraphRewriter {
 
@@ -40,30 +45,46 @@ public class LoggingFilter extends FlowCompilingEnvironment.Initialized implemen
 
     @Override
     public boolean rewrite(FlowGraph graph) throws RewriteException {
-        if (getEnvironment().getOptions().isEnableDebugLogging()) {
+        Level threshold = getThreshold();
+        if (threshold == Level.DEBUG) {
             LOG.info("デバッグ用のロギング演算子は有効です");
             return false;
         }
-        LOG.info("デバッグ用のロギング演算子を削除しています");
-        return rewriteGraph(graph);
+        LOG.info("{}より詳細なレベルのロギング演算子を削除しています", threshold);
+        return rewriteGraph(graph, threshold);
     }
 
-    private boolean rewriteGraph(FlowGraph graph) {
+    private Level getThreshold() {
+        Level level = getEnvironment().getOptions().getLoggingLevel();
+        if (level != null) {
+            return level;
+        }
+        if (getEnvironment().getOptions().isEnableDebugLogging()) {
+            return Level.DEBUG;
+        }
+        return Level.INFO;
+    }
+
+    private boolean rewriteGraph(FlowGraph graph, Level threshold) {
+        assert graph != null;
+        assert threshold != null;
         boolean modified = false;
         for (FlowElement element : FlowGraphUtil.collectElements(graph)) {
             if (element.getDescription().getKind() == FlowElementKind.FLOW_COMPONENT) {
                 FlowPartDescription desc = (FlowPartDescription) element.getDescription();
-                rewriteGraph(desc.getFlowGraph());
-            } else if (isDebugLogging(element)) {
-                LOG.debug("デバッグ用のロギング演算子を削除します: {}", element);
+                modified |= rewriteGraph(desc.getFlowGraph(), threshold);
+            } else if (isDisabledLogging(element, threshold)) {
+                LOG.debug("無効なレベルのロギング演算子を削除します: {}", element);
                 FlowGraphUtil.skip(element);
+                modified = true;
             }
         }
         return modified;
     }
 
-    private boolean isDebugLogging(FlowElement element) {
+    private boolean isDisabledLogging(FlowElement element, Level threshold) {
         assert element != null;
+        assert threshold != null;
         if (element.getDescription().getKind() != FlowElementKind.OPERATOR) {
             return false;
         }
@@ -71,10 +92,12 @@ public class LoggingFilter extends FlowCompilingEnvironment.Initialized implemen
         if (desc.getDeclaration().getAnnotationType() != Logging.class) {
             return false;
         }
-        if (desc.getAttribute(Logging.Level.class) != Level.DEBUG) {
-            return false;
+        Level level = desc.getAttribute(Logging.Level.class);
+        if (level == null) {
+            level = Level.getDefault();
         }
-        return true;
+        // Logging.Level は重要なものから順に宣言されている
+        return level.compareTo(threshold) > 0;
     }
 
     @Override
@@ -19,6 +19,7 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
@@ -29,7 +30,16 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
 import java.util.zip.ZipEntry;
@@ -58,6 +68,12 @@ import com.ashigeru.lang.java.model.util.Filer;
 
 /**
  * ファイルシステム上に構成物を展開するパッケージャ。
+ * <p>
+ * 生成したソースプログラムはパッケージごとの単位に分割し、
+ * {@link com.asakusafw.compiler.flow.FlowCompilerOptions#getBuildParallelismPerJobflow()}
+ * の数まで並行してコンパイルする。
+ * コンパイルが完了した単位から順に、単位の順序を保ってパッケージに追加する。
+ * </p>
  */
 public class FilePackager
         extends FlowCompilingEnvironment.Initialized
@@ -67,14 +83,24 @@ public class FilePackager
 
     private static final Charset CHARSET = Charset.forName("UTF-8");
 
-    private static final String SOURCE_DIRECTORY = "src";
+    /**
+     * 作業ディレクトリ上で、生成したソースファイルを配置するディレクトリの名前。
+     */
+    public static final String SOURCE_DIRECTORY = "src";
+
+    /**
+     * 作業ディレクトリ上で、コンパイル結果とリソースを配置するディレクトリの名前。
+     */
+    public static final String CLASS_DIRECTORY = "bin";
 
-    private static final String CLASS_DIRECTORY = "bin";
+    private static final String UNIT_DIRECTORY = "units";
 
     private File sourceDirectory;
 
     private File classDirectory;
 
+    private File unitDirectory;
+
     private Filer sourceFiler;
 
     private Filer resourceFiler;
@@ -95,6 +121,7 @@ public class FilePackager
         this.resourceRepositories = resourceRepositories;
         this.sourceDirectory = new File(workingDirectory, SOURCE_DIRECTORY);
         this.classDirectory = new File(workingDirectory, CLASS_DIRECTORY);
+        this.unitDirectory = new File(workingDirectory, UNIT_DIRECTORY);
         this.sourceFiler = new Filer(sourceDirectory, CHARSET);
         this.resourceFiler = new Filer(classDirectory, CHARSET);
     }
@@ -128,16 +155,99 @@ public class FilePackager
 
     @Override
     public void build(OutputStream output) throws IOException {
-        compile();
+        List<List<File>> units = collectUnits();
+        int parallelism = Math.min(
+                getEnvironment().getOptions().getBuildParallelismPerJobflow(),
+                units.size());
+        if (parallelism <= 1) {
+            compile();
+            pack(output, Collections.<Future<CompileResult>>emptyList());
+            return;
+        }
+        JavaCompiler compiler = getJavaCompiler();
+        mkdir(unitDirectory);
+        LOG.info("{}にクラスファイルを生成しています ({}個の単位を最大{}個ずつ並行してコンパイル)",
+                new Object[] {
+                        unitDirectory,
+                        units.size(),
+                        parallelism,
+                });
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger();
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r);
+                thread.setName(MessageFormat.format(
+                        "compiler-build-{0}",
+                        counter.incrementAndGet()));
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+            List<Future<CompileResult>> results = new ArrayList<Future<CompileResult>>();
+            for (int i = 0, n = units.size(); i < n; i++) {
+                results.add(executor.submit(createUnitTask(
+                        compiler,
+                        units.get(i),
+                        new File(unitDirectory, String.valueOf(i)))));
+            }
+            pack(output, results);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Callable<CompileResult> createUnitTask(
+            final JavaCompiler compiler,
+            final List<File> sources,
+            final File destination) {
+        assert compiler != null;
+        assert sources != null;
+        assert destination != null;
+        return new Callable<CompileResult>() {
+            @Override
+            public CompileResult call() throws IOException {
+                LOG.debug("{}にクラスファイルを生成しています ({}個のファイル)",
+                        destination,
+                        sources.size());
+                return compile(compiler, sources, destination, false);
+            }
+        };
+    }
+
+    private void pack(OutputStream output, List<Future<CompileResult>> units) throws IOException {
+        assert output != null;
+        assert units != null;
         JarOutputStream jar = new JarOutputStream(output);
         try {
             LOG.info("コンパイル結果をパッケージングします");
+            Set<Location> saw = new HashSet<Location>();
+            boolean exists = false;
+            List<String> errors = new ArrayList<String>();
+            for (Future<CompileResult> unit : units) {
+                CompileResult result = await(unit);
+                report(result);
+                if (result.succeeded == false) {
+                    errors.add(result.errors);
+                } else if (errors.isEmpty() && result.destination.exists()) {
+                    List<ResourceRepository> repos = new ArrayList<ResourceRepository>();
+                    repos.add(new FileRepository(result.destination));
+                    exists |= drain(jar, repos, saw);
+                }
+            }
+            if (errors.isEmpty() == false) {
+                throw new IOException(MessageFormat.format(
+                        "{0}のコンパイルに失敗しました: {1}",
+                        getEnvironment().getTargetId(),
+                        errors));
+            }
             List<ResourceRepository> repos = new ArrayList<ResourceRepository>();
             if (classDirectory.exists()) {
                 repos.add(new FileRepository(classDirectory));
             }
             repos.addAll(resourceRepositories);
-            boolean exists = drain(jar, repos);
+            exists |= drain(jar, repos, saw);
             if (exists == false) {
                 LOG.warn("ビルド結果にファイルがひとつも存在しません");
                 addDummyEntry(jar);
@@ -151,6 +261,28 @@ public class FilePackager
         }
     }
 
+    private CompileResult await(Future<CompileResult> unit) throws IOException {
+        assert unit != null;
+        try {
+            return unit.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(MessageFormat.format(
+                    "{0}のコンパイルが中断されました",
+                    getEnvironment().getTargetId()));
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
     @Override
     public void packageSources(OutputStream output) throws IOException {
         LOG.info("生成されたソースプログラムをパッケージングします");
@@ -177,10 +309,17 @@ public class FilePackager
     private boolean drain(
             JarOutputStream jar,
             List<ResourceRepository> repos) throws IOException {
+        return drain(jar, repos, new HashSet<Location>());
+    }
+
+    private boolean drain(
+            JarOutputStream jar,
+            List<ResourceRepository> repos,
+            Set<Location> saw) throws IOException {
         assert jar != null;
         assert repos != null;
+        assert saw != null;
         boolean added = false;
-        Set<Location> saw = new HashSet<Location>();
         for (ResourceRepository repo : repos) {
             Cursor cursor = repo.createCursor();
             try {
@@ -234,31 +373,72 @@ public class FilePackager
 
     private void compile() throws IOException {
         LOG.debug("生成されたプログラムをクラスファイルに変換します");
+        JavaCompiler compiler = getJavaCompiler();
+        if (sourceDirectory.isDirectory() == false) {
+            return;
+        }
+        List<File> sources = collect(sourceDirectory, new ArrayList<File>());
+        if (sources.isEmpty()) {
+            return;
+        }
+        LOG.info("{}にクラスファイルを生成しています ({}個のファイル)",
+                classDirectory,
+                sources.size());
+        CompileResult result = compile(compiler, sources, classDirectory, true);
+        report(result);
+        if (result.succeeded == false) {
+            throw new IOException(MessageFormat.format(
+                    "{0}のコンパイルに失敗しました: {1}",
+                    getEnvironment().getTargetId(),
+                    result.errors));
+        }
+    }
+
+    private JavaCompiler getJavaCompiler() {
         JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
         if (compiler == null) {
             throw new IllegalStateException(
                     "この環境ではJavaコンパイラーを利用できません (JREにはコンパイラーが含まれていません)");
         }
+        return compiler;
+    }
+
+    /**
+     * 生成したソースプログラムを、互いに独立してコンパイルできる単位に分割する。
+     * <p>
+     * それぞれの単位は同一のパッケージに含まれるソースプログラムの一覧で、
+     * 他の単位のソースプログラムはソースパスから参照する。
+     * </p>
+     * @return 分割した単位の一覧
+     */
+    private List<List<File>> collectUnits() {
         if (sourceDirectory.isDirectory() == false) {
-            return;
+            return Collections.emptyList();
         }
-        List<File> sources = collect(sourceDirectory, new ArrayList<File>());
-        if (sources.isEmpty()) {
-            return;
+        Map<File, List<File>> packages = new TreeMap<File, List<File>>();
+        for (File file : collect(sourceDirectory, new ArrayList<File>())) {
+            File parent = file.getParentFile();
+            List<File> unit = packages.get(parent);
+            if (unit == null) {
+                unit = new ArrayList<File>();
+                packages.put(parent, unit);
+            }
+            unit.add(file);
         }
-        compile(compiler, sources);
+        return new ArrayList<List<File>>(packages.values());
     }
 
-    private void compile(JavaCompiler compiler, List<File> sources) throws IOException {
+    private CompileResult compile(
+            JavaCompiler compiler,
+            List<File> sources,
+            File destination,
+            boolean implicit) throws IOException {
         assert compiler != null;
         assert sources != null;
-
-        LOG.info("{}にクラスファイルを生成しています ({}個のファイル)",
-                classDirectory,
-                sources.size());
+        assert destination != null;
 
         mkdir(sourceDirectory);
-        mkdir(classDirectory);
+        mkdir(destination);
 
         DiagnosticCollector<JavaFileObject> diagnostics =
             new DiagnosticCollector<JavaFileObject>();
@@ -276,7 +456,11 @@ public class FilePackager
                     sourceDirectory.getCanonicalFile().toString());
             Collections.addAll(arguments,
                     "-d",
-                    classDirectory.getCanonicalFile().toString());
+                    destination.getCanonicalFile().toString());
+            if (implicit == false) {
+                // 他の単位に含まれるクラスは、それぞれのタスクでコンパイルする
+                Collections.addAll(arguments, "-implicit:none");
+            }
             Collections.addAll(arguments, "-Xlint:all");
 
             StringWriter errors = new StringWriter();
@@ -293,31 +477,34 @@ public class FilePackager
 
             Boolean succeeded = task.call();
             pw.close();
-            for (Diagnostic<?> diagnostic : diagnostics.getDiagnostics()) {
-                switch (diagnostic.getKind()) {
-                case ERROR:
-                case MANDATORY_WARNING:
-                    getEnvironment().error(diagnostic.getMessage(null));
-                    break;
-                case WARNING:
-                    LOG.warn(diagnostic.getMessage(null));
-                    break;
-                default:
-                    LOG.info(diagnostic.getMessage(null));
-                    break;
-                }
-            }
-            if (Boolean.TRUE.equals(succeeded) == false) {
-                throw new IOException(MessageFormat.format(
-                        "{0}のコンパイルに失敗しました: {1}",
-                        getEnvironment().getTargetId(),
-                        errors.toString()));
-            }
+            return new CompileResult(
+                    destination,
+                    Boolean.TRUE.equals(succeeded),
+                    errors.toString(),
+                    diagnostics.getDiagnostics());
         } finally {
             fileManager.close();
         }
     }
 
+    private void report(CompileResult result) {
+        assert result != null;
+        for (Diagnostic<?> diagnostic : result.diagnostics) {
+            switch (diagnostic.getKind()) {
+            case ERROR:
+            case MANDATORY_WARNING:
+                getEnvironment().error(diagnostic.getMessage(null));
+                break;
+            case WARNING:
+                LOG.warn(diagnostic.getMessage(null));
+                break;
+            default:
+                LOG.info(diagnostic.getMessage(null));
+                break;
+            }
+        }
+    }
+
     private List<File> collect(File file, List<File> sourceFiles) {
         if (file.isFile()) {
             LOG.trace("コンパイル対象として{}を発見しました", file);
@@ -329,4 +516,32 @@ public class FilePackager
         }
         return sourceFiles;
     }
+
+    /**
+     * コンパイルの結果。
+     */
+    private static final class CompileResult {
+
+        final File destination;
+
+        final boolean succeeded;
+
+        final String errors;
+
+        final List<Diagnostic<? extends JavaFileObject>> diagnostics;
+
+        CompileResult(
+                File destination,
+                boolean succeeded,
+                String errors,
+                List<Diagnostic<? extends JavaFileObject>> diagnostics) {
+            assert destination != null;
+            assert errors != null;
+            assert diagnostics != null;
+            this.destination = destination;
+            this.succeeded = succeeded;
+            this.errors = errors;
+            this.diagnostics = diagnostics;
+        }
+    }
 }
@@ -15,8 +15,12 @@
  */
 package com.asakusafw.compiler.flow.processor;
 
+import java.util.Collections;
+
 import com.asakusafw.compiler.common.TargetOperator;
 import com.asakusafw.compiler.flow.RendezvousProcessor;
+import com.asakusafw.compiler.flow.ShuffleDescription;
+import com.asakusafw.vocabulary.flow.graph.FlowElementDescription;
 import com.asakusafw.vocabulary.flow.graph.FlowElementPortDescription;
 import com.asakusafw.vocabulary.operator.MasterCheck;
 import com.ashigeru.lang.java.model.syntax.ModelFactory;
@@ -27,6 +31,22 @@ import com.ashigeru.lang.java.model.syntax.ModelFactory;
 @TargetOperator(MasterCheck.class)
 public class MasterCheckFlowProcessor extends RendezvousProcessor {
 
+    @Override
+    public ShuffleDescription getShuffleDescription(
+            FlowElementDescription element,
+            FlowElementPortDescription port) {
+        ShuffleDescription description = super.getShuffleDescription(element, port);
+        if (MasterKindFlowAnalyzer.isUnselectedMaster(element, port) == false) {
+            return description;
+        }
+        // マスタデータはその有無のみが利用される
+        return new ShuffleDescription(
+                description.getOutputType(),
+                description.getKeyInfo(),
+                description.getConverter(),
+                Collections.<String>emptyList());
+    }
+
     @Override
     public void emitRendezvous(Context context) {
         MasterKindFlowAnalyzer masterAnalyzer = new MasterKindFlowAnalyzer(context);
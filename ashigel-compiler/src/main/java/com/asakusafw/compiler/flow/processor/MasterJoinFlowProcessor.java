@@ -15,13 +15,19 @@
  */
 package com.asakusafw.compiler.flow.processor;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.List;
 
 import com.asakusafw.compiler.common.TargetOperator;
 import com.asakusafw.compiler.flow.RendezvousProcessor;
+import com.asakusafw.compiler.flow.ShuffleDescription;
+import com.asakusafw.vocabulary.flow.graph.FlowElementDescription;
 import com.asakusafw.vocabulary.flow.graph.FlowElementPortDescription;
 import com.asakusafw.vocabulary.flow.graph.OperatorDescription;
+import com.asakusafw.vocabulary.model.JoinedModel;
+import com.asakusafw.vocabulary.model.Property;
 import com.asakusafw.vocabulary.operator.MasterJoin;
 import com.ashigeru.lang.java.model.syntax.Expression;
 import com.ashigeru.lang.java.model.syntax.ModelFactory;
@@ -33,6 +39,63 @@ import com.ashigeru.lang.java.model.util.ExpressionBuilder;
 @TargetOperator(MasterJoin.class)
 public class MasterJoinFlowProcessor extends RendezvousProcessor {
 
+    @Override
+    public ShuffleDescription getShuffleDescription(
+            FlowElementDescription element,
+            FlowElementPortDescription port) {
+        ShuffleDescription description = super.getShuffleDescription(element, port);
+        if (MasterKindFlowAnalyzer.isUnselectedMaster(element, port) == false) {
+            return description;
+        }
+        FlowElementPortDescription joined = element.getOutputPorts().get(MasterJoin.ID_OUTPUT_JOINED);
+        List<String> properties = collectJoinedProperties(joined.getDataType(), port.getDataType());
+        if (properties == null) {
+            return description;
+        }
+        return new ShuffleDescription(
+                description.getOutputType(),
+                description.getKeyInfo(),
+                description.getConverter(),
+                properties);
+    }
+
+    /**
+     * 結合結果のモデルが、指定の結合元のモデルから取り込むプロパティの一覧を返す。
+     * @param joinedType 結合結果のモデルの型
+     * @param sourceType 結合元のモデルの型
+     * @return 取り込むプロパティ名の一覧、特定できない場合は{@code null}
+     */
+    private List<String> collectJoinedProperties(Type joinedType, Type sourceType) {
+        assert joinedType != null;
+        assert sourceType != null;
+        if ((joinedType instanceof Class<?>) == false) {
+            return null;
+        }
+        Class<?> joinedClass = (Class<?>) joinedType;
+        JoinedModel joinedModel = joinedClass.getAnnotation(JoinedModel.class);
+        if (joinedModel == null) {
+            return null;
+        }
+        if (joinedModel.from().type().equals(sourceType) == false
+                && joinedModel.join().type().equals(sourceType) == false) {
+            return null;
+        }
+        List<String> results = new ArrayList<String>();
+        for (Field field : joinedClass.getDeclaredFields()) {
+            Property property = field.getAnnotation(Property.class);
+            if (property == null) {
+                continue;
+            }
+            if (property.from().declaring().equals(sourceType)) {
+                results.add(property.from().name());
+            }
+            if (property.join().declaring().equals(sourceType)) {
+                results.add(property.join().name());
+            }
+        }
+        return results;
+    }
+
     @Override
     public void emitRendezvous(Context context) {
         MasterKindFlowAnalyzer masterAnalyzer = new MasterKindFlowAnalyzer(context);
@@ -22,6 +22,7 @@ import com.asakusafw.compiler.common.Precondition;
 import com.asakusafw.compiler.flow.FlowElementProcessor.DataObjectMirror;
 import com.asakusafw.compiler.flow.FlowElementProcessor.ListBufferMirror;
 import com.asakusafw.compiler.flow.RendezvousProcessor;
+import com.asakusafw.vocabulary.flow.graph.FlowElementDescription;
 import com.asakusafw.vocabulary.flow.graph.FlowElementPortDescription;
 import com.asakusafw.vocabulary.flow.graph.OperatorDescription;
 import com.asakusafw.vocabulary.flow.graph.OperatorHelper;
@@ -61,6 +62,29 @@ public class MasterKindFlowAnalyzer {
         }
     }
 
+    /**
+     * 指定のポートが、マスタ選択を行わない演算子のマスタ側の入力である場合のみ{@code true}を返す。
+     * <p>
+     * この場合、マスタデータはマスタ選択補助演算子に渡されないため、
+     * 演算子の定義から利用されるプロパティを特定できる。
+     * </p>
+     * @param element 対象の要素
+     * @param port 対象のポート
+     * @return マスタ選択を行わない演算子のマスタ側の入力である場合のみ{@code true}
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     */
+    public static boolean isUnselectedMaster(
+            FlowElementDescription element,
+            FlowElementPortDescription port) {
+        Precondition.checkMustNotBeNull(element, "element"); //$NON-NLS-1$
+        Precondition.checkMustNotBeNull(port, "port"); //$NON-NLS-1$
+        if (element.getAttribute(OperatorHelper.class) != null) {
+            return false;
+        }
+        List<FlowElementPortDescription> inputs = element.getInputPorts();
+        return inputs.isEmpty() == false && inputs.get(0).equals(port);
+    }
+
     /**
      * マスタデータが存在するか確認するための式を返す。
      * @return マスタデータが存在するか確認するための式
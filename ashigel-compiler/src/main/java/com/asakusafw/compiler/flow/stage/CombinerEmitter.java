@@ -88,7 +88,7 @@ public class CombinerEmitter {
      */
     public CompiledType emit(StageModel model) throws IOException {
         Precondition.checkMustNotBeNull(model, "model"); //$NON-NLS-1$
-        if (environment.getOptions().isEnableCombiner() == false) {
+        if (isCombinerEnabled(model) == false) {
             LOG.debug("Combinerは設定により無効化されています");
             return null;
         }
@@ -111,6 +111,18 @@ public class CombinerEmitter {
         return new CompiledType(name);
     }
 
+    private boolean isCombinerEnabled(StageModel model) {
+        assert model != null;
+        Boolean profiled = environment.getOptions().getProfile().getCombiner(
+                environment.getFlowId(),
+                model.getStageBlock().getStageNumber());
+        if (profiled != null) {
+            LOG.debug("{}のCombinerはプロファイル情報により{}となります", model, profiled);
+            return profiled;
+        }
+        return environment.getOptions().isEnableCombiner();
+    }
+
     private boolean canCombine(StageModel model) {
         assert model != null;
         for (ReduceUnit unit : model.getReduceUnits()) {
@@ -24,9 +24,13 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
 
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.mapreduce.TaskInputOutputContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.asakusafw.compiler.common.NameGenerator;
 import com.asakusafw.compiler.common.Precondition;
@@ -39,6 +43,7 @@ import com.asakusafw.compiler.flow.stage.StageModel.ResourceFragment;
 import com.asakusafw.compiler.flow.stage.StageModel.Sink;
 import com.asakusafw.compiler.flow.stage.StageModel.Unit;
 import com.asakusafw.runtime.core.Result;
+import com.asakusafw.runtime.flow.InstrumentedResult;
 import com.asakusafw.runtime.flow.Rendezvous;
 import com.asakusafw.runtime.flow.RuntimeResourceManager;
 import com.asakusafw.runtime.flow.VoidResult;
@@ -69,6 +74,17 @@ import com.ashigeru.util.graph.Graphs;
  */
 public class FragmentFlow {
 
+    static final Logger LOG = LoggerFactory.getLogger(FragmentFlow.class);
+
+    /**
+     * 1つのステージで計測する演算子の最大数。
+     * <p>
+     * 演算子ごとにカウンタグループを1つとカウンタを2つ利用するため、
+     * Hadoopのカウンタグループ数やカウンタ数の上限を超えないように制限する。
+     * </p>
+     */
+    static final int MAX_INSTRUMENTED_OPERATORS = 16;
+
     private final FlowCompilingEnvironment environment;
 
     private final ImportBuilder importer;
@@ -95,6 +111,8 @@ public class FragmentFlow {
 
     private final Graph<FragmentNode> dependencies;
 
+    private final Set<String> instrumented;
+
     /**
      * インスタンスを生成する。
      * @param environment 環境オブジェクト
@@ -123,6 +141,7 @@ public class FragmentFlow {
         this.units = units;
         this.shuffle = model.getShuffleModel();
         this.resources = createResources();
+        this.instrumented = selectInstrumented();
         this.dependencies = analyzeDependencies();
         resolveDependencies();
         this.resourceManager = createRuntimeResourceManager();
@@ -168,6 +187,38 @@ public class FragmentFlow {
         return results;
     }
 
+    private Set<String> selectInstrumented() {
+        if (environment.getOptions().isEnableInstrumentation() == false) {
+            return Collections.emptySet();
+        }
+        // 同じステージのマッパーとレデューサーが同じ演算子を選ぶよう、ステージ全体から名前の順に選ぶ
+        List<Unit<?>> all = new ArrayList<Unit<?>>();
+        all.addAll(stage.getMapUnits());
+        all.addAll(stage.getReduceUnits());
+        SortedSet<String> candidates = new TreeSet<String>();
+        for (Unit<?> unit : all) {
+            for (Fragment fragment : unit.getFragments()) {
+                for (FlowElementOutput output : fragment.getOutputPorts()) {
+                    candidates.add(environment.getCounterGroupName(output.getOwner().getDescription()));
+                }
+            }
+        }
+        Set<String> results = new HashSet<String>();
+        for (String name : candidates) {
+            if (results.size() >= MAX_INSTRUMENTED_OPERATORS) {
+                LOG.warn("ステージ{}で計測する演算子が上限({})に達したため、{}以降は計測しません",
+                        new Object[] {
+                                stage.getStageBlock().getStageNumber(),
+                                MAX_INSTRUMENTED_OPERATORS,
+                                name,
+                        });
+                break;
+            }
+            results.add(name);
+        }
+        return results;
+    }
+
     private void resolveDependencies() {
         assert dependencies != null;
         Graph<FragmentNode> tgraph = Graphs.transpose(dependencies);
@@ -420,10 +471,10 @@ public class FragmentFlow {
         for (FragmentNode node : Graphs.sortPostOrder(dependencies)) {
             switch (node.getKind()) {
             case LINE:
-                results.add(setupLine(node, (StageModel.Fragment) node.getValue()));
+                results.add(setupLine(node, context, (StageModel.Fragment) node.getValue()));
                 break;
             case RENDEZVOUS:
-                results.add(setupRendezvous(node, (StageModel.Fragment) node.getValue()));
+                results.add(setupRendezvous(node, context, (StageModel.Fragment) node.getValue()));
                 break;
             case SHUFFLE:
                 results.add(setupShuffle(node, context, (ShuffleModel.Segment) node.getValue()));
@@ -468,13 +519,14 @@ public class FragmentFlow {
         return results;
     }
 
-    private Statement setupLine(FragmentNode node, StageModel.Fragment value) {
+    private Statement setupLine(FragmentNode node, Expression context, StageModel.Fragment value) {
         assert node != null;
+        assert context != null;
         assert value != null;
         assert value.getInputPorts().size() == 1;
         FlowElementInput input = value.getInputPorts().get(0);
         Type type = importer.resolve(factory.newNamedType(value.getCompiled().getQualifiedName()));
-        List<Expression> arguments = resolveArguments(node, value);
+        List<Expression> arguments = resolveArguments(node, context, value);
         if (lines.containsKey(input)) {
             return new ExpressionBuilder(factory, factory.newThis())
                 .field(node.getName())
@@ -496,13 +548,14 @@ public class FragmentFlow {
         }
     }
 
-    private Statement setupRendezvous(FragmentNode node, StageModel.Fragment value) {
+    private Statement setupRendezvous(FragmentNode node, Expression context, StageModel.Fragment value) {
         assert node != null;
+        assert context != null;
         assert value != null;
         assert value.getInputPorts().isEmpty() == false;
         FlowElement element = value.getInputPorts().get(0).getOwner();
         Type type = importer.resolve(factory.newNamedType(value.getCompiled().getQualifiedName()));
-        List<Expression> arguments = resolveArguments(node, value);
+        List<Expression> arguments = resolveArguments(node, context, value);
         assert rendezvous.containsKey(element);
         return new ExpressionBuilder(factory, factory.newThis())
             .field(node.getName())
@@ -512,8 +565,12 @@ public class FragmentFlow {
             .toStatement();
     }
 
-    private List<Expression> resolveArguments(FragmentNode node, StageModel.Fragment fragment) {
+    private List<Expression> resolveArguments(
+            FragmentNode node,
+            Expression context,
+            StageModel.Fragment fragment) {
         assert node != null;
+        assert context != null;
         assert fragment != null;
         List<Expression> results = new ArrayList<Expression>();
         // TODO 引数の並び順に暗黙の前提: リソース一覧 -> 出力一覧
@@ -521,13 +578,39 @@ public class FragmentFlow {
             results.add(resolveResouce(resource));
         }
         for (FlowElementOutput output : fragment.getOutputPorts()) {
-            results.add(resolveArgument(
-                    output.getDescription().getDataType(),
-                    node.getDownstream(output)));
+            Set<FragmentNode> downstream = node.getDownstream(output);
+            Expression argument = resolveArgument(output.getDescription().getDataType(), downstream);
+            if (downstream.isEmpty() == false) {
+                String group = environment.getCounterGroupName(output.getOwner().getDescription());
+                if (instrumented.contains(group)) {
+                    argument = instrument(argument, context, output, group);
+                }
+            }
+            results.add(argument);
         }
         return results;
     }
 
+    private Expression instrument(
+            Expression argument,
+            Expression context,
+            FlowElementOutput output,
+            String group) {
+        assert argument != null;
+        assert context != null;
+        assert output != null;
+        assert group != null;
+        Type type = importer.resolve(factory.newParameterizedType(
+                Models.toType(factory, InstrumentedResult.class),
+                Collections.singletonList(Models.toType(factory, output.getDescription().getDataType()))));
+        return new TypeBuilder(factory, type)
+            .newObject(
+                    argument,
+                    context,
+                    Models.toLiteral(factory, group))
+            .toExpression();
+    }
+
     private Expression resolveResouce(ResourceFragment resource) {
         assert resource != null;
         SimpleName name = resources.get(resource);
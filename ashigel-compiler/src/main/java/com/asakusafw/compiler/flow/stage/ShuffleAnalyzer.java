@@ -278,6 +278,14 @@ public class ShuffleAnalyzer {
                     arrange));
         }
 
+        List<DataClass.Property> valueProperties = resolveValueProperties(
+                target,
+                terms,
+                desciption.getValuePropertiesOrNull());
+        if (valueProperties != null) {
+            LOG.debug("{}のシャッフルでは{}のみが転送されます", input, valueProperties);
+        }
+
         return new ShuffleModel.Segment(
                 elementId,
                 portId,
@@ -285,7 +293,38 @@ public class ShuffleAnalyzer {
                 input,
                 source,
                 target,
-                terms);
+                terms,
+                valueProperties);
+    }
+
+    private List<DataClass.Property> resolveValueProperties(
+            DataClass target,
+            List<ShuffleModel.Term> terms,
+            List<String> namesOrNull) {
+        assert target != null;
+        assert terms != null;
+        if (namesOrNull == null) {
+            return null;
+        }
+        Set<String> saw = new HashSet<String>();
+        List<DataClass.Property> results = new ArrayList<DataClass.Property>();
+        for (ShuffleModel.Term term : terms) {
+            if (saw.add(term.getSource().getName())) {
+                results.add(term.getSource());
+            }
+        }
+        for (String name : namesOrNull) {
+            DataClass.Property property = target.findProperty(name);
+            if (property == null) {
+                // 解析できないプロパティがある場合、安全のため全てのプロパティを転送する
+                LOG.debug("データクラス{}にはプロパティ{}が定義されていません", target, name);
+                return null;
+            }
+            if (saw.add(property.getName())) {
+                results.add(property);
+            }
+        }
+        return results;
     }
 
     private void error(String format, Object...args) {
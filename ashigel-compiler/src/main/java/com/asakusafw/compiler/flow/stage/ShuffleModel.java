@@ -108,6 +108,8 @@ public class ShuffleModel extends Compilable.Trait<CompiledShuffle> {
 
         private List<Term> terms;
 
+        private List<DataClass.Property> valueProperties;
+
         /**
          * インスタンスを生成する。
          * @param elementId 要素のシャッフル全体の通し番号
@@ -127,6 +129,31 @@ public class ShuffleModel extends Compilable.Trait<CompiledShuffle> {
                 DataClass source,
                 DataClass target,
                 List<Term> terms) {
+            this(elementId, portId, description, port, source, target, terms, null);
+        }
+
+        /**
+         * インスタンスを生成する。
+         * @param elementId 要素のシャッフル全体の通し番号
+         * @param portId ポートのシャッフル全体の通し番号
+         * @param description ポートごとのシャッフル記述
+         * @param port 実際のポート
+         * @param source シャッフル開始時の型
+         * @param target シャッフル終了時の型
+         * @param terms シャッフル時のキープロパティの一覧
+         * @param valuePropertiesOrNull
+         *     シャッフル時に転送するプロパティの一覧、全てのプロパティを転送する場合は{@code null}
+         * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+         */
+        public Segment(
+                int elementId,
+                int portId,
+                ShuffleDescription description,
+                FlowElementInput port,
+                DataClass source,
+                DataClass target,
+                List<Term> terms,
+                List<DataClass.Property> valuePropertiesOrNull) {
             Precondition.checkMustNotBeNull(description, "description"); //$NON-NLS-1$
             Precondition.checkMustNotBeNull(port, "port"); //$NON-NLS-1$
             Precondition.checkMustNotBeNull(source, "source"); //$NON-NLS-1$
@@ -139,6 +166,7 @@ public class ShuffleModel extends Compilable.Trait<CompiledShuffle> {
             this.source = source;
             this.target = target;
             this.terms = terms;
+            this.valueProperties = valuePropertiesOrNull;
         }
 
         /**
@@ -197,6 +225,17 @@ public class ShuffleModel extends Compilable.Trait<CompiledShuffle> {
             return terms;
         }
 
+        /**
+         * シャッフル時に転送するプロパティの一覧を返す。
+         * <p>
+         * ここに含まれないプロパティは、レデュース側で常に{@code null}となる。
+         * </p>
+         * @return シャッフル時に転送するプロパティの一覧、全てのプロパティを転送する場合は{@code null}
+         */
+        public List<DataClass.Property> getValuePropertiesOrNull() {
+            return valueProperties;
+        }
+
         /**
          * このセグメントに含まれる、指定の名前を持つキープロパティを返す。
          * @param propertyName 対象のプロパティ名
@@ -316,11 +316,17 @@ public class ShuffleValueEmitter {
                     .method("writeInt", v(segment.getPortId()))
                     .toStatement());
                 String fieldName = createPropertyName(segment);
-                cases.add(segment.getTarget().createWriter(
-                        new ExpressionBuilder(factory, factory.newThis())
-                            .field(fieldName)
-                            .toExpression(),
-                        out));
+                Expression field = new ExpressionBuilder(factory, factory.newThis())
+                    .field(fieldName)
+                    .toExpression();
+                List<DataClass.Property> properties = segment.getValuePropertiesOrNull();
+                if (properties == null) {
+                    cases.add(segment.getTarget().createWriter(field, out));
+                } else {
+                    for (DataClass.Property property : properties) {
+                        cases.add(property.createWriter(field, out));
+                    }
+                }
                 cases.add(factory.newBreakStatement());
             }
             cases.add(factory.newSwitchDefaultLabel());
@@ -366,11 +372,18 @@ public class ShuffleValueEmitter {
             for (Segment segment : model.getSegments()) {
                 cases.add(factory.newSwitchCaseLabel(v(segment.getPortId())));
                 String fieldName = createPropertyName(segment);
-                cases.add(segment.getTarget().createReader(
-                        new ExpressionBuilder(factory, factory.newThis())
-                            .field(fieldName)
-                            .toExpression(),
-                        in));
+                Expression field = new ExpressionBuilder(factory, factory.newThis())
+                    .field(fieldName)
+                    .toExpression();
+                List<DataClass.Property> properties = segment.getValuePropertiesOrNull();
+                if (properties == null) {
+                    cases.add(segment.getTarget().createReader(field, in));
+                } else {
+                    // 転送されないプロパティは、生成時の値 (null) のまま変更されない
+                    for (DataClass.Property property : properties) {
+                        cases.add(property.createReader(field, in));
+                    }
+                }
                 cases.add(factory.newBreakStatement());
             }
             cases.add(factory.newSwitchDefaultLabel());
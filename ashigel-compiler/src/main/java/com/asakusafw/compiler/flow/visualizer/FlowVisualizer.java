@@ -30,11 +30,22 @@ import com.asakusafw.vocabulary.flow.graph.FlowGraph;
  */
 public class FlowVisualizer {
 
-    private static final String PATH_FLOW_GRAPH = "META-INF/visualize/flowgraph.dot";
+    /**
+     * 可視化したグラフを書き出すディレクトリのパス。
+     * <p>
+     * グラフの要素にはコンパイルのたびに異なる識別子が割り当てられるため、
+     * このディレクトリの内容はコンパイルごとに変化する。
+     * </p>
+     */
+    public static final String OUTPUT_DIRECTORY = "META-INF/visualize";
+
+    private static final String PATH_FLOW_GRAPH = OUTPUT_DIRECTORY + "/flowgraph.dot";
+
+    private static final String PATH_STAGE_GRAPH = OUTPUT_DIRECTORY + "/stagegraph.dot";
 
-    private static final String PATH_STAGE_GRAPH = "META-INF/visualize/stagegraph.dot";
+    private static final String PATH_STAGE_PROFILE = OUTPUT_DIRECTORY + "/stagegraph-profile.dot";
 
-    private static final String PATH_STAGE_BLOCK = "META-INF/visualize/stageblock-{0}.dot";
+    private static final String PATH_STAGE_BLOCK = OUTPUT_DIRECTORY + "/stageblock-{0}.dot";
 
     private FlowCompilingEnvironment environment;
 
@@ -50,6 +61,10 @@ public class FlowVisualizer {
 
     /**
      * ステージグラフの構造を可視化して環境に書き出す。
+     * <p>
+     * 過去の実行結果から得られたプロファイルにこのフローの統計情報が含まれる場合、
+     * それらを重ねたグラフもあわせて書き出す。
+     * </p>
      * @param graph 対象のグラフ
      * @throws IOException 出力に失敗した場合
      * @throws IllegalArgumentException 引数に{@code null}が指定された場合
@@ -58,6 +73,13 @@ public class FlowVisualizer {
         Precondition.checkMustNotBeNull(graph, "graph"); //$NON-NLS-1$
         VisualGraph model = VisualAnalyzer.convertStageGraph(graph);
         emit(PATH_STAGE_GRAPH, false, model);
+        VisualProfile profile = new VisualProfile(
+                environment.getOptions().getProfile(),
+                environment.getFlowId(),
+                environment.getCounterGroupNames());
+        if (profile.isEmpty() == false) {
+            emit(PATH_STAGE_PROFILE, false, model, profile);
+        }
     }
 
     /**
@@ -85,11 +107,20 @@ public class FlowVisualizer {
     }
 
     private void emit(String path, boolean partial, VisualGraph model) throws IOException {
+        emit(path, partial, model, VisualProfile.EMPTY);
+    }
+
+    private void emit(
+            String path,
+            boolean partial,
+            VisualGraph model,
+            VisualProfile profile) throws IOException {
         assert path != null;
         assert model != null;
+        assert profile != null;
         OutputStream output = environment.openResource(null, path);
         try {
-            VisualGraphEmitter.emit(model, partial, output);
+            VisualGraphEmitter.emit(model, partial, profile, output);
         } finally {
             output.close();
         }
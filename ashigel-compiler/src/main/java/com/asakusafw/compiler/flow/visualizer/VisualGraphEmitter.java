@@ -23,6 +23,7 @@ import java.nio.charset.Charset;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -35,6 +36,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.asakusafw.compiler.common.Precondition;
+import com.asakusafw.compiler.flow.FlowProfile.StageMetric;
 import com.asakusafw.compiler.flow.plan.FlowBlock;
 import com.asakusafw.compiler.flow.visualizer.VisualNode.Kind;
 import com.asakusafw.vocabulary.flow.graph.FlowElement;
@@ -72,13 +74,31 @@ public final class VisualGraphEmitter {
      * @throws IllegalArgumentException 引数に{@code null}が指定された場合
      */
     public static void emit(VisualGraph graph, boolean partial, OutputStream stream) {
+        emit(graph, partial, VisualProfile.EMPTY, stream);
+    }
+
+    /**
+     * 指定のグラフに実行時の統計情報を重ねて、Graphviz dotの形式で指定のストリームに出力する。
+     * <p>
+     * ステージには経過時間、入出力レコード数、シャッフルデータ量、Reduceタスクの偏りを付記し、
+     * 経過時間の合計が最も長くなるステージの経路と、後続の演算子を除いた処理時間の長い演算子を強調する。
+     * </p>
+     * @param graph 対象のグラフ
+     * @param partial グラフだけで構造が完結しない場合に{@code true}
+     * @param profile 重ねる統計情報
+     * @param stream 出力先
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     */
+    public static void emit(VisualGraph graph, boolean partial, VisualProfile profile, OutputStream stream) {
         Precondition.checkMustNotBeNull(graph, "graph"); //$NON-NLS-1$
+        Precondition.checkMustNotBeNull(profile, "profile"); //$NON-NLS-1$
         Precondition.checkMustNotBeNull(stream, "stream"); //$NON-NLS-1$
         LOG.info("可視化したグラフを出力しています");
         EmitContext context = new EmitContext(stream);
         try {
             List<Relation> relations = analyzeRelations(graph, partial);
-            dump(context, graph.getNodes(), relations);
+            Highlight highlight = Highlight.analyze(graph, relations, profile);
+            dump(context, graph.getNodes(), relations, highlight);
         } finally {
             context.close();
         }
@@ -91,64 +111,74 @@ public final class VisualGraphEmitter {
         return result;
     }
 
-    private static void dump(EmitContext context, Set<VisualNode> nodes, List<Relation> relations) {
+    private static void dump(
+            EmitContext context,
+            Set<VisualNode> nodes,
+            List<Relation> relations,
+            Highlight highlight) {
         assert context != null;
         assert nodes != null;
         assert relations != null;
+        assert highlight != null;
         LOG.debug("グラフの構造を出力しています");
         context.put("digraph {");
         context.push();
-        dumpStructure(context, nodes);
-        dumpLabels(context, relations);
-        dumpRelations(context, relations);
+        dumpStructure(context, nodes, highlight);
+        dumpLabels(context, relations, highlight);
+        dumpRelations(context, relations, highlight);
         context.pop();
         context.put("}");
     }
 
-    private static void dumpLabels(EmitContext context, List<Relation> relations) {
+    private static void dumpLabels(EmitContext context, List<Relation> relations, Highlight highlight) {
         assert relations != null;
+        assert highlight != null;
         Set<UUID> saw = new HashSet<UUID>();
         for (Relation relation : relations) {
             if (saw.contains(relation.source.getResolved().getId()) == false) {
-                dumpLabel(context, relation.source.getResolved());
+                dumpLabel(context, relation.source.getResolved(), highlight);
                 saw.add(relation.source.getResolved().getId());
             }
             if (saw.contains(relation.source.getResolved().getId()) == false) {
-                dumpLabel(context, relation.source.getResolved());
+                dumpLabel(context, relation.source.getResolved(), highlight);
                 saw.add(relation.source.getResolved().getId());
             }
-            dumpLabel(context, relation.sink.getResolved());
+            dumpLabel(context, relation.sink.getResolved(), highlight);
         }
     }
 
-    private static void dumpLabel(EmitContext context, VisualNode node) {
+    private static void dumpLabel(EmitContext context, VisualNode node, Highlight highlight) {
         assert node != null;
+        assert highlight != null;
         if (node.getKind() == Kind.LABEL) {
-            StructureEmitter emitter = new StructureEmitter();
+            StructureEmitter emitter = new StructureEmitter(highlight);
             node.accept(emitter, context);
         }
     }
 
-    private static void dumpStructure(EmitContext context, Set<VisualNode> nodes) {
+    private static void dumpStructure(EmitContext context, Set<VisualNode> nodes, Highlight highlight) {
         assert context != null;
         assert nodes != null;
-        StructureEmitter emitter = new StructureEmitter();
+        assert highlight != null;
+        StructureEmitter emitter = new StructureEmitter(highlight);
         for (VisualNode node : nodes) {
             node.accept(emitter, context);
         }
     }
 
-    private static void dumpRelations(EmitContext context, List<Relation> relations) {
+    private static void dumpRelations(EmitContext context, List<Relation> relations, Highlight highlight) {
         assert context != null;
         assert relations != null;
+        assert highlight != null;
         for (Relation relation : relations) {
-            context.put("{0} -> {1} [label={2}];",
+            context.put("{0} -> {1} [label={2}{3}];",
                     toLiteral(relation.source.getResolved().getId().toString()),
                     toLiteral(relation.sink.getResolved().getId().toString()),
                     toLiteral(MessageFormat.format(
                             "{0}>{1}",
                             relation.source.name,
-                            relation.sink.name)));
+                            relation.sink.name)),
+                    highlight.isCritical(relation) ? ", color=red, penwidth=2" : "");
         }
     }
 
@@ -426,8 +456,11 @@ public final class VisualGraphEmitter {
 
     private static class StructureEmitter extends VisualNodeVisitor<Void, EmitContext, NoThrow> {
 
-        StructureEmitter() {
-            return;
+        private final Highlight highlight;
+
+        StructureEmitter(Highlight highlight) {
+            assert highlight != null;
+            this.highlight = highlight;
         }
 
         @Override
@@ -436,8 +469,12 @@ public final class VisualGraphEmitter {
                 context.put("subgraph {0} '{'",
                         toLiteral("cluster_" + node.getId().toString()));
                 context.push();
-                context.put("label = {0};", toLiteral(node.getLabel()));
+                context.put("label = {0};", toLiteral(highlight.getStageLabel(node)));
                 context.put("style = bold;");
+                if (highlight.isCritical(node)) {
+                    context.put("color = red;");
+                    context.put("penwidth = 3;");
+                }
             }
             for (VisualNode element : node.getNodes()) {
                 element.accept(this, context);
@@ -493,9 +530,12 @@ public final class VisualGraphEmitter {
                         toLiteral(element.getDescription().getName()));
                 break;
             case OPERATOR:
-                context.put("{0} [shape=box, label={1}];",
+                context.put("{0} [shape=box, label={1}{2}];",
                         toLiteral(node.getId().toString()),
-                        toLiteral(toOperatorName((OperatorDescription) element.getDescription())));
+                        toLiteral(highlight.getOperatorLabel(
+                                node,
+                                toOperatorName((OperatorDescription) element.getDescription()))),
+                        highlight.isHot(node) ? ", style=filled, fillcolor=\"#ff9999\"" : "");
                 break;
             case FLOW_COMPONENT:
                 context.put("{0} [shape=component, label={1}];",
@@ -533,6 +573,334 @@ public final class VisualGraphEmitter {
         }
     }
 
+    private static class Highlight {
+
+        private static final int HOT_OPERATOR_COUNT = 3;
+
+        private final VisualProfile profile;
+
+        private final Set<VisualGraph> criticalStages = new HashSet<VisualGraph>();
+
+        private final Set<Relation> criticalRelations = new HashSet<Relation>();
+
+        private final Set<VisualElement> hotOperators = new HashSet<VisualElement>();
+
+        private final Map<VisualElement, Long> exclusiveElapsed = new HashMap<VisualElement, Long>();
+
+        private Highlight(VisualProfile profile) {
+            assert profile != null;
+            this.profile = profile;
+        }
+
+        static Highlight analyze(VisualGraph graph, List<Relation> relations, VisualProfile profile) {
+            assert graph != null;
+            assert relations != null;
+            assert profile != null;
+            Highlight result = new Highlight(profile);
+            if (profile.isEmpty()) {
+                return result;
+            }
+            OwnerCollector owners = new OwnerCollector();
+            graph.accept(owners, null);
+            result.analyzeCriticalPath(owners, relations);
+            result.analyzeHotOperators(owners, relations);
+            return result;
+        }
+
+        private void analyzeCriticalPath(OwnerCollector owners, List<Relation> relations) {
+            assert owners != null;
+            assert relations != null;
+            Map<VisualGraph, Set<VisualGraph>> successors = new HashMap<VisualGraph, Set<VisualGraph>>();
+            for (Relation relation : relations) {
+                VisualGraph source = owners.stages.get(relation.source.getResolved());
+                VisualGraph sink = owners.stages.get(relation.sink.getResolved());
+                if (source == null || sink == null || source == sink) {
+                    continue;
+                }
+                Set<VisualGraph> targets = successors.get(source);
+                if (targets == null) {
+                    targets = new HashSet<VisualGraph>();
+                    successors.put(source, targets);
+                }
+                targets.add(sink);
+            }
+            Map<VisualGraph, Long> costs = new HashMap<VisualGraph, Long>();
+            VisualGraph current = null;
+            for (VisualGraph stage : new HashSet<VisualGraph>(owners.stages.values())) {
+                long cost = computeCost(stage, successors, costs);
+                if (cost > 0 && (current == null || cost > costs.get(current))) {
+                    current = stage;
+                }
+            }
+            while (current != null) {
+                criticalStages.add(current);
+                VisualGraph next = null;
+                Set<VisualGraph> targets = successors.get(current);
+                if (targets != null) {
+                    for (VisualGraph target : targets) {
+                        if (next == null || costs.get(target) > costs.get(next)) {
+                            next = target;
+                        }
+                    }
+                }
+                if (next != null && costs.get(next) <= 0) {
+                    next = null;
+                }
+                current = next;
+            }
+            for (Relation relation : relations) {
+                VisualGraph source = owners.stages.get(relation.source.getResolved());
+                VisualGraph sink = owners.stages.get(relation.sink.getResolved());
+                if (source != null && sink != null && source != sink
+                        && criticalStages.contains(source)
+                        && criticalStages.contains(sink)) {
+                    criticalRelations.add(relation);
+                }
+            }
+        }
+
+        private long computeCost(
+                VisualGraph stage,
+                Map<VisualGraph, Set<VisualGraph>> successors,
+                Map<VisualGraph, Long> costs) {
+            assert stage != null;
+            assert successors != null;
+            assert costs != null;
+            Long cached = costs.get(stage);
+            if (cached != null) {
+                return cached;
+            }
+            // 循環があっても停止するよう、計算中のステージは0として扱う
+            costs.put(stage, 0L);
+            long rest = 0;
+            Set<VisualGraph> targets = successors.get(stage);
+            if (targets != null) {
+                for (VisualGraph target : targets) {
+                    rest = Math.max(rest, computeCost(target, successors, costs));
+                }
+            }
+            long elapsed = Math.max(0, profile.getStageMetric(stage.getLabel(), StageMetric.ELAPSED));
+            long cost = elapsed + rest;
+            costs.put(stage, cost);
+            return cost;
+        }
+
+        private void analyzeHotOperators(OwnerCollector owners, List<Relation> relations) {
+            assert owners != null;
+            assert relations != null;
+            Map<VisualElement, Set<VisualElement>> successors = collectInlineSuccessors(owners, relations);
+            List<VisualElement> candidates = new ArrayList<VisualElement>();
+            for (VisualElement operator : owners.operators) {
+                long elapsed = getElapsed(operator);
+                if (elapsed < 0) {
+                    continue;
+                }
+                // 計測値は同じタスク内で続けて実行される後続の演算子を含むため、それらの分を差し引く
+                long downstream = 0;
+                Set<VisualElement> targets = successors.get(operator);
+                if (targets != null) {
+                    for (VisualElement target : targets) {
+                        downstream += Math.max(0, getElapsed(target));
+                    }
+                }
+                long exclusive = Math.max(0, elapsed - downstream);
+                exclusiveElapsed.put(operator, exclusive);
+                if (exclusive > 0) {
+                    candidates.add(operator);
+                }
+            }
+            Collections.sort(candidates, new Comparator<VisualElement>() {
+                @Override
+                public int compare(VisualElement o1, VisualElement o2) {
+                    long e1 = exclusiveElapsed.get(o1);
+                    long e2 = exclusiveElapsed.get(o2);
+                    if (e1 == e2) {
+                        return 0;
+                    }
+                    return e1 > e2 ? -1 : +1;
+                }
+            });
+            hotOperators.addAll(candidates.subList(0, Math.min(HOT_OPERATOR_COUNT, candidates.size())));
+        }
+
+        private Map<VisualElement, Set<VisualElement>> collectInlineSuccessors(
+                OwnerCollector owners,
+                List<Relation> relations) {
+            assert owners != null;
+            assert relations != null;
+            Set<VisualNode> operators = new HashSet<VisualNode>(owners.operators);
+            Map<VisualElement, Set<VisualElement>> results = new HashMap<VisualElement, Set<VisualElement>>();
+            for (Relation relation : relations) {
+                VisualNode source = relation.source.getResolved();
+                VisualNode sink = relation.sink.getResolved();
+                if (operators.contains(source) == false || operators.contains(sink) == false) {
+                    continue;
+                }
+                // 別のステージやシャッフルを挟む後続は、上流の計測値に含まれない
+                if (owners.stages.get(source) != owners.stages.get(sink) || isShuffled(relation.sink)) {
+                    continue;
+                }
+                Set<VisualElement> targets = results.get(source);
+                if (targets == null) {
+                    targets = new HashSet<VisualElement>();
+                    results.put((VisualElement) source, targets);
+                }
+                targets.add((VisualElement) sink);
+            }
+            return results;
+        }
+
+        private static boolean isShuffled(Port sink) {
+            assert sink != null;
+            for (FlowElementInput input : sink.element.getInputPorts()) {
+                if (input.getDescription().getName().equals(sink.name)) {
+                    return input.getDescription().getShuffleKey() != null;
+                }
+            }
+            return false;
+        }
+
+        long getElapsed(VisualElement operator) {
+            assert operator != null;
+            return profile.getOperatorElapsed(operator.getElement().getDescription());
+        }
+
+        boolean isCritical(VisualGraph stage) {
+            assert stage != null;
+            return criticalStages.contains(stage);
+        }
+
+        boolean isCritical(Relation relation) {
+            assert relation != null;
+            return criticalRelations.contains(relation);
+        }
+
+        boolean isHot(VisualElement operator) {
+            assert operator != null;
+            return hotOperators.contains(operator);
+        }
+
+        String getStageLabel(VisualGraph stage) {
+            assert stage != null;
+            assert stage.getLabel() != null;
+            String label = stage.getLabel();
+            if (profile.isEmpty()) {
+                return label;
+            }
+            StringBuilder buf = new StringBuilder(label);
+            long elapsed = profile.getStageMetric(label, StageMetric.ELAPSED);
+            if (elapsed >= 0) {
+                buf.append(MessageFormat.format("\nelapsed: {0,number,0.0}s", elapsed / 1000.0));
+            }
+            long recordsIn = profile.getStageMetric(label, StageMetric.INPUT_RECORDS);
+            long recordsOut = profile.getStageMetric(label, StageMetric.OUTPUT_RECORDS);
+            if (recordsIn >= 0 || recordsOut >= 0) {
+                buf.append(MessageFormat.format(
+                        "\nrecords: {0} -> {1}",
+                        toCount(recordsIn),
+                        toCount(recordsOut)));
+            }
+            long shuffle = profile.getStageMetric(label, StageMetric.SHUFFLE_BYTES);
+            if (shuffle >= 0) {
+                buf.append("\nshuffle: ");
+                buf.append(toBytes(shuffle));
+            }
+            long skew = profile.getStageMetric(label, StageMetric.SKEW);
+            if (skew >= 0) {
+                buf.append(MessageFormat.format("\nskew: {0}%", String.valueOf(skew)));
+            }
+            return buf.toString();
+        }
+
+        String getOperatorLabel(VisualElement operator, String label) {
+            assert operator != null;
+            assert label != null;
+            Long exclusive = exclusiveElapsed.get(operator);
+            if (exclusive == null) {
+                return label;
+            }
+            return MessageFormat.format(
+                    "{0}\n{1,number,0.000}s (self: {2,number,0.000}s)",
+                    label,
+                    getElapsed(operator) / 1000000000.0,
+                    exclusive / 1000000000.0);
+        }
+
+        private static String toCount(long value) {
+            if (value < 0) {
+                return "?";
+            }
+            return MessageFormat.format("{0,number,#,##0}", value);
+        }
+
+        private static String toBytes(long value) {
+            assert value >= 0;
+            String[] units = { "B", "KB", "MB", "GB", "TB" };
+            double scaled = value;
+            int unit = 0;
+            while (scaled >= 1024 && unit < units.length - 1) {
+                scaled /= 1024;
+                unit++;
+            }
+            return MessageFormat.format("{0,number,0.0}{1}", scaled, units[unit]);
+        }
+    }
+
+    private static class OwnerCollector extends VisualNodeVisitor<Void, VisualGraph, NoThrow> {
+
+        final Map<VisualNode, VisualGraph> stages = new HashMap<VisualNode, VisualGraph>();
+
+        final List<VisualElement> operators = new ArrayList<VisualElement>();
+
+        OwnerCollector() {
+            return;
+        }
+
+        @Override
+        protected Void visitGraph(VisualGraph context, VisualGraph node) {
+            VisualGraph owner = node.getLabel() == null ? context : node;
+            register(owner, node);
+            for (VisualNode element : node.getNodes()) {
+                element.accept(this, owner);
+            }
+            return null;
+        }
+
+        @Override
+        protected Void visitBlock(VisualGraph context, VisualBlock node) {
+            register(context, node);
+            for (VisualNode element : node.getNodes()) {
+                element.accept(this, context);
+            }
+            return null;
+        }
+
+        @Override
+        protected Void visitFlowPart(VisualGraph context, VisualFlowPart node) {
+            register(context, node);
+            for (VisualNode element : node.getNodes()) {
+                element.accept(this, context);
+            }
+            return null;
+        }
+
+        @Override
+        protected Void visitElement(VisualGraph context, VisualElement node) {
+            register(context, node);
+            if (node.getElement().getDescription().getKind() == FlowElementKind.OPERATOR) {
+                operators.add(node);
+            }
+            return null;
+        }
+
+        private void register(VisualGraph owner, VisualNode node) {
+            assert node != null;
+            if (owner != null) {
+                stages.put(node, owner);
+            }
+        }
+    }
+
     private static class EmitContext implements Closeable {
 
         private static final int INDENT_UNIT = 4;
@@ -0,0 +1,139 @@
+/**
+ * Copyright 2011 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.compiler.flow.visualizer;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.asakusafw.compiler.common.Naming;
+import com.asakusafw.compiler.common.Precondition;
+import com.asakusafw.compiler.flow.FlowProfile;
+import com.asakusafw.compiler.flow.FlowProfile.StageMetric;
+import com.asakusafw.vocabulary.flow.graph.FlowElementDescription;
+
+/**
+ * 可視化したグラフに重ねる実行時の統計情報。
+ * <p>
+ * 統計情報は{@link FlowProfile}に記録された過去の実行結果から取り出し、
+ * ステージは可視化モデル上のラベル ({@link Naming#getStageName(int)}) で対応付ける。
+ * </p>
+ */
+public class VisualProfile {
+
+    /**
+     * 情報を持たないプロファイル。
+     */
+    public static final VisualProfile EMPTY = new VisualProfile(
+            FlowProfile.EMPTY,
+            "",
+            Collections.<FlowElementDescription, String>emptyMap());
+
+    private final FlowProfile profile;
+
+    private final String flowId;
+
+    private final Map<FlowElementDescription, String> counterGroupNames;
+
+    private final Map<String, Integer> stageNumbers;
+
+    private final boolean hasOperators;
+
+    /**
+     * インスタンスを生成する。
+     * @param profile 過去の実行結果から得られたプロファイル情報
+     * @param flowId 対象のフローID
+     * @param counterGroupNames 演算子の記述とカウンタグループ名の対応表
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     * @see FlowProfile#getCounterGroupNames(com.asakusafw.vocabulary.flow.graph.FlowGraph)
+     */
+    public VisualProfile(
+            FlowProfile profile,
+            String flowId,
+            Map<FlowElementDescription, String> counterGroupNames) {
+        Precondition.checkMustNotBeNull(profile, "profile"); //$NON-NLS-1$
+        Precondition.checkMustNotBeNull(flowId, "flowId"); //$NON-NLS-1$
+        Precondition.checkMustNotBeNull(counterGroupNames, "counterGroupNames"); //$NON-NLS-1$
+        this.profile = profile;
+        this.flowId = flowId;
+        this.counterGroupNames = counterGroupNames;
+        this.stageNumbers = new HashMap<String, Integer>();
+        String stagePrefix = flowId + ".stage.";
+        String operatorPrefix = flowId + ".operator.";
+        boolean operators = false;
+        for (String key : profile.getEntries().keySet()) {
+            if (key.startsWith(stagePrefix)) {
+                String rest = key.substring(stagePrefix.length());
+                int separator = rest.indexOf('.');
+                if (separator < 0) {
+                    continue;
+                }
+                try {
+                    int stageNumber = Integer.parseInt(rest.substring(0, separator));
+                    stageNumbers.put(Naming.getStageName(stageNumber), stageNumber);
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+            } else if (key.startsWith(operatorPrefix)) {
+                operators = true;
+            }
+        }
+        this.hasOperators = operators;
+    }
+
+    /**
+     * このプロファイルが統計情報を持たない場合に{@code true}を返す。
+     * @return 統計情報を持たない場合に{@code true}
+     */
+    public boolean isEmpty() {
+        return stageNumbers.isEmpty() && hasOperators == false;
+    }
+
+    /**
+     * 指定のラベルを持つステージの統計値を返す。
+     * @param stageLabel ステージのラベル
+     * @param metric 統計値の種類
+     * @return 統計値、情報がない場合は負の値
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     */
+    public long getStageMetric(String stageLabel, StageMetric metric) {
+        Precondition.checkMustNotBeNull(stageLabel, "stageLabel"); //$NON-NLS-1$
+        Precondition.checkMustNotBeNull(metric, "metric"); //$NON-NLS-1$
+        Integer stageNumber = stageNumbers.get(stageLabel);
+        if (stageNumber == null) {
+            return -1;
+        }
+        return profile.getStageMetric(flowId, stageNumber, metric);
+    }
+
+    /**
+     * 指定の演算子の処理時間を返す。
+     * @param description 対象の演算子
+     * @return 処理時間のナノ秒数、情報がない場合は負の値
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     */
+    public long getOperatorElapsed(FlowElementDescription description) {
+        Precondition.checkMustNotBeNull(description, "description"); //$NON-NLS-1$
+        if (hasOperators == false) {
+            return -1;
+        }
+        String counterGroup = counterGroupNames.get(description);
+        if (counterGroup == null) {
+            counterGroup = FlowProfile.getCounterGroupName(description);
+        }
+        return profile.getOperatorElapsed(flowId, counterGroup);
+    }
+}
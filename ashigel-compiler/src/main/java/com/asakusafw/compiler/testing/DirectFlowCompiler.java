@@ -22,6 +22,7 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.slf4j.Logger;
@@ -39,6 +40,7 @@ import com.asakusafw.compiler.flow.Location;
 import com.asakusafw.compiler.flow.jobflow.CompiledStage;
 import com.asakusafw.compiler.flow.jobflow.JobflowModel;
 import com.asakusafw.compiler.flow.packager.FilePackager;
+import com.asakusafw.compiler.flow.visualizer.FlowVisualizer;
 import com.asakusafw.compiler.repository.ModelGenDataClassRepository;
 import com.asakusafw.compiler.repository.SpiExternalIoDescriptionProcessorRepository;
 import com.asakusafw.compiler.repository.SpiFlowElementProcessorRepository;
@@ -81,6 +83,51 @@ public final class DirectFlowCompiler {
             List<File> extraResources,
             ClassLoader serviceClassLoader,
             FlowCompilerOptions flowCompilerOptions) throws IOException {
+        return compile(
+                flowGraph,
+                batchId,
+                flowId,
+                basePackageName,
+                clusterWorkingDirectory,
+                localWorkingDirectory,
+                extraResources,
+                serviceClassLoader,
+                flowCompilerOptions,
+                null);
+    }
+
+    /**
+     * フロー部品やジョブフローををコンパイルして、JARのパッケージを作成する。
+     * <p>
+     * キャッシュが指定された場合、生成されたソースプログラムと追加リソースの内容が
+     * 以前のコンパイル時と同一であれば、Javaのコンパイルとパッケージングを省略して
+     * キャッシュからJARのパッケージを復元する。
+     * </p>
+     * @param flowGraph 対象フローの演算子グラフ
+     * @param batchId 対象バッチの識別子
+     * @param flowId 対象フローの識別子
+     * @param basePackageName 対象フローのプログラムを出力する既定のパッケージ名
+     * @param clusterWorkingDirectory 対象フローのプログラムが利用するクラスター上のディレクトリ
+     * @param localWorkingDirectory コンパイル時に利用するローカル環境のワーキングディレクトリ
+     * @param extraResources 追加リソースのディレクトリまたはZIPアーカイブの一覧
+     * @param serviceClassLoader サービス情報をロードするためのクラスローダ
+     * @param flowCompilerOptions フローDSLコンパイラのオプション設定一覧
+     * @param packageCacheOrNull JARのパッケージのキャッシュ、利用しない場合は{@code null}
+     * @return コンパイル結果
+     * @throws IOException コンパイルに失敗した場合
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     */
+    public static JobflowInfo compile(
+            FlowGraph flowGraph,
+            String batchId,
+            String flowId,
+            String basePackageName,
+            Location clusterWorkingDirectory,
+            File localWorkingDirectory,
+            List<File> extraResources,
+            ClassLoader serviceClassLoader,
+            FlowCompilerOptions flowCompilerOptions,
+            JobflowPackageCache packageCacheOrNull) throws IOException {
         Precondition.checkMustNotBeNull(flowGraph, "flowGraph"); //$NON-NLS-1$
         Precondition.checkMustNotBeNull(batchId, "batchId"); //$NON-NLS-1$
         Precondition.checkMustNotBeNull(flowId, "flowId"); //$NON-NLS-1$
@@ -114,11 +161,52 @@ public final class DirectFlowCompiler {
                 localWorkingDirectory,
                 Naming.getJobflowClassPackageName(flowId));
         compiler.collectSources(jobflowSources);
-        compiler.buildSources(jobflowPackage);
+        if (packageCacheOrNull == null) {
+            compiler.buildSources(jobflowPackage);
+        } else {
+            buildSources(
+                    compiler,
+                    localWorkingDirectory,
+                    extraResources,
+                    packageCacheOrNull,
+                    jobflowPackage);
+        }
 
         return toInfo(jobflow, jobflowSources, jobflowPackage);
     }
 
+    private static void buildSources(
+            FlowCompiler compiler,
+            File localWorkingDirectory,
+            List<File> extraResources,
+            JobflowPackageCache packageCache,
+            File jobflowPackage) throws IOException {
+        assert compiler != null;
+        assert localWorkingDirectory != null;
+        assert extraResources != null;
+        assert packageCache != null;
+        assert jobflowPackage != null;
+        List<File> inputs = new ArrayList<File>();
+        inputs.add(new File(localWorkingDirectory, FilePackager.SOURCE_DIRECTORY));
+        inputs.add(new File(localWorkingDirectory, FilePackager.CLASS_DIRECTORY));
+        inputs.addAll(extraResources);
+        // 可視化したグラフはコンパイルのたびに内容が変わるため、キーに含めない
+        String key = packageCache.computeKey(
+                inputs,
+                Collections.singleton(FlowVisualizer.OUTPUT_DIRECTORY + "/"));
+        if (packageCache.restore(key, jobflowPackage)) {
+            return;
+        }
+        compiler.buildSources(jobflowPackage);
+        try {
+            packageCache.store(key, jobflowPackage);
+        } catch (IOException e) {
+            LOG.warn(MessageFormat.format(
+                    "Failed to store the jobflow package to cache: {0}",
+                    jobflowPackage), e);
+        }
+    }
+
     /**
      * コンパイル済みのジョブフローを簡易実行計画に変換して返す。
      * @param jobflow 対象のジョブフロー
@@ -0,0 +1,346 @@
+/**
+ * Copyright 2011 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.compiler.testing;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.asakusafw.compiler.common.Precondition;
+import com.asakusafw.runtime.core.Result;
+
+/**
+ * 構築済みのジョブフローのパッケージを、入力の内容をキーとして保持するキャッシュ。
+ * <p>
+ * キーはジョブフローのパッケージの構築に利用する全てのファイルの内容から計算する。
+ * 同じ内容から構築されたパッケージはキャッシュから復元され、
+ * Javaのコンパイルとパッケージングを省略できる。
+ * </p>
+ * <p>
+ * 複数のプロセスが同じキャッシュディレクトリを共有してもよい。
+ * キャッシュの内容は自動的には削除されないため、必要に応じてディレクトリごと削除すること。
+ * </p>
+ */
+public class JobflowPackageCache {
+
+    static final Logger LOG = LoggerFactory.getLogger(JobflowPackageCache.class);
+
+    private static final Charset ENCODING = Charset.forName("UTF-8");
+
+    private static final String DIGEST_ALGORITHM = "SHA-1";
+
+    private static final String FORMAT_VERSION = "2";
+
+    private static final String EXTENSION = ".jar";
+
+    private static final Class<?>[] LIBRARY_CLASSES = {
+        JobflowPackageCache.class,
+        Result.class,
+    };
+
+    private static String libraryDigest;
+
+    private final File directory;
+
+    /**
+     * インスタンスを生成する。
+     * @param directory キャッシュを保持するディレクトリ
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     */
+    public JobflowPackageCache(File directory) {
+        Precondition.checkMustNotBeNull(directory, "directory"); //$NON-NLS-1$
+        this.directory = directory;
+    }
+
+    /**
+     * キャッシュを保持するディレクトリを返す。
+     * @return キャッシュを保持するディレクトリ
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * 指定のファイルの内容からキャッシュのキーを計算する。
+     * <p>
+     * ディレクトリが指定された場合、その配下の全てのファイルの相対パスと内容を利用する。
+     * 存在しないファイルは、存在しないこと自体をキーの一部とする。
+     * 入力の順序はキーに影響する。
+     * また、このコンパイラと実行時ライブラリの内容もキーの一部とする。
+     * </p>
+     * @param inputs パッケージの構築に利用するファイルまたはディレクトリの一覧
+     * @return 計算したキー
+     * @throws IOException ファイルの読み出しに失敗した場合
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     */
+    public String computeKey(List<File> inputs) throws IOException {
+        return computeKey(inputs, Collections.<String>emptySet());
+    }
+
+    /**
+     * 指定のファイルの内容からキャッシュのキーを計算する。
+     * <p>
+     * {@link #computeKey(List)}と同様だが、ディレクトリ配下の相対パスが
+     * {@code excludes}のいずれかで始まるファイルはキーの計算に利用しない。
+     * 相対パスの区切り文字には{@code /}を利用する。
+     * </p>
+     * @param inputs パッケージの構築に利用するファイルまたはディレクトリの一覧
+     * @param excludes キーの計算から除外する相対パスの接頭辞の一覧
+     * @return 計算したキー
+     * @throws IOException ファイルの読み出しに失敗した場合
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     */
+    public String computeKey(List<File> inputs, Collection<String> excludes) throws IOException {
+        Precondition.checkMustNotBeNull(inputs, "inputs"); //$NON-NLS-1$
+        Precondition.checkMustNotBeNull(excludes, "excludes"); //$NON-NLS-1$
+        MessageDigest digest = createDigest();
+        update(digest, FORMAT_VERSION);
+        update(digest, System.getProperty("java.specification.version", ""));
+        update(digest, getLibraryDigest());
+        byte[] buffer = new byte[4096];
+        for (File input : inputs) {
+            Precondition.checkMustNotBeNull(input, "inputs[]"); //$NON-NLS-1$
+            if (input.isDirectory()) {
+                update(digest, "D");
+                digestDirectory(digest, input, "", excludes, buffer);
+            } else if (input.isFile()) {
+                update(digest, "F");
+                digestFile(digest, input, buffer);
+            } else {
+                update(digest, "N");
+            }
+        }
+        return toHexString(digest.digest());
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static synchronized String getLibraryDigest() throws IOException {
+        if (libraryDigest != null) {
+            return libraryDigest;
+        }
+        // ライブラリを更新した際に古いパッケージを利用しないよう、コンパイラと実行時ライブラリの内容を含める
+        MessageDigest digest = createDigest();
+        byte[] buffer = new byte[4096];
+        for (Class<?> aClass : LIBRARY_CLASSES) {
+            File library = DirectFlowCompiler.toLibraryPath(aClass);
+            if (library == null) {
+                update(digest, "?" + aClass.getName());
+            } else if (library.isDirectory()) {
+                update(digest, "D");
+                digestDirectory(digest, library, "", Collections.<String>emptySet(), buffer);
+            } else {
+                update(digest, "F");
+                digestFile(digest, library, buffer);
+            }
+        }
+        libraryDigest = toHexString(digest.digest());
+        return libraryDigest;
+    }
+
+    private static void digestDirectory(
+            MessageDigest digest,
+            File current,
+            String prefix,
+            Collection<String> excludes,
+            byte[] buffer) throws IOException {
+        assert digest != null;
+        assert current != null;
+        assert prefix != null;
+        assert excludes != null;
+        assert buffer != null;
+        File[] children = current.listFiles();
+        if (children == null) {
+            throw new IOException(MessageFormat.format(
+                    "Failed to list files in {0}",
+                    current));
+        }
+        Arrays.sort(children);
+        for (File child : children) {
+            String path = prefix + child.getName();
+            if (child.isDirectory()) {
+                path = path + "/";
+            }
+            if (isExcluded(path, excludes)) {
+                continue;
+            }
+            if (child.isDirectory()) {
+                digestDirectory(digest, child, path, excludes, buffer);
+            } else {
+                update(digest, path);
+                digestFile(digest, child, buffer);
+            }
+        }
+    }
+
+    private static boolean isExcluded(String path, Collection<String> excludes) {
+        assert path != null;
+        assert excludes != null;
+        for (String exclude : excludes) {
+            if (path.startsWith(exclude)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void digestFile(MessageDigest digest, File file, byte[] buffer) throws IOException {
+        assert digest != null;
+        assert file != null;
+        assert buffer != null;
+        update(digest, String.valueOf(file.length()));
+        InputStream input = new FileInputStream(file);
+        try {
+            while (true) {
+                int read = input.read(buffer);
+                if (read < 0) {
+                    break;
+                }
+                digest.update(buffer, 0, read);
+            }
+        } finally {
+            input.close();
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        assert digest != null;
+        assert value != null;
+        digest.update(value.getBytes(ENCODING));
+        digest.update((byte) 0);
+    }
+
+    private static String toHexString(byte[] bytes) {
+        assert bytes != null;
+        StringBuilder buf = new StringBuilder();
+        for (byte b : bytes) {
+            buf.append(String.format("%02x", b & 0xff));
+        }
+        return buf.toString();
+    }
+
+    /**
+     * 指定のキーに対応するパッケージをキャッシュから復元する。
+     * @param key 対象のキー
+     * @param destination 復元先のファイル
+     * @return 復元した場合は{@code true}、キャッシュに存在しない場合は{@code false}
+     * @throws IOException 復元に失敗した場合
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     */
+    public boolean restore(String key, File destination) throws IOException {
+        Precondition.checkMustNotBeNull(key, "key"); //$NON-NLS-1$
+        Precondition.checkMustNotBeNull(destination, "destination"); //$NON-NLS-1$
+        File cached = getEntry(key);
+        if (cached.isFile() == false) {
+            LOG.debug("ジョブフローのパッケージがキャッシュに存在しません: {}", key);
+            return false;
+        }
+        LOG.info("ジョブフローのパッケージをキャッシュから復元します: {} -> {}", cached, destination);
+        copy(cached, destination);
+        return true;
+    }
+
+    /**
+     * 指定のキーに対応するパッケージをキャッシュに保存する。
+     * <p>
+     * 保存に失敗してもキャッシュの内容が壊れることはなく、
+     * 以降の{@link #restore(String, File)}は単に{@code false}を返す。
+     * </p>
+     * @param key 対象のキー
+     * @param source 保存するパッケージ
+     * @throws IOException 保存に失敗した場合
+     * @throws IllegalArgumentException 引数に{@code null}が指定された場合
+     */
+    public void store(String key, File source) throws IOException {
+        Precondition.checkMustNotBeNull(key, "key"); //$NON-NLS-1$
+        Precondition.checkMustNotBeNull(source, "source"); //$NON-NLS-1$
+        if (directory.isDirectory() == false && directory.mkdirs() == false) {
+            throw new IOException(MessageFormat.format(
+                    "Failed to create {0}",
+                    directory));
+        }
+        File cached = getEntry(key);
+        File temporary = File.createTempFile(key, ".tmp", directory);
+        boolean stored = false;
+        try {
+            copy(source, temporary);
+            stored = temporary.renameTo(cached) || cached.isFile();
+        } finally {
+            if (temporary.exists() && temporary.delete() == false) {
+                LOG.warn("一時ファイルの削除に失敗しました: {}", temporary);
+            }
+        }
+        if (stored) {
+            LOG.info("ジョブフローのパッケージをキャッシュに保存しました: {}", cached);
+        } else {
+            LOG.warn("ジョブフローのパッケージをキャッシュに保存できませんでした: {}", cached);
+        }
+    }
+
+    private File getEntry(String key) {
+        assert key != null;
+        return new File(directory, key + EXTENSION);
+    }
+
+    private void copy(File source, File destination) throws IOException {
+        assert source != null;
+        assert destination != null;
+        File parent = destination.getAbsoluteFile().getParentFile();
+        if (parent != null && parent.isDirectory() == false && parent.mkdirs() == false) {
+            throw new IOException(MessageFormat.format(
+                    "Failed to create {0}",
+                    parent));
+        }
+        InputStream input = new FileInputStream(source);
+        try {
+            OutputStream output = new FileOutputStream(destination);
+            try {
+                byte[] buffer = new byte[4096];
+                while (true) {
+                    int read = input.read(buffer);
+                    if (read < 0) {
+                        break;
+                    }
+                    output.write(buffer, 0, read);
+                }
+            } finally {
+                output.close();
+            }
+        } finally {
+            input.close();
+        }
+    }
+}
@@ -111,7 +111,20 @@ public class BatchCompilerTest {
      */
     @Test
     public void join() throws Exception {
-        BatchInfo info = tester.compileBatch(JoinBatch.class);
+        join(tester.compileBatch(JoinBatch.class));
+    }
+
+    /**
+     * 合流付きのバッチを、ジョブフローごとに並行してパッケージングする。
+     * @throws Exception テストに失敗した場合
+     */
+    @Test
+    public void join_parallel() throws Exception {
+        tester.options().setJobflowParallelism(4);
+        join(tester.compileBatch(JoinBatch.class));
+    }
+
+    private void join(BatchInfo info) throws Exception {
         ModelOutput<Ex1> output = tester.openOutput(Ex1.class, tester.getImporter(info, "first"));
 
         Ex1 ex1 = new Ex1();
@@ -0,0 +1,137 @@
+/**
+ * Copyright 2011 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.compiler.flow;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.asakusafw.compiler.flow.FlowProfile.StageMetric;
+import com.asakusafw.vocabulary.external.ImporterDescription.DataSize;
+import com.asakusafw.vocabulary.flow.graph.FlowElementDescription;
+import com.asakusafw.vocabulary.operator.Identity;
+
+/**
+ * Test for {@link FlowProfile}.
+ */
+public class FlowProfileTest {
+
+    /**
+     * プロファイルを読み出す。
+     * @throws Exception if occur
+     */
+    @Test
+    public void load() throws Exception {
+        FlowProfile profile = FlowProfile.load(new StringReader(
+                "# comment\n"
+                + "flow.input.tiny.bytes = 1024\n"
+                + "flow.input.small.bytes=20971520\n"
+                + "flow.input.large.bytes=1073741824\n"
+                + "flow.stage.1.selectivity=30\n"
+                + "flow.stage.1.combiner=true\n"
+                + "\n"
+                + "flow.stage.2.combiner=false\n"));
+        assertThat(profile.getInputDataSize("flow", "tiny"), is(DataSize.TINY));
+        assertThat(profile.getInputDataSize("flow", "small"), is(DataSize.SMALL));
+        assertThat(profile.getInputDataSize("flow", "large"), is(DataSize.LARGE));
+        assertThat(profile.getInputDataSize("flow", "unknown"), is(nullValue()));
+        assertThat(profile.getInputDataSize("other", "tiny"), is(nullValue()));
+        assertThat(profile.getShuffleSelectivity("flow", 1), is(30));
+        assertThat(profile.getShuffleSelectivity("flow", 2), is(-1));
+        assertThat(profile.getCombiner("flow", 1), is(Boolean.TRUE));
+        assertThat(profile.getCombiner("flow", 2), is(Boolean.FALSE));
+        assertThat(profile.getCombiner("flow", 3), is(nullValue()));
+    }
+
+    /**
+     * ステージの実行時統計を読み出す。
+     * @throws Exception if occur
+     */
+    @Test
+    public void stageMetric() throws Exception {
+        FlowProfile profile = FlowProfile.load(new StringReader(
+                "flow.stage.1.elapsed=12345\n"
+                + "flow.stage.1.records.in=1000\n"
+                + "flow.stage.1.records.out=200\n"
+                + "flow.stage.1.shuffle.bytes=4096\n"
+                + "flow.stage.1.skew=350\n"));
+        assertThat(profile.getStageMetric("flow", 1, StageMetric.ELAPSED), is(12345L));
+        assertThat(profile.getStageMetric("flow", 1, StageMetric.INPUT_RECORDS), is(1000L));
+        assertThat(profile.getStageMetric("flow", 1, StageMetric.OUTPUT_RECORDS), is(200L));
+        assertThat(profile.getStageMetric("flow", 1, StageMetric.SHUFFLE_BYTES), is(4096L));
+        assertThat(profile.getStageMetric("flow", 1, StageMetric.SKEW), is(350L));
+        assertThat(profile.getStageMetric("flow", 2, StageMetric.ELAPSED), is(-1L));
+        assertThat(profile.getStageMetric("other", 1, StageMetric.ELAPSED), is(-1L));
+    }
+
+    /**
+     * 演算子ごとに一意なカウンタグループ名を割り当てる。
+     * @throws Exception if occur
+     */
+    @Test
+    public void counterGroupNames() throws Exception {
+        FlowGraphGenerator gen = new FlowGraphGenerator();
+        gen.defineInput("in");
+        gen.defineOperator("op1", "in", "out");
+        gen.defineOperator("op2", "in", "out");
+        gen.defineOutput("out");
+        gen.connect("in", "op1").connect("op1", "op2").connect("op2", "out");
+
+        Map<FlowElementDescription, String> names = FlowProfile.getCounterGroupNames(gen.toGraph());
+        assertThat(names.size(), is(2));
+        assertThat(names.get(gen.desc("op1")), is(Identity.class.getName() + "#op1.1"));
+        assertThat(names.get(gen.desc("op2")), is(Identity.class.getName() + "#op2.1"));
+
+        FlowProfile profile = FlowProfile.load(new StringReader(
+                "flow.operator." + names.get(gen.desc("op1")) + ".nanos=100\n"));
+        assertThat(profile.getOperatorElapsed("flow", names.get(gen.desc("op1"))), is(100L));
+        assertThat(profile.getOperatorElapsed("flow", names.get(gen.desc("op2"))), is(-1L));
+    }
+
+    /**
+     * 不正な値は無視される。
+     * @throws Exception if occur
+     */
+    @Test
+    public void invalid() throws Exception {
+        FlowProfile profile = FlowProfile.load(new StringReader(
+                "flow.input.a.bytes=many\n"
+                + "no separator\n"));
+        assertThat(profile.getInputDataSize("flow", "a"), is(nullValue()));
+        assertThat(profile.getEntries().size(), is(1));
+    }
+
+    /**
+     * プロファイルはキーの順に書き出される。
+     * @throws Exception if occur
+     */
+    @Test
+    public void store() throws Exception {
+        FlowProfile profile = FlowProfile.load(new StringReader(
+                "b=2\n"
+                + "c=3\n"
+                + "a=1\n"));
+        StringWriter writer = new StringWriter();
+        profile.store(writer);
+        String separator = System.getProperty("line.separator");
+        assertThat(writer.toString(), is("a=1" + separator + "b=2" + separator + "c=3" + separator));
+    }
+}
@@ -152,5 +152,11 @@ public class JobflowAnalyzerTest extends JobflowCompilerTestRoot {
         List<Delivery> st2d = st2.getDeliveries();
         assertThat(st2d.size(), is(1));
         assertThat(epilogue.getResolvedSources().contains(st2d.get(0)), is(true));
+
+        int total = st1.getEstimatedCost() + st2.getEstimatedCost();
+        assertThat(st1.getCriticalPathWeight(), is(total));
+        assertThat(st1.getMaxCriticalPathWeight(), is(total));
+        assertThat(st2.getCriticalPathWeight(), is(total));
+        assertThat(st2.getMaxCriticalPathWeight(), is(total));
     }
 }
@@ -163,6 +163,57 @@ public class FilePackagerTest extends JobflowCompilerTestRoot {
         }
     }
 
+    /**
+     * 複数のパッケージを並行してビルドする。
+     * @throws Exception テストに失敗した場合
+     */
+    @Test
+    public void build_parallel() throws Exception {
+        Set<String> entries = new HashSet<String>();
+
+        environment.getOptions().setBuildParallelism(4);
+        FilePackager packager = new FilePackager(
+                folder.newFolder(),
+                Arrays.<ResourceRepository>asList());
+        packager.initialize(environment);
+
+        emit(packager, java("com.example", "Hello", null));
+        emit(packager, java("com.example.a", "A", "com.example.Hello"));
+        emit(packager, java("com.example.b", "B", "com.example.a.A"));
+        emit(packager, java("com.example.c", "C", "com.example.Hello"));
+        write(packager, "com.example.a", "messages.properties", "key=value");
+        build(entries, packager);
+        assertThat(entries, hasItem("com/example/Hello.class"));
+        assertThat(entries, hasItem("com/example/a/A.class"));
+        assertThat(entries, hasItem("com/example/b/B.class"));
+        assertThat(entries, hasItem("com/example/c/C.class"));
+        assertThat(entries, hasItem("com/example/a/messages.properties"));
+    }
+
+    /**
+     * 並行してビルドする際に、一部のパッケージでエラーが出る。
+     * @throws Exception テストに失敗した場合
+     */
+    @Test
+    public void build_parallel_error() throws Exception {
+        Set<String> entries = new HashSet<String>();
+
+        environment.getOptions().setBuildParallelism(4);
+        FilePackager packager = new FilePackager(
+                folder.newFolder(),
+                Arrays.<ResourceRepository>asList());
+        packager.initialize(environment);
+
+        emit(packager, java("com.example.a", "A", null));
+        emit(packager, java("com.example.b", "B", "com.example.Missing"));
+        try {
+            build(entries, packager);
+            fail();
+        } catch (IOException e) {
+            assertThat(environment.hasError(), is(true));
+        }
+    }
+
     private void build(Set<String> entries, FilePackager packager)
             throws IOException {
         ByteArrayOutputStream output = new ByteArrayOutputStream();
@@ -206,9 +257,13 @@ public class FilePackagerTest extends JobflowCompilerTestRoot {
     }
 
     private CompilationUnit java(String name) {
+        return java("com.example", name, null);
+    }
+
+    private CompilationUnit java(String pkg, String name, String superClassOrNull) {
         ModelFactory f = Models.getModelFactory();
         return f.newCompilationUnit(
-                f.newPackageDeclaration(Models.toName(f, "com.example")),
+                f.newPackageDeclaration(Models.toName(f, pkg)),
                 Collections.<ImportDeclaration>emptyList(),
                 Collections.singletonList(f.newClassDeclaration(
                         null,
@@ -217,7 +272,9 @@ public class FilePackagerTest extends JobflowCompilerTestRoot {
                             .toAttributes(),
                         f.newSimpleName(name),
                         Collections.<TypeParameterDeclaration>emptyList(),
-                        null,
+                        superClassOrNull == null
+                            ? null
+                            : f.newNamedType(Models.toName(f, superClassOrNull)),
                         Collections.<Type>emptyList(),
                         Collections.<TypeBodyDeclaration>emptyList())),
                 Collections.<Comment>emptyList());
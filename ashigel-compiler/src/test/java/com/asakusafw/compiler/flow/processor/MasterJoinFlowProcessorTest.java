@@ -127,6 +127,64 @@ public class MasterJoinFlowProcessorTest {
         assertThat(joinedList.get(3).getSid2(), is(6L));
     }
 
+    /**
+     * マスタ側の値を結合結果に必要なプロパティだけに絞ってシャッフルしても、
+     * 結合結果にはマスタの値が正しく取り込まれることを確認する。
+     * @throws Exception テストが失敗した場合
+     */
+    @Test
+    public void projection() throws Exception {
+        TestInput<Ex1> in1 = tester.input(Ex1.class, "Ex1");
+        TestInput<Ex2> in2 = tester.input(Ex2.class, "ex2");
+        TestOutput<ExJoined> joined = tester.output(ExJoined.class, "joined");
+        TestOutput<Ex2> missing = tester.output(Ex2.class, "missing");
+
+        Ex1 ex1 = new Ex1();
+        Ex2 ex2 = new Ex2();
+
+        ex1.setSid(100);
+        ex1.setValue(10);
+        ex1.setStringAsString("not-projected");
+        in1.add(ex1);
+        ex2.setSid(1);
+        ex2.setValue(10);
+        in2.add(ex2);
+
+        ex1.setSid(200);
+        ex1.setValue(20);
+        ex1.setStringAsString("not-projected");
+        in1.add(ex1);
+        ex2.setSid(2);
+        ex2.setValue(20);
+        in2.add(ex2);
+        ex2.setSid(3);
+        ex2.setValue(20);
+        in2.add(ex2);
+
+        assertThat(tester.runFlow(new MasterJoinFlowTrivial(
+                in1.flow(), in2.flow(),
+                joined.flow(), missing.flow())), is(true));
+
+        List<ExJoined> joinedList = joined.toList(new Comparator<ExJoined>() {
+            @Override
+            public int compare(ExJoined o1, ExJoined o2) {
+                return o1.getSid2Option().compareTo(o2.getSid2Option());
+            }
+        });
+        assertThat(joinedList.size(), is(3));
+        assertThat(missing.toList().size(), is(0));
+
+        assertThat(joinedList.get(0).getSid1(), is(100L));
+        assertThat(joinedList.get(0).getSid2(), is(1L));
+        assertThat(joinedList.get(0).getValue(), is(10));
+        assertThat(joinedList.get(1).getSid1(), is(200L));
+        assertThat(joinedList.get(1).getSid2(), is(2L));
+        assertThat(joinedList.get(1).getValue(), is(20));
+        assertThat(joinedList.get(2).getSid1(), is(200L));
+        assertThat(joinedList.get(2).getSid2(), is(3L));
+        assertThat(joinedList.get(2).getValue(), is(20));
+    }
+
     /**
      * セレクタつきのテスト。
      * @throws Exception テストが失敗した場合
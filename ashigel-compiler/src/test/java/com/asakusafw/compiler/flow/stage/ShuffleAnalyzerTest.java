@@ -19,16 +19,21 @@ import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
 
 import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 
 import org.junit.Test;
 
+import com.asakusafw.compiler.flow.DataClass;
 import com.asakusafw.compiler.flow.JobflowCompilerTestRoot;
 import com.asakusafw.compiler.flow.example.NoShuffleStage;
 import com.asakusafw.compiler.flow.example.SimpleShuffleStage;
 import com.asakusafw.compiler.flow.plan.StageBlock;
 import com.asakusafw.compiler.flow.plan.StageGraph;
+import com.asakusafw.compiler.flow.processor.flow.MasterJoinFlowTrivial;
 import com.asakusafw.compiler.flow.stage.ShuffleAnalyzer;
 import com.asakusafw.compiler.flow.stage.ShuffleModel;
 import com.asakusafw.compiler.flow.stage.ShuffleModel.Arrangement;
@@ -78,5 +83,34 @@ public class ShuffleAnalyzerTest extends JobflowCompilerTestRoot {
         assertThat(grouping.getArrangement(), is(Arrangement.GROUPING));
         assertThat(grouping.getSource().getName(), is("string"));
         assertThat(grouping.getSource().getType(), equalTo((Type) StringOption.class));
+        assertThat(segment.getValuePropertiesOrNull(), is(nullValue()));
+    }
+
+    /**
+     * マスタ結合のマスタ側は、結合結果に取り込まれるプロパティのみ転送する。
+     */
+    @Test
+    public void masterJoinProjection() {
+        StageGraph graph = jfToStageGraph(MasterJoinFlowTrivial.class);
+        assertThat(graph.getStages().size(), is(1));
+        StageBlock target = graph.getStages().get(0);
+
+        ShuffleAnalyzer analyzer = new ShuffleAnalyzer(environment);
+        ShuffleModel analyzed = analyzer.analyze(target);
+        assertThat(analyzed, not(nullValue()));
+
+        List<Segment> segments = analyzed.getSegments();
+        assertThat(segments.size(), is(2));
+
+        List<DataClass.Property> master = segments.get(0).getValuePropertiesOrNull();
+        assertThat(master, not(nullValue()));
+        Set<String> names = new HashSet<String>();
+        for (DataClass.Property property : master) {
+            names.add(property.getName());
+        }
+        assertThat(names, is((Set<String>) new HashSet<String>(Arrays.asList("sid", "value"))));
+
+        List<DataClass.Property> tx = segments.get(1).getValuePropertiesOrNull();
+        assertThat(tx, is(nullValue()));
     }
 }
@@ -0,0 +1,183 @@
+/**
+ * Copyright 2011 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.compiler.flow.visualizer;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.asakusafw.compiler.common.Naming;
+import com.asakusafw.compiler.flow.FlowGraphGenerator;
+import com.asakusafw.compiler.flow.FlowProfile;
+import com.asakusafw.vocabulary.flow.graph.FlowElement;
+import com.asakusafw.vocabulary.flow.graph.FlowElementDescription;
+
+/**
+ * Test for {@link VisualGraphEmitter}.
+ */
+public class VisualGraphEmitterTest {
+
+    /**
+     * 経過時間の合計が最も長いステージの経路を強調する。
+     * @throws Exception if occur
+     */
+    @Test
+    public void criticalPath() throws Exception {
+        FlowGraphGenerator gen = new FlowGraphGenerator();
+        gen.defineInput("in");
+        gen.defineOperator("a", "in", "out");
+        gen.defineOperator("b", "in", "out");
+        gen.defineOperator("c", "in", "out");
+        gen.defineOutput("out1");
+        gen.defineOutput("out2");
+        gen.connect("in", "a").connect("a", "b").connect("a", "c");
+        gen.connect("b", "out1").connect("c", "out2");
+
+        VisualGraph stage1 = stage(1, gen.get("in"), gen.get("a"));
+        VisualGraph stage2 = stage(2, gen.get("b"), gen.get("out1"));
+        VisualGraph stage3 = stage(3, gen.get("c"), gen.get("out2"));
+        Map<String, String> entries = new HashMap<String, String>();
+        entries.put("flow.stage.1.elapsed", "10000");
+        entries.put("flow.stage.2.elapsed", "5000");
+        entries.put("flow.stage.3.elapsed", "50000");
+
+        String dot = emit(gen, entries, stage1, stage2, stage3);
+        assertThat(dot, isCritical(stage1, dot), is(true));
+        assertThat(dot, isCritical(stage2, dot), is(false));
+        assertThat(dot, isCritical(stage3, dot), is(true));
+    }
+
+    /**
+     * 後続の演算子を除いた処理時間の長い演算子を強調する。
+     * @throws Exception if occur
+     */
+    @Test
+    public void hotOperators() throws Exception {
+        FlowGraphGenerator gen = new FlowGraphGenerator();
+        gen.defineInput("in");
+        gen.defineOperator("a", "in", "out");
+        gen.defineOperator("b", "in", "out");
+        gen.defineOperator("c", "in", "out");
+        gen.defineOperator("d", "in", "out");
+        gen.defineOutput("out");
+        gen.connect("in", "a").connect("a", "b").connect("b", "c").connect("c", "d").connect("d", "out");
+
+        Map<VisualElement, String> operators = new HashMap<VisualElement, String>();
+        Set<VisualNode> nodes = new HashSet<VisualNode>();
+        nodes.add(new VisualElement(gen.get("in")));
+        nodes.add(new VisualElement(gen.get("out")));
+        for (String name : new String[] { "a", "b", "c", "d" }) {
+            VisualElement element = new VisualElement(gen.get(name));
+            operators.put(element, name);
+            nodes.add(element);
+        }
+        VisualGraph stage = new VisualGraph(Naming.getStageName(1), nodes);
+        Map<String, String> entries = new HashMap<String, String>();
+        // 計測値は後続の演算子を含む: a=5, b=35, c=40, d=20
+        entries.put(nanos(gen, "a"), "100");
+        entries.put(nanos(gen, "b"), "95");
+        entries.put(nanos(gen, "c"), "60");
+        entries.put(nanos(gen, "d"), "20");
+
+        String dot = emit(gen, entries, stage);
+        Set<String> hot = new HashSet<String>();
+        for (Map.Entry<VisualElement, String> entry : operators.entrySet()) {
+            if (isHot(entry.getKey(), dot)) {
+                hot.add(entry.getValue());
+            }
+        }
+        assertThat(dot, hot, is(set("b", "c", "d")));
+    }
+
+    private VisualGraph stage(int stageNumber, FlowElement... elements) {
+        Set<VisualNode> nodes = new HashSet<VisualNode>();
+        for (FlowElement element : elements) {
+            nodes.add(new VisualElement(element));
+        }
+        return new VisualGraph(Naming.getStageName(stageNumber), nodes);
+    }
+
+    private String nanos(FlowGraphGenerator gen, String name) {
+        Map<FlowElementDescription, String> names = FlowProfile.getCounterGroupNames(gen.toGraph());
+        return "flow.operator." + names.get(gen.desc(name)) + ".nanos";
+    }
+
+    private String emit(
+            FlowGraphGenerator gen,
+            Map<String, String> entries,
+            VisualGraph... stages) throws Exception {
+        Set<VisualNode> nodes = new HashSet<VisualNode>();
+        for (VisualGraph stage : stages) {
+            nodes.add(stage);
+        }
+        VisualGraph graph = new VisualGraph(null, nodes);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        VisualGraphEmitter.emit(
+                graph,
+                false,
+                new VisualProfile(
+                        new FlowProfile(entries),
+                        "flow",
+                        FlowProfile.getCounterGroupNames(gen.toGraph())),
+                output);
+        return new String(output.toByteArray(), VisualGraphEmitter.ENCODING);
+    }
+
+    private boolean isCritical(VisualGraph stage, String dot) {
+        String[] lines = dot.split("\r?\n");
+        for (int i = 0; i < lines.length; i++) {
+            if (lines[i].contains("cluster_" + stage.getId()) == false) {
+                continue;
+            }
+            for (int j = i + 1; j < lines.length; j++) {
+                String line = lines[j].trim();
+                if (line.equals("}")) {
+                    break;
+                }
+                if (line.equals("color = red;")) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        throw new AssertionError(stage.getLabel());
+    }
+
+    private boolean isHot(VisualElement operator, String dot) {
+        String prefix = VisualGraphEmitter.toLiteral(operator.getId().toString()) + " [shape=box";
+        for (String line : dot.split("\r?\n")) {
+            if (line.trim().startsWith(prefix)) {
+                return line.contains("fillcolor");
+            }
+        }
+        throw new AssertionError(operator);
+    }
+
+    private Set<String> set(String... values) {
+        Set<String> results = new HashSet<String>();
+        for (String value : values) {
+            results.add(value);
+        }
+        return results;
+    }
+}
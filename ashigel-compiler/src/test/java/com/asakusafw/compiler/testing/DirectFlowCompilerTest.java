@@ -19,8 +19,10 @@ import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
@@ -283,6 +285,60 @@ public class DirectFlowCompilerTest {
         assertThat(results.get(0).getValue(), is(31));
     }
 
+    /**
+     * 同じジョブフローを再度コンパイルすると、パッケージがキャッシュから復元される。
+     * @throws Exception コンパイル中に例外が発生した場合
+     */
+    @Test
+    public void packageCache() throws Exception {
+        List<File> classpath = Arrays.asList(new File[] {
+                DirectFlowCompiler.toLibraryPath(ValueOption.class),
+                DirectFlowCompiler.toLibraryPath(Ex1.class),
+        });
+        TestInput<Ex1> in = tester.input(Ex1.class, "ex1");
+        TestOutput<Ex1> out = tester.output(Ex1.class, "ex1");
+        File cacheDirectory = temporary.newFolder();
+        JobflowPackageCache cache = new JobflowPackageCache(cacheDirectory);
+
+        JobflowInfo first = DirectFlowCompiler.compile(
+                tester.analyzeFlow(new UpdateFlowSimple(in.flow(), out.flow())),
+                "simple",
+                "simple",
+                "com.example",
+                Location.fromPath(HadoopDriver.RUNTIME_WORK_ROOT, '/'),
+                temporary.newFolder(),
+                classpath,
+                getClass().getClassLoader(),
+                FlowCompilerOptions.load(System.getProperties()),
+                cache);
+        assertThat(first.getPackageFile().isFile(), is(true));
+        File[] entries = cacheDirectory.listFiles();
+        assertThat(entries.length, is(1));
+
+        // 復元されたことを確認するため、キャッシュの内容を目印に置き換える
+        byte[] marker = "cached".getBytes("UTF-8");
+        OutputStream output = new FileOutputStream(entries[0]);
+        try {
+            output.write(marker);
+        } finally {
+            output.close();
+        }
+
+        JobflowInfo second = DirectFlowCompiler.compile(
+                tester.analyzeFlow(new UpdateFlowSimple(in.flow(), out.flow())),
+                "simple",
+                "simple",
+                "com.example",
+                Location.fromPath(HadoopDriver.RUNTIME_WORK_ROOT, '/'),
+                temporary.newFolder(),
+                classpath,
+                getClass().getClassLoader(),
+                FlowCompilerOptions.load(System.getProperties()),
+                cache);
+        assertThat(cacheDirectory.listFiles().length, is(1));
+        assertThat(second.getPackageFile().length(), is((long) marker.length));
+    }
+
     private Class<?> load(File file, String className) {
         try {
             URLClassLoader loader = new URLClassLoader(new URL[] { file.toURI().toURL() });
@@ -0,0 +1,159 @@
+/**
+ * Copyright 2011 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.compiler.testing;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.asakusafw.compiler.util.TemporaryFolder;
+
+/**
+ * Test for {@link JobflowPackageCache}.
+ */
+public class JobflowPackageCacheTest {
+
+    /**
+     * テンポラリフォルダ。
+     */
+    @Rule
+    public TemporaryFolder temporary = new TemporaryFolder();
+
+    /**
+     * 同じ内容からは同じキーが計算される。
+     * @throws Exception if occur
+     */
+    @Test
+    public void computeKey_stable() throws Exception {
+        JobflowPackageCache cache = new JobflowPackageCache(temporary.newFolder());
+        File a = temporary.newFolder();
+        write(new File(a, "com/example/Hello.java"), "class Hello {}");
+        write(new File(a, "META-INF/MANIFEST.MF"), "Manifest-Version: 1.0");
+        File b = temporary.newFolder();
+        write(new File(b, "META-INF/MANIFEST.MF"), "Manifest-Version: 1.0");
+        write(new File(b, "com/example/Hello.java"), "class Hello {}");
+
+        String key = cache.computeKey(Arrays.asList(a));
+        assertThat(key, is(cache.computeKey(Arrays.asList(a))));
+        assertThat(key, is(cache.computeKey(Arrays.asList(b))));
+    }
+
+    /**
+     * 内容が変化した場合は異なるキーが計算される。
+     * @throws Exception if occur
+     */
+    @Test
+    public void computeKey_modified() throws Exception {
+        JobflowPackageCache cache = new JobflowPackageCache(temporary.newFolder());
+        File a = temporary.newFolder();
+        File source = new File(a, "com/example/Hello.java");
+        write(source, "class Hello {}");
+        String key = cache.computeKey(Arrays.asList(a));
+
+        write(source, "class Hello { int a; }");
+        assertThat(cache.computeKey(Arrays.asList(a)), not(key));
+
+        write(source, "class Hello {}");
+        assertThat(cache.computeKey(Arrays.asList(a)), is(key));
+
+        assertThat(source.renameTo(new File(a, "com/example/World.java")), is(true));
+        assertThat(cache.computeKey(Arrays.asList(a)), not(key));
+    }
+
+    /**
+     * ファイルの有無や入力の順序はキーに影響する。
+     * @throws Exception if occur
+     */
+    @Test
+    public void computeKey_inputs() throws Exception {
+        JobflowPackageCache cache = new JobflowPackageCache(temporary.newFolder());
+        File a = temporary.newFolder();
+        write(new File(a, "a.txt"), "a");
+        File b = temporary.newFolder();
+        write(new File(b, "b.txt"), "b");
+        File missing = new File(a, "missing");
+
+        String key = cache.computeKey(Arrays.asList(a, b));
+        assertThat(cache.computeKey(Arrays.asList(b, a)), not(key));
+        assertThat(cache.computeKey(Arrays.asList(a, b, missing)), not(key));
+        assertThat(cache.computeKey(Collections.<File>emptyList()), not(key));
+    }
+
+    /**
+     * 除外したパスの内容はキーに影響しない。
+     * @throws Exception if occur
+     */
+    @Test
+    public void computeKey_excludes() throws Exception {
+        JobflowPackageCache cache = new JobflowPackageCache(temporary.newFolder());
+        File a = temporary.newFolder();
+        write(new File(a, "com/example/Hello.class"), "Hello");
+        File dot = new File(a, "META-INF/visualize/flowgraph.dot");
+        write(dot, "digraph { a }");
+        List<String> excludes = Arrays.asList("META-INF/visualize/");
+
+        String key = cache.computeKey(Arrays.asList(a), excludes);
+        write(dot, "digraph { b }");
+        assertThat(cache.computeKey(Arrays.asList(a), excludes), is(key));
+        assertThat(cache.computeKey(Arrays.asList(a)), not(key));
+
+        write(new File(a, "com/example/Hello.class"), "World");
+        assertThat(cache.computeKey(Arrays.asList(a), excludes), not(key));
+    }
+
+    /**
+     * 保存したパッケージを復元する。
+     * @throws Exception if occur
+     */
+    @Test
+    public void restore() throws Exception {
+        File directory = new File(temporary.newFolder(), "cache");
+        JobflowPackageCache cache = new JobflowPackageCache(directory);
+        File source = new File(temporary.newFolder(), "jobflow-testing.jar");
+        write(source, "Hello, world!");
+
+        File restored = new File(temporary.newFolder(), "restored/jobflow-testing.jar");
+        assertThat(cache.restore("testing", restored), is(false));
+        assertThat(restored.exists(), is(false));
+
+        cache.store("testing", source);
+        assertThat(cache.restore("testing", restored), is(true));
+        assertThat(restored.length(), is(source.length()));
+        assertThat(directory.list().length, is(1));
+
+        assertThat(cache.restore("other", restored), is(false));
+    }
+
+    private void write(File file, String contents) throws IOException {
+        file.getParentFile().mkdirs();
+        OutputStream output = new FileOutputStream(file);
+        try {
+            output.write(contents.getBytes("UTF-8"));
+        } finally {
+            output.close();
+        }
+    }
+}